@@ -0,0 +1,41 @@
+package org.bouncycastle.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmark suites with the GC profiler attached, so allocation rate is reported
+ * alongside throughput.
+ * <p>
+ * Usage: BenchmarkRunner [include-regexp...] - with no arguments every suite is run.
+ * </p>
+ */
+public class BenchmarkRunner
+{
+    public static void main(String[] args)
+        throws RunnerException
+    {
+        OptionsBuilder builder = new OptionsBuilder();
+
+        if (args.length == 0)
+        {
+            builder.include("org.bouncycastle.benchmark.*");
+        }
+        else
+        {
+            for (int i = 0; i != args.length; i++)
+            {
+                builder.include(args[i]);
+            }
+        }
+
+        Options options = builder
+            .addProfiler(GCProfiler.class)
+            .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,139 @@
+package org.bouncycastle.benchmark.crypto;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.modes.ChaCha20Poly1305;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.GCMSIVBlockCipher;
+import org.bouncycastle.crypto.modes.OCBBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Pack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One-shot AEAD encryption and decryption of a whole payload for the modes in crypto.modes.
+ * <p>
+ * Encryption uses a fresh nonce for every operation as the nonce-misuse checks require, decryption
+ * re-uses a ciphertext prepared during setup.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AEADBenchmark
+{
+    @Param({"GCM", "GCM-SIV", "CCM", "OCB", "ChaCha20Poly1305"})
+    public String algorithm;
+
+    @Param({"64", "1024", "16384"})
+    public int size;
+
+    private KeyParameter key;
+    private byte[] input;
+    private byte[] output;
+    private byte[] ciphertext;
+    private AEADParameters decParameters;
+    private long nonceCounter;
+
+    private AEADCipher encCipher;
+    private AEADCipher decCipher;
+
+    @Setup
+    public void setup()
+        throws InvalidCipherTextException
+    {
+        SecureRandom random = new SecureRandom();
+
+        byte[] k = new byte[algorithm.equals("ChaCha20Poly1305") ? 32 : 16];
+        random.nextBytes(k);
+        key = new KeyParameter(k);
+
+        input = new byte[size];
+        random.nextBytes(input);
+
+        encCipher = createCipher(algorithm);
+        decCipher = createCipher(algorithm);
+
+        output = new byte[size + 16];
+
+        AEADParameters encParameters = nextParameters();
+        encCipher.init(true, encParameters);
+        ciphertext = new byte[encCipher.getOutputSize(size)];
+        int len = encCipher.processBytes(input, 0, size, ciphertext, 0);
+        encCipher.doFinal(ciphertext, len);
+
+        decParameters = encParameters;
+    }
+
+    @Benchmark
+    public byte[] encrypt()
+        throws InvalidCipherTextException
+    {
+        encCipher.init(true, nextParameters());
+        int len = encCipher.processBytes(input, 0, input.length, output, 0);
+        encCipher.doFinal(output, len);
+        return output;
+    }
+
+    @Benchmark
+    public byte[] decrypt()
+        throws InvalidCipherTextException
+    {
+        decCipher.init(false, decParameters);
+        int len = decCipher.processBytes(ciphertext, 0, ciphertext.length, output, 0);
+        decCipher.doFinal(output, len);
+        return output;
+    }
+
+    private AEADParameters nextParameters()
+    {
+        byte[] nonce = new byte[12];
+        Pack.longToBigEndian(++nonceCounter, nonce, 4);
+        return new AEADParameters(key, 128, nonce);
+    }
+
+    static AEADCipher createCipher(String algorithm)
+    {
+        if (algorithm.equals("GCM"))
+        {
+            return GCMBlockCipher.newInstance(AESEngine.newInstance());
+        }
+        if (algorithm.equals("GCM-SIV"))
+        {
+            return new GCMSIVBlockCipher(AESEngine.newInstance());
+        }
+        if (algorithm.equals("CCM"))
+        {
+            return CCMBlockCipher.newInstance(AESEngine.newInstance());
+        }
+        if (algorithm.equals("OCB"))
+        {
+            return new OCBBlockCipher(AESEngine.newInstance(), AESEngine.newInstance());
+        }
+        if (algorithm.equals("ChaCha20Poly1305"))
+        {
+            return new ChaCha20Poly1305();
+        }
+
+        throw new IllegalArgumentException("unknown AEAD algorithm: " + algorithm);
+    }
+}
@@ -0,0 +1,93 @@
+package org.bouncycastle.benchmark.crypto;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+import org.bouncycastle.crypto.digests.Blake2sDigest;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA3Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Message digest throughput for the SHA-2, SHA-3 and Blake families in crypto.digests.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DigestBenchmark
+{
+    @Param({"SHA-256", "SHA-512", "SHA3-256", "BLAKE2b-512", "BLAKE2s-256", "BLAKE3-256"})
+    public String algorithm;
+
+    @Param({"64", "1024", "16384"})
+    public int size;
+
+    private byte[] input;
+    private byte[] output;
+    private Digest digest;
+
+    @Setup
+    public void setup()
+    {
+        input = new byte[size];
+        new SecureRandom().nextBytes(input);
+
+        digest = createDigest(algorithm);
+        output = new byte[digest.getDigestSize()];
+    }
+
+    @Benchmark
+    public byte[] digest()
+    {
+        digest.update(input, 0, input.length);
+        digest.doFinal(output, 0);
+        return output;
+    }
+
+    static Digest createDigest(String algorithm)
+    {
+        if (algorithm.equals("SHA-256"))
+        {
+            return SHA256Digest.newInstance();
+        }
+        if (algorithm.equals("SHA-512"))
+        {
+            return new SHA512Digest();
+        }
+        if (algorithm.equals("SHA3-256"))
+        {
+            return new SHA3Digest(256);
+        }
+        if (algorithm.equals("BLAKE2b-512"))
+        {
+            return new Blake2bDigest(512);
+        }
+        if (algorithm.equals("BLAKE2s-256"))
+        {
+            return new Blake2sDigest(256);
+        }
+        if (algorithm.equals("BLAKE3-256"))
+        {
+            return new Blake3Digest(256);
+        }
+
+        throw new IllegalArgumentException("unknown digest: " + algorithm);
+    }
+}
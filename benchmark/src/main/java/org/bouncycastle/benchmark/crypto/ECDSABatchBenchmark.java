@@ -0,0 +1,139 @@
+package org.bouncycastle.benchmark.crypto;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.generators.ECKeyPairGenerator;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECKeyGenerationParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.crypto.signers.ECDSABatchVerifier;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.BigIntegers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-signature cost of ECDSA verification, one signature at a time against ECDSABatchVerifier batches of
+ * increasing size. Every invocation checks the same SIGNATURES signatures, so the scores are directly
+ * comparable; keys is the number of distinct signing keys the signatures are spread over.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ECDSABatchBenchmark
+{
+    private static final int SIGNATURES = 1024;
+
+    @Param({"secp256r1", "secp384r1"})
+    public String curve;
+
+    @Param({"8", "32", "128", "1024"})
+    public int batchSize;
+
+    @Param({"1", "1024"})
+    public int keys;
+
+    private ECDomainParameters params;
+    private ECPublicKeyParameters[] pubs;
+    private byte[][] messages;
+    private BigInteger[][] signatures;
+    private int[] recoveryIds;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = new SecureRandom();
+
+        X9ECParameters x9 = CustomNamedCurves.getByName(curve);
+        params = new ECDomainParameters(x9.getCurve(), x9.getG(), x9.getN(), x9.getH());
+        BigInteger n = params.getN();
+
+        ECKeyPairGenerator kpg = new ECKeyPairGenerator();
+        kpg.init(new ECKeyGenerationParameters(params, random));
+
+        AsymmetricCipherKeyPair[] kps = new AsymmetricCipherKeyPair[keys];
+        for (int i = 0; i != keys; i++)
+        {
+            kps[i] = kpg.generateKeyPair();
+        }
+
+        pubs = new ECPublicKeyParameters[SIGNATURES];
+        messages = new byte[SIGNATURES][(n.bitLength() + 7) / 8];
+        signatures = new BigInteger[SIGNATURES][];
+        recoveryIds = new int[SIGNATURES];
+
+        ECDSASigner signer = new ECDSASigner();
+        for (int i = 0; i != SIGNATURES; i++)
+        {
+            AsymmetricCipherKeyPair kp = kps[i % keys];
+            pubs[i] = (ECPublicKeyParameters)kp.getPublic();
+            random.nextBytes(messages[i]);
+
+            signer.init(true, new ParametersWithRandom(kp.getPrivate(), random));
+            signatures[i] = signer.generateSignature(messages[i]);
+
+            BigInteger e = new BigInteger(1, messages[i]);
+            BigInteger w = BigIntegers.modOddInverse(n, signatures[i][1]);
+            ECPoint R = ECAlgorithms.sumOfTwoMultiplies(params.getG(), e.multiply(w).mod(n), pubs[i].getQ(),
+                signatures[i][0].multiply(w).mod(n)).normalize();
+
+            recoveryIds[i] = (R.getAffineYCoord().testBitZero() ? 1 : 0)
+                | (R.getAffineXCoord().toBigInteger().compareTo(n) >= 0 ? 2 : 0);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIGNATURES)
+    public boolean verifySingle()
+    {
+        ECDSASigner verifier = new ECDSASigner();
+
+        boolean result = true;
+        for (int i = 0; i != SIGNATURES; i++)
+        {
+            verifier.init(false, pubs[i]);
+            result &= verifier.verifySignature(messages[i], signatures[i][0], signatures[i][1]);
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIGNATURES)
+    public boolean verifyBatch()
+    {
+        ECDSABatchVerifier verifier = new ECDSABatchVerifier(params);
+
+        boolean result = true;
+        for (int i = 0; i != SIGNATURES; i += batchSize)
+        {
+            verifier.reset();
+            for (int j = i; j != i + batchSize; j++)
+            {
+                verifier.addSignature(pubs[j], messages[j], signatures[j][0], signatures[j][1], recoveryIds[j]);
+            }
+            result &= verifier.verify();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package org.bouncycastle.benchmark.math.ec;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.math.ec.rfc7748.X25519;
+import org.bouncycastle.math.ec.rfc7748.X448;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * X25519 and X448 key generation and agreement over the low-level math.ec.rfc7748 API.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Rfc7748Benchmark
+{
+    private byte[] x25519Sk = new byte[X25519.SCALAR_SIZE];
+    private byte[] x25519PeerPk = new byte[X25519.POINT_SIZE];
+
+    private byte[] x448Sk = new byte[X448.SCALAR_SIZE];
+    private byte[] x448PeerPk = new byte[X448.POINT_SIZE];
+
+    private byte[] output = new byte[X448.POINT_SIZE];
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = new SecureRandom();
+
+        X25519.precompute();
+        X448.precompute();
+
+        byte[] x25519PeerSk = new byte[X25519.SCALAR_SIZE];
+        X25519.generatePrivateKey(random, x25519Sk);
+        X25519.generatePrivateKey(random, x25519PeerSk);
+        X25519.generatePublicKey(x25519PeerSk, 0, x25519PeerPk, 0);
+
+        byte[] x448PeerSk = new byte[X448.SCALAR_SIZE];
+        X448.generatePrivateKey(random, x448Sk);
+        X448.generatePrivateKey(random, x448PeerSk);
+        X448.generatePublicKey(x448PeerSk, 0, x448PeerPk, 0);
+    }
+
+    @Benchmark
+    public byte[] x25519PublicKey()
+    {
+        X25519.generatePublicKey(x25519Sk, 0, output, 0);
+        return output;
+    }
+
+    @Benchmark
+    public boolean x25519Agreement()
+    {
+        return X25519.calculateAgreement(x25519Sk, 0, x25519PeerPk, 0, output, 0);
+    }
+
+    @Benchmark
+    public byte[] x448PublicKey()
+    {
+        X448.generatePublicKey(x448Sk, 0, output, 0);
+        return output;
+    }
+
+    @Benchmark
+    public boolean x448Agreement()
+    {
+        return X448.calculateAgreement(x448Sk, 0, x448PeerPk, 0, output, 0);
+    }
+}
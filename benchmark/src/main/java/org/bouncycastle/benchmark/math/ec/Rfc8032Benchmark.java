@@ -0,0 +1,93 @@
+package org.bouncycastle.benchmark.math.ec;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.math.ec.rfc8032.Ed25519;
+import org.bouncycastle.math.ec.rfc8032.Ed448;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ed25519 and Ed448 signing and verification over the low-level math.ec.rfc8032 API.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Rfc8032Benchmark
+{
+    private static final byte[] EMPTY_CONTEXT = new byte[0];
+
+    @Param({"64", "1024", "16384"})
+    public int size;
+
+    private byte[] message;
+
+    private byte[] ed25519Sk = new byte[Ed25519.SECRET_KEY_SIZE];
+    private byte[] ed25519Pk = new byte[Ed25519.PUBLIC_KEY_SIZE];
+    private byte[] ed25519Sig = new byte[Ed25519.SIGNATURE_SIZE];
+
+    private byte[] ed448Sk = new byte[Ed448.SECRET_KEY_SIZE];
+    private byte[] ed448Pk = new byte[Ed448.PUBLIC_KEY_SIZE];
+    private byte[] ed448Sig = new byte[Ed448.SIGNATURE_SIZE];
+
+    private byte[] signature = new byte[Ed448.SIGNATURE_SIZE];
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = new SecureRandom();
+
+        Ed25519.precompute();
+        Ed448.precompute();
+
+        message = new byte[size];
+        random.nextBytes(message);
+
+        Ed25519.generatePrivateKey(random, ed25519Sk);
+        Ed25519.generatePublicKey(ed25519Sk, 0, ed25519Pk, 0);
+        Ed25519.sign(ed25519Sk, 0, ed25519Pk, 0, message, 0, size, ed25519Sig, 0);
+
+        Ed448.generatePrivateKey(random, ed448Sk);
+        Ed448.generatePublicKey(ed448Sk, 0, ed448Pk, 0);
+        Ed448.sign(ed448Sk, 0, ed448Pk, 0, EMPTY_CONTEXT, message, 0, size, ed448Sig, 0);
+    }
+
+    @Benchmark
+    public byte[] ed25519Sign()
+    {
+        Ed25519.sign(ed25519Sk, 0, ed25519Pk, 0, message, 0, size, signature, 0);
+        return signature;
+    }
+
+    @Benchmark
+    public boolean ed25519Verify()
+    {
+        return Ed25519.verify(ed25519Sig, 0, ed25519Pk, 0, message, 0, size);
+    }
+
+    @Benchmark
+    public byte[] ed448Sign()
+    {
+        Ed448.sign(ed448Sk, 0, ed448Pk, 0, EMPTY_CONTEXT, message, 0, size, signature, 0);
+        return signature;
+    }
+
+    @Benchmark
+    public boolean ed448Verify()
+    {
+        return Ed448.verify(ed448Sig, 0, ed448Pk, 0, EMPTY_CONTEXT, message, 0, size);
+    }
+}
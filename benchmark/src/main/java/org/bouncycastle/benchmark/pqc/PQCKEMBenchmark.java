@@ -0,0 +1,143 @@
+package org.bouncycastle.benchmark.pqc;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.EncapsulatedSecretExtractor;
+import org.bouncycastle.crypto.EncapsulatedSecretGenerator;
+import org.bouncycastle.crypto.SecretWithEncapsulation;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.pqc.crypto.bike.BIKEKEMExtractor;
+import org.bouncycastle.pqc.crypto.bike.BIKEKEMGenerator;
+import org.bouncycastle.pqc.crypto.bike.BIKEKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.bike.BIKEKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.bike.BIKEParameters;
+import org.bouncycastle.pqc.crypto.bike.BIKEPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.crystals.kyber.KyberKEMExtractor;
+import org.bouncycastle.pqc.crypto.crystals.kyber.KyberKEMGenerator;
+import org.bouncycastle.pqc.crypto.crystals.kyber.KyberKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.crystals.kyber.KyberKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.crystals.kyber.KyberParameters;
+import org.bouncycastle.pqc.crypto.crystals.kyber.KyberPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.hqc.HQCKEMExtractor;
+import org.bouncycastle.pqc.crypto.hqc.HQCKEMGenerator;
+import org.bouncycastle.pqc.crypto.hqc.HQCKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.hqc.HQCKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.hqc.HQCParameters;
+import org.bouncycastle.pqc.crypto.hqc.HQCPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.ntru.NTRUKEMExtractor;
+import org.bouncycastle.pqc.crypto.ntru.NTRUKEMGenerator;
+import org.bouncycastle.pqc.crypto.ntru.NTRUKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.ntru.NTRUKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.ntru.NTRUParameters;
+import org.bouncycastle.pqc.crypto.ntru.NTRUPrivateKeyParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encapsulation and decapsulation for the post-quantum KEMs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PQCKEMBenchmark
+{
+    @Param({"Kyber512", "Kyber768", "Kyber1024", "HQC-128", "BIKE-128", "NTRU-HPS-2048-509"})
+    public String algorithm;
+
+    private AsymmetricKeyParameter publicKey;
+    private byte[] encapsulation;
+
+    private EncapsulatedSecretGenerator generator;
+    private EncapsulatedSecretExtractor extractor;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = new SecureRandom();
+
+        AsymmetricCipherKeyPair kp;
+        if (algorithm.startsWith("Kyber"))
+        {
+            KyberParameters parameters;
+            if (algorithm.equals("Kyber512"))
+            {
+                parameters = KyberParameters.kyber512;
+            }
+            else if (algorithm.equals("Kyber768"))
+            {
+                parameters = KyberParameters.kyber768;
+            }
+            else
+            {
+                parameters = KyberParameters.kyber1024;
+            }
+
+            KyberKeyPairGenerator kpg = new KyberKeyPairGenerator();
+            kpg.init(new KyberKeyGenerationParameters(random, parameters));
+            kp = kpg.generateKeyPair();
+
+            generator = new KyberKEMGenerator(random);
+            extractor = new KyberKEMExtractor((KyberPrivateKeyParameters)kp.getPrivate());
+        }
+        else if (algorithm.equals("HQC-128"))
+        {
+            HQCKeyPairGenerator kpg = new HQCKeyPairGenerator();
+            kpg.init(new HQCKeyGenerationParameters(random, HQCParameters.hqc128));
+            kp = kpg.generateKeyPair();
+
+            generator = new HQCKEMGenerator(random);
+            extractor = new HQCKEMExtractor((HQCPrivateKeyParameters)kp.getPrivate());
+        }
+        else if (algorithm.equals("BIKE-128"))
+        {
+            BIKEKeyPairGenerator kpg = new BIKEKeyPairGenerator();
+            kpg.init(new BIKEKeyGenerationParameters(random, BIKEParameters.bike128));
+            kp = kpg.generateKeyPair();
+
+            generator = new BIKEKEMGenerator(random);
+            extractor = new BIKEKEMExtractor((BIKEPrivateKeyParameters)kp.getPrivate());
+        }
+        else if (algorithm.equals("NTRU-HPS-2048-509"))
+        {
+            NTRUKeyPairGenerator kpg = new NTRUKeyPairGenerator();
+            kpg.init(new NTRUKeyGenerationParameters(random, NTRUParameters.ntruhps2048509));
+            kp = kpg.generateKeyPair();
+
+            generator = new NTRUKEMGenerator(random);
+            extractor = new NTRUKEMExtractor((NTRUPrivateKeyParameters)kp.getPrivate());
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown KEM: " + algorithm);
+        }
+
+        publicKey = kp.getPublic();
+        encapsulation = generator.generateEncapsulated(publicKey).getEncapsulation();
+    }
+
+    @Benchmark
+    public SecretWithEncapsulation encapsulate()
+    {
+        return generator.generateEncapsulated(publicKey);
+    }
+
+    @Benchmark
+    public byte[] decapsulate()
+    {
+        return extractor.extractSecret(encapsulation);
+    }
+}
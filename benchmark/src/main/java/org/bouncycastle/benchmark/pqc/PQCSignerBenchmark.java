@@ -0,0 +1,148 @@
+package org.bouncycastle.benchmark.pqc;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.pqc.crypto.MessageSigner;
+import org.bouncycastle.pqc.crypto.crystals.dilithium.DilithiumKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.crystals.dilithium.DilithiumKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.crystals.dilithium.DilithiumParameters;
+import org.bouncycastle.pqc.crypto.crystals.dilithium.DilithiumSigner;
+import org.bouncycastle.pqc.crypto.falcon.FalconKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.falcon.FalconKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.falcon.FalconParameters;
+import org.bouncycastle.pqc.crypto.falcon.FalconSigner;
+import org.bouncycastle.pqc.crypto.sphincsplus.SPHINCSPlusKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.sphincsplus.SPHINCSPlusKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.sphincsplus.SPHINCSPlusParameters;
+import org.bouncycastle.pqc.crypto.sphincsplus.SPHINCSPlusSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Signing and verification for the post-quantum signature schemes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PQCSignerBenchmark
+{
+    @Param({"Dilithium2", "Dilithium3", "Dilithium5", "Falcon-512", "Falcon-1024", "SPHINCS+-SHA2-128f", "SPHINCS+-SHA2-128s"})
+    public String algorithm;
+
+    @Param({"64", "1024", "16384"})
+    public int size;
+
+    private byte[] message;
+    private byte[] signature;
+
+    private MessageSigner signer;
+    private MessageSigner verifier;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = new SecureRandom();
+
+        message = new byte[size];
+        random.nextBytes(message);
+
+        AsymmetricCipherKeyPair kp = generateKeyPair(algorithm, random);
+
+        signer = createSigner(algorithm);
+        signer.init(true, new ParametersWithRandom(kp.getPrivate(), random));
+
+        verifier = createSigner(algorithm);
+        verifier.init(false, kp.getPublic());
+
+        signature = signer.generateSignature(message);
+    }
+
+    @Benchmark
+    public byte[] sign()
+    {
+        return signer.generateSignature(message);
+    }
+
+    @Benchmark
+    public boolean verify()
+    {
+        return verifier.verifySignature(message, signature);
+    }
+
+    private static AsymmetricCipherKeyPair generateKeyPair(String algorithm, SecureRandom random)
+    {
+        if (algorithm.startsWith("Dilithium"))
+        {
+            DilithiumParameters parameters;
+            if (algorithm.equals("Dilithium2"))
+            {
+                parameters = DilithiumParameters.dilithium2;
+            }
+            else if (algorithm.equals("Dilithium3"))
+            {
+                parameters = DilithiumParameters.dilithium3;
+            }
+            else
+            {
+                parameters = DilithiumParameters.dilithium5;
+            }
+
+            DilithiumKeyPairGenerator kpg = new DilithiumKeyPairGenerator();
+            kpg.init(new DilithiumKeyGenerationParameters(random, parameters));
+            return kpg.generateKeyPair();
+        }
+        if (algorithm.startsWith("Falcon"))
+        {
+            FalconParameters parameters = algorithm.equals("Falcon-512")
+                ? FalconParameters.falcon_512 : FalconParameters.falcon_1024;
+
+            FalconKeyPairGenerator kpg = new FalconKeyPairGenerator();
+            kpg.init(new FalconKeyGenerationParameters(random, parameters));
+            return kpg.generateKeyPair();
+        }
+        if (algorithm.startsWith("SPHINCS+"))
+        {
+            SPHINCSPlusParameters parameters = algorithm.equals("SPHINCS+-SHA2-128f")
+                ? SPHINCSPlusParameters.sha2_128f : SPHINCSPlusParameters.sha2_128s;
+
+            SPHINCSPlusKeyPairGenerator kpg = new SPHINCSPlusKeyPairGenerator();
+            kpg.init(new SPHINCSPlusKeyGenerationParameters(random, parameters));
+            return kpg.generateKeyPair();
+        }
+
+        throw new IllegalArgumentException("unknown signature algorithm: " + algorithm);
+    }
+
+    private static MessageSigner createSigner(String algorithm)
+    {
+        if (algorithm.startsWith("Dilithium"))
+        {
+            return new DilithiumSigner();
+        }
+        if (algorithm.startsWith("Falcon"))
+        {
+            return new FalconSigner();
+        }
+        if (algorithm.startsWith("SPHINCS+"))
+        {
+            return new SPHINCSPlusSigner();
+        }
+
+        throw new IllegalArgumentException("unknown signature algorithm: " + algorithm);
+    }
+}
@@ -0,0 +1,105 @@
+package org.bouncycastle.benchmark.pqc;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.pqc.crypto.sphincsplus.SPHINCSPlusKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.sphincsplus.SPHINCSPlusKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.sphincsplus.SPHINCSPlusParameters;
+import org.bouncycastle.pqc.crypto.sphincsplus.SPHINCSPlusSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SPHINCS+ signing latency, serially (threads = 0) and spread over a fork-join pool of the given size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SPHINCSPlusParallelBenchmark
+{
+    @Param({"SHA2-128s", "SHAKE-128s", "SHA2-256s", "SHA2-128f"})
+    public String algorithm;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    private byte[] message;
+
+    private SPHINCSPlusSigner signer;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = new SecureRandom();
+
+        message = new byte[64];
+        random.nextBytes(message);
+
+        SPHINCSPlusKeyPairGenerator kpg = new SPHINCSPlusKeyPairGenerator();
+        kpg.init(new SPHINCSPlusKeyGenerationParameters(random, getParameters(algorithm)));
+        AsymmetricCipherKeyPair kp = kpg.generateKeyPair();
+
+        signer = new SPHINCSPlusSigner();
+        signer.init(true, kp.getPrivate());
+
+        if (threads > 0)
+        {
+            pool = new ForkJoinPool(threads);
+            signer.setExecutor(pool);
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        if (pool != null)
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public byte[] sign()
+    {
+        return signer.generateSignature(message);
+    }
+
+    private static SPHINCSPlusParameters getParameters(String algorithm)
+    {
+        if (algorithm.equals("SHA2-128s"))
+        {
+            return SPHINCSPlusParameters.sha2_128s;
+        }
+        if (algorithm.equals("SHAKE-128s"))
+        {
+            return SPHINCSPlusParameters.shake_128s;
+        }
+        if (algorithm.equals("SHA2-256s"))
+        {
+            return SPHINCSPlusParameters.sha2_256s;
+        }
+        if (algorithm.equals("SHA2-128f"))
+        {
+            return SPHINCSPlusParameters.sha2_128f;
+        }
+
+        throw new IllegalArgumentException("unknown parameter set: " + algorithm);
+    }
+}
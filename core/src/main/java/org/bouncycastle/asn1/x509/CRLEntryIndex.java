@@ -0,0 +1,154 @@
+package org.bouncycastle.asn1.x509;
+
+import java.math.BigInteger;
+
+/**
+ * A serial number index over the revokedCertificates of a TBSCertList, allowing
+ * entries to be found without a walk of the whole list. Instances are immutable
+ * and so may be shared between threads.
+ */
+public class CRLEntryIndex
+{
+    private final TBSCertList.CRLEntry[] entries;
+    private final int[] hashes;
+    private final int[] table;
+    private final GeneralNames[] certificateIssuers;
+
+    /**
+     * Build an index for the entries in a CRL.
+     *
+     * @param tbsCertList the CRL contents to index.
+     * @param isIndirect true if the CRL is indirect, in which case the certificate issuer
+     *                   in effect for each entry is also recorded.
+     */
+    public CRLEntryIndex(TBSCertList tbsCertList, boolean isIndirect)
+    {
+        this.entries = tbsCertList.getRevokedCertificates();
+        this.hashes = new int[entries.length];
+
+        int tableSize = 16;
+        while (tableSize < entries.length * 2)
+        {
+            tableSize <<= 1;
+        }
+        this.table = new int[tableSize];
+
+        int mask = tableSize - 1;
+        for (int i = 0; i < entries.length; i++)
+        {
+            int hash = entries[i].getUserCertificate().getValue().hashCode();
+            hashes[i] = hash;
+
+            // linear probing keeps duplicate serial numbers in list order along a chain
+            int slot = mix(hash) & mask;
+            while (table[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+
+        if (isIndirect)
+        {
+            this.certificateIssuers = new GeneralNames[entries.length];
+
+            GeneralNames currentCA = null;
+            for (int i = 0; i < entries.length; i++)
+            {
+                TBSCertList.CRLEntry entry = entries[i];
+                if (entry.hasExtensions())
+                {
+                    Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
+
+                    if (currentCaName != null)
+                    {
+                        currentCA = GeneralNames.getInstance(currentCaName.getParsedValue());
+                    }
+                }
+                certificateIssuers[i] = currentCA;
+            }
+        }
+        else
+        {
+            this.certificateIssuers = null;
+        }
+    }
+
+    /**
+     * Return the number of entries in the index.
+     *
+     * @return the number of revoked certificates on the CRL.
+     */
+    public int size()
+    {
+        return entries.length;
+    }
+
+    /**
+     * Find the first entry for a given serial number.
+     *
+     * @param serialNumber the serial number to look for.
+     * @return the position of the entry on the CRL, -1 if there is none.
+     */
+    public int indexOf(BigInteger serialNumber)
+    {
+        int hash = serialNumber.hashCode();
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+
+        int pos;
+        while ((pos = table[slot]) != 0)
+        {
+            --pos;
+            if (hashes[pos] == hash && entries[pos].getUserCertificate().hasValue(serialNumber))
+            {
+                return pos;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Return the entry at a given position on the CRL.
+     *
+     * @param pos the position of the entry.
+     * @return the CRL entry.
+     */
+    public TBSCertList.CRLEntry getEntry(int pos)
+    {
+        return entries[pos];
+    }
+
+    /**
+     * Return the certificate issuer in effect for the entry at a given position on an
+     * indirect CRL, taking into account the entry's own certificateIssuer extension.
+     *
+     * @param pos the position of the entry.
+     * @return the certificate issuer, or null if the CRL issuer applies.
+     */
+    public GeneralNames getCertificateIssuer(int pos)
+    {
+        return certificateIssuers == null ? null : certificateIssuers[pos];
+    }
+
+    /**
+     * Return the certificate issuer established by the entries preceding a given position on
+     * an indirect CRL.
+     *
+     * @param pos the position of the entry.
+     * @return the certificate issuer, or null if the CRL issuer applies.
+     */
+    public GeneralNames getPreviousCertificateIssuer(int pos)
+    {
+        return pos == 0 ? null : getCertificateIssuer(pos - 1);
+    }
+
+    private static int mix(int hash)
+    {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 13);
+    }
+}
@@ -1,7 +1,10 @@
 package org.bouncycastle.crypto.digests;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.Stack;
+import java.util.concurrent.ExecutorService;
 
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
@@ -45,6 +48,11 @@
      */
     private static final int CHUNKLEN = 1024;
 
+    /**
+     * Maximum number of chunks compressed in parallel before their chaining values are merged.
+     */
+    private static final int BATCHCHUNKS = 16 * 1024;
+
     /**
      * ChunkStart Flag.
      */
@@ -255,6 +263,11 @@
     // digest purpose
     private final CryptoServicePurpose purpose;
 
+    /**
+     * The executor for parallel chunk compression, null if chunks are compressed on the caller's thread.
+     */
+    private ExecutorService executor;
+
     /**
      * Constructor.
      */
@@ -302,6 +315,7 @@ public Blake3Digest(final Blake3Digest pSource)
         /* Copy default digest length */
         theDigestLen = pSource.theDigestLen;
         purpose = pSource.purpose;
+        executor = pSource.executor;
 
         /* Initialise from source */
         reset(pSource);
@@ -322,6 +336,18 @@ public int getDigestSize()
         return theDigestLen;
     }
 
+    /**
+     * Set an executor to spread the compression of large inputs across. Chunks are compressed
+     * independently and their chaining values merged in the usual tree order, so the output is the
+     * same as for serial processing. A {@link java.util.concurrent.ForkJoinPool} may be used here.
+     *
+     * @param pExecutor the executor to use, null to process all input on the caller's thread (the default).
+     */
+    public void setExecutor(final ExecutorService pExecutor)
+    {
+        executor = pExecutor;
+    }
+
     /**
      * Initialise.
      *
@@ -408,6 +434,13 @@ public void update(final byte[] pMessage,
             throw new IllegalStateException(ERR_OUTPUTTING);
         }
 
+        /* Hand large inputs to the executor if we have one */
+        if (executor != null && pLen >= 2 * DigestTasks.MIN_TASK_BYTES)
+        {
+            updateParallel(pMessage, null, pOffset, pLen);
+            return;
+        }
+
         /* Process any bytes currently in the buffer */
         int remainingLen = 0; // left bytes of buffer
         if (thePos != 0)
@@ -450,6 +483,39 @@ public void update(final byte[] pMessage,
         thePos += pOffset + len;
     }
 
+    /**
+     * Update the digest with the remaining bytes of a buffer, such as a memory-mapped region of a file.
+     * Direct buffers are read in place, so the whole of the input is never copied into the heap.
+     *
+     * @param pInput the buffer holding the input, its position is moved to its limit.
+     */
+    public void update(final ByteBuffer pInput)
+    {
+        final int myLen = pInput.remaining();
+        if (pInput.hasArray())
+        {
+            update(pInput.array(), pInput.arrayOffset() + pInput.position(), myLen);
+        }
+        else
+        {
+            /* Check that we are not outputting */
+            if (outputting)
+            {
+                throw new IllegalStateException(ERR_OUTPUTTING);
+            }
+
+            if (executor != null && myLen >= 2 * DigestTasks.MIN_TASK_BYTES)
+            {
+                updateParallel(null, pInput, pInput.position(), myLen);
+            }
+            else
+            {
+                updateSerial(null, pInput, pInput.position(), myLen);
+            }
+        }
+        ((Buffer)pInput).position(pInput.limit());
+    }
+
     public int doFinal(final byte[] pOutput,
                        final int pOutOffset)
     {
@@ -575,6 +641,145 @@ public Memoable copy()
         return new Blake3Digest(this);
     }
 
+    /**
+     * Process input on the caller's thread.
+     *
+     * @param pMessage the message array, if pBuffer is null
+     * @param pBuffer  the message buffer, or null
+     * @param pOffset  the position of the input in the array or buffer
+     * @param pLen     the length of the input
+     */
+    private void updateSerial(final byte[] pMessage,
+                              final ByteBuffer pBuffer,
+                              final int pOffset,
+                              final int pLen)
+    {
+        if (pBuffer == null)
+        {
+            update(pMessage, pOffset, pLen);
+            return;
+        }
+
+        /* Copy through a small piece of the heap at a time */
+        final ByteBuffer mySource = pBuffer.duplicate();
+        ((Buffer)mySource).position(pOffset);
+        final byte[] myTemp = new byte[Math.min(pLen, BLOCKLEN << 6)];
+        int myRemaining = pLen;
+        while (myRemaining > 0)
+        {
+            final int myLen = Math.min(myRemaining, myTemp.length);
+            mySource.get(myTemp, 0, myLen);
+            update(myTemp, 0, myLen);
+            myRemaining -= myLen;
+        }
+        Arrays.fill(myTemp, (byte)0);
+    }
+
+    /**
+     * Process input with the complete chunks compressed on the executor.
+     *
+     * @param pMessage the message array, if pBuffer is null
+     * @param pBuffer  the message buffer, or null
+     * @param pOffset  the position of the input in the array or buffer
+     * @param pLen     the length of the input
+     */
+    private void updateParallel(final byte[] pMessage,
+                                final ByteBuffer pBuffer,
+                                final int pOffset,
+                                final int pLen)
+    {
+        /* Process up to the next chunk boundary */
+        final int myAlign = (CHUNKLEN - theCurrBytes - thePos) & (CHUNKLEN - 1);
+        updateSerial(pMessage, pBuffer, pOffset, myAlign);
+
+        /* We know there is more input, so a full buffer can be processed */
+        if (thePos == BLOCKLEN)
+        {
+            compressBlock(theBuffer, 0);
+            thePos = 0;
+            Arrays.fill(theBuffer, (byte)0);
+        }
+
+        /* Compress complete chunks, always leaving some input for the final block */
+        int myPos = pOffset + myAlign;
+        int myRemaining = pLen - myAlign;
+        while (myRemaining > CHUNKLEN)
+        {
+            final int myCount = Math.min((myRemaining - 1) / CHUNKLEN, BATCHCHUNKS);
+            final int[] myChaining = new int[myCount * NUMWORDS];
+            final Blake3Digest myParent = this;
+            final long myCounter = theCounter;
+            final int myStart = myPos;
+
+            new DigestTasks()
+            {
+                void compressUnits(int start, int end)
+                {
+                    final Blake3Digest myWorker = new Blake3Digest(myParent);
+                    ByteBuffer mySource = null;
+                    byte[] myChunk = pMessage;
+                    if (pBuffer != null)
+                    {
+                        mySource = pBuffer.duplicate();
+                        myChunk = new byte[CHUNKLEN];
+                    }
+
+                    for (int i = start; i < end; i++)
+                    {
+                        int myChunkPos = myStart + i * CHUNKLEN;
+                        if (mySource != null)
+                        {
+                            ((Buffer)mySource).position(myChunkPos);
+                            mySource.get(myChunk);
+                            myChunkPos = 0;
+                        }
+                        myWorker.compressChunk(myCounter + i, myChunk, myChunkPos, myChaining, i * NUMWORDS);
+                    }
+                }
+            }.run(executor, myCount, DigestTasks.getUnitsPerTask(CHUNKLEN));
+
+            /* Merge the chaining values in order */
+            for (int i = 0; i < myCount; i++)
+            {
+                System.arraycopy(myChaining, i * NUMWORDS, theChaining, 0, NUMWORDS);
+                incrementBlockCount();
+                adjustStack();
+            }
+
+            myPos += myCount * CHUNKLEN;
+            myRemaining -= myCount * CHUNKLEN;
+        }
+
+        /* Process the remaining input */
+        updateSerial(pMessage, pBuffer, myPos, myRemaining);
+    }
+
+    /**
+     * Compress a complete chunk, that is known not to be the final one.
+     *
+     * @param pCounter  the chunk counter
+     * @param pMessage  the message buffer
+     * @param pMsgPos   the position of the chunk within the message buffer
+     * @param pChaining the array to receive the chaining value
+     * @param pChainPos the position in pChaining to write to
+     */
+    private void compressChunk(final long pCounter,
+                               final byte[] pMessage,
+                               final int pMsgPos,
+                               final int[] pChaining,
+                               final int pChainPos)
+    {
+        theCounter = pCounter;
+        theCurrBytes = 0;
+        for (int myPos = 0; myPos < CHUNKLEN; myPos += BLOCKLEN)
+        {
+            initChunkBlock(BLOCKLEN, false);
+            initM(pMessage, pMsgPos + myPos);
+            compress();
+        }
+        System.arraycopy(theChaining, 0, pChaining, pChainPos, NUMWORDS);
+    }
+
     /**
      * Compress next block of the message.
      *
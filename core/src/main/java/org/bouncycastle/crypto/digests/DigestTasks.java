@@ -0,0 +1,121 @@
+package org.bouncycastle.crypto.digests;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Support for digests whose input is made up of independent units that can be compressed on an
+ * executor, with the results merged back on the calling thread in the original order.
+ */
+abstract class DigestTasks
+{
+    /**
+     * The minimum amount of input handed to a single task.
+     */
+    static final int MIN_TASK_BYTES = 64 * 1024;
+
+    /**
+     * Compress the units in the range [start, end). This may be called from any thread, but each unit is
+     * only ever compressed once.
+     *
+     * @param start index of the first unit to compress.
+     * @param end   index after the last unit to compress.
+     */
+    abstract void compressUnits(int start, int end);
+
+    /**
+     * Return the number of units that will be handed to each task when compressing units of unitSize
+     * bytes.
+     */
+    static int getUnitsPerTask(int unitSize)
+    {
+        return Math.max(1, MIN_TASK_BYTES / unitSize);
+    }
+
+    /**
+     * Compress count units, spreading them over the executor in groups of unitsPerTask. The first
+     * group is compressed on the calling thread. Returns once every unit has been compressed.
+     */
+    void run(ExecutorService executor, int count, int unitsPerTask)
+    {
+        int taskCount = (count + unitsPerTask - 1) / unitsPerTask;
+
+        Future[] futures = new Future[taskCount - 1];
+        try
+        {
+            for (int i = 1; i < taskCount; ++i)
+            {
+                final int start = i * unitsPerTask, end = Math.min(count, start + unitsPerTask);
+                futures[i - 1] = executor.submit(new Runnable()
+                {
+                    public void run()
+                    {
+                        compressUnits(start, end);
+                    }
+                });
+            }
+
+            compressUnits(0, Math.min(count, unitsPerTask));
+        }
+        catch (RuntimeException e)
+        {
+            cancel(futures);
+            throw e;
+        }
+
+        boolean interrupted = false;
+        try
+        {
+            for (int i = 0; i < futures.length; ++i)
+            {
+                for (;;)
+                {
+                    try
+                    {
+                        futures[i].get();
+                        break;
+                    }
+                    catch (InterruptedException e)
+                    {
+                        // the digest state can only be kept consistent by completing the update
+                        interrupted = true;
+                    }
+                    catch (ExecutionException e)
+                    {
+                        cancel(futures);
+
+                        Throwable cause = e.getCause();
+                        if (cause instanceof RuntimeException)
+                        {
+                            throw (RuntimeException)cause;
+                        }
+                        if (cause instanceof Error)
+                        {
+                            throw (Error)cause;
+                        }
+                        throw new IllegalStateException("digest task failed: " + cause);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void cancel(Future[] futures)
+    {
+        for (int i = 0; i < futures.length; ++i)
+        {
+            if (futures[i] != null)
+            {
+                futures[i].cancel(false);
+            }
+        }
+    }
+}
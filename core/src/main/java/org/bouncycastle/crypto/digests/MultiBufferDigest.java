@@ -0,0 +1,245 @@
+package org.bouncycastle.crypto.digests;
+
+import org.bouncycastle.crypto.CryptoServicePurpose;
+import org.bouncycastle.crypto.CryptoServicesRegistrar;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Base class for a Merkle-Damgard digest that hashes several independent messages at once, one per
+ * lane, with the compression function run for all the lanes in lockstep. This suits large numbers of
+ * short messages (hash chains, Merkle tree nodes and the like), where the per-message overhead and
+ * the dependencies between rounds of a single compression dominate.
+ * <p>
+ * The state is laid out word-major (word i of every lane together), so that the inner loops over the
+ * lanes are simple enough for the JIT to vectorise. Instances are not thread safe.
+ * </p>
+ */
+public abstract class MultiBufferDigest
+{
+    protected final int lanes;
+
+    private final int blockSize;
+    private final int lengthSize;
+    private final byte[] padBlock;
+    private final boolean[] active;
+
+    private final byte[][] groupBufs;
+    private final int[] groupOffs;
+    private final int[] groupLens;
+
+    protected MultiBufferDigest(int lanes, int blockSize, int lengthSize, CryptoServicePurpose purpose)
+    {
+        if (lanes < 1 || lanes > 16)
+        {
+            throw new IllegalArgumentException("lanes must be between 1 and 16");
+        }
+
+        this.lanes = lanes;
+        this.blockSize = blockSize;
+        this.lengthSize = lengthSize;
+        this.padBlock = new byte[blockSize];
+        this.active = new boolean[lanes];
+        this.groupBufs = new byte[lanes][];
+        this.groupOffs = new int[lanes];
+        this.groupLens = new int[lanes];
+
+        CryptoServicesRegistrar.checkConstraints(Utils.getDefaultProperties(this, purpose));
+    }
+
+    public abstract String getAlgorithmName();
+
+    /**
+     * Return the size of a single digest in bytes.
+     *
+     * @return the digest size.
+     */
+    public abstract int getDigestSize();
+
+    /**
+     * Return the number of messages hashed in lockstep.
+     *
+     * @return the lane count.
+     */
+    public int getLaneCount()
+    {
+        return lanes;
+    }
+
+    /**
+     * Hash each of the passed in messages, writing the digests one after another to out.
+     *
+     * @param messages the messages to hash.
+     * @param out      the output array, with room for messages.length digests from outOff.
+     * @param outOff   the offset into out the first digest is written at.
+     * @return the number of bytes written.
+     */
+    public int digest(byte[][] messages, byte[] out, int outOff)
+    {
+        int count = messages.length;
+        int digestSize = getDigestSize();
+        checkOutput(out, outOff, count);
+
+        for (int i = 0; i < count; i += lanes)
+        {
+            int groupSize = Math.min(lanes, count - i);
+            for (int lane = 0; lane < groupSize; ++lane)
+            {
+                byte[] message = messages[i + lane];
+                groupBufs[lane] = message;
+                groupOffs[lane] = 0;
+                groupLens[lane] = message.length;
+            }
+
+            processGroup(groupSize, out, outOff + i * digestSize);
+        }
+
+        return count * digestSize;
+    }
+
+    /**
+     * Hash count messages of msgLen bytes each, stored one after another in in (for example, the
+     * leaves or a level of nodes of a Merkle tree), writing the digests one after another to out.
+     *
+     * @param in     the input array.
+     * @param inOff  the offset into in the first message starts at.
+     * @param msgLen the length of each message.
+     * @param count  the number of messages.
+     * @param out    the output array, with room for count digests from outOff.
+     * @param outOff the offset into out the first digest is written at.
+     * @return the number of bytes written.
+     */
+    public int digest(byte[] in, int inOff, int msgLen, int count, byte[] out, int outOff)
+    {
+        if (msgLen < 0 || count < 0 || inOff < 0 || (long)msgLen * count > in.length - inOff)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+
+        int digestSize = getDigestSize();
+        checkOutput(out, outOff, count);
+
+        for (int i = 0; i < count; i += lanes)
+        {
+            int groupSize = Math.min(lanes, count - i);
+            for (int lane = 0; lane < groupSize; ++lane)
+            {
+                groupBufs[lane] = in;
+                groupOffs[lane] = inOff + (i + lane) * msgLen;
+                groupLens[lane] = msgLen;
+            }
+
+            processGroup(groupSize, out, outOff + i * digestSize);
+        }
+
+        return count * digestSize;
+    }
+
+    /**
+     * Reset the chaining values of every lane to the initial value.
+     */
+    protected abstract void initState();
+
+    /**
+     * Load a block of input into the message schedule for a lane.
+     */
+    protected abstract void loadBlock(int lane, byte[] block, int off);
+
+    /**
+     * Compress the loaded block of every lane, only updating the chaining values of the active lanes.
+     */
+    protected abstract void processBlocks(boolean[] active);
+
+    /**
+     * Write the digest for a lane.
+     */
+    protected abstract void getDigest(int lane, byte[] out, int outOff);
+
+    private void checkOutput(byte[] out, int outOff, int count)
+    {
+        if (outOff < 0 || (long)getDigestSize() * count > out.length - outOff)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+    }
+
+    private void processGroup(int groupSize, byte[] out, int outOff)
+    {
+        initState();
+
+        int maxBlocks = 0;
+        for (int lane = 0; lane < groupSize; ++lane)
+        {
+            maxBlocks = Math.max(maxBlocks, getBlockCount(groupLens[lane]));
+        }
+
+        for (int block = 0; block < maxBlocks; ++block)
+        {
+            int blockStart = block * blockSize;
+            for (int lane = 0; lane < lanes; ++lane)
+            {
+                if (lane >= groupSize || block >= getBlockCount(groupLens[lane]))
+                {
+                    active[lane] = false;
+                    continue;
+                }
+
+                active[lane] = true;
+
+                int len = groupLens[lane];
+                if (blockStart + blockSize <= len)
+                {
+                    loadBlock(lane, groupBufs[lane], groupOffs[lane] + blockStart);
+                }
+                else
+                {
+                    loadBlock(lane, padBlock(groupBufs[lane], groupOffs[lane], len, blockStart), 0);
+                }
+            }
+
+            processBlocks(active);
+        }
+
+        for (int lane = 0; lane < groupSize; ++lane)
+        {
+            getDigest(lane, out, outOff + lane * getDigestSize());
+            groupBufs[lane] = null;
+        }
+
+        Arrays.fill(padBlock, (byte)0);
+    }
+
+    private int getBlockCount(int len)
+    {
+        return (len + 1 + lengthSize + blockSize - 1) / blockSize;
+    }
+
+    /**
+     * Build the block at blockStart of the padded message: the tail of the message, the 0x80 marker,
+     * zeroes and, in the final block, the bit length.
+     */
+    private byte[] padBlock(byte[] buf, int off, int len, int blockStart)
+    {
+        byte[] block = padBlock;
+        Arrays.fill(block, (byte)0);
+
+        int tail = len - blockStart;
+        if (tail >= 0)
+        {
+            System.arraycopy(buf, off + blockStart, block, 0, tail);
+            block[tail] = (byte)0x80;
+        }
+
+        if (blockStart + blockSize == getBlockCount(len) * blockSize)
+        {
+            long bitLength = (long)len << 3;
+            for (int i = 0; i < 8; ++i)
+            {
+                block[blockSize - 1 - i] = (byte)(bitLength >>> (i << 3));
+            }
+        }
+
+        return block;
+    }
+}
@@ -1,5 +1,9 @@
 package org.bouncycastle.crypto.digests;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
 import org.bouncycastle.crypto.DataLengthException;
@@ -19,6 +23,7 @@
     implements Xof, Digest
 {
     private static final byte[] N_PARALLEL_HASH = Strings.toByteArray("ParallelHash");
+    private static final int BATCH_BYTES = 16 * 1024 * 1024;
 
     private final CSHAKEDigest cshake;
     private final CSHAKEDigest compressor;
@@ -34,6 +39,8 @@
 
     private final CryptoServicePurpose purpose;
 
+    private ExecutorService executor;
+
     /**
      * Base constructor.
      *
@@ -76,6 +83,7 @@ public ParallelHash(ParallelHash source)
         this.buffer = Arrays.clone(source.buffer);
         this.compressorBuffer = Arrays.clone(source.compressorBuffer);
         this.purpose = source.purpose;
+        this.executor = source.executor;
 
         this.firstOutput = source.firstOutput;
         this.nCount = source.nCount;
@@ -84,6 +92,18 @@ public ParallelHash(ParallelHash source)
         CryptoServicesRegistrar.checkConstraints(Utils.getDefaultProperties(this, bitLength, purpose));
     }
 
+    /**
+     * Set an executor to spread the compression of the blocks of large inputs across. The compressed
+     * blocks are still absorbed in order, so the output is the same as for serial processing. A
+     * {@link java.util.concurrent.ForkJoinPool} may be used here.
+     *
+     * @param executor the executor to use, null to process all input on the caller's thread (the default).
+     */
+    public void setExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+    }
+
     public String getAlgorithmName()
     {
         return "ParallelHash" + cshake.getAlgorithmName().substring(6);
@@ -131,6 +151,11 @@ public void update(byte[] in, int inOff, int len)
             }
         }
 
+        if (executor != null && len - i >= 2 * DigestTasks.MIN_TASK_BYTES && len - i >= 2 * B)
+        {
+            i += compressParallel(in, null, inOff + i, len - i);
+        }
+
         if (i < len)
         {
             while (len - i >= B)
@@ -146,6 +171,118 @@ public void update(byte[] in, int inOff, int len)
         }
     }
 
+    /**
+     * Update the digest with the remaining bytes of a buffer, such as a memory-mapped region of a file.
+     * Direct buffers are read in place, so the whole of the input is never copied into the heap.
+     *
+     * @param in the buffer holding the input, its position is moved to its limit.
+     */
+    public void update(ByteBuffer in)
+    {
+        int len = in.remaining();
+        if (in.hasArray())
+        {
+            update(in.array(), in.arrayOffset() + in.position(), len);
+        }
+        else
+        {
+            int pos = in.position();
+
+            // fill the current word
+            if (bufOff != 0)
+            {
+                int count = Math.min(len, buffer.length - bufOff);
+                in.get(buffer, bufOff, count);
+                bufOff += count;
+                pos += count;
+                len -= count;
+
+                if (bufOff == buffer.length)
+                {
+                    compress();
+                }
+            }
+
+            if (executor != null && len >= 2 * DigestTasks.MIN_TASK_BYTES && len >= 2 * B)
+            {
+                int done = compressParallel(null, in, pos, len);
+                pos += done;
+                len -= done;
+            }
+
+            ByteBuffer src = in.duplicate();
+            ((Buffer)src).position(pos);
+            while (len > 0)
+            {
+                int count = Math.min(len, buffer.length - bufOff);
+                src.get(buffer, bufOff, count);
+                bufOff += count;
+                len -= count;
+
+                if (bufOff == buffer.length)
+                {
+                    compress();
+                }
+            }
+        }
+        ((Buffer)in).position(in.limit());
+    }
+
+    /**
+     * Compress the complete blocks at the start of the input on the executor, absorbing the results in
+     * order. The current word must be empty.
+     *
+     * @return the number of bytes of input processed.
+     */
+    private int compressParallel(final byte[] in, final ByteBuffer buf, final int inOff, int len)
+    {
+        final int blocksPerBatch = Math.max(1, BATCH_BYTES / B);
+        final int outLen = compressorBuffer.length;
+
+        int done = 0;
+        while (len - done >= B)
+        {
+            final int count = Math.min((len - done) / B, blocksPerBatch);
+            final byte[] results = new byte[count * outLen];
+            final int start = inOff + done;
+
+            new DigestTasks()
+            {
+                void compressUnits(int first, int end)
+                {
+                    CSHAKEDigest worker = new CSHAKEDigest(compressor);
+                    ByteBuffer src = null;
+                    byte[] block = in;
+                    if (buf != null)
+                    {
+                        src = buf.duplicate();
+                        block = new byte[B];
+                    }
+
+                    for (int i = first; i < end; i++)
+                    {
+                        int blockOff = start + i * B;
+                        if (src != null)
+                        {
+                            ((Buffer)src).position(blockOff);
+                            src.get(block);
+                            blockOff = 0;
+                        }
+                        worker.update(block, blockOff, B);
+                        worker.doFinal(results, i * outLen, outLen);
+                    }
+                }
+            }.run(executor, count, DigestTasks.getUnitsPerTask(B));
+
+            cshake.update(results, 0, results.length);
+            nCount += count;
+
+            done += count * B;
+        }
+
+        return done;
+    }
+
     private void compress()
     {
         compress(buffer, 0, bufOff);
@@ -0,0 +1,193 @@
+package org.bouncycastle.crypto.digests;
+
+import org.bouncycastle.crypto.CryptoServicePurpose;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Pack;
+
+/**
+ * FIPS 180-2 SHA-256 for several independent messages at once, see {@link MultiBufferDigest}.
+ * The results are the same as for {@link SHA256Digest} applied to each message in turn.
+ */
+public class SHA256MultiBufferDigest
+    extends MultiBufferDigest
+{
+    private static final int DIGEST_LENGTH = 32;
+
+    private static final int[] IV = {
+        0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+    };
+
+    // chaining values, working variables and message schedule, all indexed [word * lanes + lane]
+    private final int[] H;
+    private final int[] A, B, C, D, E, F, G, HH;
+    private final int[] W;
+
+    /**
+     * Standard constructor, hashing eight messages at a time.
+     */
+    public SHA256MultiBufferDigest()
+    {
+        this(8);
+    }
+
+    /**
+     * Constructor for a given number of lanes.
+     *
+     * @param lanes the number of messages to hash at a time (1 to 16).
+     */
+    public SHA256MultiBufferDigest(int lanes)
+    {
+        this(lanes, CryptoServicePurpose.ANY);
+    }
+
+    public SHA256MultiBufferDigest(int lanes, CryptoServicePurpose purpose)
+    {
+        super(lanes, 64, 8, purpose);
+
+        this.H = new int[8 * lanes];
+        this.A = new int[lanes];
+        this.B = new int[lanes];
+        this.C = new int[lanes];
+        this.D = new int[lanes];
+        this.E = new int[lanes];
+        this.F = new int[lanes];
+        this.G = new int[lanes];
+        this.HH = new int[lanes];
+        this.W = new int[64 * lanes];
+    }
+
+    public String getAlgorithmName()
+    {
+        return "SHA-256";
+    }
+
+    public int getDigestSize()
+    {
+        return DIGEST_LENGTH;
+    }
+
+    protected void initState()
+    {
+        for (int i = 0; i < 8; ++i)
+        {
+            Arrays.fill(H, i * lanes, (i + 1) * lanes, IV[i]);
+        }
+    }
+
+    protected void loadBlock(int lane, byte[] block, int off)
+    {
+        for (int t = 0; t < 16; ++t)
+        {
+            W[t * lanes + lane] = Pack.bigEndianToInt(block, off + (t << 2));
+        }
+    }
+
+    protected void processBlocks(boolean[] active)
+    {
+        final int L = lanes;
+
+        //
+        // expand 16 word block into 64 word blocks.
+        //
+        for (int t = 16; t < 64; ++t)
+        {
+            int w2 = (t - 2) * L, w7 = (t - 7) * L, w15 = (t - 15) * L, w16 = (t - 16) * L, wt = t * L;
+            for (int l = 0; l < L; ++l)
+            {
+                W[wt + l] = Theta1(W[w2 + l]) + W[w7 + l] + Theta0(W[w15 + l]) + W[w16 + l];
+            }
+        }
+
+        //
+        // set up working variables.
+        //
+        System.arraycopy(H, 0, A, 0, L);
+        System.arraycopy(H, L, B, 0, L);
+        System.arraycopy(H, 2 * L, C, 0, L);
+        System.arraycopy(H, 3 * L, D, 0, L);
+        System.arraycopy(H, 4 * L, E, 0, L);
+        System.arraycopy(H, 5 * L, F, 0, L);
+        System.arraycopy(H, 6 * L, G, 0, L);
+        System.arraycopy(H, 7 * L, HH, 0, L);
+
+        // rotating the roles of the working variables avoids moving them between rounds
+        for (int t = 0; t < 64; t += 8)
+        {
+            round(A, B, C, D, E, F, G, HH, t);
+            round(HH, A, B, C, D, E, F, G, t + 1);
+            round(G, HH, A, B, C, D, E, F, t + 2);
+            round(F, G, HH, A, B, C, D, E, t + 3);
+            round(E, F, G, HH, A, B, C, D, t + 4);
+            round(D, E, F, G, HH, A, B, C, t + 5);
+            round(C, D, E, F, G, HH, A, B, t + 6);
+            round(B, C, D, E, F, G, HH, A, t + 7);
+        }
+
+        for (int l = 0; l < L; ++l)
+        {
+            if (active[l])
+            {
+                H[l] += A[l];
+                H[L + l] += B[l];
+                H[2 * L + l] += C[l];
+                H[3 * L + l] += D[l];
+                H[4 * L + l] += E[l];
+                H[5 * L + l] += F[l];
+                H[6 * L + l] += G[l];
+                H[7 * L + l] += HH[l];
+            }
+        }
+    }
+
+    protected void getDigest(int lane, byte[] out, int outOff)
+    {
+        for (int i = 0; i < 8; ++i)
+        {
+            Pack.intToBigEndian(H[i * lanes + lane], out, outOff + (i << 2));
+        }
+    }
+
+    private void round(int[] a, int[] b, int[] c, int[] d, int[] e, int[] f, int[] g, int[] h, int t)
+    {
+        final int k = SHA256Digest.K[t];
+        final int wt = t * lanes;
+        for (int l = 0; l < lanes; ++l)
+        {
+            int el = e[l], al = a[l];
+            int hl = h[l] + Sum1(el) + Ch(el, f[l], g[l]) + k + W[wt + l];
+            d[l] += hl;
+            h[l] = hl + Sum0(al) + Maj(al, b[l], c[l]);
+        }
+    }
+
+    /* SHA-256 functions */
+    private static int Ch(int x, int y, int z)
+    {
+        return (x & y) ^ ((~x) & z);
+    }
+
+    private static int Maj(int x, int y, int z)
+    {
+        return (x & y) | (z & (x ^ y));
+    }
+
+    private static int Sum0(int x)
+    {
+        return ((x >>> 2) | (x << 30)) ^ ((x >>> 13) | (x << 19)) ^ ((x >>> 22) | (x << 10));
+    }
+
+    private static int Sum1(int x)
+    {
+        return ((x >>> 6) | (x << 26)) ^ ((x >>> 11) | (x << 21)) ^ ((x >>> 25) | (x << 7));
+    }
+
+    private static int Theta0(int x)
+    {
+        return ((x >>> 7) | (x << 25)) ^ ((x >>> 18) | (x << 14)) ^ (x >>> 3);
+    }
+
+    private static int Theta1(int x)
+    {
+        return ((x >>> 17) | (x << 15)) ^ ((x >>> 19) | (x << 13)) ^ (x >>> 10);
+    }
+}
@@ -0,0 +1,194 @@
+package org.bouncycastle.crypto.digests;
+
+import org.bouncycastle.crypto.CryptoServicePurpose;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Pack;
+
+/**
+ * FIPS 180-2 SHA-512 for several independent messages at once, see {@link MultiBufferDigest}.
+ * The results are the same as for {@link SHA512Digest} applied to each message in turn.
+ */
+public class SHA512MultiBufferDigest
+    extends MultiBufferDigest
+{
+    private static final int DIGEST_LENGTH = 64;
+
+    private static final long[] IV = {
+        0x6a09e667f3bcc908L, 0xbb67ae8584caa73bL, 0x3c6ef372fe94f82bL, 0xa54ff53a5f1d36f1L,
+        0x510e527fade682d1L, 0x9b05688c2b3e6c1fL, 0x1f83d9abfb41bd6bL, 0x5be0cd19137e2179L
+    };
+
+    // chaining values, working variables and message schedule, all indexed [word * lanes + lane]
+    private final long[] H;
+    private final long[] A, B, C, D, E, F, G, HH;
+    private final long[] W;
+
+    /**
+     * Standard constructor, hashing four messages at a time.
+     */
+    public SHA512MultiBufferDigest()
+    {
+        this(4);
+    }
+
+    /**
+     * Constructor for a given number of lanes.
+     *
+     * @param lanes the number of messages to hash at a time (1 to 16).
+     */
+    public SHA512MultiBufferDigest(int lanes)
+    {
+        this(lanes, CryptoServicePurpose.ANY);
+    }
+
+    public SHA512MultiBufferDigest(int lanes, CryptoServicePurpose purpose)
+    {
+        super(lanes, 128, 16, purpose);
+
+        this.H = new long[8 * lanes];
+        this.A = new long[lanes];
+        this.B = new long[lanes];
+        this.C = new long[lanes];
+        this.D = new long[lanes];
+        this.E = new long[lanes];
+        this.F = new long[lanes];
+        this.G = new long[lanes];
+        this.HH = new long[lanes];
+        this.W = new long[80 * lanes];
+    }
+
+    public String getAlgorithmName()
+    {
+        return "SHA-256";
+    }
+
+    public int getDigestSize()
+    {
+        return DIGEST_LENGTH;
+    }
+
+    protected void initState()
+    {
+        for (int i = 0; i < 8; ++i)
+        {
+            Arrays.fill(H, i * lanes, (i + 1) * lanes, IV[i]);
+        }
+    }
+
+    protected void loadBlock(int lane, byte[] block, int off)
+    {
+        for (int t = 0; t < 16; ++t)
+        {
+            W[t * lanes + lane] = Pack.bigEndianToLong(block, off + (t << 3));
+        }
+    }
+
+    protected void processBlocks(boolean[] active)
+    {
+        final int L = lanes;
+
+        //
+        // expand 16 word block into 80 word blocks.
+        //
+        for (int t = 16; t < 80; ++t)
+        {
+            int w2 = (t - 2) * L, w7 = (t - 7) * L, w15 = (t - 15) * L, w16 = (t - 16) * L, wt = t * L;
+            for (int l = 0; l < L; ++l)
+            {
+                W[wt + l] = Sigma1(W[w2 + l]) + W[w7 + l] + Sigma0(W[w15 + l]) + W[w16 + l];
+            }
+        }
+
+        //
+        // set up working variables.
+        //
+        System.arraycopy(H, 0, A, 0, L);
+        System.arraycopy(H, L, B, 0, L);
+        System.arraycopy(H, 2 * L, C, 0, L);
+        System.arraycopy(H, 3 * L, D, 0, L);
+        System.arraycopy(H, 4 * L, E, 0, L);
+        System.arraycopy(H, 5 * L, F, 0, L);
+        System.arraycopy(H, 6 * L, G, 0, L);
+        System.arraycopy(H, 7 * L, HH, 0, L);
+
+        // rotating the roles of the working variables avoids moving them between rounds
+        for (int t = 0; t < 80; t += 8)
+        {
+            round(A, B, C, D, E, F, G, HH, t);
+            round(HH, A, B, C, D, E, F, G, t + 1);
+            round(G, HH, A, B, C, D, E, F, t + 2);
+            round(F, G, HH, A, B, C, D, E, t + 3);
+            round(E, F, G, HH, A, B, C, D, t + 4);
+            round(D, E, F, G, HH, A, B, C, t + 5);
+            round(C, D, E, F, G, HH, A, B, t + 6);
+            round(B, C, D, E, F, G, HH, A, t + 7);
+        }
+
+        for (int l = 0; l < L; ++l)
+        {
+            if (active[l])
+            {
+                H[l] += A[l];
+                H[L + l] += B[l];
+                H[2 * L + l] += C[l];
+                H[3 * L + l] += D[l];
+                H[4 * L + l] += E[l];
+                H[5 * L + l] += F[l];
+                H[6 * L + l] += G[l];
+                H[7 * L + l] += HH[l];
+            }
+        }
+    }
+
+    protected void getDigest(int lane, byte[] out, int outOff)
+    {
+        for (int i = 0; i < 8; ++i)
+        {
+            Pack.longToBigEndian(H[i * lanes + lane], out, outOff + (i << 3));
+        }
+    }
+
+    private void round(long[] a, long[] b, long[] c, long[] d, long[] e, long[] f, long[] g, long[] h, int t)
+    {
+        final long k = LongDigest.K[t];
+        final int wt = t * lanes;
+        for (int l = 0; l < lanes; ++l)
+        {
+            long el = e[l], al = a[l];
+            long hl = h[l] + Sum1(el) + Ch(el, f[l], g[l]) + k + W[wt + l];
+            d[l] += hl;
+            h[l] = hl + Sum0(al) + Maj(al, b[l], c[l]);
+        }
+    }
+
+    /* SHA-384 and SHA-512 functions (as for SHA-256 but for longs) */
+    private static long Ch(long x, long y, long z)
+    {
+        return (x & y) ^ ((~x) & z);
+    }
+
+    private static long Maj(long x, long y, long z)
+    {
+        return (x & y) ^ (x & z) ^ (y & z);
+    }
+
+    private static long Sum0(long x)
+    {
+        return ((x << 36) | (x >>> 28)) ^ ((x << 30) | (x >>> 34)) ^ ((x << 25) | (x >>> 39));
+    }
+
+    private static long Sum1(long x)
+    {
+        return ((x << 50) | (x >>> 14)) ^ ((x << 46) | (x >>> 18)) ^ ((x << 23) | (x >>> 41));
+    }
+
+    private static long Sigma0(long x)
+    {
+        return ((x << 63) | (x >>> 1)) ^ ((x << 56) | (x >>> 8)) ^ (x >>> 7);
+    }
+
+    private static long Sigma1(long x)
+    {
+        return ((x << 45) | (x >>> 19)) ^ ((x << 3) | (x >>> 61)) ^ (x >>> 6);
+    }
+}
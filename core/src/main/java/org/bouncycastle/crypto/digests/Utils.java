@@ -11,6 +11,11 @@ static CryptoServiceProperties getDefaultProperties(Digest digest, CryptoService
         return new DefaultProperties(digest.getDigestSize() * 4, digest.getAlgorithmName(), purpose);
     }
 
+    static CryptoServiceProperties getDefaultProperties(MultiBufferDigest digest, CryptoServicePurpose purpose)
+    {
+        return new DefaultProperties(digest.getDigestSize() * 4, digest.getAlgorithmName(), purpose);
+    }
+
     static CryptoServiceProperties getDefaultProperties(Digest digest, int prfBitsOfSecurity, CryptoServicePurpose purpose)
     {
         return new DefaultPropertiesWithPRF(digest.getDigestSize() * 4, prfBitsOfSecurity, digest.getAlgorithmName(), purpose);
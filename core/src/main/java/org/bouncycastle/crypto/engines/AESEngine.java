@@ -512,6 +512,44 @@ public int processBlock(byte[] in, int inOff, byte[] out, int outOff)
         return BLOCK_SIZE;
     }
 
+    public int processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+    {
+        if (WorkingKey == null)
+        {
+            throw new IllegalStateException("AES engine not initialised");
+        }
+
+        int len = blockCount * BLOCK_SIZE;
+
+        if (inOff > (in.length - len))
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+
+        if (outOff > (out.length - len))
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        // the blocks are independent, so the round functions can run back-to-back without re-checking
+        if (forEncryption)
+        {
+            for (int pos = 0; pos < len; pos += BLOCK_SIZE)
+            {
+                encryptBlock(in, inOff + pos, out, outOff + pos, WorkingKey);
+            }
+        }
+        else
+        {
+            for (int pos = 0; pos < len; pos += BLOCK_SIZE)
+            {
+                decryptBlock(in, inOff + pos, out, outOff + pos, WorkingKey);
+            }
+        }
+
+        return len;
+    }
+
     public void reset()
     {
     }
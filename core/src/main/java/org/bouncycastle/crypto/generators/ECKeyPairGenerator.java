@@ -19,6 +19,8 @@
 import org.bouncycastle.math.ec.ECPoint;
 import org.bouncycastle.math.ec.FixedPointCombMultiplier;
 import org.bouncycastle.math.ec.WNafUtil;
+import org.bouncycastle.math.ec.custom.sec.SecP256R1FixedBase;
+import org.bouncycastle.math.ec.custom.sec.SecP384R1FixedBase;
 import org.bouncycastle.util.BigIntegers;
 
 public class ECKeyPairGenerator
@@ -77,7 +79,22 @@ public AsymmetricCipherKeyPair generateKeyPair()
             break;
         }
 
-        ECPoint Q = createBasePointMultiplier().multiply(params.getG(), d);
+        ECPoint G = params.getG();
+        ECMultiplier basePointMultiplier = createBasePointMultiplier();
+
+        ECPoint Q;
+        if (basePointMultiplier instanceof FixedPointCombMultiplier && SecP256R1FixedBase.isBasePoint(G))
+        {
+            Q = SecP256R1FixedBase.multiplyBase(G.getCurve(), d);
+        }
+        else if (basePointMultiplier instanceof FixedPointCombMultiplier && SecP384R1FixedBase.isBasePoint(G))
+        {
+            Q = SecP384R1FixedBase.multiplyBase(G.getCurve(), d);
+        }
+        else
+        {
+            Q = basePointMultiplier.multiply(G, d);
+        }
 
         return new AsymmetricCipherKeyPair(
             new ECPublicKeyParameters(Q, params),
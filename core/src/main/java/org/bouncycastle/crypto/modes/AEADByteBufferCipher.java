@@ -0,0 +1,40 @@
+package org.bouncycastle.crypto.modes;
+
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+
+/**
+ * An {@link AEADCipher} which can also process data held in {@link ByteBuffer}s, either heap or direct.
+ * <p>
+ * Heap buffers are processed in place through their backing arrays. Direct buffers are staged through a
+ * small internal buffer, so the data is never copied to an intermediate array of the full input size.
+ * </p>
+ */
+public interface AEADByteBufferCipher
+    extends AEADCipher
+{
+    /**
+     * Process the remaining bytes in input, writing any output produced to output. On return the position of
+     * input will equal its limit, and the position of output will have advanced by the number of bytes written.
+     *
+     * @param input  the buffer containing the input data.
+     * @param output the buffer the output data will be written to.
+     * @return the number of output bytes written.
+     * @throws DataLengthException if output has less than getUpdateOutputSize(input.remaining()) bytes remaining.
+     */
+    public int processBytes(ByteBuffer input, ByteBuffer output)
+        throws DataLengthException;
+
+    /**
+     * Finish the operation either appending or verifying the MAC at the end of the data.
+     *
+     * @param output the buffer the output data will be written to.
+     * @return the number of output bytes written.
+     * @throws IllegalStateException if the cipher is in an inappropriate state.
+     * @throws InvalidCipherTextException if the MAC fails to match.
+     */
+    public int doFinal(ByteBuffer output)
+        throws IllegalStateException, InvalidCipherTextException;
+}
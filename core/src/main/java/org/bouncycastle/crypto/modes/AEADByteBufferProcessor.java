@@ -0,0 +1,155 @@
+package org.bouncycastle.crypto.modes;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Maps the ByteBuffer operations of an {@link AEADByteBufferCipher} onto the cipher's array based methods.
+ */
+class AEADByteBufferProcessor
+{
+    private static final int CHUNK_SIZE = 4096;
+
+    private final AEADCipher cipher;
+
+    private byte[] inBuf;
+    private byte[] outBuf;
+
+    AEADByteBufferProcessor(AEADCipher cipher)
+    {
+        this.cipher = cipher;
+    }
+
+    int processBytes(ByteBuffer input, ByteBuffer output)
+        throws DataLengthException
+    {
+        if (output.isReadOnly())
+        {
+            throw new ReadOnlyBufferException();
+        }
+
+        int remaining = input.remaining();
+        if (output.remaining() < cipher.getUpdateOutputSize(remaining))
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (input.hasArray() && output.hasArray())
+        {
+            int inPos = input.position();
+            input.position(input.limit());
+
+            int outPos = output.position();
+            int len = cipher.processBytes(input.array(), input.arrayOffset() + inPos, remaining, output.array(),
+                output.arrayOffset() + outPos);
+            output.position(outPos + len);
+            return len;
+        }
+
+        int resultLen = 0;
+        try
+        {
+            while (remaining > 0)
+            {
+                int chunk = Math.min(remaining, CHUNK_SIZE);
+
+                byte[] in;
+                int inOff;
+                if (input.hasArray())
+                {
+                    in = input.array();
+                    inOff = input.arrayOffset() + input.position();
+                    input.position(input.position() + chunk);
+                }
+                else
+                {
+                    if (inBuf == null)
+                    {
+                        inBuf = new byte[CHUNK_SIZE];
+                    }
+                    in = inBuf;
+                    inOff = 0;
+                    input.get(in, 0, chunk);
+                }
+
+                int len;
+                if (output.hasArray())
+                {
+                    int outPos = output.position();
+                    len = cipher.processBytes(in, inOff, chunk, output.array(), output.arrayOffset() + outPos);
+                    output.position(outPos + len);
+                }
+                else
+                {
+                    int outSize = cipher.getUpdateOutputSize(chunk);
+                    if (outBuf == null || outBuf.length < outSize)
+                    {
+                        outBuf = new byte[Math.max(outSize, CHUNK_SIZE)];
+                    }
+                    len = cipher.processBytes(in, inOff, chunk, outBuf, 0);
+                    output.put(outBuf, 0, len);
+                }
+
+                resultLen += len;
+                remaining -= chunk;
+            }
+        }
+        finally
+        {
+            clear();
+        }
+
+        return resultLen;
+    }
+
+    int doFinal(ByteBuffer output)
+        throws IllegalStateException, InvalidCipherTextException
+    {
+        if (output.isReadOnly())
+        {
+            throw new ReadOnlyBufferException();
+        }
+
+        if (output.remaining() < cipher.getOutputSize(0))
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (output.hasArray())
+        {
+            int outPos = output.position();
+            int len = cipher.doFinal(output.array(), output.arrayOffset() + outPos);
+            output.position(outPos + len);
+            return len;
+        }
+
+        byte[] out = new byte[cipher.getOutputSize(0)];
+        try
+        {
+            int len = cipher.doFinal(out, 0);
+            output.put(out, 0, len);
+            return len;
+        }
+        finally
+        {
+            Arrays.fill(out, (byte)0);
+        }
+    }
+
+    private void clear()
+    {
+        if (inBuf != null)
+        {
+            Arrays.fill(inBuf, (byte)0);
+        }
+        if (outBuf != null)
+        {
+            Arrays.fill(outBuf, (byte)0);
+        }
+    }
+}
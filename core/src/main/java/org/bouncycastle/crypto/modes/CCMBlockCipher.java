@@ -1,6 +1,7 @@
 package org.bouncycastle.crypto.modes;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 
 import org.bouncycastle.crypto.BlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
@@ -20,7 +21,7 @@
  * <b>Note</b>: this mode is a packet mode - it needs all the data up front.
  */
 public class CCMBlockCipher
-    implements CCMModeCipher
+    implements CCMModeCipher, AEADByteBufferCipher
 {
     private BlockCipher           cipher;
     private int                   blockSize;
@@ -32,6 +33,7 @@
     private byte[]                macBlock;
     private ExposedByteArrayOutputStream associatedText = new ExposedByteArrayOutputStream();
     private ExposedByteArrayOutputStream data = new ExposedByteArrayOutputStream();
+    private AEADByteBufferProcessor byteBufferProcessor;
 
     /**
      * Return a new CCM mode cipher based on the passed in base cipher
@@ -151,6 +153,27 @@ public int processBytes(byte[] in, int inOff, int inLen, byte[] out, int outOff)
         return 0;
     }
 
+    public int processBytes(ByteBuffer input, ByteBuffer output)
+        throws DataLengthException
+    {
+        return getByteBufferProcessor().processBytes(input, output);
+    }
+
+    public int doFinal(ByteBuffer output)
+        throws IllegalStateException, InvalidCipherTextException
+    {
+        return getByteBufferProcessor().doFinal(output);
+    }
+
+    private AEADByteBufferProcessor getByteBufferProcessor()
+    {
+        if (byteBufferProcessor == null)
+        {
+            byteBufferProcessor = new AEADByteBufferProcessor(this);
+        }
+        return byteBufferProcessor;
+    }
+
     public int doFinal(byte[] out, int outOff)
         throws IllegalStateException, InvalidCipherTextException
     {
@@ -1,5 +1,7 @@
 package org.bouncycastle.crypto.modes;
 
+import java.nio.ByteBuffer;
+
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
@@ -14,7 +16,7 @@
 import org.bouncycastle.util.Pack;
 
 public class ChaCha20Poly1305
-    implements AEADCipher
+    implements AEADByteBufferCipher
 {
     private static final class State
     {
@@ -53,6 +55,8 @@
     private int state = State.UNINITIALIZED;
     private int bufPos;
 
+    private AEADByteBufferProcessor byteBufferProcessor;
+
     public ChaCha20Poly1305()
     {
         this(new Poly1305());
@@ -372,6 +376,27 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff) t
         return resultLen;
     }
 
+    public int processBytes(ByteBuffer input, ByteBuffer output)
+        throws DataLengthException
+    {
+        return getByteBufferProcessor().processBytes(input, output);
+    }
+
+    public int doFinal(ByteBuffer output)
+        throws IllegalStateException, InvalidCipherTextException
+    {
+        return getByteBufferProcessor().doFinal(output);
+    }
+
+    private AEADByteBufferProcessor getByteBufferProcessor()
+    {
+        if (byteBufferProcessor == null)
+        {
+            byteBufferProcessor = new AEADByteBufferProcessor(this);
+        }
+        return byteBufferProcessor;
+    }
+
     public int doFinal(byte[] out, int outOff) throws IllegalStateException, InvalidCipherTextException
     {
         if (null == out)
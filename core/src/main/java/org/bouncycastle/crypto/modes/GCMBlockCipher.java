@@ -1,9 +1,12 @@
 package org.bouncycastle.crypto.modes;
 
+import java.nio.ByteBuffer;
+
 import org.bouncycastle.crypto.BlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.MultiBlockCipher;
 import org.bouncycastle.crypto.OutputLengthException;
 import org.bouncycastle.crypto.modes.gcm.BasicGCMExponentiator;
 import org.bouncycastle.crypto.modes.gcm.GCMExponentiator;
@@ -21,9 +24,11 @@
  * NIST Special Publication 800-38D.
  */
 public class GCMBlockCipher
-    implements GCMModeCipher
+    implements GCMModeCipher, AEADByteBufferCipher
 {
     private static final int BLOCK_SIZE = 16;
+    // number of counter blocks generated (and hashed) per pass over bulk input
+    private static final int CTR_BLOCKS = 8;
 
     // not final due to a compiler bug
     private BlockCipher   cipher;
@@ -45,6 +50,7 @@
     private byte[]      macBlock;
     private byte[]      S, S_at, S_atPre;
     private byte[]      counter;
+    private byte[]      ctrBlocks;
     private int         blocksRemaining;
     private int         bufOff;
     private long        totalLength;
@@ -53,6 +59,8 @@
     private long        atLength;
     private long        atLengthPre;
 
+    private AEADByteBufferProcessor byteBufferProcessor;
+
     /**
      * Return a new GCM mode cipher based on the passed in base cipher
      *
@@ -165,6 +173,10 @@ else if (params instanceof ParametersWithIV)
 
         int bufLength = forEncryption ? BLOCK_SIZE : (BLOCK_SIZE + macSize);
         this.bufBlock = new byte[bufLength];
+        if (this.ctrBlocks == null)
+        {
+            this.ctrBlocks = new byte[BLOCK_SIZE * CTR_BLOCKS];
+        }
 
         if (newNonce == null || newNonce.length < 1)
         {
@@ -410,9 +422,10 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
 
             while (inOff <= inLimit)
             {
-                encryptBlock(in, inOff, out, outOff + resultLen);
-                inOff += BLOCK_SIZE;
-                resultLen += BLOCK_SIZE;
+                int blocks = Math.min(CTR_BLOCKS, 1 + (inLimit - inOff) / BLOCK_SIZE);
+                int blocksLen = encryptBlocks(in, inOff, blocks, out, outOff + resultLen);
+                inOff += blocksLen;
+                resultLen += blocksLen;
             }
 
             bufOff = BLOCK_SIZE + inLimit - inOff;
@@ -454,9 +467,10 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
 
             while (inOff <= inLimit)
             {
-                decryptBlock(in, inOff, out, outOff + resultLen);
-                inOff += BLOCK_SIZE;
-                resultLen += BLOCK_SIZE;
+                int blocks = Math.min(CTR_BLOCKS, 1 + (inLimit - inOff) / BLOCK_SIZE);
+                int blocksLen = decryptBlocks(in, inOff, blocks, out, outOff + resultLen);
+                inOff += blocksLen;
+                resultLen += blocksLen;
             }
 
             bufOff = bufBlock.length + inLimit - inOff;
@@ -466,6 +480,27 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
         return resultLen;
     }
 
+    public int processBytes(ByteBuffer input, ByteBuffer output)
+        throws DataLengthException
+    {
+        return getByteBufferProcessor().processBytes(input, output);
+    }
+
+    public int doFinal(ByteBuffer output)
+        throws IllegalStateException, InvalidCipherTextException
+    {
+        return getByteBufferProcessor().doFinal(output);
+    }
+
+    private AEADByteBufferProcessor getByteBufferProcessor()
+    {
+        if (byteBufferProcessor == null)
+        {
+            byteBufferProcessor = new AEADByteBufferProcessor(this);
+        }
+        return byteBufferProcessor;
+    }
+
     public int doFinal(byte[] out, int outOff)
         throws IllegalStateException, InvalidCipherTextException
     {
@@ -615,6 +650,11 @@ private void reset(
             Arrays.fill(bufBlock, (byte)0);
         }
 
+        if (ctrBlocks != null)
+        {
+            Arrays.fill(ctrBlocks, (byte)0);
+        }
+
         if (clearMac)
         {
             macBlock = null;
@@ -674,6 +714,56 @@ private void encryptBlock(byte[] buf, int bufOff, byte[] out, int outOff)
         totalLength += BLOCK_SIZE;
     }
 
+    private int decryptBlocks(byte[] buf, int bufOff, int blockCount, byte[] out, int outOff)
+    {
+        int len = blockCount * BLOCK_SIZE;
+        if ((out.length - outOff) < len)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+        if (totalLength == 0)
+        {
+            initCipher();
+        }
+
+        getNextCTRBlocks(ctrBlocks, blockCount);
+
+        // the key stream is independent of the input, so hash and decrypt block-by-block in one pass
+        for (int pos = 0; pos < len; pos += BLOCK_SIZE)
+        {
+            gHASHBlock(S, buf, bufOff + pos);
+            GCMUtil.xor(ctrBlocks, pos, buf, bufOff + pos, out, outOff + pos);
+        }
+
+        totalLength += len;
+        return len;
+    }
+
+    private int encryptBlocks(byte[] buf, int bufOff, int blockCount, byte[] out, int outOff)
+    {
+        int len = blockCount * BLOCK_SIZE;
+        if ((out.length - outOff) < len)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+        if (totalLength == 0)
+        {
+            initCipher();
+        }
+
+        getNextCTRBlocks(ctrBlocks, blockCount);
+
+        for (int pos = 0; pos < len; pos += BLOCK_SIZE)
+        {
+            GCMUtil.xor(ctrBlocks, pos, buf, bufOff + pos, ctrBlocks, pos);
+            gHASHBlock(S, ctrBlocks, pos);
+            System.arraycopy(ctrBlocks, pos, out, outOff + pos, BLOCK_SIZE);
+        }
+
+        totalLength += len;
+        return len;
+    }
+
     private void processPartial(byte[] buf, int off, int len, byte[] out, int outOff)
     {
         byte[] ctrBlock = new byte[BLOCK_SIZE];
@@ -738,6 +828,39 @@ private void getNextCTRBlock(byte[] block)
         cipher.processBlock(counter, 0, block, 0);
     }
 
+    private void getNextCTRBlocks(byte[] blocks, int blockCount)
+    {
+        for (int pos = 0, len = blockCount * BLOCK_SIZE; pos < len; pos += BLOCK_SIZE)
+        {
+            if (blocksRemaining == 0)
+            {
+                throw new IllegalStateException("Attempt to process too many blocks");
+            }
+            blocksRemaining--;
+
+            int c = 1;
+            c += counter[15] & 0xFF; counter[15] = (byte)c; c >>>= 8;
+            c += counter[14] & 0xFF; counter[14] = (byte)c; c >>>= 8;
+            c += counter[13] & 0xFF; counter[13] = (byte)c; c >>>= 8;
+            c += counter[12] & 0xFF; counter[12] = (byte)c;
+
+            System.arraycopy(counter, 0, blocks, pos, BLOCK_SIZE);
+        }
+
+        // run all the counter blocks through the cipher together
+        if (cipher instanceof MultiBlockCipher)
+        {
+            ((MultiBlockCipher)cipher).processBlocks(blocks, 0, blockCount, blocks, 0);
+        }
+        else
+        {
+            for (int pos = 0, len = blockCount * BLOCK_SIZE; pos < len; pos += BLOCK_SIZE)
+            {
+                cipher.processBlock(blocks, pos, blocks, pos);
+            }
+        }
+    }
+
     private void checkStatus()
     {
         if (!initialised)
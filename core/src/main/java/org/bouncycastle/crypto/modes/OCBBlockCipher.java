@@ -1,5 +1,6 @@
 package org.bouncycastle.crypto.modes;
 
+import java.nio.ByteBuffer;
 import java.util.Vector;
 
 import org.bouncycastle.crypto.BlockCipher;
@@ -33,7 +34,7 @@
  * </blockquote>
  */
 public class OCBBlockCipher
-    implements AEADBlockCipher
+    implements AEADBlockCipher, AEADByteBufferCipher
 {
     private static final int BLOCK_SIZE = 16;
 
@@ -75,6 +76,8 @@
     // NOTE: The MAC value is preserved after doFinal
     private byte[] macBlock;
 
+    private AEADByteBufferProcessor byteBufferProcessor;
+
     public OCBBlockCipher(BlockCipher hashCipher, BlockCipher mainCipher)
     {
         if (hashCipher == null)
@@ -347,6 +350,27 @@ public int processBytes(byte[] input, int inOff, int len, byte[] output, int out
         return resultLen;
     }
 
+    public int processBytes(ByteBuffer input, ByteBuffer output)
+        throws DataLengthException
+    {
+        return getByteBufferProcessor().processBytes(input, output);
+    }
+
+    public int doFinal(ByteBuffer output)
+        throws IllegalStateException, InvalidCipherTextException
+    {
+        return getByteBufferProcessor().doFinal(output);
+    }
+
+    private AEADByteBufferProcessor getByteBufferProcessor()
+    {
+        if (byteBufferProcessor == null)
+        {
+            byteBufferProcessor = new AEADByteBufferProcessor(this);
+        }
+        return byteBufferProcessor;
+    }
+
     public int doFinal(byte[] output, int outOff)
         throws IllegalStateException,
         InvalidCipherTextException
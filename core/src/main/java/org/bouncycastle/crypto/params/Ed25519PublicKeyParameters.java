@@ -3,7 +3,9 @@
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.SecureRandom;
 
+import org.bouncycastle.crypto.CryptoServicesRegistrar;
 import org.bouncycastle.math.ec.rfc8032.Ed25519;
 import org.bouncycastle.util.io.Streams;
 
@@ -64,6 +66,15 @@ public byte[] getEncoded()
         return data;
     }
 
+    /**
+     * Precompute the tables used to verify signatures against this key, for a key that will be used to
+     * verify many signatures. The tables are shared by every use of this object.
+     */
+    public void precompute()
+    {
+        Ed25519.precompute(publicPoint);
+    }
+
     public boolean verify(int algorithm, byte[] ctx, byte[] msg, int msgOff, int msgLen, byte[] sig, int sigOff)
     {
         switch (algorithm)
@@ -114,6 +125,29 @@ public boolean verify(int algorithm, byte[] ctx, byte[] msg, int msgOff, int msg
         }
     }
 
+    /**
+     * Verify a batch of pure Ed25519 signatures, each against its own public key, using a single combined check.
+     *
+     * @param publicKeys the public key for each signature.
+     * @param msgs the message for each signature.
+     * @param sigs the signatures.
+     * @param random source of randomness for the batch coefficients (may be null).
+     * @param results receives the verification result for each signature.
+     * @return true if every signature in the batch is valid, false otherwise.
+     */
+    public static boolean verifyBatch(Ed25519PublicKeyParameters[] publicKeys, byte[][] msgs, byte[][] sigs,
+        SecureRandom random, boolean[] results)
+    {
+        Ed25519.PublicPoint[] publicPoints = new Ed25519.PublicPoint[publicKeys.length];
+        for (int i = 0; i < publicKeys.length; ++i)
+        {
+            publicPoints[i] = publicKeys[i].publicPoint;
+        }
+
+        return Ed25519.verifyBatch(sigs, publicPoints, msgs, CryptoServicesRegistrar.getSecureRandom(random),
+            results);
+    }
+
     private static Ed25519.PublicPoint parse(byte[] buf, int off)
     {
         Ed25519.PublicPoint publicPoint = Ed25519.validatePublicKeyPartialExport(buf, off);
@@ -64,6 +64,15 @@ public byte[] getEncoded()
         return data;
     }
 
+    /**
+     * Precompute the tables used to verify signatures against this key, for a key that will be used to
+     * verify many signatures. The tables are shared by every use of this object.
+     */
+    public void precompute()
+    {
+        Ed448.precompute(publicPoint);
+    }
+
     public boolean verify(int algorithm, byte[] ctx, byte[] msg, int msgOff, int msgLen, byte[] sig, int sigOff)
     {
         switch (algorithm)
@@ -0,0 +1,353 @@
+package org.bouncycastle.crypto.signers;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.bouncycastle.crypto.CryptoServicesRegistrar;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECConstants;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.BigIntegers;
+
+/**
+ * Batch verification of EC-DSA signatures over a single set of domain parameters.
+ * <p>
+ * For each signature (r, s) on a message with representative e under key Q, the point R with x coordinate r
+ * is recovered and the batch is checked with a single multi-scalar multiplication:
+ * <pre>
+ *     sum(z_i.e_i).G + sum(z_i.r_i.Q_i) - sum(z_i.s_i.R_i) == O
+ * </pre>
+ * where the z_i are random 128 bit multipliers. Signatures made under the same key share a single Q term.
+ * If the check fails, the batch is split in two and each half checked again, until the failing signatures
+ * are isolated, so a batch with a few bad signatures still costs little more than one with none.
+ * </p>
+ * <p>
+ * The x coordinate r only fixes R up to sign, so recovering R needs the recovery id of the signature
+ * (as in SEC 1 section 4.1.6): bit 0 is the parity of the y coordinate of R and bit 1 is set if the x
+ * coordinate of R is r + n rather than r. Signatures added without one, and signatures whose recovery id
+ * turns out to be wrong, are checked on their own with {@link ECDSASigner}, so the recovery id affects only
+ * the cost of verification, never the result. Batch checking also needs a prime order curve over a prime
+ * field; for other curves every signature is checked on its own.
+ * </p>
+ */
+public class ECDSABatchVerifier
+{
+    /**
+     * Ranges of signatures this small are checked one by one rather than as a batch.
+     */
+    private static final int MIN_BATCH_SIZE = 4;
+
+    private static final int MULTIPLIER_BITS = 128;
+
+    private final ECDomainParameters params;
+    private final ECDSASigner signer;
+    private final SecureRandom random;
+    private final boolean batchable;
+
+    private final List<Entry> entries = new ArrayList<Entry>();
+
+    /**
+     * Base constructor, using a default {@link ECDSASigner} for message representatives and single checks.
+     *
+     * @param params the domain parameters all the signatures are under.
+     */
+    public ECDSABatchVerifier(ECDomainParameters params)
+    {
+        this(params, new ECDSASigner(), null);
+    }
+
+    /**
+     * Constructor taking the signer to calculate message representatives and check single signatures with,
+     * and a source of randomness for the batch multipliers.
+     *
+     * @param params the domain parameters all the signatures are under.
+     * @param signer the signer to use for single signature checks.
+     * @param random the source of randomness for the batch multipliers, null for the default.
+     */
+    public ECDSABatchVerifier(ECDomainParameters params, ECDSASigner signer, SecureRandom random)
+    {
+        if (params == null)
+        {
+            throw new NullPointerException("'params' cannot be null");
+        }
+        if (signer == null)
+        {
+            throw new NullPointerException("'signer' cannot be null");
+        }
+
+        ECCurve curve = params.getCurve();
+
+        this.params = params;
+        this.signer = signer;
+        this.random = CryptoServicesRegistrar.getSecureRandom(random);
+        this.batchable = ECAlgorithms.isFpCurve(curve) && ECConstants.ONE.equals(params.getH());
+    }
+
+    /**
+     * Add a signature to the batch, without a recovery id.
+     *
+     * @param key the public key to check the signature against.
+     * @param message the message representative (normally a digest) the signature is on.
+     * @param r the r value of the signature.
+     * @param s the s value of the signature.
+     * @return the index of the signature in the results of {@link #verifySignatures()}.
+     */
+    public int addSignature(ECPublicKeyParameters key, byte[] message, BigInteger r, BigInteger s)
+    {
+        return addSignature(key, message, r, s, -1);
+    }
+
+    /**
+     * Add a signature to the batch.
+     *
+     * @param key the public key to check the signature against.
+     * @param message the message representative (normally a digest) the signature is on.
+     * @param r the r value of the signature.
+     * @param s the s value of the signature.
+     * @param recoveryId the recovery id of the signature, in [0, 3], or -1 if not known.
+     * @return the index of the signature in the results of {@link #verifySignatures()}.
+     */
+    public int addSignature(ECPublicKeyParameters key, byte[] message, BigInteger r, BigInteger s, int recoveryId)
+    {
+        if (!params.equals(key.getParameters()))
+        {
+            throw new IllegalArgumentException("key not for the domain parameters of this batch");
+        }
+        if (recoveryId < -1 || recoveryId > 3)
+        {
+            throw new IllegalArgumentException("recoveryId out of range");
+        }
+
+        BigInteger n = params.getN();
+
+        Entry entry = new Entry(key, message, r, s);
+        if (r.signum() <= 0 || r.compareTo(n) >= 0 || s.signum() <= 0 || s.compareTo(n) >= 0)
+        {
+            entry.invalid = true;
+        }
+        else if (batchable && recoveryId >= 0)
+        {
+            entry.e = signer.calculateE(n, message);
+            entry.R = recoverR(r, recoveryId);
+        }
+
+        entries.add(entry);
+
+        return entries.size() - 1;
+    }
+
+    /**
+     * Return the number of signatures added since construction or the last reset.
+     *
+     * @return the size of the batch.
+     */
+    public int getSize()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Remove all the signatures from the batch.
+     */
+    public void reset()
+    {
+        entries.clear();
+    }
+
+    /**
+     * Check the whole batch.
+     *
+     * @return true if every signature in the batch is valid, false otherwise.
+     */
+    public boolean verify()
+    {
+        for (int i = 0; i != entries.size(); i++)
+        {
+            if (entries.get(i).invalid)
+            {
+                return false;
+            }
+        }
+
+        return allValid(verifySignatures());
+    }
+
+    /**
+     * Check every signature in the batch.
+     *
+     * @return an array holding the result for each signature, in the order they were added.
+     */
+    public boolean[] verifySignatures()
+    {
+        boolean[] results = new boolean[entries.size()];
+
+        List<Entry> batch = new ArrayList<Entry>();
+        for (int i = 0; i != entries.size(); i++)
+        {
+            Entry entry = entries.get(i);
+            entry.index = i;
+            if (entry.invalid)
+            {
+                results[i] = false;
+            }
+            else if (entry.R == null)
+            {
+                results[i] = verifySingle(entry);
+            }
+            else
+            {
+                batch.add(entry);
+            }
+        }
+
+        verifyRange(batch, 0, batch.size(), results);
+
+        return results;
+    }
+
+    private void verifyRange(List<Entry> batch, int from, int to, boolean[] results)
+    {
+        if (to - from < MIN_BATCH_SIZE)
+        {
+            for (int i = from; i < to; i++)
+            {
+                Entry entry = batch.get(i);
+                results[entry.index] = verifySingle(entry);
+            }
+            return;
+        }
+
+        if (verifyBatch(batch, from, to))
+        {
+            for (int i = from; i < to; i++)
+            {
+                results[(batch.get(i)).index] = true;
+            }
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        verifyRange(batch, from, mid, results);
+        verifyRange(batch, mid, to, results);
+    }
+
+    private boolean verifyBatch(List<Entry> batch, int from, int to)
+    {
+        BigInteger n = params.getN();
+
+        BigInteger g = ECConstants.ZERO;
+        Map<ECPoint, BigInteger> qs = new HashMap<ECPoint, BigInteger>();
+        List<ECPoint> points = new ArrayList<ECPoint>();
+        List<BigInteger> scalars = new ArrayList<BigInteger>();
+
+        for (int i = from; i < to; i++)
+        {
+            Entry entry = batch.get(i);
+
+            BigInteger z = BigIntegers.createRandomBigInteger(MULTIPLIER_BITS, random).setBit(0);
+
+            g = g.add(z.multiply(entry.e));
+
+            ECPoint Q = entry.key.getQ();
+            BigInteger zr = z.multiply(entry.r);
+            BigInteger prev = qs.get(Q);
+            qs.put(Q, prev == null ? zr : prev.add(zr));
+
+            points.add(entry.R);
+            scalars.add(n.subtract(z.multiply(entry.s).mod(n)));
+        }
+
+        points.add(params.getG());
+        scalars.add(g.mod(n));
+
+        for (Iterator<Map.Entry<ECPoint, BigInteger>> it = qs.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry<ECPoint, BigInteger> q = it.next();
+            points.add(q.getKey());
+            scalars.add(q.getValue().mod(n));
+        }
+
+        ECPoint sum = ECAlgorithms.sumOfMultiplies(
+            points.toArray(new ECPoint[points.size()]),
+            scalars.toArray(new BigInteger[scalars.size()]));
+
+        return sum.isInfinity();
+    }
+
+    private boolean verifySingle(Entry entry)
+    {
+        signer.init(false, entry.key);
+
+        return signer.verifySignature(entry.message, entry.r, entry.s);
+    }
+
+    /**
+     * Return the point R with x coordinate r (or r + n) and the y parity given by the recovery id, or null
+     * if there is no such point.
+     */
+    private ECPoint recoverR(BigInteger r, int recoveryId)
+    {
+        ECCurve curve = params.getCurve();
+
+        BigInteger x = (recoveryId & 2) == 0 ? r : r.add(params.getN());
+        if (!curve.isValidFieldElement(x))
+        {
+            return null;
+        }
+
+        int len = (curve.getFieldSize() + 7) / 8;
+        byte[] encoding = new byte[1 + len];
+        encoding[0] = (byte)(0x02 | (recoveryId & 1));
+        BigIntegers.asUnsignedByteArray(x, encoding, 1, len);
+
+        try
+        {
+            return curve.decodePoint(encoding);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+    private static boolean allValid(boolean[] results)
+    {
+        for (int i = 0; i != results.length; i++)
+        {
+            if (!results[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Entry
+    {
+        final ECPublicKeyParameters key;
+        final byte[] message;
+        final BigInteger r;
+        final BigInteger s;
+
+        boolean invalid;
+        BigInteger e;
+        ECPoint R;
+        int index;
+
+        Entry(ECPublicKeyParameters key, byte[] message, BigInteger r, BigInteger s)
+        {
+            this.key = key;
+            this.message = message;
+            this.r = r;
+            this.s = s;
+        }
+    }
+}
@@ -18,6 +18,9 @@
 import org.bouncycastle.math.ec.ECMultiplier;
 import org.bouncycastle.math.ec.ECPoint;
 import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.math.ec.custom.sec.SecP256R1FixedBase;
+import org.bouncycastle.math.ec.custom.sec.SecP384R1FixedBase;
+import org.bouncycastle.math.raw.Nat;
 import org.bouncycastle.util.BigIntegers;
 
 /**
@@ -109,10 +112,23 @@ public BigInteger[] generateSignature(
             kCalculator.init(n, random);
         }
 
-        BigInteger r, s;
-
         ECMultiplier basePointMultiplier = createBasePointMultiplier();
 
+        if (basePointMultiplier instanceof FixedPointCombMultiplier
+            && d.signum() > 0 && d.compareTo(n) < 0 && e.bitLength() <= n.bitLength())
+        {
+            if (SecP256R1FixedBase.isBasePoint(ec.getG()))
+            {
+                return generateSignatureFixedBase(8, d, e);
+            }
+            if (SecP384R1FixedBase.isBasePoint(ec.getG()))
+            {
+                return generateSignatureFixedBase(12, d, e);
+            }
+        }
+
+        BigInteger r, s;
+
         // 5.3.2
         do // generate s
         {
@@ -135,6 +151,40 @@ public BigInteger[] generateSignature(
         return new BigInteger[]{ r, s };
     }
 
+    /**
+     * Signature generation for the standard P-256 and P-384 generators, done on the raw limbs of the
+     * values by the fixed-base classes for those curves.
+     */
+    private BigInteger[] generateSignatureFixedBase(int len, BigInteger d, BigInteger e)
+    {
+        int bits = len << 5;
+        int[] dInts = Nat.fromBigInteger(bits, d), eInts = Nat.fromBigInteger(bits, e);
+        int[] r = Nat.create(len), s = Nat.create(len);
+
+        try
+        {
+            for (;;)
+            {
+                int[] k = Nat.fromBigInteger(bits, kCalculator.nextK());
+
+                boolean valid = len == 8
+                    ? SecP256R1FixedBase.generateSignature(dInts, eInts, k, r, s)
+                    : SecP384R1FixedBase.generateSignature(dInts, eInts, k, r, s);
+
+                Nat.zero(len, k);
+
+                if (valid)
+                {
+                    return new BigInteger[]{ Nat.toBigInteger(len, r), Nat.toBigInteger(len, s) };
+                }
+            }
+        }
+        finally
+        {
+            Nat.zero(len, dInts);
+        }
+    }
+
     // 5.4 pg 29
     /**
      * return true if the value r and s represent a DSA signature for
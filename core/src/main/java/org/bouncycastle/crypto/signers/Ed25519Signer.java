@@ -1,6 +1,7 @@
 package org.bouncycastle.crypto.signers;
 
 import java.io.ByteArrayOutputStream;
+import java.security.SecureRandom;
 
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
@@ -82,6 +83,24 @@ public void reset()
         buffer.reset();
     }
 
+    /**
+     * Verify a batch of Ed25519 signatures in one combined check, falling back to individual checks only if
+     * the batch contains a bad signature.
+     *
+     * @param publicKeys the public key for each signature.
+     * @param messages the message for each signature.
+     * @param signatures the signatures.
+     * @param random source of randomness for the batch coefficients (may be null).
+     * @return the verification result for each signature.
+     */
+    public static boolean[] verifyBatch(Ed25519PublicKeyParameters[] publicKeys, byte[][] messages,
+        byte[][] signatures, SecureRandom random)
+    {
+        boolean[] results = new boolean[signatures.length];
+        Ed25519PublicKeyParameters.verifyBatch(publicKeys, messages, signatures, random, results);
+        return results;
+    }
+
     private static final class Buffer extends ByteArrayOutputStream
     {
         synchronized byte[] generateSignature(Ed25519PrivateKeyParameters privateKey)
@@ -0,0 +1,381 @@
+package org.bouncycastle.crypto.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.bouncycastle.crypto.params.Ed448PublicKeyParameters;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointUtil;
+import org.bouncycastle.math.ec.WNafUtil;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Properties;
+
+/**
+ * A bounded cache of decoded public keys for ECDSA, Ed25519 and Ed448, for applications that verify many
+ * signatures against a limited set of keys.
+ * <p>
+ * Keys are looked up by their encoding. On a miss the key is only decoded and cached. The first time it is
+ * found again its verification tables are precomputed: for EC keys the point is promoted to use the
+ * fixed-point comb, and for Ed25519 and Ed448 keys the table of multiples of the public point is built. Keys
+ * that are only ever seen once therefore don't pay for tables they would never use. The returned key objects
+ * can be passed to any number of signers, on any number of threads. Once the cache is full the least recently
+ * used key is dropped.
+ * </p>
+ * <p>
+ * The provider verifies through {@link #getDefault()}, whose size is set by the property
+ * "org.bouncycastle.public_key_cache_size" (default 0, i.e. disabled).
+ * </p>
+ */
+public final class PublicKeyCache
+{
+    private static final String ED25519 = "Ed25519";
+    private static final String ED448 = "Ed448";
+
+    private static final PublicKeyCache DEFAULT = new PublicKeyCache(
+        Properties.asInteger("org.bouncycastle.public_key_cache_size", 0));
+
+    private final int maxSize;
+    private final Map<Key, CacheEntry> entries;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Return the shared cache used by the provider.
+     *
+     * @return the default cache.
+     */
+    public static PublicKeyCache getDefault()
+    {
+        return DEFAULT;
+    }
+
+    /**
+     * Create a cache holding at most maxSize keys.
+     *
+     * @param maxSize the maximum number of keys held, 0 to disable caching.
+     */
+    public PublicKeyCache(final int maxSize)
+    {
+        if (maxSize < 0)
+        {
+            throw new IllegalArgumentException("maxSize cannot be negative");
+        }
+
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<Key, CacheEntry>(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry<Key, CacheEntry> eldest)
+            {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Return the EC public key with the passed in point encoding.
+     *
+     * @param params the domain parameters of the key.
+     * @param encoding the encoding of the public point.
+     * @return the (possibly cached) public key.
+     * @throws IllegalArgumentException if the encoding is not of a valid point.
+     */
+    public ECPublicKeyParameters getECPublicKey(ECDomainParameters params, byte[] encoding)
+    {
+        if (maxSize == 0)
+        {
+            return new ECPublicKeyParameters(params.getCurve().decodePoint(encoding), params);
+        }
+
+        Key key = new Key(params, encoding);
+
+        CacheEntry entry = lookup(key);
+        if (entry == null)
+        {
+            return (ECPublicKeyParameters)store(key,
+                new ECPublicKeyParameters(params.getCurve().decodePoint(encoding), params));
+        }
+
+        return (ECPublicKeyParameters)entry.getPrecomputed();
+    }
+
+    /**
+     * Return the cached equivalent of an EC public key, or cache the key itself if there is none.
+     *
+     * @param publicKey the key to look up.
+     * @return an equivalent public key, with its verification tables precomputed if it was seen before.
+     */
+    public ECPublicKeyParameters getECPublicKey(ECPublicKeyParameters publicKey)
+    {
+        if (maxSize == 0)
+        {
+            return publicKey;
+        }
+
+        Key key = new Key(publicKey.getParameters(), publicKey.getQ().getEncoded(false));
+
+        CacheEntry entry = lookup(key);
+        if (entry == null)
+        {
+            return (ECPublicKeyParameters)store(key, publicKey);
+        }
+
+        return (ECPublicKeyParameters)entry.getPrecomputed();
+    }
+
+    /**
+     * Return the Ed25519 public key with the passed in encoding.
+     *
+     * @param encoding the encoded public key.
+     * @return the (possibly cached) public key.
+     * @throws IllegalArgumentException if the encoding is not of a valid key.
+     */
+    public Ed25519PublicKeyParameters getEd25519PublicKey(byte[] encoding)
+    {
+        if (maxSize == 0)
+        {
+            return new Ed25519PublicKeyParameters(encoding);
+        }
+
+        Key key = new Key(ED25519, encoding);
+
+        CacheEntry entry = lookup(key);
+        if (entry == null)
+        {
+            return (Ed25519PublicKeyParameters)store(key, new Ed25519PublicKeyParameters(encoding));
+        }
+
+        return (Ed25519PublicKeyParameters)entry.getPrecomputed();
+    }
+
+    /**
+     * Return the cached equivalent of an Ed25519 public key, or cache the key itself if there is none.
+     *
+     * @param publicKey the key to look up.
+     * @return an equivalent public key, with its verification tables precomputed if it was seen before.
+     */
+    public Ed25519PublicKeyParameters getEd25519PublicKey(Ed25519PublicKeyParameters publicKey)
+    {
+        if (maxSize == 0)
+        {
+            return publicKey;
+        }
+
+        Key key = new Key(ED25519, publicKey.getEncoded());
+
+        CacheEntry entry = lookup(key);
+        if (entry == null)
+        {
+            return (Ed25519PublicKeyParameters)store(key, publicKey);
+        }
+
+        return (Ed25519PublicKeyParameters)entry.getPrecomputed();
+    }
+
+    /**
+     * Return the Ed448 public key with the passed in encoding.
+     *
+     * @param encoding the encoded public key.
+     * @return the (possibly cached) public key.
+     * @throws IllegalArgumentException if the encoding is not of a valid key.
+     */
+    public Ed448PublicKeyParameters getEd448PublicKey(byte[] encoding)
+    {
+        if (maxSize == 0)
+        {
+            return new Ed448PublicKeyParameters(encoding);
+        }
+
+        Key key = new Key(ED448, encoding);
+
+        CacheEntry entry = lookup(key);
+        if (entry == null)
+        {
+            return (Ed448PublicKeyParameters)store(key, new Ed448PublicKeyParameters(encoding));
+        }
+
+        return (Ed448PublicKeyParameters)entry.getPrecomputed();
+    }
+
+    /**
+     * Return the cached equivalent of an Ed448 public key, or cache the key itself if there is none.
+     *
+     * @param publicKey the key to look up.
+     * @return an equivalent public key, with its verification tables precomputed if it was seen before.
+     */
+    public Ed448PublicKeyParameters getEd448PublicKey(Ed448PublicKeyParameters publicKey)
+    {
+        if (maxSize == 0)
+        {
+            return publicKey;
+        }
+
+        Key key = new Key(ED448, publicKey.getEncoded());
+
+        CacheEntry entry = lookup(key);
+        if (entry == null)
+        {
+            return (Ed448PublicKeyParameters)store(key, publicKey);
+        }
+
+        return (Ed448PublicKeyParameters)entry.getPrecomputed();
+    }
+
+    /**
+     * Return the maximum number of keys held.
+     *
+     * @return the maximum size of the cache.
+     */
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Return the number of keys currently held.
+     *
+     * @return the size of the cache.
+     */
+    public synchronized int getSize()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Return the number of lookups that found their key in the cache.
+     *
+     * @return the hit count.
+     */
+    public synchronized long getHitCount()
+    {
+        return hits;
+    }
+
+    /**
+     * Return the number of lookups that had to decode their key.
+     *
+     * @return the miss count.
+     */
+    public synchronized long getMissCount()
+    {
+        return misses;
+    }
+
+    /**
+     * Remove every key from the cache and reset the hit and miss counts.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    private synchronized CacheEntry lookup(Key key)
+    {
+        CacheEntry result = entries.get(key);
+        if (result != null)
+        {
+            ++hits;
+        }
+        else
+        {
+            ++misses;
+        }
+        return result;
+    }
+
+    /*
+     * Keys are decoded outside the lock, so two threads can miss on the same key at once; the first one
+     * stored wins.
+     */
+    private synchronized Object store(Key key, Object publicKey)
+    {
+        CacheEntry existing = entries.get(key);
+        if (existing != null)
+        {
+            return existing.publicKey;
+        }
+
+        entries.put(key, new CacheEntry(publicKey));
+        return publicKey;
+    }
+
+    private static final class CacheEntry
+    {
+        private final Object publicKey;
+        private volatile boolean precomputed;
+
+        CacheEntry(Object publicKey)
+        {
+            this.publicKey = publicKey;
+        }
+
+        /*
+         * Tables are built outside the cache lock; the precompute methods are themselves thread-safe, so two
+         * threads doing it at once only duplicate the work.
+         */
+        Object getPrecomputed()
+        {
+            if (!precomputed)
+            {
+                if (publicKey instanceof ECPublicKeyParameters)
+                {
+                    ECPoint Q = ((ECPublicKeyParameters)publicKey).getQ();
+
+                    WNafUtil.configureBasepoint(Q);
+                    FixedPointUtil.precompute(Q);
+                }
+                else if (publicKey instanceof Ed25519PublicKeyParameters)
+                {
+                    ((Ed25519PublicKeyParameters)publicKey).precompute();
+                }
+                else
+                {
+                    ((Ed448PublicKeyParameters)publicKey).precompute();
+                }
+                precomputed = true;
+            }
+            return publicKey;
+        }
+    }
+
+    private static final class Key
+    {
+        private final Object domain;
+        private final byte[] encoding;
+        private final int hashCode;
+
+        Key(Object domain, byte[] encoding)
+        {
+            this.domain = domain;
+            this.encoding = Arrays.clone(encoding);
+            this.hashCode = domain.hashCode() * 31 + Arrays.hashCode(encoding);
+        }
+
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+
+            Key other = (Key)o;
+            return hashCode == other.hashCode
+                && Arrays.areEqual(encoding, other.encoding)
+                && domain.equals(other.domain);
+        }
+
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+}
@@ -11,6 +11,12 @@
 
 public class ECAlgorithms
 {
+    /**
+     * The number of points at which {@link #sumOfMultiplies(ECPoint[], BigInteger[])} switches from
+     * interleaved wNAF to the bucket method.
+     */
+    private static final int PIPPENGER_THRESHOLD = 64;
+
     public static boolean isF2mCurve(ECCurve c)
     {
         return isF2mField(c.getField());
@@ -66,6 +72,11 @@ public static ECPoint sumOfMultiplies(ECPoint[] ps, BigInteger[] ks)
             return implCheckResult(implSumOfMultipliesGLV(imported, ks, (GLVEndomorphism)endomorphism));
         }
 
+        if (count >= PIPPENGER_THRESHOLD)
+        {
+            return implCheckResult(implSumOfMultipliesPippenger(imported, ks));
+        }
+
         return implCheckResult(implSumOfMultiplies(imported, ks));
     }
 
@@ -420,6 +431,132 @@ static ECPoint implSumOfMultiplies(ECPoint[] ps, BigInteger[] ks)
         return implSumOfMultiplies(negs, infos, wnafs);
     }
 
+    /*
+     * The bucket method of Pippenger, as described by Bernstein et al. in "Faster batch forgery
+     * identification" (INDOCRYPT 2012). Each scalar is recoded into signed c-bit digits, and for each
+     * digit position the points are added into 2^(c-1) buckets by digit value. The weighted sum of
+     * the buckets is then formed with two running sums, so every digit position costs about
+     * count + 2^c additions, whatever the number of points.
+     */
+    static ECPoint implSumOfMultipliesPippenger(ECPoint[] ps, BigInteger[] ks)
+    {
+        int count = ps.length;
+        ECCurve curve = ps[0].getCurve();
+        BigInteger n = curve.getOrder();
+
+        int bits = 0;
+        BigInteger[] scalars = new BigInteger[count];
+        ECPoint[] points = new ECPoint[count], negs = new ECPoint[count];
+        for (int i = 0; i < count; ++i)
+        {
+            BigInteger k = ks[i];
+            ECPoint p = ps[i];
+            if (n != null)
+            {
+                k = k.mod(n);
+            }
+            else if (k.signum() < 0)
+            {
+                k = k.negate();
+                p = p.negate();
+            }
+
+            scalars[i] = k;
+            points[i] = p;
+            negs[i] = p.negate();
+            bits = Math.max(bits, k.bitLength());
+        }
+
+        int c = getPippengerWindow(bits, count);
+        int windows = (bits + c) / c;
+        int[][] digits = new int[count][];
+        for (int i = 0; i < count; ++i)
+        {
+            digits[i] = getSignedDigits(scalars[i], c, windows);
+        }
+
+        ECPoint infinity = curve.getInfinity();
+        ECPoint[] buckets = new ECPoint[1 << (c - 1)];
+        ECPoint R = infinity;
+
+        for (int w = windows - 1; w >= 0; --w)
+        {
+            R = R.timesPow2(c);
+
+            for (int b = 0; b < buckets.length; ++b)
+            {
+                buckets[b] = infinity;
+            }
+
+            for (int i = 0; i < count; ++i)
+            {
+                int d = digits[i][w];
+                if (d > 0)
+                {
+                    buckets[d - 1] = buckets[d - 1].add(points[i]);
+                }
+                else if (d < 0)
+                {
+                    buckets[-d - 1] = buckets[-d - 1].add(negs[i]);
+                }
+            }
+
+            ECPoint running = infinity, sum = infinity;
+            for (int b = buckets.length - 1; b >= 0; --b)
+            {
+                running = running.add(buckets[b]);
+                sum = sum.add(running);
+            }
+
+            R = R.add(sum);
+        }
+
+        return R;
+    }
+
+    /*
+     * Choose the digit size minimising the number of additions, (bits / c) * (count + 2^c).
+     */
+    private static int getPippengerWindow(int bits, int count)
+    {
+        int best = 2;
+        long bestCost = Long.MAX_VALUE;
+        for (int c = 2; c <= 16; ++c)
+        {
+            long cost = (long)((bits + c) / c) * (count + (1L << c));
+            if (cost < bestCost)
+            {
+                best = c;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Recode a non-negative k into windows digits d_i in [-2^(c-1), 2^(c-1)] with k = sum d_i.2^(c.i).
+     */
+    private static int[] getSignedDigits(BigInteger k, int c, int windows)
+    {
+        int[] digits = new int[windows];
+        int half = 1 << (c - 1), carry = 0;
+        for (int w = 0; w < windows; ++w)
+        {
+            int d = carry;
+            for (int j = 0; j < c; ++j)
+            {
+                if (k.testBit(w * c + j))
+                {
+                    d += 1 << j;
+                }
+            }
+
+            carry = d > half ? 1 : 0;
+            digits[w] = d - (carry << c);
+        }
+        return digits;
+    }
+
     static ECPoint implSumOfMultipliesGLV(ECPoint[] ps, BigInteger[] ks, GLVEndomorphism glvEndomorphism)
     {
         BigInteger n = ps[0].getCurve().getOrder();
@@ -0,0 +1,148 @@
+package org.bouncycastle.math.ec.custom.sec;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.math.raw.Nat;
+
+/**
+ * Limb level helpers shared by the fixed-base multipliers: comb recoding, constant time table lookups
+ * and arithmetic modulo the group order.
+ */
+abstract class FixedBaseUtil
+{
+    private static final long M = 0xFFFFFFFFL;
+
+    /**
+     * Replace an odd scalar n by (n - 1) / 2 + 2^(32.len - 1), whose bits b_i give n as the sum of
+     * (2.b_i - 1).2^i, so that every comb tooth contributes a point or its negation.
+     */
+    static void recodeOdd(int len, int[] n)
+    {
+        Nat.shiftDownBit(len, n, 1);
+    }
+
+    /**
+     * Gather the comb teeth of a block: bit t of the result is bit (block.teeth + t).spacing + s of n.
+     */
+    static int getTeeth(int[] n, int block, int teeth, int spacing, int s)
+    {
+        int w = 0;
+        int bit = block * teeth * spacing + s;
+        for (int t = 0; t < teeth; ++t)
+        {
+            w |= ((n[bit >>> 5] >>> (bit & 0x1F)) & 1) << t;
+            bit += spacing;
+        }
+        return w;
+    }
+
+    /**
+     * Copy entry index of a block of count table entries of entryLen ints each into z, touching every
+     * entry so the index is not revealed.
+     */
+    static void lookup(int[] table, int off, int count, int entryLen, int index, int[] z)
+    {
+        for (int i = 0; i < count; ++i)
+        {
+            int cond = ((i ^ index) - 1) >> 31;
+            for (int j = 0; j < entryLen; ++j)
+            {
+                z[j] ^= (table[off + j] ^ z[j]) & cond;
+            }
+            off += entryLen;
+        }
+    }
+
+    /**
+     * Return -m^-1 mod 2^32 for an odd m, as used by montMul.
+     */
+    static int getMontInv32(int[] m)
+    {
+        int m0 = m[0];
+        int x = m0;                         // m0.x == 1 mod 2**3
+        x *= 2 - m0 * x;                    // m0.x == 1 mod 2**6
+        x *= 2 - m0 * x;                    // m0.x == 1 mod 2**12
+        x *= 2 - m0 * x;                    // m0.x == 1 mod 2**24
+        x *= 2 - m0 * x;                    // m0.x == 1 mod 2**48
+        return -x;
+    }
+
+    /**
+     * Return 2^(64.len) mod m, for converting out of Montgomery form.
+     */
+    static int[] getMontR2(int len, BigInteger m)
+    {
+        return Nat.fromBigInteger(len << 5, BigInteger.ONE.shiftLeft(len << 6).mod(m));
+    }
+
+    /**
+     * Set z = x.y mod m for x, y in [0, m), with z distinct from x and y.
+     */
+    static void mulMod(int len, int[] x, int[] y, int[] m, int mInv32, int[] r2, int[] t, int[] z)
+    {
+        montMul(len, x, y, m, mInv32, t);
+        montMul(len, t, r2, m, mInv32, z);
+    }
+
+    /**
+     * Set z = x + y mod m for x, y in [0, m).
+     */
+    static void addMod(int len, int[] x, int[] y, int[] m, int[] z)
+    {
+        int c = Nat.add(len, x, y, z);
+        int lt = Nat.lessThan(len, z, m);
+        Nat.csub(len, c | (lt + 1), z, m, z);
+    }
+
+    /**
+     * Reduce x in [0, 2m) to [0, m).
+     */
+    static void reduceOnce(int len, int[] x, int[] m)
+    {
+        int lt = Nat.lessThan(len, x, m);
+        Nat.csub(len, lt + 1, x, m, x);
+    }
+
+    /**
+     * Montgomery multiplication, z = x.y.2^(-32.len) mod m for x, y in [0, m).
+     */
+    private static void montMul(int len, int[] x, int[] y, int[] m, int mInv32, int[] z)
+    {
+        Nat.zero(len, z);
+
+        int zTop = 0;
+        long y_0 = y[0] & M;
+
+        for (int i = 0; i < len; ++i)
+        {
+            long x_i = x[i] & M;
+
+            long prod1 = x_i * y_0;
+            long carry = (prod1 & M) + (z[0] & M);
+
+            long t = ((int)carry * mInv32) & M;
+
+            long prod2 = t * (m[0] & M);
+            carry += (prod2 & M);
+            // assert (int)carry == 0;
+            carry = (carry >>> 32) + (prod1 >>> 32) + (prod2 >>> 32);
+
+            for (int j = 1; j < len; ++j)
+            {
+                prod1 = x_i * (y[j] & M);
+                prod2 = t * (m[j] & M);
+
+                carry += (prod1 & M) + (prod2 & M) + (z[j] & M);
+                z[j - 1] = (int)carry;
+                carry = (carry >>> 32) + (prod1 >>> 32) + (prod2 >>> 32);
+            }
+
+            carry += (zTop & M);
+            z[len - 1] = (int)carry;
+            zTop = (int)(carry >>> 32);
+        }
+
+        int lt = Nat.lessThan(len, z, m);
+        Nat.csub(len, zTop | (lt + 1), z, m, z);
+    }
+}
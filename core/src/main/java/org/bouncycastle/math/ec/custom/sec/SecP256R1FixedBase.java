@@ -0,0 +1,343 @@
+package org.bouncycastle.math.ec.custom.sec;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.raw.Mod;
+import org.bouncycastle.math.raw.Nat;
+import org.bouncycastle.math.raw.Nat256;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Fixed-base scalar multiplication and ECDSA signature generation for the standard generator of
+ * secp256r1 (P-256), working on {@link Nat256} limbs throughout rather than on BigInteger and ECPoint
+ * objects.
+ * <p>
+ * Multiplication uses a signed multi-comb (8 blocks of 4 teeth at spacing 8) over a table of 64 affine
+ * points computed once, on first use, with the complete addition formulas of Renes, Costello and Batina
+ * for a = -3 in homogeneous projective coordinates, so there are no special cases to branch on. Table
+ * lookups touch every entry of a block, the scalar recoding is branch free and inversions use the constant
+ * time safegcd inversion in {@link Mod}.
+ * </p>
+ */
+public abstract class SecP256R1FixedBase
+{
+    private static final int BLOCKS = 8;
+    private static final int TEETH = 4;
+    private static final int SPACING = 8;
+    private static final int POINTS = 1 << (TEETH - 1);
+    private static final int MASK = POINTS - 1;
+    private static final int POINT_INTS = 16;
+
+    private static final BigInteger ORDER = new BigInteger(1,
+        Hex.decodeStrict("FFFFFFFF00000000FFFFFFFFFFFFFFFFBCE6FAADA7179E84F3B9CAC2FC632551"));
+
+    private static final int[] N = Nat256.fromBigInteger(ORDER);
+    private static final int N_INV32 = FixedBaseUtil.getMontInv32(N);
+    private static final int[] N_R2 = FixedBaseUtil.getMontR2(8, ORDER);
+
+    private static final int[] B = SecP256R1Field.fromBigInteger(new BigInteger(1,
+        Hex.decodeStrict("5AC635D8AA3A93E7B3EBBD55769886BC651D06B0CC53B0F63BCE3C3E27D2604B")));
+    private static final int[] G_X = SecP256R1Field.fromBigInteger(new BigInteger(1,
+        Hex.decodeStrict("6B17D1F2E12C4247F8BCE6E563A440F277037D812DEB33A0F4A13945D898C296")));
+    private static final int[] G_Y = SecP256R1Field.fromBigInteger(new BigInteger(1,
+        Hex.decodeStrict("4FE342E2FE1A7F9B8EE7EB4A7C0F9E162BCE33576B315ECECBB6406837BF51F5")));
+
+    private static final Object PRECOMP_LOCK = new Object();
+    private static int[] precompBase = null;
+
+    /**
+     * Build the comb table, if it has not been built already.
+     */
+    public static void precompute()
+    {
+        synchronized (PRECOMP_LOCK)
+        {
+            if (precompBase != null)
+            {
+                return;
+            }
+
+            SecP256R1Curve curve = new SecP256R1Curve();
+            ECPoint base = new SecP256R1Point(curve, new SecP256R1FieldElement(G_X), new SecP256R1FieldElement(G_Y));
+
+            ECPoint[] points = new ECPoint[BLOCKS * POINTS];
+            ECPoint[] teeth = new ECPoint[TEETH];
+
+            for (int b = 0; b < BLOCKS; ++b)
+            {
+                // teeth[t] = 2^(t.SPACING) times the block base
+                for (int t = 0; t < TEETH; ++t)
+                {
+                    teeth[t] = base;
+                    base = base.timesPow2(SPACING);
+                }
+
+                // entry j is teeth[TEETH - 1] plus or minus each lower tooth t, according to bit t of j
+                int off = b * POINTS;
+                ECPoint sum = teeth[TEETH - 1];
+                for (int t = 0; t < TEETH - 1; ++t)
+                {
+                    sum = sum.subtract(teeth[t]);
+                }
+                points[off] = sum;
+
+                for (int t = 0; t < TEETH - 1; ++t)
+                {
+                    ECPoint twice = teeth[t].twice();
+                    int size = 1 << t;
+                    for (int j = 0; j < size; ++j)
+                    {
+                        points[off + size + j] = points[off + j].add(twice);
+                    }
+                }
+            }
+
+            curve.normalizeAll(points);
+
+            int[] table = new int[BLOCKS * POINTS * POINT_INTS];
+            for (int i = 0; i < points.length; ++i)
+            {
+                Nat256.copy(((SecP256R1FieldElement)points[i].getAffineXCoord()).x, 0, table, i * POINT_INTS);
+                Nat256.copy(((SecP256R1FieldElement)points[i].getAffineYCoord()).x, 0, table, i * POINT_INTS + 8);
+            }
+
+            precompBase = table;
+        }
+    }
+
+    /**
+     * Return true if p is the standard secp256r1 generator on a {@link SecP256R1Curve}.
+     *
+     * @param p the point to check.
+     * @return true if p is the standard generator, false otherwise.
+     */
+    public static boolean isBasePoint(ECPoint p)
+    {
+        if (p == null || !(p.getCurve() instanceof SecP256R1Curve) || p.isInfinity())
+        {
+            return false;
+        }
+
+        ECPoint n = p.normalize();
+        return Nat256.eq(G_X, ((SecP256R1FieldElement)n.getAffineXCoord()).x)
+            && Nat256.eq(G_Y, ((SecP256R1FieldElement)n.getAffineYCoord()).x);
+    }
+
+    /**
+     * Return k times the standard generator as a normalized point on the passed in curve.
+     *
+     * @param curve the curve for the result.
+     * @param k     the scalar, in [1, n - 1].
+     * @return the point kG.
+     */
+    public static ECPoint multiplyBase(ECCurve curve, BigInteger k)
+    {
+        if (!(curve instanceof SecP256R1Curve))
+        {
+            throw new IllegalArgumentException("curve must be a SecP256R1Curve");
+        }
+        if (k.signum() <= 0 || k.compareTo(ORDER) >= 0)
+        {
+            throw new IllegalArgumentException("k out of range");
+        }
+
+        int[] x = Nat256.create(), y = Nat256.create();
+        scalarMultBase(Nat256.fromBigInteger(k), x, y);
+
+        return new SecP256R1Point(curve, new SecP256R1FieldElement(x), new SecP256R1FieldElement(y));
+    }
+
+    /**
+     * Compute the affine coordinates of k times the standard generator.
+     *
+     * @param k the scalar, in [1, n - 1].
+     * @param x receives the x coordinate.
+     * @param y receives the y coordinate.
+     */
+    public static void scalarMultBase(int[] k, int[] x, int[] y)
+    {
+        precompute();
+
+        // the comb needs an odd scalar, so an even k is replaced by n - k and the result negated
+        int even = ~k[0] & 1;
+        int[] n = Nat256.create();
+        Nat256.sub(N, k, n);
+        Nat.cmov(8, even ^ 1, k, 0, n, 0);
+        FixedBaseUtil.recodeOdd(8, n);
+
+        int[] X = Nat256.create(), Y = Nat256.create(), Z = Nat256.create();
+        Y[0] = 1;
+
+        int[] entry = new int[POINT_INTS], px = Nat256.create(), py = Nat256.create();
+        int[][] t = new int[8][];
+        for (int i = 0; i < 8; ++i)
+        {
+            t[i] = Nat256.create();
+        }
+        int[] tt = Nat256.createExt();
+
+        for (int s = SPACING - 1;; --s)
+        {
+            for (int b = 0; b < BLOCKS; ++b)
+            {
+                int w = FixedBaseUtil.getTeeth(n, b, TEETH, SPACING, s);
+                int neg = (w >>> (TEETH - 1)) ^ 1;
+                int abs = (w ^ -neg) & MASK;
+
+                FixedBaseUtil.lookup(precompBase, b * POINTS * POINT_INTS, POINTS, POINT_INTS, abs, entry);
+                Nat256.copy(entry, 0, px, 0);
+                Nat256.copy(entry, 8, py, 0);
+                SecP256R1Field.negate(py, t[0]);
+                Nat.cmov(8, neg, t[0], 0, py, 0);
+
+                addMixed(X, Y, Z, px, py, t, tt);
+            }
+
+            if (s == 0)
+            {
+                break;
+            }
+
+            twice(X, Y, Z, t, tt);
+        }
+
+        int[] zInv = t[0];
+        SecP256R1Field.inv(Z, zInv);
+        SecP256R1Field.multiply(X, zInv, x, tt);
+        SecP256R1Field.multiply(Y, zInv, y, tt);
+
+        SecP256R1Field.negate(y, t[1]);
+        Nat.cmov(8, even, t[1], 0, y, 0);
+    }
+
+    /**
+     * Generate the r and s values of an ECDSA signature: r = (kG).x mod n and s = k^-1.(e + d.r) mod n.
+     *
+     * @param d the private key, in [1, n - 1].
+     * @param e the message representative, less than 2^256.
+     * @param k the per-message secret, in [1, n - 1].
+     * @param r receives r.
+     * @param s receives s.
+     * @return true if r and s are both non-zero, false if another k is needed.
+     */
+    public static boolean generateSignature(int[] d, int[] e, int[] k, int[] r, int[] s)
+    {
+        int[] y = Nat256.create();
+        scalarMultBase(k, r, y);
+
+        // x < p < 2n
+        FixedBaseUtil.reduceOnce(8, r, N);
+        if (Nat256.isZero(r))
+        {
+            return false;
+        }
+
+        int[] t = Nat256.create(), u = Nat256.create(), v = Nat256.create();
+
+        FixedBaseUtil.mulMod(8, d, r, N, N_INV32, N_R2, t, u);
+
+        Nat256.copy(e, v);
+        FixedBaseUtil.reduceOnce(8, v, N);
+        FixedBaseUtil.addMod(8, u, v, N, u);
+
+        Mod.checkedModOddInverse(N, k, v);
+        FixedBaseUtil.mulMod(8, v, u, N, N_INV32, N_R2, t, s);
+
+        return !Nat256.isZero(s);
+    }
+
+    /**
+     * (X, Y, Z) += (x2, y2), Algorithm 5 of "Complete addition formulas for prime order elliptic
+     * curves" (Renes, Costello, Batina), valid for any (X, Y, Z) and an affine (x2, y2).
+     */
+    private static void addMixed(int[] X, int[] Y, int[] Z, int[] x2, int[] y2, int[][] t, int[] tt)
+    {
+        int[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4];
+        int[] X3 = t[5], Y3 = t[6], Z3 = t[7];
+
+        SecP256R1Field.multiply(X, x2, t0, tt);
+        SecP256R1Field.multiply(Y, y2, t1, tt);
+        SecP256R1Field.add(x2, y2, t3);
+        SecP256R1Field.add(X, Y, t4);
+        SecP256R1Field.multiply(t3, t4, t3, tt);
+        SecP256R1Field.add(t0, t1, t4);
+        SecP256R1Field.subtract(t3, t4, t3);
+        SecP256R1Field.multiply(y2, Z, t4, tt);
+        SecP256R1Field.add(t4, Y, t4);
+        SecP256R1Field.multiply(x2, Z, Y3, tt);
+        SecP256R1Field.add(Y3, X, Y3);
+        SecP256R1Field.multiply(B, Z, Z3, tt);
+        SecP256R1Field.subtract(Y3, Z3, X3);
+        SecP256R1Field.twice(X3, Z3);
+        SecP256R1Field.add(X3, Z3, X3);
+        SecP256R1Field.subtract(t1, X3, Z3);
+        SecP256R1Field.add(t1, X3, X3);
+        SecP256R1Field.multiply(B, Y3, Y3, tt);
+        SecP256R1Field.twice(Z, t1);
+        SecP256R1Field.add(t1, Z, t2);
+        SecP256R1Field.subtract(Y3, t2, Y3);
+        SecP256R1Field.subtract(Y3, t0, Y3);
+        SecP256R1Field.twice(Y3, t1);
+        SecP256R1Field.add(t1, Y3, Y3);
+        SecP256R1Field.twice(t0, t1);
+        SecP256R1Field.add(t1, t0, t0);
+        SecP256R1Field.subtract(t0, t2, t0);
+        SecP256R1Field.multiply(t4, Y3, t1, tt);
+        SecP256R1Field.multiply(t0, Y3, t2, tt);
+        SecP256R1Field.multiply(X3, Z3, Y3, tt);
+        SecP256R1Field.add(Y3, t2, Y);
+        SecP256R1Field.multiply(t3, X3, X3, tt);
+        SecP256R1Field.subtract(X3, t1, X);
+        SecP256R1Field.multiply(t4, Z3, Z3, tt);
+        SecP256R1Field.multiply(t3, t0, t1, tt);
+        SecP256R1Field.add(Z3, t1, Z);
+    }
+
+    /**
+     * (X, Y, Z) = 2.(X, Y, Z), Algorithm 6 of "Complete addition formulas for prime order elliptic
+     * curves" (Renes, Costello, Batina).
+     */
+    private static void twice(int[] X, int[] Y, int[] Z, int[][] t, int[] tt)
+    {
+        int[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3];
+        int[] X3 = t[5], Y3 = t[6], Z3 = t[7];
+
+        SecP256R1Field.square(X, t0, tt);
+        SecP256R1Field.square(Y, t1, tt);
+        SecP256R1Field.square(Z, t2, tt);
+        SecP256R1Field.multiply(X, Y, t3, tt);
+        SecP256R1Field.twice(t3, t3);
+        SecP256R1Field.multiply(X, Z, Z3, tt);
+        SecP256R1Field.twice(Z3, Z3);
+        SecP256R1Field.multiply(B, t2, Y3, tt);
+        SecP256R1Field.subtract(Y3, Z3, Y3);
+        SecP256R1Field.twice(Y3, X3);
+        SecP256R1Field.add(X3, Y3, Y3);
+        SecP256R1Field.subtract(t1, Y3, X3);
+        SecP256R1Field.add(t1, Y3, Y3);
+        SecP256R1Field.multiply(X3, Y3, Y3, tt);
+        SecP256R1Field.multiply(X3, t3, X3, tt);
+        SecP256R1Field.twice(t2, t3);
+        SecP256R1Field.add(t2, t3, t2);
+        SecP256R1Field.multiply(B, Z3, Z3, tt);
+        SecP256R1Field.subtract(Z3, t2, Z3);
+        SecP256R1Field.subtract(Z3, t0, Z3);
+        SecP256R1Field.twice(Z3, t3);
+        SecP256R1Field.add(Z3, t3, Z3);
+        SecP256R1Field.twice(t0, t3);
+        SecP256R1Field.add(t3, t0, t0);
+        SecP256R1Field.subtract(t0, t2, t0);
+        SecP256R1Field.multiply(t0, Z3, t0, tt);
+        SecP256R1Field.add(Y3, t0, Y3);
+        SecP256R1Field.multiply(Y, Z, t0, tt);
+        SecP256R1Field.twice(t0, t0);
+        SecP256R1Field.multiply(t0, Z3, Z3, tt);
+        SecP256R1Field.subtract(X3, Z3, X);
+        SecP256R1Field.multiply(t0, t1, t2, tt);
+        SecP256R1Field.twice(t2, t2);
+        SecP256R1Field.twice(t2, Z);
+        Nat256.copy(Y3, Y);
+    }
+}
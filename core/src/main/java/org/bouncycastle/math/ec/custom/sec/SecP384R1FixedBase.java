@@ -0,0 +1,342 @@
+package org.bouncycastle.math.ec.custom.sec;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.raw.Mod;
+import org.bouncycastle.math.raw.Nat;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Fixed-base scalar multiplication and ECDSA signature generation for the standard generator of
+ * secp384r1 (P-384), working on 12 word {@link Nat} limbs throughout rather than on BigInteger and ECPoint
+ * objects.
+ * <p>
+ * Multiplication uses a signed multi-comb (12 blocks of 4 teeth at spacing 8) over a table of 96 affine
+ * points computed once, on first use, with the complete addition formulas of Renes, Costello and Batina
+ * for a = -3 in homogeneous projective coordinates, so there are no special cases to branch on. Table
+ * lookups touch every entry of a block, the scalar recoding is branch free and inversions use the constant
+ * time safegcd inversion in {@link Mod}.
+ * </p>
+ */
+public abstract class SecP384R1FixedBase
+{
+    private static final int BLOCKS = 12;
+    private static final int TEETH = 4;
+    private static final int SPACING = 8;
+    private static final int POINTS = 1 << (TEETH - 1);
+    private static final int MASK = POINTS - 1;
+    private static final int POINT_INTS = 24;
+
+    private static final BigInteger ORDER = new BigInteger(1,
+        Hex.decodeStrict("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFC7634D81F4372DDF581A0DB248B0A77AECEC196ACCC52973"));
+
+    private static final int[] N = Nat.fromBigInteger(384, ORDER);
+    private static final int N_INV32 = FixedBaseUtil.getMontInv32(N);
+    private static final int[] N_R2 = FixedBaseUtil.getMontR2(12, ORDER);
+
+    private static final int[] B = SecP384R1Field.fromBigInteger(new BigInteger(1,
+        Hex.decodeStrict("B3312FA7E23EE7E4988E056BE3F82D19181D9C6EFE8141120314088F5013875AC656398D8A2ED19D2A85C8EDD3EC2AEF")));
+    private static final int[] G_X = SecP384R1Field.fromBigInteger(new BigInteger(1,
+        Hex.decodeStrict("AA87CA22BE8B05378EB1C71EF320AD746E1D3B628BA79B9859F741E082542A385502F25DBF55296C3A545E3872760AB7")));
+    private static final int[] G_Y = SecP384R1Field.fromBigInteger(new BigInteger(1,
+        Hex.decodeStrict("3617DE4A96262C6F5D9E98BF9292DC29F8F41DBD289A147CE9DA3113B5F0B8C00A60B1CE1D7E819D7A431D7C90EA0E5F")));
+
+    private static final Object PRECOMP_LOCK = new Object();
+    private static int[] precompBase = null;
+
+    /**
+     * Build the comb table, if it has not been built already.
+     */
+    public static void precompute()
+    {
+        synchronized (PRECOMP_LOCK)
+        {
+            if (precompBase != null)
+            {
+                return;
+            }
+
+            SecP384R1Curve curve = new SecP384R1Curve();
+            ECPoint base = new SecP384R1Point(curve, new SecP384R1FieldElement(G_X), new SecP384R1FieldElement(G_Y));
+
+            ECPoint[] points = new ECPoint[BLOCKS * POINTS];
+            ECPoint[] teeth = new ECPoint[TEETH];
+
+            for (int b = 0; b < BLOCKS; ++b)
+            {
+                // teeth[t] = 2^(t.SPACING) times the block base
+                for (int t = 0; t < TEETH; ++t)
+                {
+                    teeth[t] = base;
+                    base = base.timesPow2(SPACING);
+                }
+
+                // entry j is teeth[TEETH - 1] plus or minus each lower tooth t, according to bit t of j
+                int off = b * POINTS;
+                ECPoint sum = teeth[TEETH - 1];
+                for (int t = 0; t < TEETH - 1; ++t)
+                {
+                    sum = sum.subtract(teeth[t]);
+                }
+                points[off] = sum;
+
+                for (int t = 0; t < TEETH - 1; ++t)
+                {
+                    ECPoint twice = teeth[t].twice();
+                    int size = 1 << t;
+                    for (int j = 0; j < size; ++j)
+                    {
+                        points[off + size + j] = points[off + j].add(twice);
+                    }
+                }
+            }
+
+            curve.normalizeAll(points);
+
+            int[] table = new int[BLOCKS * POINTS * POINT_INTS];
+            for (int i = 0; i < points.length; ++i)
+            {
+                Nat.copy(12, ((SecP384R1FieldElement)points[i].getAffineXCoord()).x, 0, table, i * POINT_INTS);
+                Nat.copy(12, ((SecP384R1FieldElement)points[i].getAffineYCoord()).x, 0, table, i * POINT_INTS + 12);
+            }
+
+            precompBase = table;
+        }
+    }
+
+    /**
+     * Return true if p is the standard secp384r1 generator on a {@link SecP384R1Curve}.
+     *
+     * @param p the point to check.
+     * @return true if p is the standard generator, false otherwise.
+     */
+    public static boolean isBasePoint(ECPoint p)
+    {
+        if (p == null || !(p.getCurve() instanceof SecP384R1Curve) || p.isInfinity())
+        {
+            return false;
+        }
+
+        ECPoint n = p.normalize();
+        return Nat.eq(12, G_X, ((SecP384R1FieldElement)n.getAffineXCoord()).x)
+            && Nat.eq(12, G_Y, ((SecP384R1FieldElement)n.getAffineYCoord()).x);
+    }
+
+    /**
+     * Return k times the standard generator as a normalized point on the passed in curve.
+     *
+     * @param curve the curve for the result.
+     * @param k     the scalar, in [1, n - 1].
+     * @return the point kG.
+     */
+    public static ECPoint multiplyBase(ECCurve curve, BigInteger k)
+    {
+        if (!(curve instanceof SecP384R1Curve))
+        {
+            throw new IllegalArgumentException("curve must be a SecP384R1Curve");
+        }
+        if (k.signum() <= 0 || k.compareTo(ORDER) >= 0)
+        {
+            throw new IllegalArgumentException("k out of range");
+        }
+
+        int[] x = Nat.create(12), y = Nat.create(12);
+        scalarMultBase(Nat.fromBigInteger(384, k), x, y);
+
+        return new SecP384R1Point(curve, new SecP384R1FieldElement(x), new SecP384R1FieldElement(y));
+    }
+
+    /**
+     * Compute the affine coordinates of k times the standard generator.
+     *
+     * @param k the scalar, in [1, n - 1].
+     * @param x receives the x coordinate.
+     * @param y receives the y coordinate.
+     */
+    public static void scalarMultBase(int[] k, int[] x, int[] y)
+    {
+        precompute();
+
+        // the comb needs an odd scalar, so an even k is replaced by n - k and the result negated
+        int even = ~k[0] & 1;
+        int[] n = Nat.create(12);
+        Nat.sub(12, N, k, n);
+        Nat.cmov(12, even ^ 1, k, 0, n, 0);
+        FixedBaseUtil.recodeOdd(12, n);
+
+        int[] X = Nat.create(12), Y = Nat.create(12), Z = Nat.create(12);
+        Y[0] = 1;
+
+        int[] entry = new int[POINT_INTS], px = Nat.create(12), py = Nat.create(12);
+        int[][] t = new int[8][];
+        for (int i = 0; i < 8; ++i)
+        {
+            t[i] = Nat.create(12);
+        }
+        int[] tt = Nat.create(24);
+
+        for (int s = SPACING - 1;; --s)
+        {
+            for (int b = 0; b < BLOCKS; ++b)
+            {
+                int w = FixedBaseUtil.getTeeth(n, b, TEETH, SPACING, s);
+                int neg = (w >>> (TEETH - 1)) ^ 1;
+                int abs = (w ^ -neg) & MASK;
+
+                FixedBaseUtil.lookup(precompBase, b * POINTS * POINT_INTS, POINTS, POINT_INTS, abs, entry);
+                Nat.copy(12, entry, 0, px, 0);
+                Nat.copy(12, entry, 12, py, 0);
+                SecP384R1Field.negate(py, t[0]);
+                Nat.cmov(12, neg, t[0], 0, py, 0);
+
+                addMixed(X, Y, Z, px, py, t, tt);
+            }
+
+            if (s == 0)
+            {
+                break;
+            }
+
+            twice(X, Y, Z, t, tt);
+        }
+
+        int[] zInv = t[0];
+        SecP384R1Field.inv(Z, zInv);
+        SecP384R1Field.multiply(X, zInv, x, tt);
+        SecP384R1Field.multiply(Y, zInv, y, tt);
+
+        SecP384R1Field.negate(y, t[1]);
+        Nat.cmov(12, even, t[1], 0, y, 0);
+    }
+
+    /**
+     * Generate the r and s values of an ECDSA signature: r = (kG).x mod n and s = k^-1.(e + d.r) mod n.
+     *
+     * @param d the private key, in [1, n - 1].
+     * @param e the message representative, less than 2^384.
+     * @param k the per-message secret, in [1, n - 1].
+     * @param r receives r.
+     * @param s receives s.
+     * @return true if r and s are both non-zero, false if another k is needed.
+     */
+    public static boolean generateSignature(int[] d, int[] e, int[] k, int[] r, int[] s)
+    {
+        int[] y = Nat.create(12);
+        scalarMultBase(k, r, y);
+
+        // x < p < 2n
+        FixedBaseUtil.reduceOnce(12, r, N);
+        if (Nat.isZero(12, r))
+        {
+            return false;
+        }
+
+        int[] t = Nat.create(12), u = Nat.create(12), v = Nat.create(12);
+
+        FixedBaseUtil.mulMod(12, d, r, N, N_INV32, N_R2, t, u);
+
+        Nat.copy(12, e, v);
+        FixedBaseUtil.reduceOnce(12, v, N);
+        FixedBaseUtil.addMod(12, u, v, N, u);
+
+        Mod.checkedModOddInverse(N, k, v);
+        FixedBaseUtil.mulMod(12, v, u, N, N_INV32, N_R2, t, s);
+
+        return !Nat.isZero(12, s);
+    }
+
+    /**
+     * (X, Y, Z) += (x2, y2), Algorithm 5 of "Complete addition formulas for prime order elliptic
+     * curves" (Renes, Costello, Batina), valid for any (X, Y, Z) and an affine (x2, y2).
+     */
+    private static void addMixed(int[] X, int[] Y, int[] Z, int[] x2, int[] y2, int[][] t, int[] tt)
+    {
+        int[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4];
+        int[] X3 = t[5], Y3 = t[6], Z3 = t[7];
+
+        SecP384R1Field.multiply(X, x2, t0, tt);
+        SecP384R1Field.multiply(Y, y2, t1, tt);
+        SecP384R1Field.add(x2, y2, t3);
+        SecP384R1Field.add(X, Y, t4);
+        SecP384R1Field.multiply(t3, t4, t3, tt);
+        SecP384R1Field.add(t0, t1, t4);
+        SecP384R1Field.subtract(t3, t4, t3);
+        SecP384R1Field.multiply(y2, Z, t4, tt);
+        SecP384R1Field.add(t4, Y, t4);
+        SecP384R1Field.multiply(x2, Z, Y3, tt);
+        SecP384R1Field.add(Y3, X, Y3);
+        SecP384R1Field.multiply(B, Z, Z3, tt);
+        SecP384R1Field.subtract(Y3, Z3, X3);
+        SecP384R1Field.twice(X3, Z3);
+        SecP384R1Field.add(X3, Z3, X3);
+        SecP384R1Field.subtract(t1, X3, Z3);
+        SecP384R1Field.add(t1, X3, X3);
+        SecP384R1Field.multiply(B, Y3, Y3, tt);
+        SecP384R1Field.twice(Z, t1);
+        SecP384R1Field.add(t1, Z, t2);
+        SecP384R1Field.subtract(Y3, t2, Y3);
+        SecP384R1Field.subtract(Y3, t0, Y3);
+        SecP384R1Field.twice(Y3, t1);
+        SecP384R1Field.add(t1, Y3, Y3);
+        SecP384R1Field.twice(t0, t1);
+        SecP384R1Field.add(t1, t0, t0);
+        SecP384R1Field.subtract(t0, t2, t0);
+        SecP384R1Field.multiply(t4, Y3, t1, tt);
+        SecP384R1Field.multiply(t0, Y3, t2, tt);
+        SecP384R1Field.multiply(X3, Z3, Y3, tt);
+        SecP384R1Field.add(Y3, t2, Y);
+        SecP384R1Field.multiply(t3, X3, X3, tt);
+        SecP384R1Field.subtract(X3, t1, X);
+        SecP384R1Field.multiply(t4, Z3, Z3, tt);
+        SecP384R1Field.multiply(t3, t0, t1, tt);
+        SecP384R1Field.add(Z3, t1, Z);
+    }
+
+    /**
+     * (X, Y, Z) = 2.(X, Y, Z), Algorithm 6 of "Complete addition formulas for prime order elliptic
+     * curves" (Renes, Costello, Batina).
+     */
+    private static void twice(int[] X, int[] Y, int[] Z, int[][] t, int[] tt)
+    {
+        int[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3];
+        int[] X3 = t[5], Y3 = t[6], Z3 = t[7];
+
+        SecP384R1Field.square(X, t0, tt);
+        SecP384R1Field.square(Y, t1, tt);
+        SecP384R1Field.square(Z, t2, tt);
+        SecP384R1Field.multiply(X, Y, t3, tt);
+        SecP384R1Field.twice(t3, t3);
+        SecP384R1Field.multiply(X, Z, Z3, tt);
+        SecP384R1Field.twice(Z3, Z3);
+        SecP384R1Field.multiply(B, t2, Y3, tt);
+        SecP384R1Field.subtract(Y3, Z3, Y3);
+        SecP384R1Field.twice(Y3, X3);
+        SecP384R1Field.add(X3, Y3, Y3);
+        SecP384R1Field.subtract(t1, Y3, X3);
+        SecP384R1Field.add(t1, Y3, Y3);
+        SecP384R1Field.multiply(X3, Y3, Y3, tt);
+        SecP384R1Field.multiply(X3, t3, X3, tt);
+        SecP384R1Field.twice(t2, t3);
+        SecP384R1Field.add(t2, t3, t2);
+        SecP384R1Field.multiply(B, Z3, Z3, tt);
+        SecP384R1Field.subtract(Z3, t2, Z3);
+        SecP384R1Field.subtract(Z3, t0, Z3);
+        SecP384R1Field.twice(Z3, t3);
+        SecP384R1Field.add(Z3, t3, Z3);
+        SecP384R1Field.twice(t0, t3);
+        SecP384R1Field.add(t3, t0, t0);
+        SecP384R1Field.subtract(t0, t2, t0);
+        SecP384R1Field.multiply(t0, Z3, t0, tt);
+        SecP384R1Field.add(Y3, t0, Y3);
+        SecP384R1Field.multiply(Y, Z, t0, tt);
+        SecP384R1Field.twice(t0, t0);
+        SecP384R1Field.multiply(t0, Z3, Z3, tt);
+        SecP384R1Field.subtract(X3, Z3, X);
+        SecP384R1Field.multiply(t0, t1, t2, tt);
+        SecP384R1Field.twice(t2, t2);
+        SecP384R1Field.twice(t2, Z);
+        Nat.copy(12, Y3, Y);
+    }
+}
@@ -70,11 +70,8 @@ public static void generatePublicKey(byte[] k, int kOff, byte[] r, int rOff)
         scalarMultBase(k, kOff, r, rOff);
     }
 
-    private static void pointDouble(int[] x, int[] z)
+    private static void pointDouble(int[] x, int[] z, int[] a, int[] b)
     {
-        int[] a = F.create();
-        int[] b = F.create();
-
         F.apm(x, z, a, b);
         F.sqr(a, a);
         F.sqr(b, b);
@@ -92,16 +89,20 @@ public static void precompute()
 
     public static void scalarMult(byte[] k, int kOff, byte[] u, int uOff, byte[] r, int rOff)
     {
-        int[] n = new int[8];       decodeScalar(k, kOff, n);
+        scalarMult(k, kOff, u, uOff, r, rOff, new int[8], F.create(), F.create(), F.create(), F.create(),
+            F.create(), F.create(), F.create());
+    }
 
-        int[] x1 = F.create();      F.decode(u, uOff, x1);
-        int[] x2 = F.create();      F.copy(x1, 0, x2, 0);
-        int[] z2 = F.create();      z2[0] = 1;
-        int[] x3 = F.create();      x3[0] = 1;
-        int[] z3 = F.create();
+    static void scalarMult(byte[] k, int kOff, byte[] u, int uOff, byte[] r, int rOff, int[] n, int[] x1,
+        int[] x2, int[] z2, int[] x3, int[] z3, int[] t1, int[] t2)
+    {
+        decodeScalar(k, kOff, n);
 
-        int[] t1 = F.create();
-        int[] t2 = F.create();
+        F.decode(u, uOff, x1);
+        F.copy(x1, 0, x2, 0);
+        F.zero(z2);         z2[0] = 1;
+        F.zero(x3);         x3[0] = 1;
+        F.zero(z3);
 
 //        assert n[7] >>> 30 == 1;
 
@@ -141,7 +142,7 @@ public static void scalarMult(byte[] k, int kOff, byte[] u, int uOff, byte[] r,
 
         for (int i = 0; i < 3; ++i)
         {
-            pointDouble(x2, z2);
+            pointDouble(x2, z2, t1, t2);
         }
 
         F.inv(z2, z2);
@@ -159,9 +160,11 @@ public static void scalarMultBase(byte[] k, int kOff, byte[] r, int rOff)
 //
 //        scalarMult(k, kOff, u, 0, r, rOff);
 
-        int[] y = F.create();
-        int[] z = F.create();
+        scalarMultBase(k, kOff, r, rOff, F.create(), F.create());
+    }
 
+    static void scalarMultBase(byte[] k, int kOff, byte[] r, int rOff, int[] y, int[] z)
+    {
         Ed25519.scalarMultBaseYZ(Friend.INSTANCE, k, kOff, y, z);
 
         F.apm(z, y, y, z);
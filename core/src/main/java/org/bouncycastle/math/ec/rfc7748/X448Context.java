@@ -0,0 +1,79 @@
+package org.bouncycastle.math.ec.rfc7748;
+
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A reusable context for X448 operations, for callers performing many agreements (a TLS server doing ECDHE
+ * on every handshake, for example). The field elements used by the Montgomery ladder are allocated once and
+ * kept across calls, and all inputs and outputs are caller-supplied buffers, so no per-call garbage is left
+ * beyond the small temporaries of the inversion and the base point multiplication.
+ * <p>
+ * A context holds secret-dependent state only for the duration of a call, and is cleared before returning.
+ * It is not thread-safe; use one context per thread.
+ * </p>
+ */
+public final class X448Context
+{
+    private static class F extends X448Field {};
+
+    private final int[] n = new int[14];
+    private final int[] x1 = F.create();
+    private final int[] x2 = F.create();
+    private final int[] z2 = F.create();
+    private final int[] x3 = F.create();
+    private final int[] z3 = F.create();
+    private final int[] t1 = F.create();
+    private final int[] t2 = F.create();
+
+    /**
+     * Calculate the shared secret for private key k and peer public key u.
+     *
+     * @return false if the result is all zeroes, meaning the peer key was of small order.
+     */
+    public boolean calculateAgreement(byte[] k, int kOff, byte[] u, int uOff, byte[] r, int rOff)
+    {
+        scalarMult(k, kOff, u, uOff, r, rOff);
+        return !Arrays.areAllZeroes(r, rOff, X448.POINT_SIZE);
+    }
+
+    public void generatePublicKey(byte[] k, int kOff, byte[] r, int rOff)
+    {
+        scalarMultBase(k, kOff, r, rOff);
+    }
+
+    public void scalarMult(byte[] k, int kOff, byte[] u, int uOff, byte[] r, int rOff)
+    {
+        try
+        {
+            X448.scalarMult(k, kOff, u, uOff, r, rOff, n, x1, x2, z2, x3, z3, t1, t2);
+        }
+        finally
+        {
+            clear();
+        }
+    }
+
+    public void scalarMultBase(byte[] k, int kOff, byte[] r, int rOff)
+    {
+        try
+        {
+            X448.scalarMultBase(k, kOff, r, rOff, x2, z2);
+        }
+        finally
+        {
+            clear();
+        }
+    }
+
+    private void clear()
+    {
+        Arrays.fill(n, 0);
+        F.zero(x1);
+        F.zero(x2);
+        F.zero(z2);
+        F.zero(x3);
+        F.zero(z3);
+        F.zero(t1);
+        F.zero(t2);
+    }
+}
@@ -35,6 +35,9 @@
     {
         final int[] data;
 
+        // Multiples of -A for verification, see precompute(PublicPoint)
+        volatile PointPrecompZ[] precompNegA;
+
         PublicPoint(int[] data)
         {
             this.data = data;
@@ -85,9 +88,10 @@ private static class F extends X25519Field {};
     private static final int[] C_d4 = new int[]{ 0x0165E2B2, 0x034DCA13, 0x002ADD7A, 0x01A8283B, 0x00038052, 0x01E7A260,
         0x03407977, 0x019CE331, 0x01C56DFF, 0x00901B67 };
 
-//    private static final int WNAF_WIDTH = 5;
+    private static final int WNAF_WIDTH = 5;
     private static final int WNAF_WIDTH_128 = 4;
     private static final int WNAF_WIDTH_BASE = 6;
+    private static final int WNAF_WIDTH_PUBLIC = 6;
 
     // scalarMultBase is hard-coded for these values of blocks, teeth, spacing so they can't be freely changed
     private static final int PRECOMP_BLOCKS = 8;
@@ -607,10 +611,6 @@ private static boolean implVerify(byte[] sig, int sigOff, PublicPoint publicPoin
             return false;
         }
 
-        PointAffine pA = new PointAffine();
-        F.negate(publicPoint.data, pA.x);
-        F.copy(publicPoint.data, F.SIZE, pA.y, 0);
-
         byte[] A = new byte[PUBLIC_KEY_SIZE];
         encodePublicPoint(publicPoint, A, 0);
 
@@ -642,10 +642,159 @@ private static boolean implVerify(byte[] sig, int sigOff, PublicPoint publicPoin
         Scalar25519.multiply128Var(nS, v1, nS);
 
         PointAccum pZ = new PointAccum();
-        scalarMultStraus128Var(nS, v0, pA, v1, pR, pZ);
+        PointPrecompZ[] tp = publicPoint.precompNegA;
+        if (tp != null)
+        {
+            scalarMultStraus128Var(nS, v0, tp, WNAF_WIDTH_PUBLIC, v1, pR, pZ);
+        }
+        else
+        {
+            PointAffine pA = new PointAffine();
+            F.negate(publicPoint.data, pA.x);
+            F.copy(publicPoint.data, F.SIZE, pA.y, 0);
+
+            scalarMultStraus128Var(nS, v0, pA, v1, pR, pZ);
+        }
         return normalizeToNeutralElementVar(pZ);
     }
 
+    private static boolean implVerifyBatch(byte[][] sigs, byte[][] pks, PublicPoint[] publicPoints, byte[][] ms,
+        SecureRandom random, boolean[] results)
+    {
+        int count = sigs.length;
+        if (ms.length != count || (pks != null ? pks.length : publicPoints.length) != count)
+        {
+            throw new IllegalArgumentException("batch arrays must all have the same length");
+        }
+        if (results.length < count)
+        {
+            throw new IllegalArgumentException("results");
+        }
+
+        boolean allValid = true;
+
+        /*
+         * Each signature satisfies [8][S]B = [8](R + [k]A). For random 128-bit z_i, the batch is checked as
+         * [8]([sum(z_i.S_i)]B - sum([z_i]R_i) - sum([z_i.k_i]A_i)) == 0, with a single shared doubling chain.
+         */
+        int[] nb = new int[SCALAR_INTS];
+        int[][] nr = new int[count][];
+        int[][] na = new int[count][];
+        PointAffine[] pr = new PointAffine[count];
+        PointAffine[] pa = new PointAffine[count];
+        int[] index = new int[count];
+        int batched = 0;
+
+        Digest d = createDigest();
+        byte[] h = new byte[64];
+        byte[] zBytes = new byte[16];
+        int[] nS = new int[SCALAR_INTS];
+        int[] nk = new int[SCALAR_INTS];
+        int[] t = new int[SCALAR_INTS];
+
+        for (int i = 0; i < count; ++i)
+        {
+            results[i] = false;
+
+            byte[] sig = sigs[i];
+            if (sig.length != SIGNATURE_SIZE)
+            {
+                allValid = false;
+                continue;
+            }
+
+            byte[] R = copy(sig, 0, POINT_BYTES);
+            byte[] S = copy(sig, POINT_BYTES, SCALAR_BYTES);
+
+            PointAffine pR = new PointAffine();
+            if (!checkPointVar(R) || !Scalar25519.checkVar(S, nS) || !decodePointVar(R, true, pR))
+            {
+                allValid = false;
+                continue;
+            }
+
+            PointAffine pA = new PointAffine();
+            byte[] A;
+            if (pks != null)
+            {
+                A = copy(pks[i], 0, PUBLIC_KEY_SIZE);
+                if (!checkPointFullVar(A) || !decodePointVar(A, true, pA))
+                {
+                    allValid = false;
+                    continue;
+                }
+            }
+            else
+            {
+                F.negate(publicPoints[i].data, pA.x);
+                F.copy(publicPoints[i].data, F.SIZE, pA.y, 0);
+
+                A = new byte[PUBLIC_KEY_SIZE];
+                encodePublicPoint(publicPoints[i], A, 0);
+            }
+
+            byte[] m = ms[i];
+            d.update(R, 0, POINT_BYTES);
+            d.update(A, 0, POINT_BYTES);
+            d.update(m, 0, m.length);
+            d.doFinal(h, 0);
+
+            byte[] k = Scalar25519.reduce512(h);
+            Scalar25519.decode(k, nk);
+
+            // Odd, so never zero; signed, matching both multiply128Var and the wNAF recoding
+            random.nextBytes(zBytes);
+            int[] z = new int[4];
+            Codec.decode32(zBytes, 0, z, 0, 4);
+            z[0] |= 1;
+
+            Scalar25519.multiply128Var(nS, z, t);
+            Scalar25519.addVar(nb, t, nb);
+
+            int[] w = new int[SCALAR_INTS];
+            Scalar25519.multiply128Var(nk, z, w);
+
+            nr[batched] = z;
+            pr[batched] = pR;
+            na[batched] = w;
+            pa[batched] = pA;
+            index[batched] = i;
+            ++batched;
+        }
+
+        if (batched == 0)
+        {
+            return allValid;
+        }
+
+        PointAccum pZ = new PointAccum();
+        scalarMultStrausBatchVar(nb, batched, nr, pr, na, pa, pZ);
+        if (normalizeToNeutralElementVar(pZ))
+        {
+            for (int j = 0; j < batched; ++j)
+            {
+                results[index[j]] = true;
+            }
+            return allValid;
+        }
+
+        // At least one signature is bad; fall back to checking them individually to find out which.
+        for (int j = 0; j < batched; ++j)
+        {
+            int i = index[j];
+            byte[] m = ms[i];
+
+            boolean valid = pks != null
+                ? implVerify(sigs[i], 0, pks[i], 0, null, (byte)0x00, m, 0, m.length)
+                : implVerify(sigs[i], 0, publicPoints[i], null, (byte)0x00, m, 0, m.length);
+
+            results[i] = valid;
+            allValid &= valid;
+        }
+
+        return allValid;
+    }
+
     private static void invertDoubleZs(PointExtended[] points)
     {
         int count = points.length;
@@ -1017,6 +1166,31 @@ private static void pointSetNeutral(PointAccum p)
         F.one(p.v);
     }
 
+    /**
+     * Precompute a table of multiples of a public point, held by the point itself, so that verifications
+     * against it skip building one and can use a wider window. Intended for public keys that are used to
+     * verify many signatures.
+     *
+     * @param publicPoint the public point to precompute for.
+     */
+    public static void precompute(PublicPoint publicPoint)
+    {
+        if (publicPoint.precompNegA != null)
+        {
+            return;
+        }
+
+        PointAffine pA = new PointAffine();
+        F.negate(publicPoint.data, pA.x);
+        F.copy(publicPoint.data, F.SIZE, pA.y, 0);
+
+        int count = 1 << (WNAF_WIDTH_PUBLIC - 2);
+        PointPrecompZ[] table = new PointPrecompZ[count];
+        pointPrecomputeZ(pA, table, count, new PointTemp());
+
+        publicPoint.precompNegA = table;
+    }
+
     public static void precompute()
     {
         synchronized (PRECOMP_LOCK)
@@ -1346,6 +1520,18 @@ private static void scalarMultStraus128Var(int[] nb, int[] np, PointAffine p, in
 //        assert np.length == 4;
 //        assert nq.length == 4;
 
+        int count = 1 << (WNAF_WIDTH_128 - 2);
+        PointPrecompZ[] tp = new PointPrecompZ[count];
+        pointPrecomputeZ(p, tp, count, new PointTemp());
+
+        scalarMultStraus128Var(nb, np, tp, WNAF_WIDTH_128, nq, q, r);
+    }
+
+    private static void scalarMultStraus128Var(int[] nb, int[] np, PointPrecompZ[] tp, int widthP, int[] nq,
+        PointAffine q, PointAccum r)
+    {
+//        assert tp.length == 1 << (widthP - 2);
+
         precompute();
 
         byte[] ws_b = new byte[256];
@@ -1353,14 +1539,12 @@ private static void scalarMultStraus128Var(int[] nb, int[] np, PointAffine p, in
         byte[] ws_q = new byte[128];
 
         Wnaf.getSignedVar(nb, WNAF_WIDTH_BASE, ws_b);
-        Wnaf.getSignedVar(np, WNAF_WIDTH_128, ws_p);
+        Wnaf.getSignedVar(np, widthP, ws_p);
         Wnaf.getSignedVar(nq, WNAF_WIDTH_128, ws_q);
 
         int count = 1 << (WNAF_WIDTH_128 - 2);
-        PointPrecompZ[] tp = new PointPrecompZ[count];
         PointPrecompZ[] tq = new PointPrecompZ[count];
         PointTemp t = new PointTemp();
-        pointPrecomputeZ(p, tp, count, t);
         pointPrecomputeZ(q, tq, count, t);
 
         pointSetNeutral(r);
@@ -1412,6 +1596,95 @@ private static void scalarMultStraus128Var(int[] nb, int[] np, PointAffine p, in
         pointDouble(r);
     }
 
+    private static void scalarMultStrausBatchVar(int[] nb, int count, int[][] nps, PointAffine[] ps, int[][] nqs,
+        PointAffine[] qs, PointAccum r)
+    {
+//        assert nb.length == SCALAR_INTS;
+//        assert nps[i].length == 4;
+//        assert nqs[i].length == SCALAR_INTS;
+
+        precompute();
+
+        byte[] ws_b = new byte[256];
+        Wnaf.getSignedVar(nb, WNAF_WIDTH_BASE, ws_b);
+
+        int countP = 1 << (WNAF_WIDTH_128 - 2);
+        int countQ = 1 << (WNAF_WIDTH - 2);
+
+        byte[][] ws_p = new byte[count][];
+        byte[][] ws_q = new byte[count][];
+        PointPrecompZ[][] tp = new PointPrecompZ[count][];
+        PointPrecompZ[][] tq = new PointPrecompZ[count][];
+        PointTemp t = new PointTemp();
+
+        int bit = 128;
+        while (--bit >= 0)
+        {
+            if (ws_b[128 + bit] != 0)
+            {
+                break;
+            }
+        }
+        bit += 128;
+
+        for (int i = 0; i < count; ++i)
+        {
+            Wnaf.getSignedVar(nps[i], WNAF_WIDTH_128, ws_p[i] = new byte[128]);
+            Wnaf.getSignedVar(nqs[i], WNAF_WIDTH, ws_q[i] = new byte[256]);
+
+            pointPrecomputeZ(ps[i], tp[i] = new PointPrecompZ[countP], countP, t);
+            pointPrecomputeZ(qs[i], tq[i] = new PointPrecompZ[countQ], countQ, t);
+
+            int top = 256;
+            while (--top > bit)
+            {
+                if (ws_q[i][top] != 0)
+                {
+                    bit = top;
+                    break;
+                }
+            }
+        }
+
+        pointSetNeutral(r);
+
+        for (; bit >= 0; --bit)
+        {
+            int wb = ws_b[bit];
+            if (wb != 0)
+            {
+                int index = (wb >> 1) ^ (wb >> 31);
+                pointAddVar(wb < 0, PRECOMP_BASE_WNAF[index], r, t);
+            }
+
+            for (int i = 0; i < count; ++i)
+            {
+                if (bit < 128)
+                {
+                    int wp = ws_p[i][bit];
+                    if (wp != 0)
+                    {
+                        int index = (wp >> 1) ^ (wp >> 31);
+                        pointAddVar(wp < 0, tp[i][index], r, t);
+                    }
+                }
+
+                int wq = ws_q[i][bit];
+                if (wq != 0)
+                {
+                    int index = (wq >> 1) ^ (wq >> 31);
+                    pointAddVar(wq < 0, tq[i][index], r, t);
+                }
+            }
+
+            pointDouble(r);
+        }
+
+        // NOTE: Together with the final pointDouble of the loop, this clears the cofactor of 8
+        pointDouble(r);
+        pointDouble(r);
+    }
+
     public static void sign(byte[] sk, int skOff, byte[] m, int mOff, int mLen, byte[] sig, int sigOff)
     {
         byte[] ctx = null;
@@ -1589,6 +1862,35 @@ public static boolean verify(byte[] sig, int sigOff, PublicPoint publicPoint, by
         return implVerify(sig, sigOff, publicPoint, ctx, phflag, m, mOff, mLen);
     }
 
+    /**
+     * Verify a batch of (pure) Ed25519 signatures, combining them with random coefficients so that the whole batch
+     * costs a single multi-scalar multiplication. If the combined check fails, each signature is re-checked
+     * individually so that the failures can be reported.
+     *
+     * @param sigs the signatures, each of {@link #SIGNATURE_SIZE} bytes.
+     * @param pks the encoded public keys, one per signature.
+     * @param ms the messages, one per signature.
+     * @param random source of the random batch coefficients.
+     * @param results receives the verification result for each signature.
+     * @return true if every signature in the batch is valid, false otherwise.
+     */
+    public static boolean verifyBatch(byte[][] sigs, byte[][] pks, byte[][] ms, SecureRandom random,
+        boolean[] results)
+    {
+        return implVerifyBatch(sigs, pks, null, ms, random, results);
+    }
+
+    /**
+     * Verify a batch of (pure) Ed25519 signatures against already decoded public points.
+     *
+     * @see #verifyBatch(byte[][], byte[][], byte[][], SecureRandom, boolean[])
+     */
+    public static boolean verifyBatch(byte[][] sigs, PublicPoint[] publicPoints, byte[][] ms, SecureRandom random,
+        boolean[] results)
+    {
+        return implVerifyBatch(sigs, null, publicPoints, ms, random, results);
+    }
+
     public static boolean verifyPrehash(byte[] sig, int sigOff, byte[] pk, int pkOff, byte[] ctx, byte[] ph, int phOff)
     {
         byte phflag = 0x01;
@@ -31,6 +31,9 @@
     {
         final int[] data;
 
+        // Multiples of -A for verification, see precompute(PublicPoint)
+        volatile PointProjective[] precompNegA;
+
         PublicPoint(int[] data)
         {
             this.data = data;
@@ -75,6 +78,7 @@ private static class F extends X448Field {};
 //    private static final int WNAF_WIDTH = 6;
     private static final int WNAF_WIDTH_225 = 5;
     private static final int WNAF_WIDTH_BASE = 7;
+    private static final int WNAF_WIDTH_PUBLIC = 6;
 
     // scalarMultBase supports varying blocks, teeth, spacing so long as their product is in range [449, 479]
     private static final int PRECOMP_BLOCKS = 5;
@@ -551,10 +555,6 @@ private static boolean implVerify(byte[] sig, int sigOff, PublicPoint publicPoin
             return false;
         }
 
-        PointAffine pA = new PointAffine();
-        F.negate(publicPoint.data, pA.x);
-        F.copy(publicPoint.data, F.SIZE, pA.y, 0);
-
         byte[] A = new byte[PUBLIC_KEY_SIZE];
         encodePublicPoint(publicPoint, A, 0);
 
@@ -583,7 +583,19 @@ private static boolean implVerify(byte[] sig, int sigOff, PublicPoint publicPoin
         Scalar448.multiply225Var(nS, v1, nS);
 
         PointProjective pZ = new PointProjective();
-        scalarMultStraus225Var(nS, v0, pA, v1, pR, pZ);
+        PointProjective[] tp = publicPoint.precompNegA;
+        if (tp != null)
+        {
+            scalarMultStraus225Var(nS, v0, tp, WNAF_WIDTH_PUBLIC, v1, pR, pZ);
+        }
+        else
+        {
+            PointAffine pA = new PointAffine();
+            F.negate(publicPoint.data, pA.x);
+            F.copy(publicPoint.data, F.SIZE, pA.y, 0);
+
+            scalarMultStraus225Var(nS, v0, pA, v1, pR, pZ);
+        }
         return normalizeToNeutralElementVar(pZ);
     }
 
@@ -941,6 +953,31 @@ private static void pointSetNeutral(PointProjective p)
         F.one(p.z);
     }
 
+    /**
+     * Precompute a table of multiples of a public point, held by the point itself, so that verifications
+     * against it skip building one and can use a wider window. Intended for public keys that are used to
+     * verify many signatures.
+     *
+     * @param publicPoint the public point to precompute for.
+     */
+    public static void precompute(PublicPoint publicPoint)
+    {
+        if (publicPoint.precompNegA != null)
+        {
+            return;
+        }
+
+        PointAffine pA = new PointAffine();
+        F.negate(publicPoint.data, pA.x);
+        F.copy(publicPoint.data, F.SIZE, pA.y, 0);
+
+        int count = 1 << (WNAF_WIDTH_PUBLIC - 2);
+        PointProjective[] table = new PointProjective[count];
+        pointPrecompute(pA, table, 0, count, new PointTemp());
+
+        publicPoint.precompNegA = table;
+    }
+
     public static void precompute()
     {
         synchronized (PRECOMP_LOCK)
@@ -1240,6 +1277,18 @@ private static void scalarMultStraus225Var(int[] nb, int[] np, PointAffine p, in
 //        assert nq.length == 8;
 //        assert nq[7] >> 31 == nq[7];
 
+        int count = 1 << (WNAF_WIDTH_225 - 2);
+        PointProjective[] tp = new PointProjective[count];
+        pointPrecompute(p, tp, 0, count, new PointTemp());
+
+        scalarMultStraus225Var(nb, np, tp, WNAF_WIDTH_225, nq, q, r);
+    }
+
+    private static void scalarMultStraus225Var(int[] nb, int[] np, PointProjective[] tp, int widthP, int[] nq,
+        PointAffine q, PointProjective r)
+    {
+//        assert tp.length == 1 << (widthP - 2);
+
         precompute();
 
         byte[] ws_b = new byte[450];
@@ -1247,14 +1296,12 @@ private static void scalarMultStraus225Var(int[] nb, int[] np, PointAffine p, in
         byte[] ws_q = new byte[225];
 
         Wnaf.getSignedVar(nb, WNAF_WIDTH_BASE, ws_b);
-        Wnaf.getSignedVar(np, WNAF_WIDTH_225, ws_p);
+        Wnaf.getSignedVar(np, widthP, ws_p);
         Wnaf.getSignedVar(nq, WNAF_WIDTH_225, ws_q);
 
         int count = 1 << (WNAF_WIDTH_225 - 2);
-        PointProjective[] tp = new PointProjective[count];
         PointProjective[] tq = new PointProjective[count];
         PointTemp t = new PointTemp();
-        pointPrecompute(p, tp, 0, count, t);
         pointPrecompute(q, tq, 0, count, t);
 
         pointSetNeutral(r);
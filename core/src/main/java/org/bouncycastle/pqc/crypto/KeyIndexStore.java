@@ -0,0 +1,39 @@
+package org.bouncycastle.pqc.crypto;
+
+import java.io.IOException;
+
+/**
+ * Durable record of how far a stateful signature key (LMS/HSS, XMSS/XMSS^MT) has got through its
+ * one-time keys. The store holds a limit: every index below the limit is treated as used, whether or
+ * not a signature was actually produced with it, so a signer reserving indices here before using them
+ * can never reuse an index after a crash, even though the key itself is not written back each time.
+ */
+public interface KeyIndexStore
+{
+    /**
+     * Return the current limit, 0 if nothing has been reserved yet.
+     *
+     * @return the index below which all one-time keys are to be treated as used.
+     * @throws IOException if the store cannot be read.
+     */
+    long getLimit()
+        throws IOException;
+
+    /**
+     * Raise the limit. The new limit must be on stable storage by the time this method returns.
+     *
+     * @param limit the new limit, which may not be less than the current one.
+     * @throws IOException if the new limit could not be made durable, in which case no index at or
+     * above the old limit may be used.
+     */
+    void advanceLimit(long limit)
+        throws IOException;
+
+    /**
+     * Release any resources held by the store.
+     *
+     * @throws IOException on an error closing the underlying storage.
+     */
+    void close()
+        throws IOException;
+}
@@ -320,17 +320,46 @@ public byte[][] generateKeyPair()
     }
 
     public byte[] signSignature(byte[] msg, int msglen, byte[] rho, byte[] key, byte[] tr, byte[] t0Enc, byte[] s1Enc, byte[] s2Enc)
+    {
+        return signSignature(msg, msglen, key, tr, precomputePrivateKey(rho, t0Enc, s1Enc, s2Enc));
+    }
+
+    /**
+     * Expand the matrix A from rho and unpack the secret vectors into the NTT domain, ready for
+     * signing.
+     */
+    DilithiumPrivateKeyPrecomputation precomputePrivateKey(byte[] rho, byte[] t0Enc, byte[] s1Enc, byte[] s2Enc)
+    {
+        PolyVecL s1 = new PolyVecL(this);
+        PolyVecK t0 = new PolyVecK(this), s2 = new PolyVecK(this);
+        PolyVecMatrix aMatrix = new PolyVecMatrix(this);
+
+        Packing.unpackSecretKey(t0, s1, s2, t0Enc, s1Enc, s2Enc, this);
+
+        aMatrix.expandMatrix(rho);
+
+        s1.polyVecNtt();
+        s2.polyVecNtt();
+
+        t0.polyVecNtt();
+
+        return new DilithiumPrivateKeyPrecomputation(aMatrix, s1, s2, t0);
+    }
+
+    byte[] signSignature(byte[] msg, int msglen, byte[] key, byte[] tr, DilithiumPrivateKeyPrecomputation precomputation)
     {
         int n;
         byte[] outSig = new byte[CryptoBytes + msglen];
         byte[] mu = new byte[CrhBytes], rhoPrime = new byte[CrhBytes];
         short nonce = 0;
-        PolyVecL s1 = new PolyVecL(this), y = new PolyVecL(this), z = new PolyVecL(this);
-        PolyVecK t0 = new PolyVecK(this), s2 = new PolyVecK(this), w1 = new PolyVecK(this), w0 = new PolyVecK(this), h = new PolyVecK(this);
+        PolyVecL y = new PolyVecL(this), z = new PolyVecL(this);
+        PolyVecK w1 = new PolyVecK(this), w0 = new PolyVecK(this), h = new PolyVecK(this);
         Poly cp = new Poly(this);
-        PolyVecMatrix aMatrix = new PolyVecMatrix(this);
 
-        Packing.unpackSecretKey(t0, s1, s2, t0Enc, s1Enc, s2Enc, this);
+        // read only from here on, the precomputation may be shared
+        PolyVecMatrix aMatrix = precomputation.getMatrix();
+        PolyVecL s1 = precomputation.getS1();
+        PolyVecK s2 = precomputation.getS2(), t0 = precomputation.getT0();
 
         this.shake256Digest.update(tr, 0, TrBytes);
         this.shake256Digest.update(msg, 0, msglen);
@@ -348,13 +377,6 @@ public byte[] signSignature(byte[] msg, int msglen, byte[] rho, byte[] key, byte
         shake256Digest.update(keyMu, 0, SeedBytes + RndBytes + CrhBytes);
         shake256Digest.doFinal(rhoPrime, 0, CrhBytes);
 
-        aMatrix.expandMatrix(rho);
-
-        s1.polyVecNtt();
-        s2.polyVecNtt();
-
-        t0.polyVecNtt();
-
         int count = 0;
         while (count < 1000)
         {
@@ -430,113 +452,100 @@ public byte[] sign(byte[] msg, int mlen, byte[] rho, byte[] key, byte[] tr, byte
     }
 
     public boolean signVerify(byte[] sig, int siglen, byte[] msg, int msglen, byte[] rho, byte[] encT1)
+    {
+        if (siglen != CryptoBytes)
+        {
+            return false;
+        }
+
+        return signVerify(sig, siglen, msg, msglen, precomputePublicKey(rho, encT1));
+    }
+
+    /**
+     * Expand the matrix A from rho, move t1 * 2^d into the NTT domain and compute tr = H(rho || t1),
+     * ready for verification.
+     */
+    DilithiumPublicKeyPrecomputation precomputePublicKey(byte[] rho, byte[] encT1)
+    {
+        byte[] tr = new byte[TrBytes];
+        PolyVecMatrix aMatrix = new PolyVecMatrix(this);
+        PolyVecK t1 = new PolyVecK(this);
+
+        t1 = Packing.unpackPublicKey(t1, encT1, this);
+
+        aMatrix.expandMatrix(rho);
+
+        t1.shiftLeft();
+        t1.polyVecNtt();
+
+        SHAKEDigest shakeDigest256 = new SHAKEDigest(256);
+        shakeDigest256.update(rho, 0, rho.length);
+        shakeDigest256.update(encT1, 0, encT1.length);
+        shakeDigest256.doFinal(tr, 0, TrBytes);
+
+        return new DilithiumPublicKeyPrecomputation(aMatrix, t1, tr);
+    }
+
+    boolean signVerify(byte[] sig, int siglen, byte[] msg, int msglen, DilithiumPublicKeyPrecomputation precomputation)
     {
         byte[] buf,
             mu = new byte[CrhBytes],
             c,
             c2 = new byte[DilithiumCTilde];
         Poly cp = new Poly(this);
-        PolyVecMatrix aMatrix = new PolyVecMatrix(this);
         PolyVecL z = new PolyVecL(this);
-        PolyVecK t1 = new PolyVecK(this), w1 = new PolyVecK(this), h = new PolyVecK(this);
+        PolyVecK ct1 = new PolyVecK(this), w1 = new PolyVecK(this), h = new PolyVecK(this);
+
+        // read only from here on, the precomputation may be shared
+        PolyVecMatrix aMatrix = precomputation.getMatrix();
+        PolyVecK t1 = precomputation.getT1();
 
         if (siglen != CryptoBytes)
         {
             return false;
         }
 
-        // System.out.println("publickey = ");
-        // Helper.printByteArray(publicKey);
-
-        t1 = Packing.unpackPublicKey(t1, encT1, this);
-
-        // System.out.println(t1.toString("t1"));
-
-        // System.out.println("rho = ");
-        // Helper.printByteArray(rho);
-
         if (!Packing.unpackSignature(z, h, sig, this))
         {
             return false;
         }
         c = Arrays.copyOfRange(sig, 0, DilithiumCTilde);
 
-        // System.out.println(z.toString("z"));
-        // System.out.println(h.toString("h"));
-
         if (z.checkNorm(getDilithiumGamma1() - getDilithiumBeta()))
         {
             return false;
         }
 
         // Compute crh(crh(rho, t1), msg)
-        shake256Digest.update(rho, 0, rho.length);
-        shake256Digest.update(encT1, 0, encT1.length);
-        shake256Digest.doFinal(mu, 0, TrBytes);
-        // System.out.println("mu before = ");
-        // Helper.printByteArray(mu);
-
-        shake256Digest.update(mu, 0, TrBytes);
+        shake256Digest.update(precomputation.getTr(), 0, TrBytes);
         shake256Digest.update(msg, 0, msglen);
         shake256Digest.doFinal(mu, 0);
 
-        // System.out.println("mu after = ");
-        // Helper.printByteArray(mu);
-
         // Matrix-vector multiplication; compute Az - c2^dt1
         cp.challenge(Arrays.copyOfRange(c, 0, DilithiumCTilde));  // use only first DilithiumCTilde of c.
-        // System.out.println("cp = ");
-        // System.out.println(cp.toString());
-
-        aMatrix.expandMatrix(rho);
-        // System.out.println(aMatrix.toString("aMatrix = "));
-
 
         z.polyVecNtt();
         aMatrix.pointwiseMontgomery(w1, z);
 
         cp.polyNtt();
-        // System.out.println("cp = ");
-        // System.out.println(cp.toString());
 
-        t1.shiftLeft();
-        t1.polyVecNtt();
-        t1.pointwisePolyMontgomery(cp, t1);
+        ct1.pointwisePolyMontgomery(cp, t1);
 
-        // System.out.println(t1.toString("t1"));
-
-        w1.subtract(t1);
+        w1.subtract(ct1);
         w1.reduce();
         w1.invNttToMont();
 
-        // System.out.println(w1.toString("w1 before caddq"));
-
         // Reconstruct w1
         w1.conditionalAddQ();
-        // System.out.println(w1.toString("w1 before hint"));
         w1.useHint(w1, h);
-        // System.out.println(w1.toString("w1"));
 
         buf = w1.packW1();
 
-        // System.out.println("buf = ");
-        // Helper.printByteArray(buf);
-
-        // System.out.println("mu = ");
-        // Helper.printByteArray(mu);
-
         SHAKEDigest shakeDigest256 = new SHAKEDigest(256);
         shakeDigest256.update(mu, 0, CrhBytes);
         shakeDigest256.update(buf, 0, DilithiumK * DilithiumPolyW1PackedBytes);
         shakeDigest256.doFinal(c2, 0, DilithiumCTilde);
 
-        // System.out.println("c = ");
-        // Helper.printByteArray(c);
-
-        // System.out.println("c2 = ");
-        // Helper.printByteArray(c2);
-
-
         return Arrays.constantTimeAreEqual(c, c2);
     }
 
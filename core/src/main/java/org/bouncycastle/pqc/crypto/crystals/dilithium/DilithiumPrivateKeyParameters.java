@@ -14,6 +14,10 @@
 
     private final byte[] t1;
 
+    private final Object precomputationLock = new Object();
+    private volatile boolean precompute = false;
+    private volatile DilithiumPrivateKeyPrecomputation precomputation = null;
+
     public DilithiumPrivateKeyParameters(DilithiumParameters params, byte[] rho, byte[] K, byte[] tr, byte[] s1, byte[] s2, byte[] t0, byte[] t1)
     {
         super(true, params);
@@ -107,4 +111,69 @@ public byte[] getTr()
     {
         return Arrays.clone(tr);
     }
+
+    /**
+     * Enable or disable precomputation for this key. When enabled, the expanded matrix A and the secret vectors in the NTT domain are
+     * computed on first use, then shared by every later signature with this key, from any thread. This is
+     * worthwhile for keys that are used repeatedly. The memory used is fixed by the parameter set (see
+     * {@link #getPrecomputationSize()}) and is released when precomputation is disabled.
+     *
+     * @param precompute true to keep a precomputed form of the key, false to discard it.
+     */
+    public void setPrecomputation(boolean precompute)
+    {
+        synchronized (precomputationLock)
+        {
+            this.precompute = precompute;
+            if (!precompute)
+            {
+                this.precomputation = null;
+            }
+        }
+    }
+
+    public boolean isPrecomputationEnabled()
+    {
+        return precompute;
+    }
+
+    /**
+     * Return the number of bytes currently held by the precomputed form of this key: 0 if there is none,
+     * otherwise 28672, 48128 or 80896 for Dilithium2, Dilithium3 and Dilithium5 respectively (not including
+     * object overheads).
+     *
+     * @return the size of the precomputed data.
+     */
+    public int getPrecomputationSize()
+    {
+        DilithiumPrivateKeyPrecomputation precomputation = this.precomputation;
+        return precomputation == null ? 0 : precomputation.getSize();
+    }
+
+    /**
+     * Return the precomputed form of this key, creating it if necessary, or null if precomputation is
+     * not enabled.
+     */
+    DilithiumPrivateKeyPrecomputation getPrecomputation(DilithiumEngine engine)
+    {
+        if (!precompute)
+        {
+            return null;
+        }
+
+        DilithiumPrivateKeyPrecomputation result = precomputation;
+        if (result == null)
+        {
+            synchronized (precomputationLock)
+            {
+                result = precomputation;
+                if (result == null && precompute)
+                {
+                    result = engine.precomputePrivateKey(rho, t0, s1, s2);
+                    precomputation = result;
+                }
+            }
+        }
+        return result;
+    }
 }
@@ -0,0 +1,51 @@
+package org.bouncycastle.pqc.crypto.crystals.dilithium;
+
+/**
+ * The expanded form of a private key used for signing: the matrix A generated from rho, and the
+ * secret vectors s1, s2 and t0 unpacked into the NTT domain. Instances are never modified after
+ * construction, so may be shared between threads.
+ */
+final class DilithiumPrivateKeyPrecomputation
+{
+    private final PolyVecMatrix aMatrix;
+    private final PolyVecL s1;
+    private final PolyVecK s2;
+    private final PolyVecK t0;
+
+    DilithiumPrivateKeyPrecomputation(PolyVecMatrix aMatrix, PolyVecL s1, PolyVecK s2, PolyVecK t0)
+    {
+        this.aMatrix = aMatrix;
+        this.s1 = s1;
+        this.s2 = s2;
+        this.t0 = t0;
+    }
+
+    PolyVecMatrix getMatrix()
+    {
+        return aMatrix;
+    }
+
+    PolyVecL getS1()
+    {
+        return s1;
+    }
+
+    PolyVecK getS2()
+    {
+        return s2;
+    }
+
+    PolyVecK getT0()
+    {
+        return t0;
+    }
+
+    /**
+     * Return the number of bytes of coefficient data held, (k * l + l + 2 * k) * 1024 for a given k and l.
+     */
+    int getSize()
+    {
+        int k = aMatrix.getDilithiumK(), l = aMatrix.getDilithiumL();
+        return (k * l + l + 2 * k) * DilithiumEngine.DilithiumN * 4;
+    }
+}
@@ -13,6 +13,10 @@ static byte[] getEncoded(byte[] rho, byte[] t1)
     final byte[] rho;
     final byte[] t1;
 
+    private final Object precomputationLock = new Object();
+    private volatile boolean precompute = false;
+    private volatile DilithiumPublicKeyPrecomputation precomputation = null;
+
     public DilithiumPublicKeyParameters(DilithiumParameters params, byte[] encoding)
     {
         super(false, params);
@@ -41,4 +45,69 @@ public byte[] getT1()
     {
         return Arrays.clone(t1);
     }
+
+    /**
+     * Enable or disable precomputation for this key. When enabled, the expanded matrix A and the vector t1 in the NTT domain are
+     * computed on first use, then shared by every later verification with this key, from any thread. This is
+     * worthwhile for keys that are used repeatedly. The memory used is fixed by the parameter set (see
+     * {@link #getPrecomputationSize()}) and is released when precomputation is disabled.
+     *
+     * @param precompute true to keep a precomputed form of the key, false to discard it.
+     */
+    public void setPrecomputation(boolean precompute)
+    {
+        synchronized (precomputationLock)
+        {
+            this.precompute = precompute;
+            if (!precompute)
+            {
+                this.precomputation = null;
+            }
+        }
+    }
+
+    public boolean isPrecomputationEnabled()
+    {
+        return precompute;
+    }
+
+    /**
+     * Return the number of bytes currently held by the precomputed form of this key: 0 if there is none,
+     * otherwise 20544, 36928 or 65600 for Dilithium2, Dilithium3 and Dilithium5 respectively (not including
+     * object overheads).
+     *
+     * @return the size of the precomputed data.
+     */
+    public int getPrecomputationSize()
+    {
+        DilithiumPublicKeyPrecomputation precomputation = this.precomputation;
+        return precomputation == null ? 0 : precomputation.getSize();
+    }
+
+    /**
+     * Return the precomputed form of this key, creating it if necessary, or null if precomputation is
+     * not enabled.
+     */
+    DilithiumPublicKeyPrecomputation getPrecomputation(DilithiumEngine engine)
+    {
+        if (!precompute)
+        {
+            return null;
+        }
+
+        DilithiumPublicKeyPrecomputation result = precomputation;
+        if (result == null)
+        {
+            synchronized (precomputationLock)
+            {
+                result = precomputation;
+                if (result == null && precompute)
+                {
+                    result = engine.precomputePublicKey(rho, t1);
+                    precomputation = result;
+                }
+            }
+        }
+        return result;
+    }
 }
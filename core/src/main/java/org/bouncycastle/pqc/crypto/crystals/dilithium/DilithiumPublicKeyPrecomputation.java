@@ -0,0 +1,45 @@
+package org.bouncycastle.pqc.crypto.crystals.dilithium;
+
+/**
+ * The expanded form of a public key used for verification: the matrix A generated from rho, the
+ * vector t1 * 2^d in the NTT domain, and tr = H(rho || t1). Instances are never modified after
+ * construction, so may be shared between threads.
+ */
+final class DilithiumPublicKeyPrecomputation
+{
+    private final PolyVecMatrix aMatrix;
+    private final PolyVecK t1;
+    private final byte[] tr;
+
+    DilithiumPublicKeyPrecomputation(PolyVecMatrix aMatrix, PolyVecK t1, byte[] tr)
+    {
+        this.aMatrix = aMatrix;
+        this.t1 = t1;
+        this.tr = tr;
+    }
+
+    PolyVecMatrix getMatrix()
+    {
+        return aMatrix;
+    }
+
+    PolyVecK getT1()
+    {
+        return t1;
+    }
+
+    byte[] getTr()
+    {
+        return tr;
+    }
+
+    /**
+     * Return the number of bytes of coefficient and hash data held, (k * l + k) * 1024 + 64 for a given
+     * k and l.
+     */
+    int getSize()
+    {
+        int k = aMatrix.getDilithiumK(), l = aMatrix.getDilithiumL();
+        return (k * l + k) * DilithiumEngine.DilithiumN * 4 + tr.length;
+    }
+}
@@ -43,6 +43,12 @@ public byte[] generateSignature(byte[] message)
     {
         DilithiumEngine engine = privKey.getParameters().getEngine(random);
 
+        DilithiumPrivateKeyPrecomputation precomputation = privKey.getPrecomputation(engine);
+        if (precomputation != null)
+        {
+            return engine.signSignature(message, message.length, privKey.k, privKey.tr, precomputation);
+        }
+
         return engine.sign(message, message.length, privKey.rho, privKey.k, privKey.tr, privKey.t0, privKey.s1, privKey.s2);
     }
 
@@ -50,6 +56,12 @@ public boolean verifySignature(byte[] message, byte[] signature)
     {
         DilithiumEngine engine = pubKey.getParameters().getEngine(random);
 
+        DilithiumPublicKeyPrecomputation precomputation = pubKey.getPrecomputation(engine);
+        if (precomputation != null)
+        {
+            return engine.signVerify(signature, signature.length, message, message.length, precomputation);
+        }
+
         return engine.signOpen(message, signature, signature.length, pubKey.rho, pubKey.t1);
     }
 }
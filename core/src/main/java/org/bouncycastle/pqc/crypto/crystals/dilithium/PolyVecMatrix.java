@@ -24,6 +24,16 @@ public PolyVecMatrix(DilithiumEngine engine)
         }
     }
 
+    int getDilithiumK()
+    {
+        return dilithiumK;
+    }
+
+    int getDilithiumL()
+    {
+        return dilithiumL;
+    }
+
     public void pointwiseMontgomery(PolyVecK t, PolyVecL v)
     {
         int i;
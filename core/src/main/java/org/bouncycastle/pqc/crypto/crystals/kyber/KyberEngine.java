@@ -217,6 +217,14 @@ public byte[][] generateKemKeyPair()
     }
 
     public byte[][] kemEncrypt(byte[] publicKeyInput)
+    {
+        return kemEncrypt(precomputePublicKey(publicKeyInput));
+    }
+
+    /**
+     * Validate a public key and expand it into the form used for encapsulation.
+     */
+    KyberPublicKeyPrecomputation precomputePublicKey(byte[] publicKeyInput)
     {
         // Input validation (6.2 ML-KEM Encaps)
         // Type Check
@@ -233,6 +241,22 @@ public byte[][] kemEncrypt(byte[] publicKeyInput)
             throw new IllegalArgumentException("Input validation: Modulus check failed for ml-kem encapsulation");
         }
 
+        PolyVec[] aMatrixTranspose = new PolyVec[KyberK];
+        for (int i = 0; i < KyberK; i++)
+        {
+            aMatrixTranspose[i] = new PolyVec(this);
+        }
+        indCpa.generateMatrix(aMatrixTranspose, seed, true);
+
+        // SHA3-256 Public Key
+        byte[] publicKeyHash = new byte[KyberSymBytes];
+        symmetric.hash_h(publicKeyHash, publicKeyInput, 0);
+
+        return new KyberPublicKeyPrecomputation(polyVec, aMatrixTranspose, publicKeyHash);
+    }
+
+    byte[][] kemEncrypt(KyberPublicKeyPrecomputation publicKey)
+    {
 
         byte[] outputCipherText;
 
@@ -246,13 +270,14 @@ public byte[][] kemEncrypt(byte[] publicKeyInput)
         System.arraycopy(randBytes, 0, buf, 0, KyberSymBytes);
 
         // SHA3-256 Public Key
-        symmetric.hash_h(buf, publicKeyInput, KyberSymBytes);
+        publicKey.getPublicKeyHash(buf, KyberSymBytes);
 
         // SHA3-512( SHA3-256(RandBytes) || SHA3-256(PublicKey) )
         symmetric.hash_g(kr, buf);
 
         // IndCpa Encryption
-        outputCipherText = indCpa.encrypt(Arrays.copyOfRange(buf, 0, KyberSymBytes), publicKeyInput, Arrays.copyOfRange(kr, 32, kr.length));
+        outputCipherText = indCpa.encrypt(Arrays.copyOfRange(buf, 0, KyberSymBytes), publicKey.getPublicKeyPolyVec(),
+            publicKey.getMatrixTranspose(), Arrays.copyOfRange(kr, 32, kr.length));
 
         byte[] outputSharedSecret = new byte[sessionKeyLength];
 
@@ -145,15 +145,8 @@ public byte[] encrypt(byte[] msg, byte[] publicKeyInput, byte[] coins)
     {
         int i;
         byte[] seed;
-        byte nonce = (byte)0;
-        PolyVec sp = new PolyVec(engine),
-            publicKeyPolyVec = new PolyVec(engine),
-            errorPolyVector = new PolyVec(engine),
-            bp = new PolyVec(engine);
+        PolyVec publicKeyPolyVec = new PolyVec(engine);
         PolyVec[] aMatrixTranspose = new PolyVec[engine.getKyberK()];
-        Poly errorPoly = new Poly(engine),
-            v = new Poly(engine),
-            k = new Poly(engine);
 
 
         // System.out.print("publickeyinput = ");
@@ -173,8 +166,6 @@ public byte[] encrypt(byte[] msg, byte[] publicKeyInput, byte[] coins)
         // Helper.printByteArray(seed);
         // System.out.println();
 
-        k.fromMsg(msg);
-
         for (i = 0; i < kyberK; i++)
         {
             aMatrixTranspose[i] = new PolyVec(engine);
@@ -182,6 +173,25 @@ public byte[] encrypt(byte[] msg, byte[] publicKeyInput, byte[] coins)
 
         generateMatrix(aMatrixTranspose, seed, true);
 
+        return encrypt(msg, publicKeyPolyVec, aMatrixTranspose, coins);
+    }
+
+    /**
+     * Encrypt using an already unpacked public key and expanded (transposed) matrix, which are only read.
+     */
+    byte[] encrypt(byte[] msg, PolyVec publicKeyPolyVec, PolyVec[] aMatrixTranspose, byte[] coins)
+    {
+        int i;
+        byte nonce = (byte)0;
+        PolyVec sp = new PolyVec(engine),
+            errorPolyVector = new PolyVec(engine),
+            bp = new PolyVec(engine);
+        Poly errorPoly = new Poly(engine),
+            v = new Poly(engine),
+            k = new Poly(engine);
+
+        k.fromMsg(msg);
+
         // System.out.print("matrix transposed = ");
         // for (i = 0; i < kyberK; i++) {
         //     System.out.print("[");
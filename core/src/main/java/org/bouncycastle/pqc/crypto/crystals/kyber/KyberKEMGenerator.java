@@ -23,7 +23,11 @@ public SecretWithEncapsulation generateEncapsulated(AsymmetricKeyParameter recip
         KyberPublicKeyParameters key = (KyberPublicKeyParameters)recipientKey;
         KyberEngine engine = key.getParameters().getEngine();
         engine.init(sr);
-        byte[][] kemEncrypt = engine.kemEncrypt(key.getEncoded());
+
+        KyberPublicKeyPrecomputation precomputation = key.getPrecomputation(engine);
+        byte[][] kemEncrypt = precomputation != null
+            ? engine.kemEncrypt(precomputation)
+            : engine.kemEncrypt(key.getEncoded());
         return new SecretWithEncapsulationImpl(kemEncrypt[0], kemEncrypt[1]);
     }
 }
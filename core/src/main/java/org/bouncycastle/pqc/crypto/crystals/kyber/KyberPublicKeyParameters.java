@@ -13,6 +13,10 @@ static byte[] getEncoded(byte[] t, byte[] rho)
     final byte[] t;
     final byte[] rho;
 
+    private final Object precomputationLock = new Object();
+    private volatile boolean precompute = false;
+    private volatile KyberPublicKeyPrecomputation precomputation = null;
+
     public KyberPublicKeyParameters(KyberParameters params, byte[] t, byte[] rho)
     {
         super(false, params);
@@ -47,4 +51,70 @@ public byte[] getT()
     {
         return Arrays.clone(t);
     }
+
+    /**
+     * Enable or disable precomputation for this key. When enabled, the expanded matrix A, the unpacked
+     * public vector and the hash of the key are computed (and the key validated) on first use, then
+     * shared by every later encapsulation to this key, from any thread. This is worthwhile for keys
+     * that are encapsulated to repeatedly. The memory used is fixed by the parameter set (see
+     * {@link #getPrecomputationSize()}) and is released when precomputation is disabled.
+     *
+     * @param precompute true to keep a precomputed form of the key, false to discard it.
+     */
+    public void setPrecomputation(boolean precompute)
+    {
+        synchronized (precomputationLock)
+        {
+            this.precompute = precompute;
+            if (!precompute)
+            {
+                this.precomputation = null;
+            }
+        }
+    }
+
+    public boolean isPrecomputationEnabled()
+    {
+        return precompute;
+    }
+
+    /**
+     * Return the number of bytes currently held by the precomputed form of this key: 0 if there is none,
+     * otherwise 3104, 6176 or 10272 for Kyber512, Kyber768 and Kyber1024 respectively (not including
+     * object overheads).
+     *
+     * @return the size of the precomputed data.
+     */
+    public int getPrecomputationSize()
+    {
+        KyberPublicKeyPrecomputation precomputation = this.precomputation;
+        return precomputation == null ? 0 : precomputation.getSize();
+    }
+
+    /**
+     * Return the precomputed form of this key, creating it if necessary, or null if precomputation is
+     * not enabled.
+     */
+    KyberPublicKeyPrecomputation getPrecomputation(KyberEngine engine)
+    {
+        if (!precompute)
+        {
+            return null;
+        }
+
+        KyberPublicKeyPrecomputation result = precomputation;
+        if (result == null)
+        {
+            synchronized (precomputationLock)
+            {
+                result = precomputation;
+                if (result == null && precompute)
+                {
+                    result = engine.precomputePublicKey(getEncoded());
+                    precomputation = result;
+                }
+            }
+        }
+        return result;
+    }
 }
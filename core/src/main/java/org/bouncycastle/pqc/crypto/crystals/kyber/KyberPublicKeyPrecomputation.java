@@ -0,0 +1,44 @@
+package org.bouncycastle.pqc.crypto.crystals.kyber;
+
+/**
+ * The expanded form of a validated public key used for encapsulation: the public vector t (held in
+ * the NTT domain), the transposed matrix A generated from rho, and H(ek). Instances are never
+ * modified after construction, so may be shared between threads.
+ */
+final class KyberPublicKeyPrecomputation
+{
+    private final PolyVec publicKeyPolyVec;
+    private final PolyVec[] matrixTranspose;
+    private final byte[] publicKeyHash;
+
+    KyberPublicKeyPrecomputation(PolyVec publicKeyPolyVec, PolyVec[] matrixTranspose, byte[] publicKeyHash)
+    {
+        this.publicKeyPolyVec = publicKeyPolyVec;
+        this.matrixTranspose = matrixTranspose;
+        this.publicKeyHash = publicKeyHash;
+    }
+
+    PolyVec getPublicKeyPolyVec()
+    {
+        return publicKeyPolyVec;
+    }
+
+    PolyVec[] getMatrixTranspose()
+    {
+        return matrixTranspose;
+    }
+
+    void getPublicKeyHash(byte[] out, int outOff)
+    {
+        System.arraycopy(publicKeyHash, 0, out, outOff, publicKeyHash.length);
+    }
+
+    /**
+     * Return the number of bytes of coefficient and hash data held, (k^2 + k) * 512 + 32 for a given k.
+     */
+    int getSize()
+    {
+        int polyCount = matrixTranspose.length * (matrixTranspose.length + 1);
+        return polyCount * KyberEngine.KyberN * 2 + publicKeyHash.length;
+    }
+}
@@ -26,6 +26,8 @@
 
     private HSSPublicKeyParameters publicKey;
 
+    private volatile LMSPrecomputation precomputation;
+
     public HSSPrivateKeyParameters(int l, List<LMSPrivateKeyParameters> keys, List<LMSSignature> sig, long index, long indexLimit)
     {
         super(true);
@@ -153,6 +155,19 @@ synchronized void incIndex()
         index++;
     }
 
+    /**
+     * Start background precomputation for this key: the authentication paths of the LMS keys in use and,
+     * ahead of each lower level key being exhausted, the key that replaces it.
+     *
+     * @param precomputation the precomputation to use, which must not already be in use with another key.
+     */
+    public void setPrecomputation(LMSPrecomputation precomputation)
+    {
+        precomputation.attach(this);
+        this.precomputation = precomputation;
+        precomputation.schedule();
+    }
+
     private static HSSPrivateKeyParameters makeCopy(HSSPrivateKeyParameters privateKeyParameters)
     {
         try
@@ -391,7 +406,14 @@ void replaceConsumedKey(int d)
         LMSPrivateKeyParameters oldPk = keys.get(d);
 
 
-        newKeys.set(d, LMS.generateKeys(oldPk.getSigParameters(), oldPk.getOtsParameters(), 0, childI, childRootSeed));
+        LMSPrecomputation precomputation = this.precomputation;
+        LMSPrivateKeyParameters newKey = (precomputation == null) ? null : precomputation.takePreparedKey(d, childI, childRootSeed);
+        if (newKey == null)
+        {
+            newKey = LMS.generateKeys(oldPk.getSigParameters(), oldPk.getOtsParameters(), 0, childI, childRootSeed);
+        }
+
+        newKeys.set(d, newKey);
 
         List<LMSSignature> newSig = new ArrayList<LMSSignature>(sig);
 
@@ -0,0 +1,290 @@
+package org.bouncycastle.pqc.crypto.lms;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.bouncycastle.crypto.Digest;
+
+/**
+ * Precomputed tree nodes for an LMS private key, filled in by an {@link LMSPrecomputation}.
+ * <p>
+ * The tree of height h is split at height s: the top part holds every node at height s or above, and
+ * below that the tree is made up of 2^(h-s) bottom subtrees of height s. An authentication path for leaf q
+ * takes its h - s upper nodes from the top part and its s lower nodes from bottom subtree q &gt;&gt; s, so
+ * keeping the top part and a window of bottom subtrees starting at the current one is enough for every
+ * signature in the window to be made without computing any nodes.
+ * </p>
+ */
+final class LMSNodeCache
+{
+    private final LMSPrecomputation owner;
+    private final LMSPrivateKeyParameters key;
+    private final int h;
+    private final int s;
+    private final int ahead;
+    private final int nodeSize;
+    private final Map<Integer, byte[][]> subtrees = new HashMap<Integer, byte[][]>();
+
+    private volatile byte[][] top;
+    private int current;
+
+    LMSNodeCache(LMSPrecomputation owner, LMSPrivateKeyParameters key, int ahead)
+    {
+        this.owner = owner;
+        this.key = key;
+        this.h = key.getSigParameters().getH();
+        this.s = getSplitHeight(h);
+        this.ahead = Math.min(ahead, getSubtreeCount() - 1);
+        this.nodeSize = key.getSigParameters().getM();
+        this.current = (key.getIndex() >> s);
+    }
+
+    static int getSplitHeight(int h)
+    {
+        return h / 2;
+    }
+
+    /**
+     * Return the number of bytes held by the top part for a tree of height h with nodeSize byte nodes.
+     */
+    static long getTopSize(int h, int nodeSize)
+    {
+        return (1L << (h - getSplitHeight(h) + 1)) * nodeSize;
+    }
+
+    /**
+     * Return the number of bytes held by each bottom subtree for a tree of height h with nodeSize byte nodes.
+     */
+    static long getSubtreeSize(int h, int nodeSize)
+    {
+        return (1L << (getSplitHeight(h) + 1)) * nodeSize;
+    }
+
+    LMSPrivateKeyParameters getKey()
+    {
+        return key;
+    }
+
+    boolean isTopReady()
+    {
+        return top != null;
+    }
+
+    /**
+     * Return a precomputed node, or null if the node has not been computed (yet).
+     *
+     * @param r the base 1 index of the node in the tree.
+     */
+    byte[] getNode(int r)
+    {
+        int height = h - (31 - Integer.numberOfLeadingZeros(r));
+        if (height >= s)
+        {
+            byte[][] t = top;
+            return t == null ? null : t[r];
+        }
+
+        int depth = s - height;
+        int b = (r >>> depth) - (1 << (h - s));
+
+        byte[][] nodes;
+        synchronized (this)
+        {
+            nodes = subtrees.get(b);
+        }
+
+        return nodes == null ? null : nodes[(1 << depth) | (r & ((1 << depth) - 1))];
+    }
+
+    /**
+     * Note the use of leaf q, moving the window along (and releasing the subtrees behind it) once q enters
+     * a new bottom subtree.
+     */
+    void used(int q)
+    {
+        int b = q >> s;
+
+        synchronized (this)
+        {
+            if (b == current)
+            {
+                return;
+            }
+
+            current = b;
+            for (Iterator<Integer> it = subtrees.keySet().iterator(); it.hasNext();)
+            {
+                if (it.next().intValue() < b)
+                {
+                    it.remove();
+                }
+            }
+        }
+
+        owner.schedule();
+    }
+
+    /**
+     * Return the number of signatures, starting at leaf q, whose authentication paths have been precomputed.
+     */
+    synchronized int getSignaturesReady(int q)
+    {
+        if (top == null)
+        {
+            return 0;
+        }
+
+        int b = q >> s;
+        while (subtrees.containsKey(b))
+        {
+            b++;
+        }
+
+        return Math.max(0, Math.min(b << s, 1 << h) - q);
+    }
+
+    synchronized long getMemoryUsed()
+    {
+        long size = subtrees.size() * getSubtreeSize(h, nodeSize);
+        if (top != null)
+        {
+            size += getTopSize(h, nodeSize);
+        }
+        return size;
+    }
+
+    /**
+     * Do the next piece of work on the cache: the top part, followed by the first missing subtree in the
+     * window.
+     *
+     * @return true if any work was done, false if the cache is complete.
+     */
+    boolean computeNext()
+    {
+        if (top == null)
+        {
+            computeTop();
+            return true;
+        }
+
+        int b = findMissingSubtree();
+        if (b < 0)
+        {
+            return false;
+        }
+
+        byte[][] nodes = computeSubtree(DigestUtil.getDigest(key.getSigParameters()), b);
+        synchronized (this)
+        {
+            if (b >= current && b <= current + ahead)
+            {
+                subtrees.put(b, nodes);
+            }
+        }
+
+        return true;
+    }
+
+    private synchronized int findMissingSubtree()
+    {
+        int last = Math.min(current + ahead, getSubtreeCount() - 1);
+        for (int b = current; b <= last; b++)
+        {
+            if (!subtrees.containsKey(b))
+            {
+                return b;
+            }
+        }
+
+        return -1;
+    }
+
+    private int getSubtreeCount()
+    {
+        return 1 << (h - s);
+    }
+
+    private void computeTop()
+    {
+        Digest digest = DigestUtil.getDigest(key.getSigParameters());
+        int count = getSubtreeCount();
+        byte[][] t = new byte[count << 1][];
+
+        for (int b = 0; b < count; b++)
+        {
+            if (owner.isClosed())
+            {
+                return;
+            }
+
+            byte[][] nodes = computeSubtree(digest, b);
+            t[count + b] = nodes[1];
+
+            synchronized (this)
+            {
+                if (b >= current && b <= current + ahead)
+                {
+                    subtrees.put(b, nodes);
+                }
+            }
+        }
+
+        byte[] I = key.getI();
+        for (int r = count - 1; r > 0; r--)
+        {
+            t[r] = interiorNode(digest, I, r, t[2 * r], t[2 * r + 1]);
+        }
+
+        top = t;
+    }
+
+    /**
+     * Compute every node of bottom subtree b, indexed as a heap with the subtree root at 1.
+     */
+    private byte[][] computeSubtree(Digest digest, int b)
+    {
+        byte[][] nodes = new byte[1 << (s + 1)][];
+
+        computeNode(digest, key.getI(), key.getMasterSecret(), nodes, 1, (1 << (h - s)) + b, s);
+
+        return nodes;
+    }
+
+    private void computeNode(Digest digest, byte[] I, byte[] masterSecret, byte[][] nodes, int local, int r, int height)
+    {
+        if (height == 0)
+        {
+            int twoToH = 1 << h;
+            byte[] K = LM_OTS.lms_ots_generatePublicKey(key.getOtsParameters(), I, r - twoToH, masterSecret);
+
+            LmsUtils.byteArray(I, digest);
+            LmsUtils.u32str(r, digest);
+            LmsUtils.u16str(LMS.D_LEAF, digest);
+            LmsUtils.byteArray(K, digest);
+            nodes[local] = new byte[digest.getDigestSize()];
+            digest.doFinal(nodes[local], 0);
+
+            owner.leafComputed();
+            return;
+        }
+
+        computeNode(digest, I, masterSecret, nodes, 2 * local, 2 * r, height - 1);
+        computeNode(digest, I, masterSecret, nodes, 2 * local + 1, 2 * r + 1, height - 1);
+
+        nodes[local] = interiorNode(digest, I, r, nodes[2 * local], nodes[2 * local + 1]);
+    }
+
+    private static byte[] interiorNode(Digest digest, byte[] I, int r, byte[] left, byte[] right)
+    {
+        LmsUtils.byteArray(I, digest);
+        LmsUtils.u32str(r, digest);
+        LmsUtils.u16str(LMS.D_INTR, digest);
+        LmsUtils.byteArray(left, digest);
+        LmsUtils.byteArray(right, digest);
+        byte[] T = new byte[digest.getDigestSize()];
+        digest.doFinal(T, 0);
+
+        return T;
+    }
+}
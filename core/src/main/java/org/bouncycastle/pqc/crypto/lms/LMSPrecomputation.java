@@ -0,0 +1,528 @@
+package org.bouncycastle.pqc.crypto.lms;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background precomputation for an LMS or HSS private key, so that signing does not stall computing the
+ * nodes of an authentication path or generating the next LMS key of an HSS hierarchy.
+ * <p>
+ * Once attached to a key with setPrecomputation(), work is handed to the executor whenever the key moves
+ * on: the top of each LMS tree and a window of the subtrees below it are computed ahead of the leaves being
+ * used, and for an HSS key the replacement for each lower level key is generated, along with its public key,
+ * before the key it replaces is exhausted. Signatures are the same with or without precomputation; if the
+ * background work falls behind, or fails, the signing thread simply computes what it needs itself.
+ * </p>
+ * <p>
+ * The memory budget bounds the nodes held. The least that will work is one top part and two subtrees for
+ * each tree in use, as well as for each prepared key; anything beyond that is used to extend the window of
+ * subtrees for the key that signs the messages.
+ * </p>
+ */
+public class LMSPrecomputation
+{
+    private final Executor executor;
+    private final long memoryBudget;
+    private final AtomicLong leavesComputed = new AtomicLong();
+    private final Runnable worker = new Runnable()
+    {
+        public void run()
+        {
+            work();
+        }
+    };
+
+    private volatile LMSPrivateKeyParameters lmsKey;
+    private volatile HSSPrivateKeyParameters hssKey;
+    private volatile int[] ahead;
+    private LMSNodeCache[] prepared;
+
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private boolean running;
+    private boolean rescan;
+
+    /**
+     * Base constructor.
+     *
+     * @param executor     the executor to run the background work on.
+     * @param memoryBudget the maximum number of bytes of precomputed nodes to hold.
+     */
+    public LMSPrecomputation(Executor executor, long memoryBudget)
+    {
+        if (executor == null)
+        {
+            throw new NullPointerException("executor cannot be null");
+        }
+        if (memoryBudget <= 0)
+        {
+            throw new IllegalArgumentException("memory budget must be positive");
+        }
+
+        this.executor = executor;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Return the memory budget this precomputation was created with.
+     *
+     * @return the maximum number of bytes of precomputed nodes held.
+     */
+    public long getMemoryBudget()
+    {
+        return memoryBudget;
+    }
+
+    /**
+     * Return the total number of leaves (LM-OTS public keys) computed in the background so far.
+     *
+     * @return the number of leaves computed.
+     */
+    public long getLeavesComputed()
+    {
+        return leavesComputed.get();
+    }
+
+    /**
+     * Return the number of signatures that can be made, starting at the current index of the key, without
+     * computing any tree nodes on the signing thread.
+     *
+     * @return the number of signatures whose authentication paths are ready.
+     */
+    public int getSignaturesReady()
+    {
+        LMSPrivateKeyParameters signingKey = getSigningKey();
+        if (signingKey == null)
+        {
+            return 0;
+        }
+
+        LMSNodeCache cache = signingKey.getNodeCache();
+
+        return (cache == null) ? 0 : cache.getSignaturesReady(signingKey.getIndex());
+    }
+
+    /**
+     * Return whether the LMS key that will replace the one at the passed in level of an HSS key, once
+     * it is exhausted, has been generated.
+     *
+     * @param level the level in the HSS hierarchy, from 1 to L - 1.
+     * @return true if the next key for the level is ready, false otherwise.
+     */
+    public synchronized boolean isNextKeyReady(int level)
+    {
+        if (prepared == null || level < 1 || level >= prepared.length)
+        {
+            return false;
+        }
+
+        return prepared[level] != null && prepared[level].isTopReady();
+    }
+
+    /**
+     * Return the number of bytes of precomputed nodes currently held.
+     *
+     * @return the memory in use.
+     */
+    public long getMemoryUsed()
+    {
+        long size = 0;
+
+        LMSPrivateKeyParameters[] keys = getCurrentKeys();
+        for (int i = 0; keys != null && i < keys.length; i++)
+        {
+            LMSNodeCache cache = keys[i].getNodeCache();
+            if (cache != null)
+            {
+                size += cache.getMemoryUsed();
+            }
+        }
+
+        LMSNodeCache[] caches;
+        synchronized (this)
+        {
+            caches = (prepared == null) ? new LMSNodeCache[0] : (LMSNodeCache[])prepared.clone();
+        }
+
+        for (int i = 0; i < caches.length; i++)
+        {
+            if (caches[i] != null)
+            {
+                size += caches[i].getMemoryUsed();
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Return the exception that stopped the background work, if there was one.
+     *
+     * @return the failure, or null if the background work has not failed.
+     */
+    public Throwable getFailure()
+    {
+        return failure;
+    }
+
+    /**
+     * Return whether close() has been called.
+     *
+     * @return true if closed, false otherwise.
+     */
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    /**
+     * Stop the background work and release the precomputed nodes. Signing carries on as if precomputation
+     * had never been enabled.
+     */
+    public void close()
+    {
+        synchronized (this)
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            prepared = null;
+        }
+
+        LMSPrivateKeyParameters[] keys = getCurrentKeys();
+        for (int i = 0; keys != null && i < keys.length; i++)
+        {
+            keys[i].setNodeCache(null);
+        }
+    }
+
+    synchronized void attach(LMSPrivateKeyParameters key)
+    {
+        checkUnattached();
+
+        int h = key.getSigParameters().getH();
+        int m = key.getSigParameters().getM();
+        this.ahead = new int[]{ getAhead(h, m, memoryBudget - getMinimumSize(h, m)) };
+        this.lmsKey = key;
+    }
+
+    void attach(HSSPrivateKeyParameters key)
+    {
+        List<LMSPrivateKeyParameters> keys = key.getKeys();
+        int L = keys.size();
+
+        long required = 0;
+        for (int d = 0; d < L; d++)
+        {
+            LMSigParameters sigParameters = keys.get(d).getSigParameters();
+            long size = getMinimumSize(sigParameters.getH(), sigParameters.getM());
+
+            // every level but the root also has its replacement prepared
+            required += (d == 0) ? size : 2 * size;
+        }
+
+        LMSigParameters bottom = keys.get(L - 1).getSigParameters();
+        int[] levelAhead = new int[L];
+        for (int d = 0; d < L - 1; d++)
+        {
+            levelAhead[d] = 1;
+        }
+        levelAhead[L - 1] = getAhead(bottom.getH(), bottom.getM(), memoryBudget - required);
+
+        synchronized (this)
+        {
+            checkUnattached();
+
+            this.ahead = levelAhead;
+            this.prepared = new LMSNodeCache[L];
+            this.hssKey = key;
+        }
+    }
+
+    /**
+     * Take the prepared replacement for the key at the passed in level, provided it was derived with the
+     * passed in I and seed and has its public key ready.
+     *
+     * @return the prepared key, null if there is not one.
+     */
+    LMSPrivateKeyParameters takePreparedKey(int level, byte[] I, byte[] seed)
+    {
+        LMSPrivateKeyParameters key = null;
+        synchronized (this)
+        {
+            LMSNodeCache cache = (prepared == null) ? null : prepared[level];
+            if (cache != null && cache.isTopReady() && matches(cache.getKey(), I, seed))
+            {
+                prepared[level] = null;
+                key = cache.getKey();
+            }
+        }
+
+        schedule();
+
+        return key;
+    }
+
+    void leafComputed()
+    {
+        leavesComputed.incrementAndGet();
+    }
+
+    /**
+     * Make sure the background worker will take another look at the key.
+     */
+    void schedule()
+    {
+        synchronized (this)
+        {
+            if (closed || failure != null)
+            {
+                return;
+            }
+            if (running)
+            {
+                rescan = true;
+                return;
+            }
+            running = true;
+            rescan = false;
+        }
+
+        try
+        {
+            executor.execute(worker);
+        }
+        catch (RejectedExecutionException e)
+        {
+            synchronized (this)
+            {
+                running = false;
+            }
+            failure = e;
+        }
+    }
+
+    private void work()
+    {
+        try
+        {
+            for (;;)
+            {
+                while (!closed && computeNext())
+                {
+                    // keep going until there is nothing left to do
+                }
+
+                synchronized (this)
+                {
+                    if (closed || !rescan)
+                    {
+                        running = false;
+                        return;
+                    }
+                    rescan = false;
+                }
+            }
+        }
+        catch (Throwable t)
+        {
+            failure = t;
+            synchronized (this)
+            {
+                running = false;
+            }
+        }
+    }
+
+    /**
+     * Do the next piece of background work, in order of urgency: the key that signs messages first, then
+     * the keys above it, then the replacement keys from the top of the hierarchy down.
+     *
+     * @return true if any work was done, false if everything is up to date.
+     */
+    private boolean computeNext()
+    {
+        LMSPrivateKeyParameters[] keys = getCurrentKeys();
+
+        for (int d = keys.length - 1; d >= 0; d--)
+        {
+            if (closed)
+            {
+                return false;
+            }
+
+            LMSNodeCache cache = getCache(keys[d], ahead[d]);
+            if (cache != null && cache.computeNext())
+            {
+                return true;
+            }
+        }
+
+        for (int d = 1; d < keys.length; d++)
+        {
+            if (closed)
+            {
+                return false;
+            }
+
+            LMSNodeCache cache = getPreparedCache(keys, d);
+            if (cache != null && cache.computeNext())
+            {
+                if (cache.isTopReady())
+                {
+                    // fixes the public key for the signature by the parent
+                    cache.getKey().getPublicKey();
+                }
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Return the cache for a key in use, creating one if the key does not have one yet.
+     */
+    private LMSNodeCache getCache(LMSPrivateKeyParameters key, int ahead)
+    {
+        if (key.getIndex() >= (1 << key.getSigParameters().getH()))
+        {
+            return null;
+        }
+
+        LMSNodeCache cache = key.getNodeCache();
+        if (cache == null)
+        {
+            cache = new LMSNodeCache(this, key, ahead);
+            key.setNodeCache(cache);
+        }
+
+        return cache;
+    }
+
+    /**
+     * Return the cache for the replacement of the key at level d, creating a new one if the current one is
+     * missing or stale. The replacement is derived from the parent's current OTS key, or, if the parent
+     * is exhausted too, from the first OTS key of the parent's own replacement.
+     */
+    private LMSNodeCache getPreparedCache(LMSPrivateKeyParameters[] keys, int d)
+    {
+        LMSPrivateKeyParameters parent = keys[d - 1];
+        int parentQ = parent.getIndex();
+
+        synchronized (this)
+        {
+            if (prepared == null)
+            {
+                return null;
+            }
+            if (parentQ >= (1 << parent.getSigParameters().getH()))
+            {
+                if (prepared[d - 1] == null || !prepared[d - 1].isTopReady())
+                {
+                    return null;
+                }
+                parent = prepared[d - 1].getKey();
+                parentQ = 0;
+            }
+        }
+
+        LMOtsParameters parentOts = parent.getOtsParameters();
+        int n = parentOts.getN();
+
+        SeedDerive derive = new SeedDerive(parent.getI(), parent.getMasterSecret(), DigestUtil.getDigest(parentOts));
+        derive.setQ(parentQ);
+        derive.setJ(~1);
+
+        byte[] childSeed = new byte[n];
+        derive.deriveSeed(childSeed, true);
+        byte[] postImage = new byte[n];
+        derive.deriveSeed(postImage, false);
+        byte[] childI = new byte[16];
+        System.arraycopy(postImage, 0, childI, 0, childI.length);
+
+        synchronized (this)
+        {
+            if (prepared == null)
+            {
+                return null;
+            }
+
+            LMSNodeCache cache = prepared[d];
+            if (cache == null || !matches(cache.getKey(), childI, childSeed))
+            {
+                LMSPrivateKeyParameters current = keys[d];
+                LMSPrivateKeyParameters next = LMS.generateKeys(
+                    current.getSigParameters(), current.getOtsParameters(), 0, childI, childSeed);
+
+                cache = new LMSNodeCache(this, next, ahead[d]);
+                next.setNodeCache(cache);
+                prepared[d] = cache;
+            }
+
+            return cache;
+        }
+    }
+
+    private LMSPrivateKeyParameters getSigningKey()
+    {
+        LMSPrivateKeyParameters[] keys = getCurrentKeys();
+
+        return keys == null ? null : keys[keys.length - 1];
+    }
+
+    /**
+     * Return the keys currently in use, bottom level last. As the HSS key is locked while its keys are
+     * replaced, which may call back into this class, this must not be called holding our own lock.
+     */
+    private LMSPrivateKeyParameters[] getCurrentKeys()
+    {
+        if (lmsKey != null)
+        {
+            return new LMSPrivateKeyParameters[]{ lmsKey };
+        }
+        if (hssKey != null)
+        {
+            List<LMSPrivateKeyParameters> keys = hssKey.getKeys();
+            return keys.toArray(new LMSPrivateKeyParameters[keys.size()]);
+        }
+        return null;
+    }
+
+    private void checkUnattached()
+    {
+        if (lmsKey != null || hssKey != null)
+        {
+            throw new IllegalStateException("precomputation already attached to a key");
+        }
+        if (closed)
+        {
+            throw new IllegalStateException("precomputation closed");
+        }
+    }
+
+    private static boolean matches(LMSPrivateKeyParameters key, byte[] I, byte[] seed)
+    {
+        return org.bouncycastle.util.Arrays.areEqual(I, key.getI())
+            && org.bouncycastle.util.Arrays.areEqual(seed, key.getMasterSecret());
+    }
+
+    private static long getMinimumSize(int h, int m)
+    {
+        return LMSNodeCache.getTopSize(h, m) + 2 * LMSNodeCache.getSubtreeSize(h, m);
+    }
+
+    private static int getAhead(int h, int m, long spare)
+    {
+        if (spare < 0)
+        {
+            throw new IllegalArgumentException("memory budget too small for precomputation");
+        }
+
+        return (int)Math.min(1 << h, 1 + spare / LMSNodeCache.getSubtreeSize(h, m));
+    }
+}
@@ -45,6 +45,7 @@
     //
     private LMSPublicKeyParameters publicKey;
 
+    private volatile LMSNodeCache nodeCache;
 
     public LMSPrivateKeyParameters(LMSigParameters lmsParameter, LMOtsParameters otsParameters, int q, byte[] I, int maxQ, byte[] masterSecret)
     {
@@ -188,6 +189,28 @@ synchronized void incIndex()
         q++;
     }
 
+    /**
+     * Start background precomputation of the authentication paths for this key, so that signing
+     * does not have to stop to compute tree nodes.
+     *
+     * @param precomputation the precomputation to use, which must not already be in use with another key.
+     */
+    public void setPrecomputation(LMSPrecomputation precomputation)
+    {
+        precomputation.attach(this);
+        precomputation.schedule();
+    }
+
+    LMSNodeCache getNodeCache()
+    {
+        return nodeCache;
+    }
+
+    void setNodeCache(LMSNodeCache nodeCache)
+    {
+        this.nodeCache = nodeCache;
+    }
+
     public LMSContext generateLMSContext()
     {
         // Step 1.
@@ -198,6 +221,12 @@ public LMSContext generateLMSContext()
         int q = getIndex();
         LMOtsPrivateKey otsPk = getNextOtsPrivateKey();
 
+        LMSNodeCache cache = nodeCache;
+        if (cache != null)
+        {
+            cache.used(q);
+        }
+
         int i = 0;
         int r = (1 << h) + q;
         byte[][] path = new byte[h][];
@@ -295,7 +324,7 @@ public LMSPublicKeyParameters getPublicKey()
         {
             if (publicKey == null)
             {
-                publicKey = new LMSPublicKeyParameters(parameters, otsParameters, this.findT(T1), I);
+                publicKey = new LMSPublicKeyParameters(parameters, otsParameters, this.findT(1), I);
             }
             return publicKey;
         }
@@ -303,6 +332,16 @@ public LMSPublicKeyParameters getPublicKey()
 
     byte[] findT(int r)
     {
+        LMSNodeCache cache = nodeCache;
+        if (cache != null)
+        {
+            byte[] t = cache.getNode(r);
+            if (t != null)
+            {
+                return t;
+            }
+        }
+
         if (r < maxCacheR)
         {
             return findT(r < internedKeys.length ? internedKeys[r] : new CacheKey(r));
@@ -6,7 +6,6 @@
 
 class HT
 {
-    private final byte[] skSeed;
     private final byte[] pkSeed;
     SPHINCSPlusEngine engine;
     WotsPlus wots;
@@ -15,7 +14,6 @@
 
     public HT(SPHINCSPlusEngine engine, byte[] skSeed, byte[] pkSeed)
     {
-        this.skSeed = skSeed;
         this.pkSeed = pkSeed;
 
         this.engine = engine;
@@ -35,7 +33,8 @@ public HT(SPHINCSPlusEngine engine, byte[] skSeed, byte[] pkSeed)
         }
     }
 
-    byte[] sign(byte[] M, long idx_tree, int idx_leaf)
+    // authPaths, if not null, holds the authentication path for each layer as returned by layerAuthPath().
+    byte[] sign(byte[] M, byte[] skSeed, long idx_tree, int idx_leaf, byte[][][] authPaths)
     {
         // init
         ADRS adrs = new ADRS();
@@ -43,7 +42,7 @@ byte[] sign(byte[] M, long idx_tree, int idx_leaf)
        // adrs.setType(ADRS.TREE);
         adrs.setLayerAddress(0);
         adrs.setTreeAddress(idx_tree);
-        SIG_XMSS SIG_tmp = xmss_sign(M, skSeed, idx_leaf, pkSeed, adrs);
+        SIG_XMSS SIG_tmp = xmss_sign(M, skSeed, idx_leaf, pkSeed, adrs, authPaths == null ? null : authPaths[0]);
         SIG_XMSS[] SIG_HT = new SIG_XMSS[engine.D];
         SIG_HT[0] = SIG_tmp;
 
@@ -58,7 +57,7 @@ byte[] sign(byte[] M, long idx_tree, int idx_leaf)
             idx_tree >>>= engine.H_PRIME; // most significant bits of idx_tree;
             adrs.setLayerAddress(j);
             adrs.setTreeAddress(idx_tree);
-            SIG_tmp = xmss_sign(root, skSeed, idx_leaf, pkSeed, adrs);
+            SIG_tmp = xmss_sign(root, skSeed, idx_leaf, pkSeed, adrs, authPaths == null ? null : authPaths[j]);
             SIG_HT[j] = SIG_tmp;
             if (j < engine.D - 1)
             {
@@ -75,6 +74,23 @@ byte[] sign(byte[] M, long idx_tree, int idx_leaf)
         return Arrays.concatenate(totSigs);
     }
 
+    // The authentication path used at the given layer of a signature for (idx_tree, idx_leaf). This only
+    // depends on the position being signed, so the paths for each layer can be computed independently.
+    byte[][] layerAuthPath(byte[] skSeed, int layer, long idx_tree, int idx_leaf)
+    {
+        for (int j = 0; j < layer; j++)
+        {
+            idx_leaf = (int)(idx_tree & ((1 << engine.H_PRIME) - 1));
+            idx_tree >>>= engine.H_PRIME;
+        }
+
+        ADRS adrs = new ADRS();
+        adrs.setLayerAddress(layer);
+        adrs.setTreeAddress(idx_tree);
+
+        return xmss_authPath(skSeed, idx_leaf, pkSeed, adrs);
+    }
+
     byte[] xmss_PKgen(byte[] skSeed, byte[] pkSeed, ADRS adrs)
     {
         return treehash(skSeed, 0, engine.H_PRIME, pkSeed, adrs);
@@ -120,6 +136,27 @@ byte[] xmss_pkFromSig(int idx, SIG_XMSS sig_xmss, byte[] M, byte[] pkSeed, ADRS
     //    address ADRS
     //    # Output: XMSS signature SIG_XMSS = (sig || AUTH)
     SIG_XMSS xmss_sign(byte[] M, byte[] skSeed, int idx, byte[] pkSeed, ADRS paramAdrs)
+    {
+        return xmss_sign(M, skSeed, idx, pkSeed, paramAdrs, null);
+    }
+
+    SIG_XMSS xmss_sign(byte[] M, byte[] skSeed, int idx, byte[] pkSeed, ADRS paramAdrs, byte[][] AUTH)
+    {
+        if (AUTH == null)
+        {
+            AUTH = xmss_authPath(skSeed, idx, pkSeed, paramAdrs);
+        }
+
+        ADRS adrs = new ADRS(paramAdrs);
+        adrs.setType(ADRS.WOTS_PK);
+        adrs.setKeyPairAddress(idx);
+
+        byte[] sig = wots.sign(M, skSeed, pkSeed, adrs);
+
+        return new SIG_XMSS(sig, AUTH);
+    }
+
+    byte[][] xmss_authPath(byte[] skSeed, int idx, byte[] pkSeed, ADRS paramAdrs)
     {
         byte[][] AUTH = new byte[engine.H_PRIME][];
 
@@ -135,13 +172,7 @@ SIG_XMSS xmss_sign(byte[] M, byte[] skSeed, int idx, byte[] pkSeed, ADRS paramAd
             int k = (idx / (1 << j)) ^ 1;
             AUTH[j] = treehash(skSeed, k * (1 << j), j, pkSeed, adrs);
         }
-        adrs = new ADRS(paramAdrs);
-        adrs.setType(ADRS.WOTS_PK);
-        adrs.setKeyPairAddress(idx);
-
-        byte[] sig = wots.sign(M, skSeed, pkSeed, adrs);
-
-        return new SIG_XMSS(sig, AUTH);
+        return AUTH;
     }
 
     //
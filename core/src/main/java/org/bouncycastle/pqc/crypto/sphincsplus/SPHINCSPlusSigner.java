@@ -1,6 +1,7 @@
 package org.bouncycastle.pqc.crypto.sphincsplus;
 
 import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
 
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.params.ParametersWithRandom;
@@ -24,6 +25,7 @@
     private SPHINCSPlusPublicKeyParameters pubKey;
 
     private SecureRandom random;
+    private ExecutorService executor;
 
     /**
      * Base constructor.
@@ -32,6 +34,19 @@ public SPHINCSPlusSigner()
     {
     }
 
+    /**
+     * Set an executor to spread the work of signing across. The FORS trees and the authentication
+     * paths for each hypertree layer are computed independently, then assembled in the usual order,
+     * so the signature is the same as for serial processing. A {@link java.util.concurrent.ForkJoinPool}
+     * may be used here.
+     *
+     * @param executor the executor to use, null to sign on the caller's thread only (the default).
+     */
+    public void setExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+    }
+
     public void init(boolean forSigning, CipherParameters param)
     {
         if (forSigning)
@@ -86,7 +101,18 @@ public byte[] generateSignature(byte[] message)
         adrs.setType(ADRS.FORS_TREE);
         adrs.setTreeAddress(idx_tree);
         adrs.setKeyPairAddress(idx_leaf);
-        SIG_FORS[] sig_fors = fors.sign(mHash, privKey.sk.seed, privKey.pk.seed, adrs);
+        SIG_FORS[] sig_fors;
+        byte[][][] authPaths = null;
+        if (executor != null)
+        {
+            sig_fors = new SIG_FORS[engine.K];
+            authPaths = new byte[engine.D][][];
+            computeParallel(engine, mHash, idx_tree, idx_leaf, adrs, sig_fors, authPaths);
+        }
+        else
+        {
+            sig_fors = fors.sign(mHash, privKey.sk.seed, privKey.pk.seed, adrs);
+        }
         // get FORS public key - spec shows M?
         adrs = new ADRS();
         adrs.setType(ADRS.FORS_TREE);
@@ -94,12 +120,9 @@ public byte[] generateSignature(byte[] message)
         adrs.setKeyPairAddress(idx_leaf);
         byte[] PK_FORS = fors.pkFromSig(sig_fors, mHash, privKey.pk.seed, adrs);
 
-        // sign FORS public key with HT
-        ADRS treeAdrs = new ADRS();
-        treeAdrs.setType(ADRS.TREE);
-
-        HT ht = new HT(engine, privKey.getSeed(), privKey.getPublicSeed());
-        byte[] SIG_HT = ht.sign(PK_FORS, idx_tree, idx_leaf);
+        // sign FORS public key with HT - the hypertree public key is not needed for this
+        HT ht = new HT(engine, null, privKey.getPublicSeed());
+        byte[] SIG_HT = ht.sign(PK_FORS, privKey.getSeed(), idx_tree, idx_leaf, authPaths);
 
         byte[][] sigComponents = new byte[sig_fors.length + 2][];
         sigComponents[0] = R;
@@ -113,6 +136,31 @@ public byte[] generateSignature(byte[] message)
         return Arrays.concatenate(sigComponents);
     }
 
+    // The hypertree layers dominate for the small parameter sets, so are handed out first.
+    private void computeParallel(SPHINCSPlusEngine engine, byte[] mHash, final long idx_tree, final int idx_leaf,
+        final ADRS forsAdrs, final SIG_FORS[] sig_fors, final byte[][][] authPaths)
+    {
+        final int[] idxs = Fors.message_to_idxs(mHash, engine.K, engine.A);
+        final byte[] skSeed = privKey.getSeed(), pkSeed = privKey.getPublicSeed();
+        final int layers = authPaths.length;
+
+        new SigningTasks()
+        {
+            void computeUnit(SPHINCSPlusEngine engine, int unit)
+            {
+                if (unit < layers)
+                {
+                    authPaths[unit] = new HT(engine, null, pkSeed).layerAuthPath(skSeed, unit, idx_tree, idx_leaf);
+                }
+                else
+                {
+                    int i = unit - layers;
+                    sig_fors[i] = new Fors(engine).signTree(i, idxs[i], skSeed, pkSeed, forsAdrs);
+                }
+            }
+        }.run(executor, privKey.getParameters(), pkSeed, engine, layers + sig_fors.length);
+    }
+
     public boolean verifySignature(byte[] message, byte[] signature)
     {
         //# Input: Message M, signature SIG, public key PK
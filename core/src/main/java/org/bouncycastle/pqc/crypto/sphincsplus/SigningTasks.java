@@ -0,0 +1,189 @@
+package org.bouncycastle.pqc.crypto.sphincsplus;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Support for spreading the independent parts of a signature (the FORS trees and the hypertree
+ * authentication paths) over an executor. Engines are not thread safe, so each worker computes its
+ * share of the units with an engine of its own. Every unit writes only its own result, so the
+ * signature does not depend on how the units end up being scheduled.
+ */
+abstract class SigningTasks
+{
+    private final AtomicInteger next = new AtomicInteger();
+
+    // guarded by this
+    private boolean closed;
+    private int running;
+    private Throwable failure;
+
+    /**
+     * Compute a single unit, using the passed in engine for all hashing.
+     *
+     * @param engine an engine initialised with the public seed, used by this worker only.
+     * @param unit   index of the unit to compute.
+     */
+    abstract void computeUnit(SPHINCSPlusEngine engine, int unit);
+
+    /**
+     * Compute count units, with the calling thread working alongside up to one task per available
+     * processor on the executor. Returns once every unit has been computed.
+     * <p>
+     * The caller only ever waits for workers that have actually started (and so may hold units), never for
+     * tasks still queued on the executor, so a bounded, saturated or caller-run executor cannot deadlock it.
+     */
+    void run(ExecutorService executor, final SPHINCSPlusParameters parameters, final byte[] pkSeed,
+        SPHINCSPlusEngine callerEngine, final int count)
+    {
+        int taskCount = Math.min(count, Runtime.getRuntime().availableProcessors()) - 1;
+
+        Future[] futures = new Future[Math.max(0, taskCount)];
+        try
+        {
+            for (int i = 0; i < futures.length; ++i)
+            {
+                try
+                {
+                    futures[i] = executor.submit(new Runnable()
+                    {
+                        public void run()
+                        {
+                            // a worker that starts late may find nothing left to do
+                            if (enter())
+                            {
+                                try
+                                {
+                                    SPHINCSPlusEngine engine = parameters.getEngine();
+                                    engine.init(pkSeed);
+                                    computeUnits(engine, count);
+                                }
+                                catch (Throwable t)
+                                {
+                                    fail(t, count);
+                                }
+                                finally
+                                {
+                                    exit();
+                                }
+                            }
+                        }
+                    });
+                }
+                catch (RejectedExecutionException e)
+                {
+                    // the executor is saturated, so the units left will be done by the workers we have
+                    break;
+                }
+            }
+
+            computeUnits(callerEngine, count);
+        }
+        catch (RuntimeException e)
+        {
+            next.set(count);
+            awaitWorkers(futures);
+            throw e;
+        }
+
+        awaitWorkers(futures);
+
+        if (failure != null)
+        {
+            if (failure instanceof RuntimeException)
+            {
+                throw (RuntimeException)failure;
+            }
+            if (failure instanceof Error)
+            {
+                throw (Error)failure;
+            }
+            throw new IllegalStateException("signing task failed: " + failure);
+        }
+    }
+
+    private void computeUnits(SPHINCSPlusEngine engine, int count)
+    {
+        int unit;
+        while ((unit = next.getAndIncrement()) < count)
+        {
+            try
+            {
+                computeUnit(engine, unit);
+            }
+            catch (RuntimeException e)
+            {
+                // stop the other workers picking up more units
+                next.set(count);
+                throw e;
+            }
+        }
+    }
+
+    private synchronized boolean enter()
+    {
+        if (closed)
+        {
+            return false;
+        }
+        ++running;
+        return true;
+    }
+
+    private synchronized void exit()
+    {
+        if (--running == 0)
+        {
+            notifyAll();
+        }
+    }
+
+    private synchronized void fail(Throwable t, int count)
+    {
+        next.set(count);
+        if (failure == null)
+        {
+            failure = t;
+        }
+    }
+
+    /*
+     * Every unit has been claimed by now. Tasks that haven't started are cancelled (and would do nothing if
+     * run anyway), and only the workers still computing a claimed unit are waited for - they share our result
+     * arrays, so we always wait for them, even if interrupted.
+     */
+    private void awaitWorkers(Future[] futures)
+    {
+        boolean interrupted = false;
+        synchronized (this)
+        {
+            closed = true;
+            while (running > 0)
+            {
+                try
+                {
+                    wait();
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < futures.length; ++i)
+        {
+            if (futures[i] != null)
+            {
+                futures[i].cancel(false);
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package org.bouncycastle.pqc.crypto.util;
+
+import java.io.IOException;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.pqc.crypto.ExhaustedPrivateKeyException;
+import org.bouncycastle.pqc.crypto.KeyIndexStore;
+import org.bouncycastle.pqc.crypto.MessageSigner;
+import org.bouncycastle.pqc.crypto.lms.HSSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.lms.HSSPublicKeyParameters;
+import org.bouncycastle.pqc.crypto.lms.HSSSigner;
+import org.bouncycastle.pqc.crypto.lms.LMSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSPublicKeyParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSSigner;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTPublicKeyParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTSigner;
+import org.bouncycastle.pqc.crypto.xmss.XMSSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSPublicKeyParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSSigner;
+
+/**
+ * A signer for the stateful hash-based schemes (LMS, HSS, XMSS and XMSS^MT) which records its
+ * progress through the one-time keys in a {@link KeyIndexStore} rather than in the private key.
+ * <p>
+ * Indices are reserved a batch at a time: the store's limit is raised, and made durable, before any
+ * index in the batch is used, so only one write to stable storage is needed per batch of signatures.
+ * The private key only has to be saved once. When a signer is initialised with it again, for example
+ * after a crash, the key is moved past every index the store records as reserved, so an index is never
+ * reused. Indices reserved but not used before a restart are skipped.
+ * </p>
+ * <p>
+ * Skipping forward is cheap for LMS and HSS keys. For XMSS and XMSS^MT keys the traversal state has to
+ * be stepped through each skipped index, so a long running signer should still save an updated key
+ * from time to time to keep the work on restart down.
+ * </p>
+ */
+public class IndexReservingSigner
+    implements MessageSigner
+{
+    private final KeyIndexStore store;
+    private final int batchSize;
+
+    private MessageSigner signer;
+    private AsymmetricKeyParameter privateKey;
+    private long reservedLimit;
+    private boolean exhausted;
+
+    /**
+     * Base constructor.
+     *
+     * @param store     the store recording the indices that have been reserved for the key.
+     * @param batchSize the number of indices to reserve with each write to the store.
+     */
+    public IndexReservingSigner(KeyIndexStore store, int batchSize)
+    {
+        if (batchSize < 1)
+        {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+
+        this.store = store;
+        this.batchSize = batchSize;
+    }
+
+    public synchronized void init(boolean forSigning, CipherParameters param)
+    {
+        if (forSigning)
+        {
+            privateKey = (AsymmetricKeyParameter)param;
+            signer = createSigner(privateKey);
+
+            try
+            {
+                reservedLimit = store.getLimit();
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException("unable to read key index store: " + e.getMessage(), e);
+            }
+
+            // indices up to the limit may have been used before the key was last saved
+            exhausted = false;
+            skipTo(reservedLimit);
+        }
+        else
+        {
+            privateKey = null;
+            signer = createSigner((AsymmetricKeyParameter)param);
+        }
+
+        signer.init(forSigning, param);
+    }
+
+    /**
+     * Generate a signature, first reserving a new batch of indices if the current one has been used up.
+     *
+     * @param message the message to be signed.
+     * @return the signature.
+     */
+    public synchronized byte[] generateSignature(byte[] message)
+    {
+        if (privateKey == null)
+        {
+            throw new IllegalStateException("signer not initialised for signature generation");
+        }
+
+        long index = getIndex(privateKey);
+        if (exhausted || getUsagesRemaining(privateKey) <= 0)
+        {
+            throw new ExhaustedPrivateKeyException("no usages remaining for private key");
+        }
+
+        if (index >= reservedLimit)
+        {
+            long limit = index + Math.min(batchSize, getUsagesRemaining(privateKey));
+            try
+            {
+                store.advanceLimit(limit);
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException("unable to reserve key indices: " + e.getMessage(), e);
+            }
+            reservedLimit = limit;
+        }
+
+        return signer.generateSignature(message);
+    }
+
+    public boolean verifySignature(byte[] message, byte[] signature)
+    {
+        return signer.verifySignature(message, signature);
+    }
+
+    /**
+     * Return the limit last recorded in the store: indices below this are used or reserved.
+     *
+     * @return the reserved limit.
+     */
+    public synchronized long getReservedLimit()
+    {
+        return reservedLimit;
+    }
+
+    private void skipTo(long limit)
+    {
+        long skip = limit - getIndex(privateKey);
+        long remaining = getUsagesRemaining(privateKey);
+
+        if (skip >= remaining)
+        {
+            exhausted = true;
+            return;
+        }
+
+        while (skip > 0)
+        {
+            int count = (int)Math.min(skip, Integer.MAX_VALUE);
+            extractKeyShard(privateKey, count);
+            skip -= count;
+        }
+    }
+
+    private static MessageSigner createSigner(AsymmetricKeyParameter key)
+    {
+        if (key instanceof LMSPrivateKeyParameters || key instanceof LMSPublicKeyParameters)
+        {
+            return new LMSSigner();
+        }
+        if (key instanceof HSSPrivateKeyParameters || key instanceof HSSPublicKeyParameters)
+        {
+            return new HSSSigner();
+        }
+        if (key instanceof XMSSPrivateKeyParameters || key instanceof XMSSPublicKeyParameters)
+        {
+            return new XMSSSigner();
+        }
+        if (key instanceof XMSSMTPrivateKeyParameters || key instanceof XMSSMTPublicKeyParameters)
+        {
+            return new XMSSMTSigner();
+        }
+
+        throw new IllegalArgumentException("unsupported key type: " + key.getClass().getName());
+    }
+
+    private static long getIndex(AsymmetricKeyParameter key)
+    {
+        if (key instanceof LMSPrivateKeyParameters)
+        {
+            return ((LMSPrivateKeyParameters)key).getIndex();
+        }
+        if (key instanceof HSSPrivateKeyParameters)
+        {
+            return ((HSSPrivateKeyParameters)key).getIndex();
+        }
+        if (key instanceof XMSSPrivateKeyParameters)
+        {
+            return ((XMSSPrivateKeyParameters)key).getIndex();
+        }
+        return ((XMSSMTPrivateKeyParameters)key).getIndex();
+    }
+
+    private static long getUsagesRemaining(AsymmetricKeyParameter key)
+    {
+        if (key instanceof LMSPrivateKeyParameters)
+        {
+            return ((LMSPrivateKeyParameters)key).getUsagesRemaining();
+        }
+        if (key instanceof HSSPrivateKeyParameters)
+        {
+            return ((HSSPrivateKeyParameters)key).getUsagesRemaining();
+        }
+        if (key instanceof XMSSPrivateKeyParameters)
+        {
+            return ((XMSSPrivateKeyParameters)key).getUsagesRemaining();
+        }
+        return ((XMSSMTPrivateKeyParameters)key).getUsagesRemaining();
+    }
+
+    // moves key on by count indices, the shard returned is discarded
+    private static void extractKeyShard(AsymmetricKeyParameter key, int count)
+    {
+        if (key instanceof LMSPrivateKeyParameters)
+        {
+            ((LMSPrivateKeyParameters)key).extractKeyShard(count);
+        }
+        else if (key instanceof HSSPrivateKeyParameters)
+        {
+            ((HSSPrivateKeyParameters)key).extractKeyShard(count);
+        }
+        else if (key instanceof XMSSPrivateKeyParameters)
+        {
+            ((XMSSPrivateKeyParameters)key).extractKeyShard(count);
+        }
+        else
+        {
+            ((XMSSMTPrivateKeyParameters)key).extractKeyShard(count);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package org.bouncycastle.pqc.crypto.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.zip.CRC32;
+
+import org.bouncycastle.pqc.crypto.KeyIndexStore;
+
+/**
+ * A {@link KeyIndexStore} kept in a small memory-mapped file.
+ * <p>
+ * The file holds two copies of the limit, each in its own disk sector and protected by a checksum.
+ * Updates are written to the older copy and forced to disk, so a write torn by a crash leaves the
+ * other copy intact, and the larger valid limit is used on reopening. The file is locked for as long
+ * as the store is open, so two processes cannot hand out indices for the same key.
+ * </p>
+ */
+public class MappedFileKeyIndexStore
+    implements KeyIndexStore
+{
+    private static final int MAGIC = 0x4b495831; // "KIX1"
+    private static final int SLOT_SIZE = 512;
+    private static final int FILE_SIZE = 2 * SLOT_SIZE;
+    private static final int RECORD_SIZE = 4 + 8;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+
+    private long limit;
+    private int slot;
+
+    /**
+     * Open the store in file, creating it if it does not exist.
+     *
+     * @param storeFile the file holding the store.
+     * @throws IOException if the file cannot be opened or locked, or does not hold a valid store.
+     */
+    public MappedFileKeyIndexStore(File storeFile)
+        throws IOException
+    {
+        this.file = new RandomAccessFile(storeFile, "rw");
+        this.channel = file.getChannel();
+
+        try
+        {
+            FileLock fileLock;
+            try
+            {
+                fileLock = channel.tryLock();
+            }
+            catch (OverlappingFileLockException e)
+            {
+                fileLock = null;    // already open in this JVM
+            }
+            if (fileLock == null)
+            {
+                throw new IOException("key index store in use: " + storeFile);
+            }
+            this.lock = fileLock;
+
+            long size = channel.size();
+            if (size != 0 && size != FILE_SIZE)
+            {
+                throw new IOException("not a key index store: " + storeFile);
+            }
+
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+
+            if (size == 0)
+            {
+                writeSlot(0, 0);
+                buffer.force();
+                channel.force(true);    // make sure the file itself survives
+                this.limit = 0;
+                this.slot = 0;
+            }
+            else
+            {
+                readSlots(storeFile);
+            }
+        }
+        catch (IOException e)
+        {
+            file.close();
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            file.close();
+            throw e;
+        }
+    }
+
+    public synchronized long getLimit()
+    {
+        return limit;
+    }
+
+    public synchronized void advanceLimit(long limit)
+        throws IOException
+    {
+        if (limit < this.limit)
+        {
+            throw new IllegalArgumentException("limit cannot be decreased");
+        }
+        if (!channel.isOpen())
+        {
+            throw new IOException("key index store closed");
+        }
+        if (limit == this.limit)
+        {
+            return;
+        }
+
+        int next = 1 - slot;
+        writeSlot(next, limit);
+        buffer.force();
+
+        this.slot = next;
+        this.limit = limit;
+    }
+
+    public synchronized void close()
+        throws IOException
+    {
+        if (channel.isOpen())
+        {
+            try
+            {
+                lock.release();
+            }
+            finally
+            {
+                file.close();
+            }
+        }
+    }
+
+    private void readSlots(File storeFile)
+        throws IOException
+    {
+        boolean valid0 = isValid(0), valid1 = isValid(1);
+
+        if (valid0 && valid1)
+        {
+            long limit0 = buffer.getLong(4), limit1 = buffer.getLong(SLOT_SIZE + 4);
+            this.slot = limit1 > limit0 ? 1 : 0;
+        }
+        else if (valid0 || valid1)
+        {
+            this.slot = valid0 ? 0 : 1;
+        }
+        else if (isZero())
+        {
+            // created, but the crash came before the first record was written: nothing was reserved
+            writeSlot(0, 0);
+            buffer.force();
+            this.slot = 0;
+        }
+        else
+        {
+            throw new IOException("corrupted key index store: " + storeFile);
+        }
+
+        this.limit = buffer.getLong(slot * SLOT_SIZE + 4);
+    }
+
+    private boolean isValid(int slot)
+    {
+        int off = slot * SLOT_SIZE;
+        return buffer.getInt(off) == MAGIC
+            && buffer.getLong(off + 4) >= 0
+            && buffer.getInt(off + RECORD_SIZE) == checksum(off);
+    }
+
+    private boolean isZero()
+    {
+        for (int i = 0; i < FILE_SIZE; i++)
+        {
+            if (buffer.get(i) != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeSlot(int slot, long limit)
+    {
+        int off = slot * SLOT_SIZE;
+        buffer.putInt(off, MAGIC);
+        buffer.putLong(off + 4, limit);
+        buffer.putInt(off + RECORD_SIZE, checksum(off));
+    }
+
+    private int checksum(int off)
+    {
+        crc.reset();
+        for (int i = 0; i < RECORD_SIZE; i++)
+        {
+            crc.update(buffer.get(off + i));
+        }
+        return (int)crc.getValue();
+    }
+}
@@ -1,12 +1,16 @@
 package org.bouncycastle.crypto.test;
 
+import java.nio.ByteBuffer;
+
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.bouncycastle.crypto.OutputLengthException;
 import org.bouncycastle.crypto.modes.AEADBlockCipher;
+import org.bouncycastle.crypto.modes.AEADByteBufferCipher;
 import org.bouncycastle.crypto.modes.AEADCipher;
 import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.encoders.Hex;
 import org.bouncycastle.util.test.SimpleTestResult;
@@ -469,6 +473,104 @@ public static void testBufferSizeChecks(Test test, AEADBlockCipher cipher, AEADP
         }
     }
 
+    public static void testByteBuffers(Test test, AEADByteBufferCipher cipher, KeyParameter key, int macSize, int nonceSize)
+        throws InvalidCipherTextException
+    {
+        byte[] plaintext = new byte[10000];
+        for (int i = 0; i < plaintext.length; i++)
+        {
+            plaintext[i] = (byte)(i * 7);
+        }
+
+        byte[] ciphertext = null;
+        for (int i = 0; i < 4; i++)
+        {
+            boolean directIn = (i & 1) != 0, directOut = (i & 2) != 0;
+
+            // a fresh nonce for each encryption
+            byte[] nonce = new byte[nonceSize];
+            nonce[0] = (byte)i;
+            AEADParameters params = new AEADParameters(key, macSize, nonce);
+
+            cipher.init(true, params);
+            ciphertext = processByteBuffers(cipher, plaintext, cipher.getOutputSize(plaintext.length), directIn, directOut);
+
+            cipher.init(false, params);
+            byte[] expected = new byte[cipher.getOutputSize(ciphertext.length)];
+            int len = cipher.processBytes(ciphertext, 0, ciphertext.length, expected, 0);
+            cipher.doFinal(expected, len);
+            if (!Arrays.areEqual(plaintext, expected))
+            {
+                fail(test, "ByteBuffer encryption mismatch (direct in: " + directIn + ", direct out: " + directOut + ")");
+            }
+
+            cipher.init(false, params);
+            byte[] decrypted = processByteBuffers(cipher, ciphertext, plaintext.length, directIn, directOut);
+            if (!Arrays.areEqual(plaintext, decrypted))
+            {
+                fail(test, "ByteBuffer decryption mismatch (direct in: " + directIn + ", direct out: " + directOut + ")");
+            }
+
+            byte[] tampered = Arrays.clone(ciphertext);
+            tampered[tampered.length - 1] ^= 1;
+            cipher.init(false, params);
+            try
+            {
+                processByteBuffers(cipher, tampered, plaintext.length, directIn, directOut);
+                fail(test, "ByteBuffer tampering of ciphertext not detected");
+            }
+            catch (InvalidCipherTextException e)
+            {
+                // Expected
+            }
+        }
+
+        byte[] nonce = new byte[nonceSize];
+        nonce[0] = (byte)0xFF;
+        cipher.init(true, new AEADParameters(key, macSize, nonce));
+        int updateOutputSize = cipher.getUpdateOutputSize(plaintext.length);
+        if (updateOutputSize > 0)
+        {
+            try
+            {
+                cipher.processBytes(ByteBuffer.wrap(plaintext), ByteBuffer.allocateDirect(updateOutputSize - 1));
+                fail(test, "ByteBuffer processBytes should check output length");
+            }
+            catch (OutputLengthException e)
+            {
+                // Expected
+            }
+        }
+    }
+
+    private static byte[] processByteBuffers(AEADByteBufferCipher cipher, byte[] input, int outputLength, boolean directIn, boolean directOut)
+        throws InvalidCipherTextException
+    {
+        ByteBuffer in = directIn ? ByteBuffer.allocateDirect(input.length) : ByteBuffer.allocate(input.length);
+        in.put(input).flip();
+
+        ByteBuffer out = directOut ? ByteBuffer.allocateDirect(outputLength) : ByteBuffer.allocate(outputLength);
+
+        // split the input to exercise buffering across calls
+        int split = input.length / 3;
+        ByteBuffer part = in.duplicate();
+        part.limit(split);
+        int len = cipher.processBytes(part, out);
+        in.position(split);
+        len += cipher.processBytes(in, out);
+        len += cipher.doFinal(out);
+
+        if (len != outputLength || out.position() != outputLength || in.hasRemaining())
+        {
+            throw new IllegalStateException("unexpected ByteBuffer positions");
+        }
+
+        byte[] result = new byte[outputLength];
+        out.flip();
+        out.get(result);
+        return result;
+    }
+
     static AEADParameters reuseKey(AEADParameters p)
     {
         return new AEADParameters(null, p.getMacSize(), p.getNonce(), p.getAssociatedText());
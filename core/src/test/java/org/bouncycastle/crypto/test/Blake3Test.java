@@ -1,5 +1,10 @@
 package org.bouncycastle.crypto.test;
 
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.bouncycastle.crypto.digests.Blake3Digest;
 import org.bouncycastle.crypto.params.Blake3Parameters;
 import org.bouncycastle.util.Arrays;
@@ -257,6 +262,65 @@ public void performTest()
         runTestCase(TEST16384);
         runTestCase(TEST31744);
         runTestCase(TEST102400);
+
+        testParallel();
+    }
+
+    /**
+     * Check that parallel chunk compression gives the same result as serial processing.
+     */
+    private void testParallel()
+    {
+        final SecureRandom myRandom = new SecureRandom();
+        final ExecutorService myExecutor = Executors.newFixedThreadPool(4);
+        try
+        {
+            final int[] myLengths = { 262144, 262145, 1000000 + myRandom.nextInt(10000) };
+            for (int i = 0; i < myLengths.length; i++)
+            {
+                final byte[] myData = new byte[myLengths[i]];
+                myRandom.nextBytes(myData);
+
+                /* Use keyed mode for one of the lengths */
+                final Blake3Digest myDigest = new Blake3Digest();
+                if (i == 1)
+                {
+                    final byte[] myKey = new byte[32];
+                    myRandom.nextBytes(myKey);
+                    myDigest.init(Blake3Parameters.key(myKey));
+                }
+                final byte[] myExpected = new byte[myDigest.getDigestSize()];
+                myDigest.update(myData, 0, 100);
+                myDigest.update(myData, 100, myData.length - 100);
+                myDigest.doFinal(myExpected, 0);
+
+                final byte[] myResult = new byte[myExpected.length];
+                myDigest.setExecutor(myExecutor);
+                myDigest.update(myData, 0, 100);
+                myDigest.update(myData, 100, myData.length - 100);
+                myDigest.doFinal(myResult, 0);
+                isTrue("parallel update", Arrays.areEqual(myExpected, myResult));
+
+                final ByteBuffer myDirect = ByteBuffer.allocateDirect(myData.length);
+                myDirect.put(myData).flip();
+                myDirect.limit(100);
+                myDigest.update(myDirect);
+                myDirect.limit(myData.length);
+                myDigest.update(myDirect);
+                isTrue("direct buffer consumed", !myDirect.hasRemaining());
+                myDigest.doFinal(myResult, 0);
+                isTrue("parallel direct buffer update", Arrays.areEqual(myExpected, myResult));
+
+                final Blake3Digest myCopy = new Blake3Digest(myDigest);
+                myCopy.update(ByteBuffer.wrap(myData));
+                myCopy.doFinal(myResult, 0);
+                isTrue("parallel heap buffer update", Arrays.areEqual(myExpected, myResult));
+            }
+        }
+        finally
+        {
+            myExecutor.shutdown();
+        }
     }
 
     /**
@@ -0,0 +1,271 @@
+package org.bouncycastle.crypto.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.generators.ECKeyPairGenerator;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECKeyGenerationParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.crypto.signers.ECDSABatchVerifier;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.BigIntegers;
+import org.bouncycastle.util.test.SimpleTest;
+
+public class ECDSABatchVerifierTest
+    extends SimpleTest
+{
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public String getName()
+    {
+        return "ECDSABatchVerifier";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        testAllValid("secp256r1", 40);
+        testAllValid("secp384r1", 12);
+        testFailures("secp256r1", 70);
+        testMissingRecoveryIds("secp256r1", 10);
+        testSingleChecksOnly("sect233r1", 6);
+        testBadParameters();
+    }
+
+    private void testAllValid(String curveName, int count)
+    {
+        ECDomainParameters params = getParameters(curveName);
+        AsymmetricCipherKeyPair[] keys = generateKeys(params, 3);
+
+        ECDSABatchVerifier verifier = new ECDSABatchVerifier(params);
+        for (int i = 0; i < count; ++i)
+        {
+            Signature sig = sign(keys[i % keys.length]);
+            isEquals(i, verifier.addSignature(sig.pub, sig.message, sig.r, sig.s, sig.recoveryId));
+        }
+
+        isEquals(count, verifier.getSize());
+        isTrue(curveName + " batch failed", verifier.verify());
+
+        boolean[] results = verifier.verifySignatures();
+        isEquals(count, results.length);
+        for (int i = 0; i < count; ++i)
+        {
+            isTrue(curveName + " signature " + i + " failed", results[i]);
+        }
+
+        verifier.reset();
+        isEquals(0, verifier.getSize());
+        isTrue(verifier.verify());
+    }
+
+    private void testFailures(String curveName, int count)
+    {
+        ECDomainParameters params = getParameters(curveName);
+        AsymmetricCipherKeyPair[] keys = generateKeys(params, 4);
+        BigInteger n = params.getN();
+
+        ECDSABatchVerifier verifier = new ECDSABatchVerifier(params);
+        boolean[] expected = new boolean[count];
+        for (int i = 0; i < count; ++i)
+        {
+            Signature sig = sign(keys[i % keys.length]);
+            BigInteger s = sig.s;
+            int recoveryId = sig.recoveryId;
+            ECPublicKeyParameters pub = sig.pub;
+
+            expected[i] = true;
+            switch (i)
+            {
+            case 5:
+                // wrong s
+                s = s.add(BigInteger.ONE).mod(n);
+                expected[i] = false;
+                break;
+            case 17:
+                // wrong message
+                sig.message[0] ^= 1;
+                expected[i] = false;
+                break;
+            case 18:
+                // wrong key
+                pub = (ECPublicKeyParameters)keys[(i + 1) % keys.length].getPublic();
+                expected[i] = false;
+                break;
+            case 40:
+                // s out of range
+                s = n;
+                expected[i] = false;
+                break;
+            case 41:
+            case 63:
+                // wrong recovery id, but a valid signature
+                recoveryId ^= 1;
+                break;
+            }
+
+            verifier.addSignature(pub, sig.message, sig.r, s, recoveryId);
+        }
+
+        isTrue(!verifier.verify());
+
+        boolean[] results = verifier.verifySignatures();
+        for (int i = 0; i < count; ++i)
+        {
+            isTrue("signature " + i + " result wrong", expected[i] == results[i]);
+        }
+    }
+
+    private void testMissingRecoveryIds(String curveName, int count)
+    {
+        ECDomainParameters params = getParameters(curveName);
+        AsymmetricCipherKeyPair[] keys = generateKeys(params, 2);
+
+        ECDSABatchVerifier verifier = new ECDSABatchVerifier(params);
+        for (int i = 0; i < count; ++i)
+        {
+            Signature sig = sign(keys[i % keys.length]);
+            if ((i & 1) == 0)
+            {
+                verifier.addSignature(sig.pub, sig.message, sig.r, sig.s);
+            }
+            else
+            {
+                verifier.addSignature(sig.pub, sig.message, sig.r, sig.s.add(BigInteger.ONE).mod(params.getN()));
+            }
+        }
+
+        boolean[] results = verifier.verifySignatures();
+        for (int i = 0; i < count; ++i)
+        {
+            isTrue("signature " + i + " result wrong", results[i] == ((i & 1) == 0));
+        }
+    }
+
+    private void testSingleChecksOnly(String curveName, int count)
+    {
+        ECDomainParameters params = getParameters(curveName);
+        AsymmetricCipherKeyPair[] keys = generateKeys(params, 1);
+
+        ECDSABatchVerifier verifier = new ECDSABatchVerifier(params);
+        for (int i = 0; i < count; ++i)
+        {
+            Signature sig = sign(keys[0]);
+            verifier.addSignature(sig.pub, sig.message, sig.r, i == 3 ? sig.r : sig.s, 0);
+        }
+
+        boolean[] results = verifier.verifySignatures();
+        for (int i = 0; i < count; ++i)
+        {
+            isTrue("signature " + i + " result wrong", results[i] == (i != 3));
+        }
+    }
+
+    private void testBadParameters()
+    {
+        ECDomainParameters p256 = getParameters("secp256r1");
+        ECDomainParameters p384 = getParameters("secp384r1");
+        Signature sig = sign(generateKeys(p384, 1)[0]);
+
+        ECDSABatchVerifier verifier = new ECDSABatchVerifier(p256);
+        try
+        {
+            verifier.addSignature(sig.pub, sig.message, sig.r, sig.s);
+            fail("no exception");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("key not for the domain parameters of this batch", e.getMessage());
+        }
+
+        verifier = new ECDSABatchVerifier(p384);
+        try
+        {
+            verifier.addSignature(sig.pub, sig.message, sig.r, sig.s, 4);
+            fail("no exception");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("recoveryId out of range", e.getMessage());
+        }
+    }
+
+    private static ECDomainParameters getParameters(String curveName)
+    {
+        X9ECParameters x9 = CustomNamedCurves.getByName(curveName);
+        return new ECDomainParameters(x9.getCurve(), x9.getG(), x9.getN(), x9.getH());
+    }
+
+    private static AsymmetricCipherKeyPair[] generateKeys(ECDomainParameters params, int count)
+    {
+        ECKeyPairGenerator kpg = new ECKeyPairGenerator();
+        kpg.init(new ECKeyGenerationParameters(params, RANDOM));
+
+        AsymmetricCipherKeyPair[] keys = new AsymmetricCipherKeyPair[count];
+        for (int i = 0; i < count; ++i)
+        {
+            keys[i] = kpg.generateKeyPair();
+        }
+        return keys;
+    }
+
+    private static Signature sign(AsymmetricCipherKeyPair kp)
+    {
+        ECPrivateKeyParameters priv = (ECPrivateKeyParameters)kp.getPrivate();
+        ECPublicKeyParameters pub = (ECPublicKeyParameters)kp.getPublic();
+        ECDomainParameters params = priv.getParameters();
+        BigInteger n = params.getN();
+
+        byte[] message = new byte[(n.bitLength() + 7) / 8];
+        RANDOM.nextBytes(message);
+
+        ECDSASigner signer = new ECDSASigner();
+        signer.init(true, new ParametersWithRandom(priv, RANDOM));
+        BigInteger[] rs = signer.generateSignature(message);
+
+        // recover R = (e/s).G + (r/s).Q to find the recovery id
+        BigInteger e = new BigInteger(1, message);
+        BigInteger w = BigIntegers.modOddInverse(n, rs[1]);
+        ECPoint R = ECAlgorithms.sumOfTwoMultiplies(params.getG(), e.multiply(w).mod(n), pub.getQ(),
+            rs[0].multiply(w).mod(n)).normalize();
+
+        int recoveryId = R.getAffineYCoord().testBitZero() ? 1 : 0;
+        if (R.getAffineXCoord().toBigInteger().compareTo(n) >= 0)
+        {
+            recoveryId |= 2;
+        }
+
+        return new Signature(pub, message, rs[0], rs[1], recoveryId);
+    }
+
+    private static class Signature
+    {
+        final ECPublicKeyParameters pub;
+        final byte[] message;
+        final BigInteger r;
+        final BigInteger s;
+        final int recoveryId;
+
+        Signature(ECPublicKeyParameters pub, byte[] message, BigInteger r, BigInteger s, int recoveryId)
+        {
+            this.pub = pub;
+            this.message = message;
+            this.r = r;
+            this.s = s;
+            this.recoveryId = recoveryId;
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new ECDSABatchVerifierTest());
+    }
+}
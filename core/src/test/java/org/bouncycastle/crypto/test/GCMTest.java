@@ -312,6 +312,51 @@ public void performTest() throws Exception
         outputSizeTests();
         testExceptions();
         testResetBehavior();
+        testBulkProcessing();
+    }
+
+    private void testBulkProcessing() throws Exception
+    {
+        SecureRandom rnd = new SecureRandom();
+        byte[] key = new byte[16];
+        byte[] iv = new byte[12];
+        rnd.nextBytes(key);
+        rnd.nextBytes(iv);
+
+        AEADParameters parameters = new AEADParameters(new KeyParameter(key), 128, iv);
+
+        for (int msgLen = 0; msgLen < 300; msgLen += 7)
+        {
+            byte[] msg = new byte[msgLen];
+            rnd.nextBytes(msg);
+
+            // whole message at once, so full batches of counter blocks are used
+            GCMModeCipher bulk = GCMBlockCipher.newInstance(createAESEngine());
+            bulk.init(true, parameters);
+            byte[] bulkCt = new byte[bulk.getOutputSize(msgLen)];
+            int len = bulk.processBytes(msg, 0, msgLen, bulkCt, 0);
+            bulk.doFinal(bulkCt, len);
+
+            // one byte at a time, so only the single block path is used
+            GCMModeCipher single = GCMBlockCipher.newInstance(createAESEngine());
+            single.init(true, parameters);
+            byte[] singleCt = new byte[single.getOutputSize(msgLen)];
+            len = 0;
+            for (int i = 0; i != msgLen; i++)
+            {
+                len += single.processByte(msg[i], singleCt, len);
+            }
+            single.doFinal(singleCt, len);
+
+            isTrue("bulk and single block encryptions differ", Arrays.areEqual(bulkCt, singleCt));
+
+            // in-place bulk decryption
+            bulk.init(false, parameters);
+            len = bulk.processBytes(bulkCt, 0, bulkCt.length, bulkCt, 0);
+            len += bulk.doFinal(bulkCt, len);
+
+            isTrue("bulk decryption failed", len == msgLen && Arrays.areEqual(msg, Arrays.copyOfRange(bulkCt, 0, len)));
+        }
     }
 
 
@@ -397,6 +442,7 @@ private void testExceptions() throws InvalidCipherTextException
         }
 
         AEADTestUtil.testTampering(this, gcm, new AEADParameters(new KeyParameter(new byte[16]), 128, new byte[16]));
+        AEADTestUtil.testByteBuffers(this, new GCMBlockCipher(AESEngine.newInstance()), new KeyParameter(new byte[16]), 128, 16);
 
         byte[] P = Strings.toByteArray("Hello world!");
         byte[] buf = new byte[100];
@@ -0,0 +1,114 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.ExtendedDigest;
+import org.bouncycastle.crypto.digests.MultiBufferDigest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA256MultiBufferDigest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.SHA512MultiBufferDigest;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the multi-buffer digests against their single message counterparts.
+ */
+public class MultiBufferDigestTest
+    extends SimpleTest
+{
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "MultiBufferDigest";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        // FIPS 180-2 "abc" vectors
+        byte[][] abc = new byte[][]{ { 'a', 'b', 'c' } };
+        byte[] res = new byte[32];
+        new SHA256MultiBufferDigest().digest(abc, res, 0);
+        isTrue("SHA-256 abc", Arrays.areEqual(res,
+            Hex.decode("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad")));
+
+        res = new byte[64];
+        new SHA512MultiBufferDigest().digest(abc, res, 0);
+        isTrue("SHA-512 abc", Arrays.areEqual(res, Hex.decode(
+            "ddaf35a193617abacc417349ae20413112e6fa4e89a97ea20a9eeee64b55d39a2192992a274fc1a836ba3c23a3feebbd454d4423643ce80e2a9ac94fa54ca49f")));
+
+        int[] laneCounts = { 1, 3, 4, 8, 16 };
+        for (int i = 0; i < laneCounts.length; ++i)
+        {
+            checkDigest(new SHA256MultiBufferDigest(laneCounts[i]), new SHA256Digest());
+            checkDigest(new SHA512MultiBufferDigest(laneCounts[i]), new SHA512Digest());
+        }
+
+        try
+        {
+            new SHA256MultiBufferDigest(0);
+            fail("no exception on zero lanes");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private void checkDigest(MultiBufferDigest multi, ExtendedDigest single)
+    {
+        int digestSize = single.getDigestSize();
+
+        // messages of differing lengths, covering the padding boundaries
+        byte[][] messages = new byte[3 * multi.getLaneCount() + 1][];
+        for (int i = 0; i < messages.length; ++i)
+        {
+            messages[i] = new byte[random.nextInt(300)];
+            random.nextBytes(messages[i]);
+        }
+        messages[0] = new byte[0];
+        messages[messages.length - 1] = new byte[single.getByteLength() - 9];
+
+        byte[] out = new byte[1 + messages.length * digestSize];
+        isTrue(multi.digest(messages, out, 1) == messages.length * digestSize);
+
+        byte[] expected = new byte[digestSize];
+        for (int i = 0; i < messages.length; ++i)
+        {
+            single.update(messages[i], 0, messages[i].length);
+            single.doFinal(expected, 0);
+            isTrue(multi.getAlgorithmName() + " message " + i,
+                Arrays.areEqual(expected, Arrays.copyOfRange(out, 1 + i * digestSize, 1 + (i + 1) * digestSize)));
+        }
+
+        // fixed length messages, as for the nodes of a hash tree
+        int[] msgLens = { 0, 2 * digestSize, single.getByteLength() - 8, single.getByteLength() };
+        for (int j = 0; j < msgLens.length; ++j)
+        {
+            int msgLen = msgLens[j];
+            int count = 2 * multi.getLaneCount() + 3;
+            byte[] in = new byte[5 + msgLen * count];
+            random.nextBytes(in);
+
+            out = new byte[count * digestSize];
+            multi.digest(in, 5, msgLen, count, out, 0);
+
+            for (int i = 0; i < count; ++i)
+            {
+                single.update(in, 5 + i * msgLen, msgLen);
+                single.doFinal(expected, 0);
+                isTrue(multi.getAlgorithmName() + " fixed length " + msgLen,
+                    Arrays.areEqual(expected, Arrays.copyOfRange(out, i * digestSize, (i + 1) * digestSize)));
+            }
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new MultiBufferDigestTest());
+    }
+}
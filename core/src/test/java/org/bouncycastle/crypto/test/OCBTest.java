@@ -166,6 +166,7 @@ private void testExceptions() throws InvalidCipherTextException
 
         AEADTestUtil.testReset(this, createOCBCipher(), createOCBCipher(), new AEADParameters(new KeyParameter(new byte[16]), 128, new byte[15]));
         AEADTestUtil.testTampering(this, ocb, new AEADParameters(new KeyParameter(new byte[16]), 128, new byte[15]));
+        AEADTestUtil.testByteBuffers(this, new OCBBlockCipher(createUnderlyingCipher(), createUnderlyingCipher()), new KeyParameter(new byte[16]), 128, 15);
         AEADTestUtil.testOutputSizes(this, createOCBCipher(), new AEADParameters(new KeyParameter(new byte[16]), 128,
                 new byte[15]));
         AEADTestUtil.testBufferSizeChecks(this, createOCBCipher(), new AEADParameters(new KeyParameter(new byte[16]),
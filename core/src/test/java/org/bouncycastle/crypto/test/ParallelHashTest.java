@@ -1,5 +1,10 @@
 package org.bouncycastle.crypto.test;
 
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.digests.ParallelHash;
 import org.bouncycastle.util.Arrays;
@@ -118,6 +123,53 @@ public void performTest()
 
         testEmpty();
         testClone();
+        testParallel();
+    }
+
+    private void testParallel()
+    {
+        SecureRandom random = new SecureRandom();
+        byte[] data = new byte[1000000 + random.nextInt(10000)];
+        random.nextBytes(data);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            int[] blockSizes = { 61, 1024, 8192 };
+            for (int i = 0; i < blockSizes.length; ++i)
+            {
+                ParallelHash pHash = new ParallelHash(256, Strings.toByteArray("Parallel Data"), blockSizes[i]);
+                byte[] expected = new byte[pHash.getDigestSize()];
+                pHash.update(data, 0, 7);
+                pHash.update(data, 7, data.length - 7);
+                pHash.doFinal(expected, 0);
+
+                byte[] res = new byte[expected.length];
+                pHash.setExecutor(executor);
+                pHash.update(data, 0, 7);
+                pHash.update(data, 7, data.length - 7);
+                pHash.doFinal(res, 0);
+                isTrue("parallel update", Arrays.areEqual(expected, res));
+
+                ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+                direct.put(data).flip();
+                direct.limit(7);
+                pHash.update(direct);
+                direct.limit(data.length);
+                pHash.update(direct);
+                isTrue("direct buffer consumed", !direct.hasRemaining());
+                pHash.doFinal(res, 0);
+                isTrue("parallel direct buffer update", Arrays.areEqual(expected, res));
+
+                pHash.update(ByteBuffer.wrap(data));
+                pHash.doFinal(res, 0);
+                isTrue("parallel heap buffer update", Arrays.areEqual(expected, res));
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
     }
 
     private void testEmpty()
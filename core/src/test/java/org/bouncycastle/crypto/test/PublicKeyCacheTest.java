@@ -0,0 +1,218 @@
+package org.bouncycastle.crypto.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.Signer;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.generators.ECKeyPairGenerator;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECKeyGenerationParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.bouncycastle.crypto.params.Ed448PrivateKeyParameters;
+import org.bouncycastle.crypto.params.Ed448PublicKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.Ed25519Signer;
+import org.bouncycastle.crypto.signers.Ed448Signer;
+import org.bouncycastle.crypto.util.PublicKeyCache;
+import org.bouncycastle.math.ec.FixedPointUtil;
+import org.bouncycastle.util.test.SimpleTest;
+
+public class PublicKeyCacheTest
+    extends SimpleTest
+{
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public String getName()
+    {
+        return "PublicKeyCache";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        testEC("secp256r1");
+        testEC("secp384r1");
+        testEd25519();
+        testEd448();
+        testEviction();
+        testDisabled();
+    }
+
+    private void testEC(String curveName)
+    {
+        X9ECParameters x9 = CustomNamedCurves.getByName(curveName);
+        ECDomainParameters params = new ECDomainParameters(x9.getCurve(), x9.getG(), x9.getN(), x9.getH());
+
+        ECKeyPairGenerator kpg = new ECKeyPairGenerator();
+        kpg.init(new ECKeyGenerationParameters(params, RANDOM));
+        AsymmetricCipherKeyPair kp = kpg.generateKeyPair();
+
+        byte[] encoding = ((ECPublicKeyParameters)kp.getPublic()).getQ().getEncoded(false);
+
+        PublicKeyCache cache = new PublicKeyCache(4);
+        ECPublicKeyParameters pub = cache.getECPublicKey(params, encoding);
+
+        // The fixed-point tables are only built once the key is seen again
+        isTrue(null == params.getCurve().getPreCompInfo(pub.getQ(), FixedPointUtil.PRECOMP_NAME));
+        isTrue(pub == cache.getECPublicKey(params, encoding));
+        isTrue(null != params.getCurve().getPreCompInfo(pub.getQ(), FixedPointUtil.PRECOMP_NAME));
+        isTrue(pub == cache.getECPublicKey(new ECPublicKeyParameters(params.getCurve().decodePoint(encoding), params)));
+        isEquals(2, cache.getHitCount());
+        isEquals(1, cache.getMissCount());
+        isEquals(1, cache.getSize());
+
+        ECDSASigner signer = new ECDSASigner();
+        for (int i = 0; i < 10; ++i)
+        {
+            byte[] message = new byte[32];
+            RANDOM.nextBytes(message);
+
+            signer.init(true, kp.getPrivate());
+            BigInteger[] sig = signer.generateSignature(message);
+
+            signer.init(false, cache.getECPublicKey(params, encoding));
+            isTrue(curveName + " verification failed", signer.verifySignature(message, sig[0], sig[1]));
+            isTrue(curveName + " verification succeeded", !signer.verifySignature(message, sig[1], sig[0]));
+        }
+
+        try
+        {
+            cache.getECPublicKey(params, new byte[encoding.length]);
+            fail("no exception");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private void testEd25519()
+        throws Exception
+    {
+        Ed25519PrivateKeyParameters priv = new Ed25519PrivateKeyParameters(RANDOM);
+        byte[] encoding = priv.generatePublicKey().getEncoded();
+
+        PublicKeyCache cache = new PublicKeyCache(4);
+        Ed25519PublicKeyParameters pub = cache.getEd25519PublicKey(encoding);
+        isTrue(pub == cache.getEd25519PublicKey(encoding));
+        isTrue(pub == cache.getEd25519PublicKey(new Ed25519PublicKeyParameters(encoding)));
+
+        for (int i = 0; i < 10; ++i)
+        {
+            byte[] message = new byte[i * 7];
+            RANDOM.nextBytes(message);
+
+            Signer signer = new Ed25519Signer();
+            signer.init(true, priv);
+            signer.update(message, 0, message.length);
+            byte[] sig = signer.generateSignature();
+
+            signer.init(false, cache.getEd25519PublicKey(encoding));
+            signer.update(message, 0, message.length);
+            isTrue("Ed25519 verification failed", signer.verifySignature(sig));
+
+            sig[i] ^= 1;
+            signer.update(message, 0, message.length);
+            isTrue("Ed25519 verification succeeded", !signer.verifySignature(sig));
+        }
+
+        isEquals(12, cache.getHitCount());
+        isEquals(1, cache.getMissCount());
+    }
+
+    private void testEd448()
+        throws Exception
+    {
+        Ed448PrivateKeyParameters priv = new Ed448PrivateKeyParameters(RANDOM);
+        byte[] encoding = priv.generatePublicKey().getEncoded();
+        byte[] context = new byte[]{ 1, 2, 3 };
+
+        PublicKeyCache cache = new PublicKeyCache(4);
+        Ed448PublicKeyParameters pub = cache.getEd448PublicKey(encoding);
+        isTrue(pub == cache.getEd448PublicKey(encoding));
+        isTrue(pub == cache.getEd448PublicKey(new Ed448PublicKeyParameters(encoding)));
+
+        for (int i = 0; i < 10; ++i)
+        {
+            byte[] message = new byte[i * 7];
+            RANDOM.nextBytes(message);
+
+            Signer signer = new Ed448Signer(context);
+            signer.init(true, priv);
+            signer.update(message, 0, message.length);
+            byte[] sig = signer.generateSignature();
+
+            signer.init(false, cache.getEd448PublicKey(encoding));
+            signer.update(message, 0, message.length);
+            isTrue("Ed448 verification failed", signer.verifySignature(sig));
+
+            sig[i] ^= 1;
+            signer.update(message, 0, message.length);
+            isTrue("Ed448 verification succeeded", !signer.verifySignature(sig));
+        }
+
+        isEquals(12, cache.getHitCount());
+        isEquals(1, cache.getMissCount());
+    }
+
+    private void testEviction()
+    {
+        PublicKeyCache cache = new PublicKeyCache(2);
+
+        byte[] a = new Ed25519PrivateKeyParameters(RANDOM).generatePublicKey().getEncoded();
+        byte[] b = new Ed25519PrivateKeyParameters(RANDOM).generatePublicKey().getEncoded();
+        byte[] c = new Ed25519PrivateKeyParameters(RANDOM).generatePublicKey().getEncoded();
+
+        Ed25519PublicKeyParameters pubA = cache.getEd25519PublicKey(a);
+        Ed25519PublicKeyParameters pubB = cache.getEd25519PublicKey(b);
+        isTrue(pubA == cache.getEd25519PublicKey(a));
+
+        // b is now the least recently used key
+        cache.getEd25519PublicKey(c);
+        isEquals(2, cache.getSize());
+        isTrue(pubA == cache.getEd25519PublicKey(a));
+        isTrue(pubB != cache.getEd25519PublicKey(b));
+
+        isEquals(2, cache.getHitCount());
+        isEquals(4, cache.getMissCount());
+
+        cache.clear();
+        isEquals(0, cache.getSize());
+        isEquals(0, cache.getHitCount());
+        isEquals(0, cache.getMissCount());
+    }
+
+    private void testDisabled()
+    {
+        PublicKeyCache cache = new PublicKeyCache(0);
+
+        byte[] a = new Ed25519PrivateKeyParameters(RANDOM).generatePublicKey().getEncoded();
+        isTrue(cache.getEd25519PublicKey(a) != cache.getEd25519PublicKey(a));
+
+        Ed25519PublicKeyParameters pub = new Ed25519PublicKeyParameters(a);
+        isTrue(pub == cache.getEd25519PublicKey(pub));
+        isEquals(0, cache.getSize());
+
+        isEquals(0, PublicKeyCache.getDefault().getMaxSize());
+
+        try
+        {
+            new PublicKeyCache(-1);
+            fail("no exception");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("maxSize cannot be negative", e.getMessage());
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new PublicKeyCacheTest());
+    }
+}
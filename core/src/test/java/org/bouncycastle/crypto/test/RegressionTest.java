@@ -22,6 +22,8 @@
             new DSATest(),
             new ECTest(),
             new DeterministicDSATest(),
+            new ECDSABatchVerifierTest(),
+            new PublicKeyCacheTest(),
             new GOST3410Test(),
             new ECGOST3410Test(),
             new ECIESTest(),
@@ -67,6 +69,7 @@
             new SHA512DigestTest(),
             new SHA512t224DigestTest(),
             new SHA512t256DigestTest(),
+            new MultiBufferDigestTest(),
             new SHA3DigestTest(),
             new RIPEMD128DigestTest(),
             new RIPEMD160DigestTest(),
@@ -5,6 +5,7 @@
 import junit.framework.TestCase;
 
 import org.bouncycastle.math.ec.rfc7748.X448;
+import org.bouncycastle.math.ec.rfc7748.X448Context;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.encoders.Hex;
 
@@ -66,6 +67,42 @@ public void testECDH()
         }
     }
 
+//    @Test
+    public void testContext()
+    {
+        X448Context context = new X448Context();
+
+        byte[] u = new byte[X448.POINT_SIZE];     u[0] = 5;
+        byte[] kA = new byte[X448.SCALAR_SIZE];
+        byte[] kB = new byte[X448.SCALAR_SIZE];
+        byte[] qA = new byte[X448.POINT_SIZE];
+        byte[] qB = new byte[X448.POINT_SIZE];
+        byte[] buf = new byte[X448.POINT_SIZE * 2];
+        byte[] sB = new byte[X448.POINT_SIZE];
+
+        for (int i = 1; i <= 100; ++i)
+        {
+            X448.generatePrivateKey(RANDOM, kA);
+            X448.generatePrivateKey(RANDOM, kB);
+
+            context.generatePublicKey(kA, 0, qA, 0);
+            X448.generatePublicKey(kB, 0, qB, 0);
+
+            X448.scalarMult(kA, 0, u, 0, buf, 0);
+            assertTrue("Context public key #" + i, Arrays.areEqual(qA, 0, X448.POINT_SIZE, buf, 0, X448.POINT_SIZE));
+
+            // the context writes at the requested offset and agrees with the static methods
+            boolean rA = context.calculateAgreement(kA, 0, qB, 0, buf, 1);
+            boolean rB = X448.calculateAgreement(kB, 0, qA, 0, sB, 0);
+            assertTrue("Context ECDH #" + i,
+                rA && rB && Arrays.areEqual(buf, 1, 1 + X448.POINT_SIZE, sB, 0, X448.POINT_SIZE));
+        }
+
+        // a small order peer key gives an all-zero result
+        byte[] zero = new byte[X448.POINT_SIZE];
+        assertFalse(context.calculateAgreement(kA, 0, zero, 0, buf, 0));
+    }
+
 //    @Test
     public void testECDHVector1()
     {
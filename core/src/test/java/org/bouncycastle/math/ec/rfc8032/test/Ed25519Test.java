@@ -79,6 +79,66 @@ public void testEd25519Consistency()
         }
     }
     
+//    @Test
+    public void testEd25519VerifyBatch()
+    {
+        int count = 16;
+        byte[][] sigs = new byte[count][];
+        byte[][] pks = new byte[count][];
+        Ed25519.PublicPoint[] publicPoints = new Ed25519.PublicPoint[count];
+        byte[][] ms = new byte[count][];
+        boolean[] results = new boolean[count];
+
+        for (int i = 0; i < count; ++i)
+        {
+            byte[] sk = new byte[Ed25519.SECRET_KEY_SIZE];
+            Ed25519.generatePrivateKey(RANDOM, sk);
+
+            publicPoints[i] = Ed25519.generatePublicKey(sk, 0);
+            pks[i] = new byte[Ed25519.PUBLIC_KEY_SIZE];
+            Ed25519.encodePublicPoint(publicPoints[i], pks[i], 0);
+
+            ms[i] = new byte[RANDOM.nextInt() & 255];
+            RANDOM.nextBytes(ms[i]);
+
+            sigs[i] = new byte[Ed25519.SIGNATURE_SIZE];
+            Ed25519.sign(sk, 0, ms[i], 0, ms[i].length, sigs[i], 0);
+        }
+
+        assertTrue("Ed25519 batch verify", Ed25519.verifyBatch(sigs, pks, ms, RANDOM, results));
+        for (int i = 0; i < count; ++i)
+        {
+            assertTrue("Ed25519 batch verify result #" + i, results[i]);
+        }
+
+        assertTrue("Ed25519 batch verify (public points)",
+            Ed25519.verifyBatch(sigs, publicPoints, ms, RANDOM, results));
+
+        // Corrupt a message, an R value, and an S value
+        ms[3] = Arrays.append(ms[3], (byte)0x01);
+        sigs[7][Ed25519.PUBLIC_KEY_SIZE - 1] ^= 0x01;
+        sigs[11][0] ^= 0x40;
+
+        for (int pass = 0; pass < 2; ++pass)
+        {
+            boolean batchResult = pass == 0
+                ? Ed25519.verifyBatch(sigs, pks, ms, RANDOM, results)
+                : Ed25519.verifyBatch(sigs, publicPoints, ms, RANDOM, results);
+
+            assertFalse("Ed25519 batch verify with bad signatures", batchResult);
+            for (int i = 0; i < count; ++i)
+            {
+                boolean expected = Ed25519.verify(sigs[i], 0, pks[i], 0, ms[i], 0, ms[i].length);
+
+                assertEquals("Ed25519 batch verify result #" + i, expected, results[i]);
+                assertEquals("Ed25519 batch verify result #" + i, i != 3 && i != 7 && i != 11, results[i]);
+            }
+        }
+
+        assertTrue("Ed25519 empty batch verify",
+            Ed25519.verifyBatch(new byte[0][], new byte[0][], new byte[0][], RANDOM, new boolean[0]));
+    }
+
 //    @Test
     public void testEd25519ctxConsistency()
     {
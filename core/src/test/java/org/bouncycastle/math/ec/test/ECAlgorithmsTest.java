@@ -31,6 +31,17 @@ public void testSumOfMultiplies()
         doTestSumOfMultiplies(x9);
     }
 
+    public void testSumOfMultipliesLarge()
+    {
+        String[] names = new String[]{ "secp256r1", "secp384r1", "sect233r1" };
+        for (int i = 0; i < names.length; ++i)
+        {
+            X9ECParameters x9 = CustomNamedCurves.getByName(names[i]);
+            assertNotNull(x9);
+            doTestSumOfMultipliesLarge(x9, 100);
+        }
+    }
+
     // TODO Ideally, mark this test not to run by default
     public void testSumOfMultipliesComplete()
     {
@@ -86,6 +97,43 @@ private void doTestSumOfMultiplies(X9ECParameters x9)
         }
     }
 
+    private void doTestSumOfMultipliesLarge(X9ECParameters x9, int count)
+    {
+        ECPoint[] points = new ECPoint[count];
+        BigInteger[] scalars = new BigInteger[count];
+        for (int i = 0; i < count; ++i)
+        {
+            // repeat some points, and include negative, zero and over-sized scalars
+            points[i] = (i % 10 == 9) ? points[i - 1] : getRandomPoint(x9);
+            scalars[i] = getRandomScalar(x9);
+            switch (i % 7)
+            {
+            case 3:
+                scalars[i] = scalars[i].negate();
+                break;
+            case 5:
+                scalars[i] = scalars[i].add(x9.getN());
+                break;
+            case 6:
+                scalars[i] = BigInteger.valueOf(i & 1);
+                break;
+            }
+        }
+
+        ECPoint u = x9.getCurve().getInfinity();
+        for (int i = 0; i < count; ++i)
+        {
+            u = u.add(points[i].multiply(scalars[i].mod(x9.getN())));
+        }
+
+        ECPoint v = ECAlgorithms.sumOfMultiplies(points, scalars);
+
+        ECPoint[] results = new ECPoint[]{ u, v };
+        x9.getCurve().normalizeAll(results);
+
+        assertPointsEqual("ECAlgorithms.sumOfMultiplies is incorrect", results[0], results[1]);
+    }
+
     private void doTestSumOfTwoMultiplies(X9ECParameters x9)
     {
         ECPoint p = getRandomPoint(x9);
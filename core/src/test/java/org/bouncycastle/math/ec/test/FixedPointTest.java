@@ -11,10 +11,20 @@
 
 import org.bouncycastle.asn1.x9.ECNamedCurveTable;
 import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
 import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECMultiplier;
 import org.bouncycastle.math.ec.ECPoint;
 import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.math.ec.WNafL2RMultiplier;
+import org.bouncycastle.math.ec.custom.sec.SecP256R1FixedBase;
+import org.bouncycastle.math.ec.custom.sec.SecP384R1FixedBase;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -64,6 +74,106 @@ public void testFixedPointMultiplier()
         }
     }
 
+    public void testFixedBaseMultiplier()
+    {
+        String[] names = new String[]{ "secp256r1", "secp384r1" };
+
+        for (int c = 0; c < names.length; ++c)
+        {
+            X9ECParameters x9 = CustomNamedCurves.getByName(names[c]);
+            BigInteger n = x9.getN();
+
+            assertTrue(SecP256R1FixedBase.isBasePoint(x9.getG()) == (c == 0));
+            assertTrue(SecP384R1FixedBase.isBasePoint(x9.getG()) == (c == 1));
+            assertFalse(SecP256R1FixedBase.isBasePoint(x9.getG().twice()));
+            assertFalse(SecP384R1FixedBase.isBasePoint(x9.getG().twice()));
+
+            for (int i = 0; i < 20 * TESTS_PER_CURVE; ++i)
+            {
+                BigInteger k;
+                if (i < 4)
+                {
+                    // 1, 2, n - 1, n - 2
+                    k = BigInteger.valueOf(1 + (i & 1));
+                    if (i >= 2)
+                    {
+                        k = n.subtract(k);
+                    }
+                }
+                else
+                {
+                    k = new BigInteger(n.bitLength() - 1, RANDOM).add(BigInteger.ONE);
+                }
+
+                ECPoint pRef = ECAlgorithms.referenceMultiply(x9.getG(), k);
+                ECPoint p = (c == 0)
+                    ? SecP256R1FixedBase.multiplyBase(x9.getCurve(), k)
+                    : SecP384R1FixedBase.multiplyBase(x9.getCurve(), k);
+
+                assertPointsEqual("Fixed-base multiplier failure", pRef, p);
+            }
+
+            try
+            {
+                if (c == 0)
+                {
+                    SecP256R1FixedBase.multiplyBase(x9.getCurve(), n);
+                }
+                else
+                {
+                    SecP384R1FixedBase.multiplyBase(x9.getCurve(), n);
+                }
+                fail("no exception");
+            }
+            catch (IllegalArgumentException e)
+            {
+                assertEquals("k out of range", e.getMessage());
+            }
+        }
+    }
+
+    public void testFixedBaseSignature()
+    {
+        String[] names = new String[]{ "secp256r1", "secp384r1" };
+
+        for (int c = 0; c < names.length; ++c)
+        {
+            X9ECParameters x9 = CustomNamedCurves.getByName(names[c]);
+            ECDomainParameters domain = new ECDomainParameters(x9);
+
+            for (int i = 0; i < TESTS_PER_CURVE; ++i)
+            {
+                BigInteger d = new BigInteger(x9.getN().bitLength() - 1, RANDOM).add(BigInteger.ONE);
+                ECPrivateKeyParameters priv = new ECPrivateKeyParameters(d, domain);
+                ECPublicKeyParameters pub = new ECPublicKeyParameters(x9.getG().multiply(d), domain);
+
+                byte[] message = new byte[32];
+                RANDOM.nextBytes(message);
+
+                ECDSASigner fast = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+                ECDSASigner generic = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()))
+                {
+                    protected ECMultiplier createBasePointMultiplier()
+                    {
+                        return new WNafL2RMultiplier();
+                    }
+                };
+
+                fast.init(true, priv);
+                generic.init(true, priv);
+
+                BigInteger[] sig = fast.generateSignature(message);
+                BigInteger[] sigRef = generic.generateSignature(message);
+
+                assertEquals(sigRef[0], sig[0]);
+                assertEquals(sigRef[1], sig[1]);
+
+                fast.init(false, pub);
+                assertTrue(fast.verifySignature(message, sig[0], sig[1]));
+            }
+        }
+    }
+
     private List enumToList(Enumeration en)
     {
         List rv = new ArrayList();
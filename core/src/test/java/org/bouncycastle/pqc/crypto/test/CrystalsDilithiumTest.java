@@ -259,4 +259,66 @@ public void testDilithiumRandom()
             assertTrue("count = " + i, verifier.verifySignature(msg, sigGenerated));
         }
     }
+
+    public void testPrecomputation()
+    {
+        DilithiumParameters[] params = new DilithiumParameters[]{
+            DilithiumParameters.dilithium2,
+            DilithiumParameters.dilithium3,
+            DilithiumParameters.dilithium5,
+        };
+        int[] privSizes = new int[]{ 28672, 48128, 80896 };
+        int[] pubSizes = new int[]{ 20544, 36928, 65600 };
+
+        SecureRandom random = new SecureRandom();
+        for (int i = 0; i != params.length; i++)
+        {
+            DilithiumKeyPairGenerator keyGen = new DilithiumKeyPairGenerator();
+            keyGen.init(new DilithiumKeyGenerationParameters(random, params[i]));
+            AsymmetricCipherKeyPair keyPair = keyGen.generateKeyPair();
+
+            DilithiumPrivateKeyParameters privKey = (DilithiumPrivateKeyParameters)keyPair.getPrivate();
+            DilithiumPublicKeyParameters pubKey = (DilithiumPublicKeyParameters)keyPair.getPublic();
+
+            DilithiumPrivateKeyParameters cachedPrivKey = new DilithiumPrivateKeyParameters(params[i], privKey.getEncoded(), pubKey);
+            DilithiumPublicKeyParameters cachedPubKey = new DilithiumPublicKeyParameters(params[i], pubKey.getEncoded());
+            cachedPrivKey.setPrecomputation(true);
+            cachedPubKey.setPrecomputation(true);
+            assertTrue(cachedPrivKey.isPrecomputationEnabled());
+            assertEquals(0, cachedPrivKey.getPrecomputationSize());
+            assertEquals(0, cachedPubKey.getPrecomputationSize());
+
+            for (int j = 0; j != 10; j++)
+            {
+                byte[] msg = new byte[j * 7];
+                random.nextBytes(msg);
+
+                // deterministic signing, so both forms of the key must give the same signature
+                DilithiumSigner signer = new DilithiumSigner();
+                signer.init(true, privKey);
+                byte[] expected = signer.generateSignature(msg);
+
+                signer.init(true, cachedPrivKey);
+                byte[] actual = signer.generateSignature(msg);
+
+                assertEquals(privSizes[i], cachedPrivKey.getPrecomputationSize());
+                assertTrue(Arrays.areEqual(expected, actual));
+
+                DilithiumSigner verifier = new DilithiumSigner();
+                verifier.init(false, cachedPubKey);
+                assertTrue(verifier.verifySignature(msg, actual));
+                assertEquals(pubSizes[i], cachedPubKey.getPrecomputationSize());
+
+                actual[j] ^= 1;
+                assertFalse(verifier.verifySignature(msg, actual));
+                verifier.init(false, pubKey);
+                assertFalse(verifier.verifySignature(msg, actual));
+            }
+
+            cachedPrivKey.setPrecomputation(false);
+            cachedPubKey.setPrecomputation(false);
+            assertEquals(0, cachedPrivKey.getPrecomputationSize());
+            assertEquals(0, cachedPubKey.getPrecomputationSize());
+        }
+    }
 }
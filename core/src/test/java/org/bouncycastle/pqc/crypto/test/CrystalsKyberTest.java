@@ -293,6 +293,51 @@ public void testVectors()
         }
     }
 
+    public void testPrecomputation()
+    {
+        KyberParameters[] params = new KyberParameters[]{
+            KyberParameters.kyber512,
+            KyberParameters.kyber768,
+            KyberParameters.kyber1024,
+        };
+        int[] sizes = new int[]{ 3104, 6176, 10272 };
+
+        SecureRandom random = new SecureRandom();
+        for (int i = 0; i != params.length; i++)
+        {
+            KyberKeyPairGenerator keyGen = new KyberKeyPairGenerator();
+            keyGen.init(new KyberKeyGenerationParameters(random, params[i]));
+            AsymmetricCipherKeyPair keyPair = keyGen.generateKeyPair();
+
+            KyberPublicKeyParameters pubKey = (KyberPublicKeyParameters)keyPair.getPublic();
+            KyberPublicKeyParameters cachedKey = new KyberPublicKeyParameters(params[i], pubKey.getEncoded());
+            cachedKey.setPrecomputation(true);
+            assertTrue(cachedKey.isPrecomputationEnabled());
+            assertEquals(0, cachedKey.getPrecomputationSize());
+
+            KyberKEMExtractor kemExtract = new KyberKEMExtractor((KyberPrivateKeyParameters)keyPair.getPrivate());
+
+            for (int j = 0; j != 10; j++)
+            {
+                byte[] seed = new byte[32];
+                random.nextBytes(seed);
+
+                SecretWithEncapsulation expected = new KyberKEMGenerator(new FixedSecureRandom(seed))
+                    .generateEncapsulated(pubKey);
+                SecretWithEncapsulation actual = new KyberKEMGenerator(new FixedSecureRandom(seed))
+                    .generateEncapsulated(cachedKey);
+
+                assertEquals(sizes[i], cachedKey.getPrecomputationSize());
+                assertTrue(Arrays.areEqual(expected.getEncapsulation(), actual.getEncapsulation()));
+                assertTrue(Arrays.areEqual(expected.getSecret(), actual.getSecret()));
+                assertTrue(Arrays.areEqual(actual.getSecret(), kemExtract.extractSecret(actual.getEncapsulation())));
+            }
+
+            cachedKey.setPrecomputation(false);
+            assertEquals(0, cachedKey.getPrecomputationSize());
+        }
+    }
+
     public void testKyberRandom()
     {
         SecureRandom random = new SecureRandom();
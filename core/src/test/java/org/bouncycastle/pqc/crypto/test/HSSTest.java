@@ -1,6 +1,8 @@
 package org.bouncycastle.pqc.crypto.test;
 
 import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.TestCase;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
@@ -12,6 +14,7 @@
 import org.bouncycastle.pqc.crypto.lms.HSSPublicKeyParameters;
 import org.bouncycastle.pqc.crypto.lms.HSSSigner;
 import org.bouncycastle.pqc.crypto.lms.LMOtsParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSPrecomputation;
 import org.bouncycastle.pqc.crypto.lms.LMSParameters;
 import org.bouncycastle.pqc.crypto.lms.LMSigParameters;
 import org.bouncycastle.util.Arrays;
@@ -203,4 +206,94 @@ public void testKeyGenAndSignTwoSigsWithShard()
 
         assertTrue(signer.verifySignature(msg1, sig1));
     }
+
+    public void testBackgroundPrecomputation()
+        throws Exception
+    {
+        AsymmetricCipherKeyPairGenerator kpGen = new HSSKeyPairGenerator();
+
+        kpGen.init(new HSSKeyGenerationParameters(
+            new LMSParameters[]{
+                new LMSParameters(LMSigParameters.lms_sha256_n32_h5, LMOtsParameters.sha256_n32_w4),
+                new LMSParameters(LMSigParameters.lms_sha256_n32_h5, LMOtsParameters.sha256_n32_w4)
+            }, new SecureRandom()));
+
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+
+        HSSPrivateKeyParameters privKey = (HSSPrivateKeyParameters)kp.getPrivate();
+        HSSPrivateKeyParameters plainKey = HSSPrivateKeyParameters.getInstance(privKey.getEncoded());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            try
+            {
+                privKey.setPrecomputation(new LMSPrecomputation(executor, 100));
+                fail("no exception");
+            }
+            catch (IllegalArgumentException e)
+            {
+                assertEquals("memory budget too small for precomputation", e.getMessage());
+            }
+
+            LMSPrecomputation precomputation = new LMSPrecomputation(executor, 64 * 1024);
+            privKey.setPrecomputation(precomputation);
+
+            HSSSigner signer = new HSSSigner();
+            HSSSigner plainSigner = new HSSSigner();
+            HSSSigner verifier = new HSSSigner();
+
+            signer.init(true, privKey);
+            plainSigner.init(true, plainKey);
+            verifier.init(false, kp.getPublic());
+
+            // crosses the lower level key boundary three times
+            for (int i = 0; i < 100; i++)
+            {
+                if (i % 30 == 0)
+                {
+                    waitForPrecomputation(precomputation);
+
+                    assertTrue(precomputation.getSignaturesReady() > 0);
+                    assertTrue(precomputation.isNextKeyReady(1));
+                    assertTrue(precomputation.getMemoryUsed() <= precomputation.getMemoryBudget());
+                }
+
+                byte[] msg = Strings.toByteArray("Hello, world! " + i);
+                byte[] sig = signer.generateSignature(msg);
+
+                assertTrue(Arrays.areEqual(plainSigner.generateSignature(msg), sig));
+                assertTrue(verifier.verifySignature(msg, sig));
+            }
+
+            assertNull(precomputation.getFailure());
+            assertTrue(precomputation.getLeavesComputed() > 0);
+
+            precomputation.close();
+
+            assertEquals(0, precomputation.getSignaturesReady());
+
+            byte[] msg = Strings.toByteArray("Hello, world!");
+            byte[] sig = signer.generateSignature(msg);
+            assertTrue(Arrays.areEqual(plainSigner.generateSignature(msg), sig));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static void waitForPrecomputation(LMSPrecomputation precomputation)
+        throws InterruptedException
+    {
+        long start = System.currentTimeMillis();
+        while (!precomputation.isNextKeyReady(1) || precomputation.getSignaturesReady() < 2)
+        {
+            if (System.currentTimeMillis() - start > 60000)
+            {
+                fail("precomputation did not complete");
+            }
+            Thread.sleep(10);
+        }
+    }
 }
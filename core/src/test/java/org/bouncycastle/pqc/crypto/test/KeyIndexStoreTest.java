@@ -0,0 +1,291 @@
+package org.bouncycastle.pqc.crypto.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.SecureRandom;
+
+import junit.framework.TestCase;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPairGenerator;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.pqc.crypto.KeyIndexStore;
+import org.bouncycastle.pqc.crypto.lms.HSSKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.lms.HSSKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.lms.HSSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.lms.LMOtsParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.lms.LMSParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSigParameters;
+import org.bouncycastle.pqc.crypto.util.IndexReservingSigner;
+import org.bouncycastle.pqc.crypto.util.MappedFileKeyIndexStore;
+import org.bouncycastle.pqc.crypto.util.PrivateKeyFactory;
+import org.bouncycastle.pqc.crypto.util.PrivateKeyInfoFactory;
+import org.bouncycastle.pqc.crypto.xmss.XMSSKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSPrivateKeyParameters;
+import org.bouncycastle.util.Strings;
+
+public class KeyIndexStoreTest
+    extends TestCase
+{
+    private static final byte[] msg = Strings.toByteArray("Hello, world!");
+
+    public void testMappedFileStore()
+        throws Exception
+    {
+        File file = newStoreFile();
+        try
+        {
+            KeyIndexStore store = new MappedFileKeyIndexStore(file);
+            assertEquals(0, store.getLimit());
+
+            try
+            {
+                new MappedFileKeyIndexStore(file);
+                fail("no exception on second open");
+            }
+            catch (IOException e)
+            {
+                assertTrue(e.getMessage().startsWith("key index store in use"));
+            }
+
+            store.advanceLimit(10);
+            store.advanceLimit(20);
+            try
+            {
+                store.advanceLimit(19);
+                fail("no exception on decreasing limit");
+            }
+            catch (IllegalArgumentException e)
+            {
+                assertEquals("limit cannot be decreased", e.getMessage());
+            }
+            store.close();
+
+            store = new MappedFileKeyIndexStore(file);
+            assertEquals(20, store.getLimit());
+            store.advanceLimit(30);
+            store.close();
+
+            // a torn write to the newest copy falls back to the previous limit
+            corrupt(file, 512 + 6);
+            store = new MappedFileKeyIndexStore(file);
+            assertEquals(20, store.getLimit());
+            store.advanceLimit(40);
+            store.close();
+
+            store = new MappedFileKeyIndexStore(file);
+            assertEquals(40, store.getLimit());
+            store.close();
+
+            corrupt(file, 6);
+            corrupt(file, 512 + 6);
+            try
+            {
+                new MappedFileKeyIndexStore(file);
+                fail("no exception on corrupted store");
+            }
+            catch (IOException e)
+            {
+                assertTrue(e.getMessage().startsWith("corrupted key index store"));
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    public void testLMSRecovery()
+        throws Exception
+    {
+        AsymmetricCipherKeyPairGenerator kpGen = new LMSKeyPairGenerator();
+        kpGen.init(new LMSKeyGenerationParameters(
+            new LMSParameters(LMSigParameters.lms_sha256_n32_h5, LMOtsParameters.sha256_n32_w4), new SecureRandom()));
+
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+        byte[] saved = ((LMSPrivateKeyParameters)kp.getPrivate()).getEncoded();
+
+        AsymmetricKeyParameter restored = checkRecovery(kp, LMSPrivateKeyParameters.getInstance(saved));
+
+        assertEquals(9, ((LMSPrivateKeyParameters)restored).getIndex());
+    }
+
+    public void testLMSExhausted()
+        throws Exception
+    {
+        AsymmetricCipherKeyPairGenerator kpGen = new LMSKeyPairGenerator();
+        kpGen.init(new LMSKeyGenerationParameters(
+            new LMSParameters(LMSigParameters.lms_sha256_n32_h5, LMOtsParameters.sha256_n32_w8), new SecureRandom()));
+
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+        byte[] saved = ((LMSPrivateKeyParameters)kp.getPrivate()).getEncoded();
+
+        File file = newStoreFile();
+        try
+        {
+            KeyIndexStore store = new MappedFileKeyIndexStore(file);
+            IndexReservingSigner signer = new IndexReservingSigner(store, 10);
+            signer.init(true, kp.getPrivate());
+            for (int i = 0; i != 25; i++)
+            {
+                signer.generateSignature(msg);
+                assertEquals(i + 1, ((LMSPrivateKeyParameters)kp.getPrivate()).getIndex());
+            }
+            assertEquals(30, store.getLimit());
+            store.close();
+
+            // the final batch is cut short by the end of the key
+            store = new MappedFileKeyIndexStore(file);
+            signer = new IndexReservingSigner(store, 10);
+            signer.init(true, LMSPrivateKeyParameters.getInstance(saved));
+            signer.generateSignature(msg);
+            signer.generateSignature(msg);
+            assertEquals(32, store.getLimit());
+            store.close();
+
+            store = new MappedFileKeyIndexStore(file);
+            signer = new IndexReservingSigner(store, 10);
+            signer.init(true, LMSPrivateKeyParameters.getInstance(saved));
+            try
+            {
+                signer.generateSignature(msg);
+                fail("no exception on exhausted key");
+            }
+            catch (IllegalStateException e)
+            {
+                assertEquals("no usages remaining for private key", e.getMessage());
+            }
+            store.close();
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    public void testHSSRecovery()
+        throws Exception
+    {
+        AsymmetricCipherKeyPairGenerator kpGen = new HSSKeyPairGenerator();
+        kpGen.init(new HSSKeyGenerationParameters(
+            new LMSParameters[]{
+                new LMSParameters(LMSigParameters.lms_sha256_n32_h5, LMOtsParameters.sha256_n32_w4),
+                new LMSParameters(LMSigParameters.lms_sha256_n32_h5, LMOtsParameters.sha256_n32_w4)
+            }, new SecureRandom()));
+
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+        byte[] saved = ((HSSPrivateKeyParameters)kp.getPrivate()).getEncoded();
+
+        AsymmetricKeyParameter restored = checkRecovery(kp, HSSPrivateKeyParameters.getInstance(saved));
+
+        assertEquals(9, ((HSSPrivateKeyParameters)restored).getIndex());
+    }
+
+    public void testXMSSRecovery()
+        throws Exception
+    {
+        XMSSKeyPairGenerator kpGen = new XMSSKeyPairGenerator();
+        kpGen.init(new XMSSKeyGenerationParameters(new XMSSParameters(4, new SHA256Digest()), new SecureRandom()));
+
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+        byte[] saved = PrivateKeyInfoFactory.createPrivateKeyInfo(kp.getPrivate()).getEncoded();
+
+        AsymmetricKeyParameter restored = checkRecovery(kp, PrivateKeyFactory.createKey(saved));
+
+        assertEquals(9, ((XMSSPrivateKeyParameters)restored).getIndex());
+    }
+
+    public void testXMSSMTRecovery()
+        throws Exception
+    {
+        XMSSMTKeyPairGenerator kpGen = new XMSSMTKeyPairGenerator();
+        kpGen.init(new XMSSMTKeyGenerationParameters(new XMSSMTParameters(4, 2, new SHA256Digest()), new SecureRandom()));
+
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+        byte[] saved = PrivateKeyInfoFactory.createPrivateKeyInfo(kp.getPrivate()).getEncoded();
+
+        AsymmetricKeyParameter restored = checkRecovery(kp, PrivateKeyFactory.createKey(saved));
+
+        assertEquals(9, ((XMSSMTPrivateKeyParameters)restored).getIndex());
+    }
+
+    /**
+     * Sign with the key, then simulate a crash by restarting from the saved key and the store alone.
+     * The restarted signer must skip every index reserved before the crash.
+     */
+    private AsymmetricKeyParameter checkRecovery(AsymmetricCipherKeyPair kp, AsymmetricKeyParameter restored)
+        throws Exception
+    {
+        File file = newStoreFile();
+        KeyIndexStore verifierStore = new MappedFileKeyIndexStore(newStoreFile());
+        try
+        {
+            IndexReservingSigner verifier = new IndexReservingSigner(verifierStore, 1);
+            verifier.init(false, kp.getPublic());
+
+            KeyIndexStore store = new MappedFileKeyIndexStore(file);
+            IndexReservingSigner signer = new IndexReservingSigner(store, 4);
+            signer.init(true, kp.getPrivate());
+
+            for (int i = 0; i != 6; i++)
+            {
+                assertTrue(verifier.verifySignature(msg, signer.generateSignature(msg)));
+            }
+            assertEquals(8, signer.getReservedLimit());
+            assertEquals(8, store.getLimit());
+            store.close();
+
+            store = new MappedFileKeyIndexStore(file);
+            signer = new IndexReservingSigner(store, 4);
+            signer.init(true, restored);
+            assertEquals(8, signer.getReservedLimit());
+
+            assertTrue(verifier.verifySignature(msg, signer.generateSignature(msg)));
+            assertEquals(12, store.getLimit());
+            store.close();
+
+            return restored;
+        }
+        finally
+        {
+            verifierStore.close();
+            file.delete();
+        }
+    }
+
+    private static File newStoreFile()
+        throws IOException
+    {
+        File file = File.createTempFile("kix", ".dat");
+        file.delete();
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static void corrupt(File file, int offset)
+        throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try
+        {
+            raf.seek(offset);
+            int b = raf.read();
+            raf.seek(offset);
+            raf.write(b ^ 0x01);
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+}
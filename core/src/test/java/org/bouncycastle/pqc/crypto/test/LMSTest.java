@@ -1,6 +1,8 @@
 package org.bouncycastle.pqc.crypto.test;
 
 import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.TestCase;
 import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
@@ -12,6 +14,7 @@
 import org.bouncycastle.pqc.crypto.lms.LMSKeyGenerationParameters;
 import org.bouncycastle.pqc.crypto.lms.LMSKeyPairGenerator;
 import org.bouncycastle.pqc.crypto.lms.LMSParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSPrecomputation;
 import org.bouncycastle.pqc.crypto.lms.LMSPrivateKeyParameters;
 import org.bouncycastle.pqc.crypto.lms.LMSPublicKeyParameters;
 import org.bouncycastle.pqc.crypto.lms.LMSSigner;
@@ -47,6 +50,54 @@ public void testKeyGenAndSign()
         assertTrue(signer.verifySignature(msg, sig));
     }
 
+    public void testBackgroundPrecomputation()
+        throws Exception
+    {
+        AsymmetricCipherKeyPairGenerator kpGen = new LMSKeyPairGenerator();
+
+        kpGen.init(new LMSKeyGenerationParameters(
+            new LMSParameters(LMSigParameters.lms_sha256_n32_h5, LMOtsParameters.sha256_n32_w4), new SecureRandom()));
+
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+
+        LMSPrivateKeyParameters privKey = (LMSPrivateKeyParameters)kp.getPrivate();
+        LMSPrivateKeyParameters plainKey = LMSPrivateKeyParameters.getInstance(privKey.getEncoded());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            LMSPrecomputation precomputation = new LMSPrecomputation(executor, 1024);
+            privKey.setPrecomputation(precomputation);
+
+            LMSSigner signer = new LMSSigner();
+            LMSSigner plainSigner = new LMSSigner();
+            LMSSigner verifier = new LMSSigner();
+
+            signer.init(true, privKey);
+            plainSigner.init(true, plainKey);
+            verifier.init(false, kp.getPublic());
+
+            for (int i = 0; i < 32; i++)
+            {
+                byte[] msg = Strings.toByteArray("Hello, world! " + i);
+                byte[] sig = signer.generateSignature(msg);
+
+                assertTrue(Arrays.areEqual(plainSigner.generateSignature(msg), sig));
+                assertTrue(verifier.verifySignature(msg, sig));
+                assertTrue(precomputation.getMemoryUsed() <= 1024);
+            }
+
+            assertNull(precomputation.getFailure());
+            assertTrue(precomputation.getLeavesComputed() >= 32);
+
+            precomputation.close();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
     public void testKeyGenAndSignSha256_192()
         throws Exception
     {
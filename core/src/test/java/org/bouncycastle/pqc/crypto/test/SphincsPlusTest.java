@@ -8,6 +8,12 @@
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import junit.framework.TestCase;
 import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
@@ -423,6 +429,100 @@ public void testBasicKeyGenerationShake256128fRobustSign()
         assertTrue(signer.verifySignature(msg, sig));
     }
 
+    public void testParallelSignature()
+    {
+        SPHINCSPlusParameters[] params = new SPHINCSPlusParameters[]{
+            SPHINCSPlusParameters.sha2_128f,
+            SPHINCSPlusParameters.shake_128f_robust,
+            SPHINCSPlusParameters.haraka_128f,
+            SPHINCSPlusParameters.sha2_128s,
+        };
+
+        SecureRandom random = new SecureRandom();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            for (int i = 0; i != params.length; i++)
+            {
+                SPHINCSPlusKeyPairGenerator kpGen = new SPHINCSPlusKeyPairGenerator();
+                kpGen.init(new SPHINCSPlusKeyGenerationParameters(random, params[i]));
+                AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+
+                byte[] msg = new byte[33];
+                random.nextBytes(msg);
+
+                // deterministic signing, so the parallel signature must match the serial one
+                SPHINCSPlusSigner signer = new SPHINCSPlusSigner();
+                signer.init(true, kp.getPrivate());
+                byte[] expected = signer.generateSignature(msg);
+
+                signer.setExecutor(executor);
+                byte[] actual = signer.generateSignature(msg);
+
+                assertTrue(params[i].getName(), Arrays.areEqual(expected, actual));
+
+                SPHINCSPlusSigner verifier = new SPHINCSPlusSigner();
+                verifier.init(false, kp.getPublic());
+                assertTrue(verifier.verifySignature(msg, actual));
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    public void testParallelSignatureBusyExecutor()
+        throws Exception
+    {
+        SPHINCSPlusKeyPairGenerator kpGen = new SPHINCSPlusKeyPairGenerator();
+        kpGen.init(new SPHINCSPlusKeyGenerationParameters(new SecureRandom(), SPHINCSPlusParameters.sha2_128f));
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+
+        byte[] msg = Hex.decode("0102030405060708");
+
+        SPHINCSPlusSigner signer = new SPHINCSPlusSigner();
+        signer.init(true, kp.getPrivate());
+        byte[] expected = signer.generateSignature(msg);
+
+        // the only executor thread is blocked, so none of the signing tasks ever start
+        final CountDownLatch blocker = new CountDownLatch(1);
+        ExecutorService queued = Executors.newSingleThreadExecutor();
+        ThreadPoolExecutor saturated = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new SynchronousQueue<Runnable>());
+        try
+        {
+            Runnable block = new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        blocker.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            queued.execute(block);
+            saturated.execute(block);
+
+            signer.setExecutor(queued);
+            assertTrue(Arrays.areEqual(expected, signer.generateSignature(msg)));
+
+            signer.setExecutor(saturated);
+            assertTrue(Arrays.areEqual(expected, signer.generateSignature(msg)));
+        }
+        finally
+        {
+            blocker.countDown();
+            queued.shutdown();
+            saturated.shutdown();
+        }
+    }
+
     private static String[] splitOn(String input, char c)
     {
         String s = input.trim();
@@ -27,6 +27,7 @@
 import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 import org.bouncycastle.asn1.x509.AltSignatureAlgorithm;
 import org.bouncycastle.asn1.x509.AltSignatureValue;
+import org.bouncycastle.asn1.x509.CRLEntryIndex;
 import org.bouncycastle.asn1.x509.CertificateList;
 import org.bouncycastle.asn1.x509.Extension;
 import org.bouncycastle.asn1.x509.Extensions;
@@ -51,6 +52,7 @@
     private transient boolean isIndirect;
     private transient Extensions extensions;
     private transient GeneralNames issuerName;
+    private transient volatile CRLEntryIndex entryIndex;
 
     private static CertificateList parseStream(InputStream stream)
         throws IOException
@@ -126,6 +128,7 @@ private void init(CertificateList x509CRL)
         this.extensions = x509CRL.getTBSCertList().getExtensions();
         this.isIndirect = isIndirectCRL(extensions);
         this.issuerName = new GeneralNames(new GeneralName(x509CRL.getIssuer()));
+        this.entryIndex = null;
     }
 
     /**
@@ -169,28 +172,29 @@ public Date getNextUpdate()
 
     public X509CRLEntryHolder getRevokedCertificate(BigInteger serialNumber)
     {
-        GeneralNames currentCA = issuerName;
-        for (Enumeration en = x509CRL.getRevokedCertificateEnumeration(); en.hasMoreElements(); )
+        CRLEntryIndex index = getEntryIndex();
+
+        int pos = index.indexOf(serialNumber);
+        if (pos < 0)
         {
-            TBSCertList.CRLEntry entry = (TBSCertList.CRLEntry)en.nextElement();
+            return null;
+        }
 
-            if (entry.getUserCertificate().hasValue(serialNumber))
-            {
-                return new X509CRLEntryHolder(entry, isIndirect, currentCA);
-            }
+        GeneralNames currentCA = index.getPreviousCertificateIssuer(pos);
 
-            if (isIndirect && entry.hasExtensions())
-            {
-                Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
+        return new X509CRLEntryHolder(index.getEntry(pos), isIndirect, currentCA != null ? currentCA : issuerName);
+    }
 
-                if (currentCaName != null)
-                {
-                    currentCA = GeneralNames.getInstance(currentCaName.getParsedValue());
-                }
-            }
+    private CRLEntryIndex getEntryIndex()
+    {
+        // built on first use; a racing thread may build its own copy, which is harmless
+        CRLEntryIndex index = entryIndex;
+        if (index == null)
+        {
+            index = new CRLEntryIndex(x509CRL.getTBSCertList(), isIndirect);
+            entryIndex = index;
         }
-
-        return null;
+        return index;
     }
 
     /**
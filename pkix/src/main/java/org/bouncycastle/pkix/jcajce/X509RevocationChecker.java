@@ -45,6 +45,8 @@
 import org.bouncycastle.asn1.x509.Extension;
 import org.bouncycastle.asn1.x509.GeneralName;
 import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.jcajce.DistributionPointCRLCache;
+import org.bouncycastle.jcajce.PKIXCRLCache;
 import org.bouncycastle.jcajce.PKIXCRLStore;
 import org.bouncycastle.jcajce.PKIXCRLStoreSelector;
 import org.bouncycastle.jcajce.PKIXExtendedParameters;
@@ -101,6 +103,7 @@
         private long failLogMaxTime;
         private long failHardMaxTime;
         private Date validityDate = new Date();
+        private PKIXCRLCache crlCache;
 
         /**
          * Base constructor.
@@ -274,6 +277,20 @@ public Builder usingProvider(String providerName)
             return this;
         }
 
+        /**
+         * Set the cache used for CRLs fetched from CRL distribution points.
+         *
+         * @param crlCache the cache to use, null for the default one.
+         * @return the current builder instance.
+         * @see DistributionPointCRLCache#getDefault()
+         */
+        public Builder setCRLCache(PKIXCRLCache crlCache)
+        {
+            this.crlCache = crlCache;
+
+            return this;
+        }
+
         /**
          * Build a revocation checker conforming to the current builder.
          *
@@ -298,6 +315,7 @@ public X509RevocationChecker build()
     private final long failLogMaxTime;
     private final long failHardMaxTime;
     private final Date validationDate;
+    private final PKIXCRLCache crlCache;
 
     private Date currentDate;
     private X500Principal workingIssuerName;
@@ -315,6 +333,7 @@ private X509RevocationChecker(Builder bldr)
         this.failLogMaxTime = bldr.failLogMaxTime;
         this.failHardMaxTime = bldr.failHardMaxTime;
         this.validationDate = bldr.validityDate;
+        this.crlCache = (bldr.crlCache != null) ? bldr.crlCache : DistributionPointCRLCache.getDefault();
 
         if (bldr.provider != null)
         {
@@ -622,7 +641,7 @@ private Set<CRL> downloadCRLs(X500Principal issuer, Date currentDate, ASN1Primit
                         {
                             url = new URI(((ASN1String)name.getName()).getString());
 
-                            PKIXCRLStore store = CrlCache.getCrl(certFact, validationDate, url);
+                            PKIXCRLStore store = crlCache.getCRLs(certFact, validationDate, url);
 
                             if (store != null)
                             {
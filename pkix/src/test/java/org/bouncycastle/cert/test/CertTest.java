@@ -2786,6 +2786,51 @@ public void checkCRLCreation4()
         }
     }
 
+    public void checkCRLLargeLookup()
+        throws Exception
+    {
+        KeyPairGenerator kpGen = KeyPairGenerator.getInstance("RSA", BC);
+
+        Date now = new Date();
+        KeyPair pair = kpGen.generateKeyPair();
+        X509v2CRLBuilder crlGen = new JcaX509v2CRLBuilder(new X500Principal("CN=Test CA"), now);
+
+        crlGen.setNextUpdate(new Date(now.getTime() + 100000));
+
+        BigInteger big = BigInteger.ONE.shiftLeft(150);
+        for (int i = 0; i < 2000; i++)
+        {
+            crlGen.addCRLEntry(big.add(BigInteger.valueOf(i * 7)), now, CRLReason.keyCompromise);
+        }
+
+        X509CRLHolder crlHolder = crlGen.build(new JcaContentSignerBuilder("SHA256withRSA").setProvider(BC).build(pair.getPrivate()));
+
+        X509CRL crl = new JcaX509CRLConverter().setProvider(BC).getCRL(crlHolder);
+
+        for (int i = 0; i < 2000 * 7; i++)
+        {
+            BigInteger serial = big.add(BigInteger.valueOf(i));
+            boolean isPresent = (i % 7) == 0;
+
+            X509CRLEntryHolder holderEntry = crlHolder.getRevokedCertificate(serial);
+            X509CRLEntry entry = crl.getRevokedCertificate(serial);
+
+            if (isPresent)
+            {
+                isTrue("holder entry missing", holderEntry != null && holderEntry.getSerialNumber().equals(serial));
+                isTrue("CRL entry missing", entry != null && entry.getSerialNumber().equals(serial));
+            }
+            else
+            {
+                isTrue("unexpected holder entry", holderEntry == null);
+                isTrue("unexpected CRL entry", entry == null);
+            }
+        }
+
+        isTrue(crl.getRevokedCertificate(BigInteger.ONE) == null);
+        isTrue(crlHolder.getRevokedCertificate(big.negate()) == null);
+    }
+
     public void checkCRLCreation5()
         throws Exception
     {
@@ -5694,6 +5739,7 @@ public void performTest()
         checkCRLCreation3();
         checkCRLCreation4();
         checkCRLCreation5();
+        checkCRLLargeLookup();
         checkCRLCompositeCreation();
         checkCrlECDSAwithDilithiumCreation();
 
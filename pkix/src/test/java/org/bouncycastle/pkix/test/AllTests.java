@@ -23,6 +23,7 @@ public static Test suite()
         suite.addTestSuite(CheckerTest.class);
         suite.addTestSuite(RevocationTest.class);
         suite.addTestSuite(CheckNameConstraintsTest.class);
+        suite.addTestSuite(DistributionPointCRLCacheTest.class);
 
         return new BCTestSetup(suite);
     }
@@ -0,0 +1,378 @@
+package org.bouncycastle.pkix.test;
+
+import java.io.File;
+import java.net.URI;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.cert.CRLException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import org.bouncycastle.jcajce.DistributionPointCRLCache;
+import org.bouncycastle.jcajce.PKIXCRLStore;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+public class DistributionPointCRLCacheTest
+    extends TestCase
+{
+    private static final long SECOND = 1000L;
+
+    // TestUtil.makeCrl sets nextUpdate 100 seconds after issue
+    private static final long NEXT_UPDATE = 100 * SECOND;
+
+    /**
+     * Collects refreshes, so they only run when the test asks, or rejects them as a saturated executor would.
+     */
+    private static class RecordingExecutor
+        implements Executor
+    {
+        final List<Runnable> refreshes = new ArrayList<Runnable>();
+
+        volatile boolean rejecting = false;
+
+        public void execute(Runnable command)
+        {
+            if (rejecting)
+            {
+                throw new RejectedExecutionException("refresh rejected");
+            }
+            refreshes.add(command);
+        }
+    }
+
+    /**
+     * A cache over a stub distribution point that counts downloads, with a settable clock and a recording
+     * refresh executor.
+     */
+    private static class TestCache
+        extends DistributionPointCRLCache
+    {
+        final AtomicInteger downloads = new AtomicInteger();
+        final RecordingExecutor refresher;
+        final byte[] encoding;
+
+        volatile long now;
+        volatile CountDownLatch entered = null, release = null;
+
+        TestCache(int maxEntries, long maxAge, long refreshAhead, File cacheDir, byte[] encoding, long now)
+        {
+            this(new RecordingExecutor(), maxEntries, maxAge, refreshAhead, cacheDir, encoding, now);
+        }
+
+        private TestCache(RecordingExecutor refresher, int maxEntries, long maxAge, long refreshAhead, File cacheDir,
+            byte[] encoding, long now)
+        {
+            super(new Builder()
+                .setMaxEntries(maxEntries)
+                .setMaxAge(maxAge)
+                .setRefreshAhead(refreshAhead)
+                .setCacheDirectory(cacheDir)
+                .setRefreshExecutor(refresher));
+
+            this.refresher = refresher;
+            this.encoding = encoding;
+            this.now = now;
+        }
+
+        protected long currentTimeMillis()
+        {
+            return now;
+        }
+
+        protected byte[] fetchEncoding(URI distributionPoint)
+            throws CRLException
+        {
+            downloads.incrementAndGet();
+
+            if (entered != null)
+            {
+                entered.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    throw new CRLException("interrupted");
+                }
+            }
+
+            return encoding;
+        }
+    }
+
+    private CertificateFactory certFact;
+    private byte[] crlEncoding;
+    private long issueTime;
+
+    protected void setUp()
+        throws Exception
+    {
+        if (Security.getProvider("BC") == null)
+        {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+
+        KeyPairGenerator kpGen = KeyPairGenerator.getInstance("RSA", "BC");
+        kpGen.initialize(2048);
+        KeyPair caKp = kpGen.generateKeyPair();
+        X509Certificate caCert = TestUtil.makeTrustAnchor(caKp, "CN=CRL Cache Test CA");
+
+        this.issueTime = System.currentTimeMillis();
+        this.crlEncoding = TestUtil.makeCrl(caCert, caKp.getPrivate(), TestUtil.serialNumber).getEncoded();
+        this.certFact = CertificateFactory.getInstance("X.509", "BC");
+    }
+
+    public void testCached()
+        throws Exception
+    {
+        TestCache cache = new TestCache(4, 3600 * SECOND, 30 * SECOND, null, crlEncoding, issueTime);
+
+        PKIXCRLStore store = cache.getCRLs(certFact, new Date(issueTime), dp(1));
+        assertEquals(1, store.getMatches(null).size());
+        assertSame(store, cache.getCRLs(certFact, new Date(issueTime), dp(1)));
+        assertEquals(1, cache.downloads.get());
+    }
+
+    public void testSizeBound()
+        throws Exception
+    {
+        TestCache cache = new TestCache(2, 3600 * SECOND, 30 * SECOND, null, crlEncoding, issueTime);
+        Date validDate = new Date(issueTime);
+
+        cache.getCRLs(certFact, validDate, dp(1));
+        cache.getCRLs(certFact, validDate, dp(2));
+        // touch 1 so that 2 becomes the least recently used
+        cache.getCRLs(certFact, validDate, dp(1));
+        cache.getCRLs(certFact, validDate, dp(3));
+        assertEquals(3, cache.downloads.get());
+
+        cache.getCRLs(certFact, validDate, dp(1));
+        cache.getCRLs(certFact, validDate, dp(3));
+        assertEquals(3, cache.downloads.get());
+
+        cache.getCRLs(certFact, validDate, dp(2));
+        assertEquals(4, cache.downloads.get());
+    }
+
+    public void testMaxAgeExpiry()
+        throws Exception
+    {
+        TestCache cache = new TestCache(4, 60 * SECOND, 10 * SECOND, null, crlEncoding, issueTime);
+        Date validDate = new Date(issueTime);
+
+        cache.getCRLs(certFact, validDate, dp(1));
+
+        // still within both the TTL and nextUpdate
+        cache.now = issueTime + 59 * SECOND;
+        cache.getCRLs(certFact, validDate, dp(1));
+        assertEquals(1, cache.downloads.get());
+
+        // past the TTL, even though nextUpdate hasn't been reached
+        cache.now = issueTime + 61 * SECOND;
+        cache.getCRLs(certFact, validDate, dp(1));
+        assertEquals(2, cache.downloads.get());
+    }
+
+    public void testNextUpdateExpiry()
+        throws Exception
+    {
+        TestCache cache = new TestCache(4, 3600 * SECOND, 10 * SECOND, null, crlEncoding, issueTime);
+
+        cache.getCRLs(certFact, new Date(issueTime), dp(1));
+
+        cache.getCRLs(certFact, new Date(issueTime + NEXT_UPDATE - 5 * SECOND), dp(1));
+        assertEquals(1, cache.downloads.get());
+
+        // a validation date after nextUpdate can't be answered by the cached CRL
+        cache.getCRLs(certFact, new Date(issueTime + NEXT_UPDATE + 5 * SECOND), dp(1));
+        assertEquals(2, cache.downloads.get());
+    }
+
+    public void testRefreshAhead()
+        throws Exception
+    {
+        TestCache cache = new TestCache(4, 3600 * SECOND, 30 * SECOND, null, crlEncoding, issueTime);
+        Date validDate = new Date(issueTime);
+
+        PKIXCRLStore original = cache.getCRLs(certFact, validDate, dp(1));
+
+        // before the refresh-ahead point nothing is scheduled
+        cache.now = issueTime + NEXT_UPDATE - 40 * SECOND;
+        cache.getCRLs(certFact, validDate, dp(1));
+        assertEquals(0, cache.refresher.refreshes.size());
+
+        // within the refresh-ahead period the cached CRL is returned and one refresh is scheduled
+        cache.now = issueTime + NEXT_UPDATE - 20 * SECOND;
+        assertSame(original, cache.getCRLs(certFact, validDate, dp(1)));
+        assertSame(original, cache.getCRLs(certFact, validDate, dp(1)));
+        assertEquals(1, cache.refresher.refreshes.size());
+        assertEquals(1, cache.downloads.get());
+
+        ((Runnable)cache.refresher.refreshes.get(0)).run();
+        assertEquals(2, cache.downloads.get());
+
+        PKIXCRLStore refreshed = cache.getCRLs(certFact, validDate, dp(1));
+        assertNotSame(original, refreshed);
+        assertEquals(2, cache.downloads.get());
+    }
+
+    public void testRefreshRejected()
+        throws Exception
+    {
+        TestCache cache = new TestCache(4, 3600 * SECOND, 30 * SECOND, null, crlEncoding, issueTime);
+        Date validDate = new Date(issueTime);
+
+        PKIXCRLStore original = cache.getCRLs(certFact, validDate, dp(1));
+
+        // a rejected refresh doesn't fail the lookup, and is tried again on the next one
+        cache.now = issueTime + NEXT_UPDATE - 20 * SECOND;
+        cache.refresher.rejecting = true;
+        assertSame(original, cache.getCRLs(certFact, validDate, dp(1)));
+        assertEquals(0, cache.refresher.refreshes.size());
+
+        cache.refresher.rejecting = false;
+        assertSame(original, cache.getCRLs(certFact, validDate, dp(1)));
+        assertEquals(1, cache.refresher.refreshes.size());
+        assertEquals(1, cache.downloads.get());
+    }
+
+    public void testBuilderRejectsNegativeSettings()
+    {
+        try
+        {
+            new DistributionPointCRLCache.Builder().setMaxEntries(-1);
+            fail("no exception");
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertEquals("maxEntries cannot be negative", e.getMessage());
+        }
+
+        try
+        {
+            new DistributionPointCRLCache.Builder().setMaxAge(-1);
+            fail("no exception");
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertEquals("maxAge cannot be negative", e.getMessage());
+        }
+
+        try
+        {
+            new DistributionPointCRLCache.Builder().setRefreshAhead(-1);
+            fail("no exception");
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertEquals("refreshAhead cannot be negative", e.getMessage());
+        }
+    }
+
+    public void testSingleFlight()
+        throws Exception
+    {
+        final TestCache cache = new TestCache(4, 3600 * SECOND, 30 * SECOND, null, crlEncoding, issueTime);
+        cache.entered = new CountDownLatch(1);
+        cache.release = new CountDownLatch(1);
+
+        final Date validDate = new Date(issueTime);
+        final PKIXCRLStore[] results = new PKIXCRLStore[2];
+        final Exception[] errors = new Exception[2];
+
+        Thread[] threads = new Thread[2];
+        for (int i = 0; i < 2; ++i)
+        {
+            final int index = i;
+            threads[i] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        // each thread uses its own factory, as callers do
+                        results[index] = cache.getCRLs(CertificateFactory.getInstance("X.509", "BC"), validDate, dp(1));
+                    }
+                    catch (Exception e)
+                    {
+                        errors[index] = e;
+                    }
+                }
+            };
+        }
+
+        threads[0].start();
+        assertTrue(cache.entered.await(10, TimeUnit.SECONDS));
+
+        threads[1].start();
+        // wait for the second thread to block on the first thread's download
+        long deadline = System.currentTimeMillis() + 10 * SECOND;
+        while (threads[1].getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertEquals(Thread.State.WAITING, threads[1].getState());
+
+        cache.release.countDown();
+        threads[0].join();
+        threads[1].join();
+
+        assertNull(errors[0]);
+        assertNull(errors[1]);
+        assertSame(results[0], results[1]);
+        assertEquals(1, cache.downloads.get());
+    }
+
+    public void testReloadFromCacheDir()
+        throws Exception
+    {
+        File cacheDir = File.createTempFile("bccrl", "");
+        assertTrue(cacheDir.delete());
+        assertTrue(cacheDir.mkdir());
+
+        try
+        {
+            Date validDate = new Date(issueTime);
+
+            TestCache first = new TestCache(4, 3600 * SECOND, 30 * SECOND, cacheDir, crlEncoding, issueTime);
+            first.getCRLs(certFact, validDate, dp(1));
+            assertEquals(1, first.downloads.get());
+            assertEquals(1, cacheDir.listFiles().length);
+
+            // a new cache (as after a restart) loads the stored CRL instead of downloading it
+            TestCache second = new TestCache(4, 3600 * SECOND, 30 * SECOND, cacheDir, crlEncoding, issueTime);
+            PKIXCRLStore store = second.getCRLs(certFact, validDate, dp(1));
+            assertEquals(1, store.getMatches(null).size());
+            assertEquals(0, second.downloads.get());
+
+            // other distribution points are still downloaded
+            second.getCRLs(certFact, validDate, dp(2));
+            assertEquals(1, second.downloads.get());
+        }
+        finally
+        {
+            File[] files = cacheDir.listFiles();
+            for (int i = 0; i < files.length; ++i)
+            {
+                files[i].delete();
+            }
+            cacheDir.delete();
+        }
+    }
+
+    private static URI dp(int index)
+    {
+        return URI.create("http://crl.example.com/ca" + index + ".crl");
+    }
+}
@@ -1,5 +1,8 @@
 package org.bouncycastle.pkix.test;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.math.BigInteger;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
@@ -485,6 +488,75 @@ public void testRevokedEndEntityWithSoftFailure()
         }
     }
 
+    public void testRevokedWithCachedCRLDistPoint()
+        throws Exception
+    {
+        File crlFile = File.createTempFile("bccrl", ".crl");
+        crlFile.deleteOnExit();
+
+        X509Certificate dpCert = TestUtil.makeEeCertificate(crlFile.toURI().toString(), caCert, caKp.getPrivate(), eeKp.getPublic(), "CN=End Entity");
+        X509Certificate revokedDpCert = TestUtil.makeEeCertificate(crlFile.toURI().toString(), caCert, caKp.getPrivate(), eeKp.getPublic(), "CN=End Entity");
+
+        X509CRL crl = TestUtil.makeCrl(caCert, caKp.getPrivate(), revokedDpCert.getSerialNumber());
+        OutputStream fOut = new FileOutputStream(crlFile);
+        fOut.write(crl.getEncoded());
+        fOut.close();
+
+        checkRevokedWithDistPoint(revokedDpCert);
+
+        // the CRL should now be served from the cache.
+        assertTrue(crlFile.delete());
+
+        checkRevokedWithDistPoint(revokedDpCert);
+
+        List certchain = new ArrayList();
+        certchain.add(dpCert);
+        certchain.add(caCert);
+
+        validateWithDistPoint(certchain);
+    }
+
+    private void checkRevokedWithDistPoint(X509Certificate cert)
+        throws Exception
+    {
+        List certchain = new ArrayList();
+        certchain.add(cert);
+        certchain.add(caCert);
+
+        try
+        {
+            validateWithDistPoint(certchain);
+            fail("no exception");
+        }
+        catch (CertPathValidatorException e)
+        {
+            assertTrue(e.getMessage().endsWith(", reason: privilegeWithdrawn"));
+        }
+    }
+
+    private void validateWithDistPoint(List certchain)
+        throws Exception
+    {
+        CertPath cp = CertificateFactory.getInstance("X.509", "BC").generateCertPath(certchain);
+        Set trust = new HashSet();
+        trust.add(new TrustAnchor(trustCert, null));
+
+        X509RevocationChecker revocationChecker = new X509RevocationChecker
+            .Builder(new TrustAnchor(trustCert, null))
+            .setCheckEndEntityOnly(true)
+            .usingProvider("BC")
+            .build();
+
+        CertPathValidator cpv = CertPathValidator.getInstance("PKIX", "BC");
+        PKIXParameters param = new PKIXParameters(trust);
+        param.addCertStore(CertStore.getInstance("Collection", new CollectionCertStoreParameters(certchain), "BC"));
+        param.setRevocationEnabled(false);
+
+        param.addCertPathChecker(revocationChecker);
+
+        cpv.validate(cp, param);
+    }
+
     public void testRevokedWithCRLDistPointEndEntityOnly()
         throws Exception
     {
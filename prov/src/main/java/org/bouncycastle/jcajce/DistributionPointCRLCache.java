@@ -0,0 +1,606 @@
+package org.bouncycastle.jcajce;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLConnection;
+import java.security.Provider;
+import java.security.cert.CRL;
+import java.security.cert.CRLException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.naming.Context;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.util.CollectionStore;
+import org.bouncycastle.util.Iterable;
+import org.bouncycastle.util.Properties;
+import org.bouncycastle.util.Selector;
+import org.bouncycastle.util.Store;
+import org.bouncycastle.util.Strings;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.io.Streams;
+
+/**
+ * A bounded cache for CRLs fetched from distribution points. Entries are dropped once they reach a maximum
+ * age, or once their nextUpdate is before the date being validated, and are refreshed in the background
+ * shortly before they expire. Concurrent requests for the same distribution point share a single download.
+ * <p>
+ * The cache returned by {@link #getDefault()} is the one used when no other is configured. It can be tuned
+ * using the following properties:
+ * <ul>
+ * <li>org.bouncycastle.x509.crl_cache_size - maximum number of distribution points cached (default 32).</li>
+ * <li>org.bouncycastle.x509.crl_cache_ttl - maximum time in seconds a CRL is held, regardless of nextUpdate (default 86400).</li>
+ * <li>org.bouncycastle.x509.crl_refresh_ahead - time in seconds before expiry at which a CRL is refreshed in the background (default 300).</li>
+ * <li>org.bouncycastle.x509.crl_cache_dir - if set, a directory in which downloaded CRLs are also stored, so they survive a restart.</li>
+ * </ul>
+ * The same properties provide the initial settings of a {@link Builder}.
+ * </p>
+ */
+public class DistributionPointCRLCache
+    implements PKIXCRLCache
+{
+    /**
+     * Builder for a DistributionPointCRLCache.
+     */
+    public static class Builder
+    {
+        private int maxEntries = Properties.asInteger("org.bouncycastle.x509.crl_cache_size", 32);
+        private long maxAge = 1000L * Properties.asInteger("org.bouncycastle.x509.crl_cache_ttl", 86400);
+        private long refreshAhead = 1000L * Properties.asInteger("org.bouncycastle.x509.crl_refresh_ahead", 300);
+        private File cacheDir = getCacheDir(Properties.getPropertyValue("org.bouncycastle.x509.crl_cache_dir"));
+        private Executor refreshExecutor = null;
+
+        /**
+         * Set the maximum number of distribution points held.
+         *
+         * @param maxEntries the maximum number of entries.
+         * @return the current builder.
+         */
+        public Builder setMaxEntries(int maxEntries)
+        {
+            if (maxEntries < 0)
+            {
+                throw new IllegalArgumentException("maxEntries cannot be negative");
+            }
+
+            this.maxEntries = maxEntries;
+
+            return this;
+        }
+
+        /**
+         * Set the maximum time a CRL is held, regardless of its nextUpdate.
+         *
+         * @param maxAge the maximum age in milliseconds.
+         * @return the current builder.
+         */
+        public Builder setMaxAge(long maxAge)
+        {
+            if (maxAge < 0)
+            {
+                throw new IllegalArgumentException("maxAge cannot be negative");
+            }
+
+            this.maxAge = maxAge;
+
+            return this;
+        }
+
+        /**
+         * Set how long before a CRL expires it is refreshed in the background.
+         *
+         * @param refreshAhead the refresh-ahead period in milliseconds.
+         * @return the current builder.
+         */
+        public Builder setRefreshAhead(long refreshAhead)
+        {
+            if (refreshAhead < 0)
+            {
+                throw new IllegalArgumentException("refreshAhead cannot be negative");
+            }
+
+            this.refreshAhead = refreshAhead;
+
+            return this;
+        }
+
+        /**
+         * Set a directory in which downloaded CRLs are also stored, so they survive a restart.
+         *
+         * @param cacheDir the directory to use, null to keep CRLs in memory only.
+         * @return the current builder.
+         */
+        public Builder setCacheDirectory(File cacheDir)
+        {
+            this.cacheDir = cacheDir;
+
+            return this;
+        }
+
+        /**
+         * Set the executor background refreshes are run on. By default a shared pool of daemon threads is used.
+         *
+         * @param refreshExecutor the executor to run refreshes on.
+         * @return the current builder.
+         */
+        public Builder setRefreshExecutor(Executor refreshExecutor)
+        {
+            this.refreshExecutor = refreshExecutor;
+
+            return this;
+        }
+
+        public DistributionPointCRLCache build()
+        {
+            return new DistributionPointCRLCache(this);
+        }
+    }
+
+    private static final Logger LOG = Logger.getLogger(DistributionPointCRLCache.class.getName());
+
+    private static final int DEFAULT_TIMEOUT = 15000;
+
+    private static final Executor REFRESHER = Executors.newCachedThreadPool(new ThreadFactory()
+    {
+        public Thread newThread(Runnable r)
+        {
+            Thread t = new Thread(r, "BC CRL refresh");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private static final DistributionPointCRLCache DEFAULT = new Builder().build();
+
+    /**
+     * Return the cache used when no other is configured.
+     *
+     * @return the default cache.
+     */
+    public static DistributionPointCRLCache getDefault()
+    {
+        return DEFAULT;
+    }
+
+    private final long maxAge;
+    private final long refreshAhead;
+    private final File cacheDir;
+    private final Executor refresher;
+
+    private final Map<URI, CacheEntry> cache;
+    private final ConcurrentMap<URI, FutureTask<CacheEntry>> inFlight =
+        new ConcurrentHashMap<URI, FutureTask<CacheEntry>>();
+
+    protected DistributionPointCRLCache(Builder builder)
+    {
+        final int maxEntries = builder.maxEntries;
+
+        this.maxAge = builder.maxAge;
+        this.refreshAhead = builder.refreshAhead;
+        this.cacheDir = builder.cacheDir;
+        this.refresher = (builder.refreshExecutor != null) ? builder.refreshExecutor : REFRESHER;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<URI, CacheEntry>(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry<URI, CacheEntry> eldest)
+            {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public PKIXCRLStore getCRLs(CertificateFactory certFact, Date validDate, URI distributionPoint)
+        throws IOException, CRLException
+    {
+        long now = currentTimeMillis();
+
+        CacheEntry entry = cache.get(distributionPoint);
+        if (entry == null)
+        {
+            // NOTE: Runs on the caller's thread, so the caller's factory can be used
+            entry = loadFromStore(certFact, distributionPoint);
+            if (entry != null)
+            {
+                cache.put(distributionPoint, entry);
+            }
+        }
+
+        if (entry != null && entry.isUsable(validDate, now))
+        {
+            if (now >= entry.refreshTime)
+            {
+                scheduleRefresh(certFact.getProvider(), distributionPoint, entry);
+            }
+            return entry.crlStore;
+        }
+
+        return fetch(certFact.getProvider(), distributionPoint).crlStore;
+    }
+
+    /**
+     * Return the current time, used for the age of entries.
+     */
+    protected long currentTimeMillis()
+    {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Download the (DER or PEM) encoding of the CRLs at a distribution point.
+     */
+    protected byte[] fetchEncoding(URI distributionPoint)
+        throws IOException, CRLException
+    {
+        if (distributionPoint.getScheme().equals("ldap"))
+        {
+            return getCrlsFromLDAP(distributionPoint);
+        }
+
+        // http, https, ftp
+        return getCrls(distributionPoint);
+    }
+
+    private void scheduleRefresh(final Provider provider, final URI distributionPoint, CacheEntry entry)
+    {
+        // one background refresh per entry; if it fails the entry is used until it expires
+        if (!entry.refreshScheduled.compareAndSet(false, true))
+        {
+            return;
+        }
+
+        try
+        {
+            refresher.execute(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        fetch(provider, distributionPoint);
+                    }
+                    catch (Exception e)
+                    {
+                        LOG.log(Level.FINE, "background refresh of " + distributionPoint + " failed: " + e.getMessage(), e);
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            // try again on a later lookup
+            entry.refreshScheduled.set(false);
+        }
+    }
+
+    private CacheEntry fetch(final Provider provider, final URI distributionPoint)
+        throws IOException, CRLException
+    {
+        /*
+         * NOTE: The task may be waited on by several threads, and may run on the refresh thread, so it parses
+         * with its own CertificateFactory rather than any caller's (which are not thread-safe).
+         */
+        FutureTask<CacheEntry> task = new FutureTask<CacheEntry>(new Callable<CacheEntry>()
+        {
+            public CacheEntry call()
+                throws Exception
+            {
+                CacheEntry entry = download(CertificateFactory.getInstance("X.509", provider), distributionPoint);
+
+                cache.put(distributionPoint, entry);
+
+                return entry;
+            }
+        });
+
+        FutureTask<CacheEntry> current = inFlight.putIfAbsent(distributionPoint, task);
+        if (current == null)
+        {
+            current = task;
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                inFlight.remove(distributionPoint, task);
+            }
+        }
+
+        try
+        {
+            return current.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted waiting for: " + distributionPoint);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException)cause;
+            }
+            if (cause instanceof CRLException)
+            {
+                throw (CRLException)cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new CRLException("unable to fetch CRL from: " + distributionPoint, cause);
+        }
+    }
+
+    private CacheEntry download(CertificateFactory certFact, URI distributionPoint)
+        throws IOException, CRLException
+    {
+        byte[] encoding = fetchEncoding(distributionPoint);
+
+        long fetchTime = currentTimeMillis();
+        Collection crls = certFact.generateCRLs(new ByteArrayInputStream(encoding));
+
+        saveToStore(distributionPoint, encoding);
+
+        return new CacheEntry(crls, fetchTime, maxAge, refreshAhead);
+    }
+
+    private static byte[] getCrlsFromLDAP(URI distributionPoint)
+        throws IOException, CRLException
+    {
+        Map<String, String> env = new Hashtable<String, String>();
+
+        env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
+        env.put(Context.PROVIDER_URL, distributionPoint.toString());
+
+        byte[] val = null;
+        try
+        {
+            DirContext ctx = new InitialDirContext((Hashtable)env);
+            Attributes avals = ctx.getAttributes("");
+            Attribute aval = avals.get("certificateRevocationList;binary");
+            val = (byte[])aval.get();
+        }
+        catch (NamingException e)
+        {
+            throw new CRLException("issue connecting to: " + distributionPoint.toString(), e);
+        }
+
+        if ((val == null) || (val.length == 0))
+        {
+            throw new CRLException("no CRL returned from: " + distributionPoint);
+        }
+        else
+        {
+            return val;
+        }
+    }
+
+    private static byte[] getCrls(URI distributionPoint)
+        throws IOException
+    {
+        URLConnection crlCon = distributionPoint.toURL().openConnection();
+        crlCon.setConnectTimeout(DEFAULT_TIMEOUT);
+        crlCon.setReadTimeout(DEFAULT_TIMEOUT);
+
+        InputStream crlIn = crlCon.getInputStream();
+        try
+        {
+            return Streams.readAll(crlIn);
+        }
+        finally
+        {
+            crlIn.close();
+        }
+    }
+
+    private static File getCacheDir(String cacheDir)
+    {
+        return cacheDir == null ? null : new File(cacheDir);
+    }
+
+    private File getStoreFile(URI distributionPoint)
+    {
+        if (cacheDir == null)
+        {
+            return null;
+        }
+
+        byte[] uri = Strings.toUTF8ByteArray(distributionPoint.toString());
+        SHA256Digest digest = new SHA256Digest();
+        byte[] hash = new byte[digest.getDigestSize()];
+
+        digest.update(uri, 0, uri.length);
+        digest.doFinal(hash, 0);
+
+        return new File(cacheDir, Hex.toHexString(hash) + ".crl");
+    }
+
+    private CacheEntry loadFromStore(CertificateFactory certFact, URI distributionPoint)
+    {
+        File file = getStoreFile(distributionPoint);
+        if (file == null || !file.isFile())
+        {
+            return null;
+        }
+
+        try
+        {
+            InputStream fIn = new FileInputStream(file);
+            try
+            {
+                return new CacheEntry(certFact.generateCRLs(new ByteArrayInputStream(Streams.readAll(fIn))),
+                    file.lastModified(), maxAge, refreshAhead);
+            }
+            finally
+            {
+                fIn.close();
+            }
+        }
+        catch (Exception e)
+        {
+            LOG.log(Level.FINE, "unable to load stored CRL for " + distributionPoint + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private void saveToStore(URI distributionPoint, byte[] encoding)
+    {
+        File file = getStoreFile(distributionPoint);
+        if (file == null)
+        {
+            return;
+        }
+
+        try
+        {
+            // write to a temporary file first so readers never see a partial CRL
+            File tmp = File.createTempFile("crl", ".tmp", file.getParentFile());
+            OutputStream fOut = new FileOutputStream(tmp);
+            try
+            {
+                fOut.write(encoding);
+            }
+            finally
+            {
+                fOut.close();
+            }
+
+            if (!tmp.renameTo(file))
+            {
+                file.delete();
+                if (!tmp.renameTo(file))
+                {
+                    tmp.delete();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            LOG.log(Level.FINE, "unable to store CRL for " + distributionPoint + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static class CacheEntry
+    {
+        final PKIXCRLStore crlStore;
+        final long fetchTime;
+        final long refreshTime;
+        final AtomicBoolean refreshScheduled = new AtomicBoolean(false);
+
+        private final long nextUpdate;
+        private final long maxAge;
+
+        CacheEntry(Collection crls, long fetchTime, long maxAge, long refreshAhead)
+        {
+            long nextUpdate = Long.MAX_VALUE;
+            for (Iterator it = crls.iterator(); it.hasNext();)
+            {
+                Date crlNextUpdate = ((X509CRL)it.next()).getNextUpdate();
+                if (crlNextUpdate != null && crlNextUpdate.getTime() < nextUpdate)
+                {
+                    nextUpdate = crlNextUpdate.getTime();
+                }
+            }
+
+            this.crlStore = new LocalCRLStore(new CollectionStore<CRL>(crls));
+            this.fetchTime = fetchTime;
+            this.nextUpdate = nextUpdate;
+            this.maxAge = maxAge;
+            // never refresh more often than once per refresh-ahead period
+            this.refreshTime = Math.max(fetchTime + refreshAhead, Math.min(nextUpdate, fetchTime + maxAge) - refreshAhead);
+        }
+
+        boolean isUsable(Date validDate, long now)
+        {
+            return now - fetchTime < maxAge && validDate.getTime() <= nextUpdate;
+        }
+    }
+
+    private static class LocalCRLStore<T extends CRL>
+        implements PKIXCRLStore, Iterable<CRL>
+    {
+        private Collection<CRL> _local;
+
+        /**
+         * Basic constructor.
+         *
+         * @param collection - initial contents for the store, this is copied.
+         */
+        public LocalCRLStore(
+            Store<CRL> collection)
+        {
+            _local = new ArrayList<CRL>(collection.getMatches(null));
+        }
+
+        /**
+         * Return the matches in the collection for the passed in selector.
+         *
+         * @param selector the selector to match against.
+         * @return a possibly empty collection of matching objects.
+         */
+        public Collection getMatches(Selector selector)
+        {
+            if (selector == null)
+            {
+                return new ArrayList<CRL>(_local);
+            }
+            else
+            {
+                List<CRL> col = new ArrayList<CRL>();
+                Iterator<CRL> iter = _local.iterator();
+
+                while (iter.hasNext())
+                {
+                    CRL obj = iter.next();
+
+                    if (selector.match(obj))
+                    {
+                        col.add(obj);
+                    }
+                }
+
+                return col;
+            }
+        }
+
+        public Iterator<CRL> iterator()
+        {
+            return getMatches(null).iterator();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.bouncycastle.jcajce;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.cert.CRLException;
+import java.security.cert.CertificateFactory;
+import java.util.Date;
+
+/**
+ * A source of the CRLs published at CRL distribution points, consulted during revocation checking when
+ * CRLs are to be fetched from the URIs given in a certificate's CRL distribution points extension.
+ *
+ * @see DistributionPointCRLCache
+ */
+public interface PKIXCRLCache
+{
+    /**
+     * Return the CRLs published at a distribution point, fetching them if no usable copy is held.
+     *
+     * @param certFact a factory the calling thread can use to parse CRLs.
+     * @param validDate the date at which the returned CRLs must still be current.
+     * @param distributionPoint the URI the CRLs are published at.
+     * @return a store containing the CRLs.
+     * @throws IOException if the CRLs cannot be retrieved.
+     * @throws CRLException if the CRLs cannot be parsed.
+     */
+    PKIXCRLStore getCRLs(CertificateFactory certFact, Date validDate, URI distributionPoint)
+        throws IOException, CRLException;
+}
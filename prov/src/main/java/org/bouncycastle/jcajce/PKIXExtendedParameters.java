@@ -60,6 +60,7 @@
         private int validityModel = PKIX_VALIDITY_MODEL;
         private boolean useDeltas = false;
         private Set<TrustAnchor> trustAnchors;
+        private PKIXCRLCache crlCache;
 
         public Builder(PKIXParameters baseParameters)
         {
@@ -89,6 +90,7 @@ public Builder(PKIXExtendedParameters baseParameters)
             this.validityModel = baseParameters.validityModel;
             this.revocationEnabled = baseParameters.isRevocationEnabled();
             this.trustAnchors = baseParameters.getTrustAnchors();
+            this.crlCache = baseParameters.crlCache;
         }
 
         public Builder addCertificateStore(PKIXCertStore store)
@@ -176,6 +178,20 @@ public Builder setTrustAnchors(Set<TrustAnchor> trustAnchors)
             return this;
         }
 
+        /**
+         * Set the cache used for CRLs fetched from CRL distribution points.
+         *
+         * @param crlCache the cache to use, null for the default one.
+         * @return the current builder.
+         * @see DistributionPointCRLCache#getDefault()
+         */
+        public Builder setCRLCache(PKIXCRLCache crlCache)
+        {
+            this.crlCache = crlCache;
+
+            return this;
+        }
+
         /**
          * Flag whether or not revocation checking is to be enabled.
          *
@@ -204,6 +220,7 @@ public PKIXExtendedParameters build()
     private final boolean useDeltas;
     private final int validityModel;
     private final Set<TrustAnchor> trustAnchors;
+    private final PKIXCRLCache crlCache;
 
     private PKIXExtendedParameters(Builder builder)
     {
@@ -219,6 +236,7 @@ private PKIXExtendedParameters(Builder builder)
         this.useDeltas = builder.useDeltas;
         this.validityModel = builder.validityModel;
         this.trustAnchors = Collections.unmodifiableSet(builder.trustAnchors);
+        this.crlCache = builder.crlCache;
     }
 
     public List<PKIXCertStore> getCertificateStores()
@@ -242,6 +260,16 @@ public Map<GeneralName, PKIXCRLStore> getNamedCRLStoreMap()
         return namedCRLStoreMap;
     }
 
+    /**
+     * Return the cache used for CRLs fetched from CRL distribution points.
+     *
+     * @return the configured cache, or the default one if none was set.
+     */
+    public PKIXCRLCache getCRLCache()
+    {
+        return (null == crlCache) ? DistributionPointCRLCache.getDefault() : crlCache;
+    }
+
     /**
      * Returns the time at which to check the validity of the certification path. If {@code null},
      * the current time is used.
@@ -11,6 +11,7 @@
 import org.bouncycastle.crypto.digests.NullDigest;
 import org.bouncycastle.crypto.digests.RIPEMD160Digest;
 import org.bouncycastle.crypto.digests.SHAKEDigest;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
 import org.bouncycastle.crypto.params.ParametersWithRandom;
 import org.bouncycastle.crypto.signers.DSAEncoding;
 import org.bouncycastle.crypto.signers.ECDSASigner;
@@ -19,6 +20,7 @@
 import org.bouncycastle.crypto.signers.PlainDSAEncoding;
 import org.bouncycastle.crypto.signers.StandardDSAEncoding;
 import org.bouncycastle.crypto.util.DigestFactory;
+import org.bouncycastle.crypto.util.PublicKeyCache;
 import org.bouncycastle.jcajce.provider.asymmetric.util.DSABase;
 
 public class SignatureSpi
@@ -33,6 +35,10 @@ protected void engineInitVerify(PublicKey publicKey)
         throws InvalidKeyException
     {
         CipherParameters param = ECUtils.generatePublicKeyParameter(publicKey);
+        if (param instanceof ECPublicKeyParameters)
+        {
+            param = PublicKeyCache.getDefault().getECPublicKey((ECPublicKeyParameters)param);
+        }
 
         digest.reset();
         signer.init(false, param);
@@ -16,6 +16,7 @@
 import org.bouncycastle.crypto.params.Ed448PublicKeyParameters;
 import org.bouncycastle.crypto.signers.Ed25519Signer;
 import org.bouncycastle.crypto.signers.Ed448Signer;
+import org.bouncycastle.crypto.util.PublicKeyCache;
 
 public class SignatureSpi
     extends java.security.SignatureSpi
@@ -39,10 +40,12 @@ protected void engineInitVerify(PublicKey publicKey)
         if (pub instanceof Ed25519PublicKeyParameters)
         {
             signer = getSigner("Ed25519");
+            pub = PublicKeyCache.getDefault().getEd25519PublicKey((Ed25519PublicKeyParameters)pub);
         }
         else if (pub instanceof Ed448PublicKeyParameters)
         {
             signer = getSigner("Ed448");
+            pub = PublicKeyCache.getDefault().getEd448PublicKey((Ed448PublicKeyParameters)pub);
         }
         else
         {
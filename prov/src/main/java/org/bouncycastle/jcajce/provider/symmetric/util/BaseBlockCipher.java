@@ -38,6 +38,7 @@
 import org.bouncycastle.crypto.fpe.FPEFF1Engine;
 import org.bouncycastle.crypto.fpe.FPEFF3_1Engine;
 import org.bouncycastle.crypto.modes.AEADBlockCipher;
+import org.bouncycastle.crypto.modes.AEADByteBufferCipher;
 import org.bouncycastle.crypto.modes.AEADCipher;
 import org.bouncycastle.crypto.modes.CBCBlockCipher;
 import org.bouncycastle.crypto.modes.CCMBlockCipher;
@@ -1228,6 +1229,80 @@ protected int engineDoFinal(
         }
     }
 
+    protected int engineUpdate(
+        ByteBuffer input,
+        ByteBuffer output)
+        throws ShortBufferException
+    {
+        AEADGenericBlockCipher bufferCipher = getByteBufferCipher();
+        if (bufferCipher == null)
+        {
+            return super.engineUpdate(input, output);
+        }
+
+        if (cipher.getUpdateOutputSize(input.remaining()) > output.remaining())
+        {
+            throw new ShortBufferException("output buffer too short for input.");
+        }
+
+        try
+        {
+            return bufferCipher.processBytes(input, output);
+        }
+        catch (DataLengthException e)
+        {
+            // should never occur
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
+    protected int engineDoFinal(
+        ByteBuffer input,
+        ByteBuffer output)
+        throws ShortBufferException, IllegalBlockSizeException, BadPaddingException
+    {
+        AEADGenericBlockCipher bufferCipher = getByteBufferCipher();
+        if (bufferCipher == null)
+        {
+            return super.engineDoFinal(input, output);
+        }
+
+        if (engineGetOutputSize(input.remaining()) > output.remaining())
+        {
+            throw new ShortBufferException("output buffer too short for input.");
+        }
+
+        try
+        {
+            int len = 0;
+
+            if (input.hasRemaining())
+            {
+                len = bufferCipher.processBytes(input, output);
+            }
+
+            return len + bufferCipher.doFinal(output);
+        }
+        catch (OutputLengthException e)
+        {
+            throw new IllegalBlockSizeException(e.getMessage());
+        }
+        catch (DataLengthException e)
+        {
+            throw new IllegalBlockSizeException(e.getMessage());
+        }
+    }
+
+    private AEADGenericBlockCipher getByteBufferCipher()
+    {
+        if (cipher instanceof AEADGenericBlockCipher && ((AEADGenericBlockCipher)cipher).supportsByteBuffers())
+        {
+            return (AEADGenericBlockCipher)cipher;
+        }
+
+        return null;
+    }
+
     private boolean isAEADModeName(
         String modeName)
     {
@@ -1529,25 +1604,54 @@ public int doFinal(byte[] out, int outOff)
             }
             catch (InvalidCipherTextException e)
             {
-                if (aeadBadTagConstructor != null)
+                throw createBadTagException(e);
+            }
+        }
+
+        boolean supportsByteBuffers()
+        {
+            return cipher instanceof AEADByteBufferCipher;
+        }
+
+        int processBytes(ByteBuffer input, ByteBuffer output)
+            throws DataLengthException
+        {
+            return ((AEADByteBufferCipher)cipher).processBytes(input, output);
+        }
+
+        int doFinal(ByteBuffer output)
+            throws IllegalStateException, BadPaddingException
+        {
+            try
+            {
+                return ((AEADByteBufferCipher)cipher).doFinal(output);
+            }
+            catch (InvalidCipherTextException e)
+            {
+                throw createBadTagException(e);
+            }
+        }
+
+        private static BadPaddingException createBadTagException(InvalidCipherTextException e)
+        {
+            if (aeadBadTagConstructor != null)
+            {
+                BadPaddingException aeadBadTag = null;
+                try
                 {
-                    BadPaddingException aeadBadTag = null;
-                    try
-                    {
-                        aeadBadTag = (BadPaddingException)aeadBadTagConstructor
-                            .newInstance(new Object[]{e.getMessage()});
-                    }
-                    catch (Exception i)
-                    {
-                        // Shouldn't happen, but fall through to BadPaddingException
-                    }
-                    if (aeadBadTag != null)
-                    {
-                        throw aeadBadTag;
-                    }
+                    aeadBadTag = (BadPaddingException)aeadBadTagConstructor
+                        .newInstance(new Object[]{e.getMessage()});
+                }
+                catch (Exception i)
+                {
+                    // Shouldn't happen, but fall through to BadPaddingException
+                }
+                if (aeadBadTag != null)
+                {
+                    return aeadBadTag;
                 }
-                throw new BadPaddingException(e.getMessage());
             }
+            return new BadPaddingException(e.getMessage());
         }
     }
 }
@@ -67,6 +67,7 @@
 import org.bouncycastle.asn1.x509.PolicyInformation;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.internal.asn1.isismtt.ISISMTTObjectIdentifiers;
+import org.bouncycastle.jcajce.PKIXCRLCache;
 import org.bouncycastle.jcajce.PKIXCRLStore;
 import org.bouncycastle.jcajce.PKIXCRLStoreSelector;
 import org.bouncycastle.jcajce.PKIXCertRevocationCheckerParameters;
@@ -707,7 +708,8 @@ protected static void findCertificates(Set certs, PKIXCertStoreSelector certSele
     }
 
     static List<PKIXCRLStore> getAdditionalStoresFromCRLDistributionPoint(
-        CRLDistPoint crldp, Map<GeneralName, PKIXCRLStore> namedCRLStoreMap, Date validDate, JcaJceHelper helper)
+        CRLDistPoint crldp, Map<GeneralName, PKIXCRLStore> namedCRLStoreMap, Date validDate, PKIXCRLCache crlCache,
+        JcaJceHelper helper)
         throws AnnotatedException
     {
         if (null == crldp)
@@ -775,7 +777,7 @@ static List<PKIXCRLStore> getAdditionalStoresFromCRLDistributionPoint(
                             try
                             {
                                 URI distributionPoint = new URI(((ASN1String)name.getName()).getString());
-                                PKIXCRLStore store = CrlCache.getCrl(certFact, validDate, distributionPoint);
+                                PKIXCRLStore store = crlCache.getCRLs(certFact, validDate, distributionPoint);
                                 if (store != null)
                                 {
                                     stores.add(store);
@@ -1019,6 +1021,7 @@ else if (!PrincipalUtils.getEncodedIssuerPrincipal(cert).equals(PrincipalUtils.g
      *
      * @param validityDate The date for which the delta CRLs must be valid.
      * @param completeCRL The complete CRL the delta CRL is for.
+     * @param crlCache The cache for CRLs fetched from distribution points.
      * @return A <code>Set</code> of <code>X509CRL</code>s with delta CRLs.
      * @throws AnnotatedException if an exception occurs while picking the delta
      * CRLs.
@@ -1027,6 +1030,7 @@ protected static Set getDeltaCRLs(Date validityDate,
                                       X509CRL completeCRL,
                                       List<CertStore> certStores,
                                       List<PKIXCRLStore> pkixCrlStores,
+                                      PKIXCRLCache crlCache,
                                       JcaJceHelper helper)
         throws AnnotatedException
     {
@@ -1114,7 +1118,7 @@ protected static Set getDeltaCRLs(Date validityDate,
                         {
                             try
                             {
-                                PKIXCRLStore store = CrlCache.getCrl(certFact, validityDate,
+                                PKIXCRLStore store = crlCache.getCRLs(certFact, validityDate,
                                     new URI(((ASN1String)name.getName()).getString()));
                                 if (store != null)
                                 {
@@ -1740,7 +1740,8 @@ private static void checkCRL(
                 if (paramsPKIX.isUseDeltasEnabled())
                 {
                     // get delta CRLs
-                    Set deltaCRLs = CertPathValidatorUtilities.getDeltaCRLs(validityDate, crl, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores(), helper);
+                    Set deltaCRLs = CertPathValidatorUtilities.getDeltaCRLs(validityDate, crl, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores(),
+                        paramsPKIX.getCRLCache(), helper);
                     // we only want one valid delta CRL
                     // (h)
                     deltaCRL = RFC3280CertPathUtilities.processCRLH(deltaCRLs, key);
@@ -1885,7 +1886,7 @@ protected static void checkCRLs(
         try
         {
             List extras = CertPathValidatorUtilities.getAdditionalStoresFromCRLDistributionPoint(crldp,
-                paramsPKIX.getNamedCRLStoreMap(), validityDate, helper);
+                paramsPKIX.getNamedCRLStoreMap(), validityDate, paramsPKIX.getCRLCache(), helper);
             for (Iterator it = extras.iterator(); it.hasNext();)
             {
                 paramsBldr.addCRLStore((PKIXCRLStore)it.next());
@@ -155,7 +155,7 @@ protected static void checkCRLs(X509AttributeCertificate attrCert, PKIXExtendedP
                 try
                 {
                     crlStores.addAll(CertPathValidatorUtilities.getAdditionalStoresFromCRLDistributionPoint(crldp,
-                        paramsPKIX.getNamedCRLStoreMap(), validityDate, helper));
+                        paramsPKIX.getNamedCRLStoreMap(), validityDate, paramsPKIX.getCRLCache(), helper));
                 }
                 catch (AnnotatedException e)
                 {
@@ -648,7 +648,8 @@ private static void checkCRL(DistributionPoint dp, X509AttributeCertificate attr
                 if (paramsPKIX.isUseDeltasEnabled())
                 {
                     // get delta CRLs
-                    Set deltaCRLs = CertPathValidatorUtilities.getDeltaCRLs(currentDate, crl, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores(), helper);
+                    Set deltaCRLs = CertPathValidatorUtilities.getDeltaCRLs(currentDate, crl, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores(),
+                        paramsPKIX.getCRLCache(), helper);
                     // we only want one valid delta CRL
                     // (h)
                     deltaCRL = RFC3280CertPathUtilities.processCRLH(deltaCRLs,
@@ -24,6 +24,7 @@
 import org.bouncycastle.crypto.params.Ed448PublicKeyParameters;
 import org.bouncycastle.crypto.signers.Ed25519Signer;
 import org.bouncycastle.crypto.signers.Ed448Signer;
+import org.bouncycastle.crypto.util.PublicKeyCache;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.BigIntegers;
 
@@ -49,10 +50,12 @@ protected void engineInitVerify(PublicKey publicKey)
         if (pub instanceof Ed25519PublicKeyParameters)
         {
             signer = getSigner("Ed25519");
+            pub = PublicKeyCache.getDefault().getEd25519PublicKey((Ed25519PublicKeyParameters)pub);
         }
         else if (pub instanceof Ed448PublicKeyParameters)
         {
             signer = getSigner("Ed448");
+            pub = PublicKeyCache.getDefault().getEd448PublicKey((Ed448PublicKeyParameters)pub);
         }
         else
         {
@@ -59,6 +59,7 @@
         private int validityModel = PKIX_VALIDITY_MODEL;
         private boolean useDeltas = false;
         private Set trustAnchors;
+        private PKIXCRLCache crlCache;
 
         public Builder(PKIXParameters baseParameters)
         {
@@ -88,6 +89,7 @@ public Builder(PKIXExtendedParameters baseParameters)
             this.validityModel = baseParameters.validityModel;
             this.revocationEnabled = baseParameters.isRevocationEnabled();
             this.trustAnchors = baseParameters.getTrustAnchors();
+            this.crlCache = baseParameters.crlCache;
         }
 
         public Builder addCertificateStore(PKIXCertStore store)
@@ -175,6 +177,19 @@ public Builder setTrustAnchors(Set trustAnchors)
             return this;
         }
 
+        /**
+         * Set the cache used for CRLs fetched from CRL distribution points.
+         *
+         * @param crlCache the cache to use, null for the default one.
+         * @return the current builder.
+         */
+        public Builder setCRLCache(PKIXCRLCache crlCache)
+        {
+            this.crlCache = crlCache;
+
+            return this;
+        }
+
         /**
          * Flag whether or not revocation checking is to be enabled.
          *
@@ -203,6 +218,7 @@ public PKIXExtendedParameters build()
     private final boolean useDeltas;
     private final int validityModel;
     private final Set trustAnchors;
+    private final PKIXCRLCache crlCache;
 
     private PKIXExtendedParameters(Builder builder)
     {
@@ -218,6 +234,17 @@ private PKIXExtendedParameters(Builder builder)
         this.useDeltas = builder.useDeltas;
         this.validityModel = builder.validityModel;
         this.trustAnchors = Collections.unmodifiableSet(builder.trustAnchors);
+        this.crlCache = builder.crlCache;
+    }
+
+    /**
+     * Return the cache used for CRLs fetched from CRL distribution points.
+     *
+     * @return the configured cache, or null if the default one is to be used.
+     */
+    public PKIXCRLCache getCRLCache()
+    {
+        return crlCache;
     }
 
     public List getCertificateStores()
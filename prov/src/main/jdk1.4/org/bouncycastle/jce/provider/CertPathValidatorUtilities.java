@@ -67,6 +67,7 @@
 import org.bouncycastle.asn1.x509.GeneralNames;
 import org.bouncycastle.asn1.x509.PolicyInformation;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.jcajce.PKIXCRLCache;
 import org.bouncycastle.jcajce.PKIXCRLStore;
 import org.bouncycastle.jcajce.PKIXCRLStoreSelector;
 import org.bouncycastle.jcajce.PKIXCertRevocationCheckerParameters;
@@ -713,7 +714,8 @@ protected static void findCertificates(LinkedHashSet certs, PKIXCertStoreSelecto
     }
 
     static List<PKIXCRLStore> getAdditionalStoresFromCRLDistributionPoint(
-        CRLDistPoint crldp, Map<GeneralName, PKIXCRLStore> namedCRLStoreMap, Date validDate, JcaJceHelper helper)
+        CRLDistPoint crldp, Map<GeneralName, PKIXCRLStore> namedCRLStoreMap, Date validDate, PKIXCRLCache crlCache,
+        JcaJceHelper helper)
         throws AnnotatedException
     {
         if (null == crldp)
@@ -781,7 +783,9 @@ static List<PKIXCRLStore> getAdditionalStoresFromCRLDistributionPoint(
                             try
                             {
                                 URI distributionPoint = new URI(((ASN1String)name.getName()).getString());
-                                PKIXCRLStore store = CrlCache.getCrl(certFact, validDate, distributionPoint);
+                                PKIXCRLStore store = (crlCache != null)
+                                    ? crlCache.getCRLs(certFact, validDate, distributionPoint)
+                                    : CrlCache.getCrl(certFact, validDate, distributionPoint);
                                 if (store != null)
                                 {
                                     stores.add(store);
@@ -1025,6 +1029,7 @@ else if (!PrincipalUtils.getEncodedIssuerPrincipal(cert).equals(PrincipalUtils.g
      *
      * @param validityDate The date for which the delta CRLs must be valid.
      * @param completeCRL The complete CRL the delta CRL is for.
+     * @param crlCache The cache for CRLs fetched from distribution points, null for the default one.
      * @return A <code>Set</code> of <code>X509CRL</code>s with delta CRLs.
      * @throws AnnotatedException if an exception occurs while picking the delta
      * CRLs.
@@ -1033,6 +1038,7 @@ protected static Set getDeltaCRLs(Date validityDate,
                                       X509CRL completeCRL,
                                       List<CertStore> certStores,
                                       List<PKIXCRLStore> pkixCrlStores,
+                                      PKIXCRLCache crlCache,
                                       JcaJceHelper helper)
         throws AnnotatedException
     {
@@ -1120,8 +1126,10 @@ protected static Set getDeltaCRLs(Date validityDate,
                         {
                             try
                             {
-                                PKIXCRLStore store = CrlCache.getCrl(certFact, validityDate,
-                                    new URI(((ASN1String)name.getName()).getString()));
+                                URI distributionPoint = new URI(((ASN1String)name.getName()).getString());
+                                PKIXCRLStore store = (crlCache != null)
+                                    ? crlCache.getCRLs(certFact, validityDate, distributionPoint)
+                                    : CrlCache.getCrl(certFact, validityDate, distributionPoint);
                                 if (store != null)
                                 {
                                     temp = PKIXCRLUtil.findCRLs(deltaSelect, validityDate, Collections.EMPTY_LIST,
@@ -1,6 +1,7 @@
 package org.bouncycastle.jce.provider.test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.security.AlgorithmParameters;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -8,8 +9,10 @@
 import java.security.NoSuchProviderException;
 import java.security.SecureRandom;
 import java.security.Security;
+import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.InvalidParameterSpecException;
 
+import javax.crypto.AEADBadTagException;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
@@ -68,6 +71,8 @@ public void performTest() throws Exception
             testGCMGeneric(KGCM, NGCM, new byte[0], new byte[0], CGCM);
             testGCMParameterSpecWithMultipleUpdates(K2, N2, A2, P2, C2);
             testRepeatedGCMWithSpec(KGCM, NGCM, A2, P2, Hex.decode("f4732d84342623f65b7d63c3c335dd44b87d"));
+            testByteBuffers("AES/GCM/NoPadding", new SecretKeySpec(new byte[16], "AES"), new GCMParameterSpec(128, NGCM));
+            testByteBuffers("ChaCha20-Poly1305", new SecretKeySpec(new byte[32], "ChaCha20"), new IvParameterSpec(new byte[12]));
         }
         else
         {
@@ -76,6 +81,53 @@ public void performTest() throws Exception
         testTampering(aeadAvailable);
     }
 
+    private void testByteBuffers(String algorithm, SecretKeySpec key, AlgorithmParameterSpec spec)
+        throws Exception
+    {
+        Cipher cipher = Cipher.getInstance(algorithm, "BC");
+
+        byte[] msg = new byte[10000];
+        for (int i = 0; i != msg.length; i++)
+        {
+            msg[i] = (byte)i;
+        }
+
+        cipher.init(Cipher.ENCRYPT_MODE, key, spec);
+        byte[] expected = cipher.doFinal(msg);
+
+        cipher.init(Cipher.DECRYPT_MODE, key, spec);
+        ByteBuffer in = ByteBuffer.allocateDirect(expected.length);
+        in.put(expected).flip();
+        ByteBuffer out = ByteBuffer.allocateDirect(msg.length);
+
+        ByteBuffer part = in.duplicate();
+        part.limit(1000);
+        int len = cipher.update(part, out);
+        in.position(1000);
+        len += cipher.doFinal(in, out);
+
+        isEquals(algorithm + " direct buffer length", msg.length, len);
+        byte[] result = new byte[msg.length];
+        out.flip();
+        out.get(result);
+        isTrue(algorithm + " direct buffer decryption", Arrays.areEqual(msg, result));
+
+        expected[expected.length - 1] ^= 1;
+        cipher.init(Cipher.DECRYPT_MODE, key, spec);
+        in.clear();
+        in.put(expected).flip();
+        out.clear();
+        try
+        {
+            cipher.doFinal(in, out);
+            fail(algorithm + " tampering not detected");
+        }
+        catch (AEADBadTagException e)
+        {
+            // expected
+        }
+    }
+
     private void testTampering(boolean aeadAvailable)
         throws InvalidKeyException,
         InvalidAlgorithmParameterException,
@@ -0,0 +1,28 @@
+package org.bouncycastle.jsse;
+
+/**
+ * Records the ClientHello messages for which a BCJSSE server accepted TLS 1.3 early data (0-RTT), so that
+ * a replayed ClientHello can be detected and its early data rejected (see RFC 8446 8.2). Servers that
+ * share a session ticket key source should also share a store. Implementations must be thread-safe.
+ *
+ * @see BCSSLParameters#setAntiReplayStore(BCAntiReplayStore)
+ * @see BCBloomAntiReplayStore
+ */
+public interface BCAntiReplayStore
+{
+    /**
+     * @return the freshness window (in milliseconds): early data is only accepted if the client's view of
+     *         the ticket age is within this amount of the server's. Entries must be retained for at least
+     *         this long.
+     */
+    long getWindow();
+
+    /**
+     * Record a ClientHello, identified by its random value.
+     *
+     * @param clientRandom the random value from the ClientHello.
+     * @return true if the ClientHello was not already recorded, or false if it may be a replay (in which case
+     *         the early data will be rejected).
+     */
+    boolean checkAndRecord(byte[] clientRandom);
+}
@@ -0,0 +1,144 @@
+package org.bouncycastle.jsse;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.macs.SipHash;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+/**
+ * An in-memory {@link BCAntiReplayStore} based on a pair of time-bucketed Bloom filters.
+ * <p>
+ * Each filter covers one window; when the current filter's window ends it becomes the previous filter, so
+ * every entry is remembered for between one and two windows. A false positive only causes early data to be
+ * rejected (and then sent again by the client after the handshake), so the filters are sized for about 0.05%
+ * false positives at the expected number of entries per window. The filter indices are derived from SipHash
+ * under a random key, so they cannot be predicted by clients.
+ * </p>
+ */
+public class BCBloomAntiReplayStore
+    implements BCAntiReplayStore
+{
+    private static final int BITS_PER_ENTRY = 16;
+    private static final int HASH_COUNT = 11;
+
+    protected final long window;
+    protected final int bitCount;
+
+    private final SipHash sipHash = new SipHash();
+
+    private long[] current, previous;
+    private long currentStart = Long.MIN_VALUE;
+
+    /**
+     * @param window the freshness window (in milliseconds).
+     * @param expectedEntries the expected number of early data handshakes per window.
+     */
+    public BCBloomAntiReplayStore(long window, int expectedEntries)
+    {
+        this(window, expectedEntries, new SecureRandom());
+    }
+
+    public BCBloomAntiReplayStore(long window, int expectedEntries, SecureRandom random)
+    {
+        if (window <= 0L || window > (Long.MAX_VALUE >>> 1))
+        {
+            throw new IllegalArgumentException("'window' out of range");
+        }
+        if (expectedEntries <= 0 || expectedEntries > (Integer.MAX_VALUE / BITS_PER_ENTRY))
+        {
+            throw new IllegalArgumentException("'expectedEntries' out of range");
+        }
+        if (null == random)
+        {
+            throw new NullPointerException("'random' cannot be null");
+        }
+
+        this.window = window;
+
+        int words = (expectedEntries * BITS_PER_ENTRY + 63) >>> 6;
+        this.bitCount = words << 6;
+        this.current = new long[words];
+        this.previous = new long[words];
+
+        byte[] key = new byte[16];
+        random.nextBytes(key);
+        sipHash.init(new KeyParameter(key));
+    }
+
+    public long getWindow()
+    {
+        return window;
+    }
+
+    public synchronized boolean checkAndRecord(byte[] clientRandom)
+    {
+        rotate(currentTimeMillis());
+
+        sipHash.update(clientRandom, 0, clientRandom.length);
+        long hash = sipHash.doFinal();
+
+        // Double hashing (Kirsch-Mitzenmacher); h2 is odd so that successive indices differ
+        int h1 = (int)hash, h2 = (int)(hash >>> 32) | 1;
+
+        boolean found = true;
+        for (int i = 0; i < HASH_COUNT; ++i)
+        {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            int word = bit >>> 6;
+            long mask = 1L << bit;
+
+            if (0L == (previous[word] & mask) && 0L == (current[word] & mask))
+            {
+                found = false;
+            }
+            current[word] |= mask;
+        }
+
+        return !found;
+    }
+
+    protected long currentTimeMillis()
+    {
+        return System.currentTimeMillis();
+    }
+
+    private void rotate(long now)
+    {
+        if (Long.MIN_VALUE == currentStart)
+        {
+            this.currentStart = now;
+            return;
+        }
+
+        // NOTE: If the clock goes backwards, entries are kept until it catches up again
+        long elapsed = now - currentStart;
+        if (elapsed < window)
+        {
+            return;
+        }
+
+        long[] tmp = previous;
+        if (elapsed < 2 * window)
+        {
+            this.previous = current;
+            this.currentStart += window;
+        }
+        else
+        {
+            clear(current);
+            this.previous = current;
+            this.currentStart = now;
+        }
+
+        clear(tmp);
+        this.current = tmp;
+    }
+
+    private static void clear(long[] bits)
+    {
+        for (int i = 0; i < bits.length; ++i)
+        {
+            bits[i] = 0L;
+        }
+    }
+}
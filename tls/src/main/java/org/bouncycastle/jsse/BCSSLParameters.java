@@ -42,6 +42,9 @@ private static <T> List<T> copyList(Collection<T> list)
     private String[] applicationProtocols = TlsUtils.EMPTY_STRINGS;
     private String[] signatureSchemes = null;
     private String[] namedGroups = null;
+    private BCSessionTicketKeySource sessionTicketKeySource = null;
+    private int maxEarlyDataSize = 0;
+    private BCAntiReplayStore antiReplayStore = null;
 
     public BCSSLParameters()
     {
@@ -290,4 +293,52 @@ public void setNamedGroups(String[] namedGroups)
 
         this.namedGroups = check;
     }
+
+    public BCSessionTicketKeySource getSessionTicketKeySource()
+    {
+        return sessionTicketKeySource;
+    }
+
+    /**
+     * Set the source of keys used (server-side) to issue and redeem stateless session tickets, for TLS 1.2
+     * (RFC 5077) and TLS 1.3 (PSK resumption). Tickets are disabled when this is null (the default).
+     */
+    public void setSessionTicketKeySource(BCSessionTicketKeySource sessionTicketKeySource)
+    {
+        this.sessionTicketKeySource = sessionTicketKeySource;
+    }
+
+    public int getMaxEarlyDataSize()
+    {
+        return maxEarlyDataSize;
+    }
+
+    /**
+     * Set the maximum amount of TLS 1.3 early data (0-RTT) a server will accept on a resumed session; 0 (the
+     * default) disables early data. Early data is only accepted when a session ticket key source and an
+     * anti-replay store are also set.
+     */
+    public void setMaxEarlyDataSize(int maxEarlyDataSize)
+    {
+        if (maxEarlyDataSize < 0)
+        {
+            throw new IllegalArgumentException("'maxEarlyDataSize' cannot be negative");
+        }
+
+        this.maxEarlyDataSize = maxEarlyDataSize;
+    }
+
+    public BCAntiReplayStore getAntiReplayStore()
+    {
+        return antiReplayStore;
+    }
+
+    /**
+     * Set the store a server uses to detect replayed TLS 1.3 early data (see RFC 8446 8.). Early data is
+     * never accepted when this is null (the default).
+     */
+    public void setAntiReplayStore(BCAntiReplayStore antiReplayStore)
+    {
+        this.antiReplayStore = antiReplayStore;
+    }
 }
@@ -0,0 +1,32 @@
+package org.bouncycastle.jsse;
+
+import javax.net.ssl.SSLSessionContext;
+
+/**
+ * A BCJSSE-specific interface providing access to statistics for an {@link SSLSessionContext}'s session cache.
+ */
+public interface BCSSLSessionContext
+    extends SSLSessionContext
+{
+    /**
+     * Returns the number of session lookups (by session ID or by peer) that found a valid cached session.
+     *
+     * @return The cache hit count.
+     */
+    long getSessionCacheHitCount();
+
+    /**
+     * Returns the number of session lookups (by session ID or by peer) that did not find a valid cached session.
+     *
+     * @return The cache miss count.
+     */
+    long getSessionCacheMissCount();
+
+    /**
+     * Returns the number of sessions removed from the cache to keep it within the configured session cache size.
+     * Sessions removed because they timed out or were invalidated are not counted.
+     *
+     * @return The cache eviction count.
+     */
+    long getSessionCacheEvictionCount();
+}
@@ -0,0 +1,113 @@
+package org.bouncycastle.jsse;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A key used to protect stateless session tickets (RFC 5077 4, RFC 8446 4.6.1). The key name is carried in the
+ * clear at the start of each ticket so that the key that sealed it can be found again, possibly by another
+ * server sharing the same keys.
+ * <p>
+ * A key is used to seal new tickets from its not-before time until its issue-until time, and tickets sealed by it
+ * are accepted until its accept-until time. Giving consecutive keys overlapping validity lets keys be rotated
+ * without invalidating tickets that are still in use.
+ * </p>
+ */
+public final class BCSessionTicketKey
+{
+    public static final int NAME_LENGTH = 16;
+    public static final int KEY_LENGTH = 32;
+
+    public static BCSessionTicketKey generate(SecureRandom random, long notBefore, long issueUntil, long acceptUntil)
+    {
+        byte[] name = new byte[NAME_LENGTH];
+        byte[] key = new byte[KEY_LENGTH];
+        random.nextBytes(name);
+        random.nextBytes(key);
+
+        try
+        {
+            return new BCSessionTicketKey(name, key, notBefore, issueUntil, acceptUntil);
+        }
+        finally
+        {
+            Arrays.fill(key, (byte)0);
+        }
+    }
+
+    private final byte[] name;
+    private final byte[] key;
+    private final long notBefore;
+    private final long issueUntil;
+    private final long acceptUntil;
+
+    /**
+     * @param name the 16-byte key name.
+     * @param key the 32-byte (AES-256) key.
+     * @param notBefore the time (in milliseconds) from which the key may be used to seal tickets.
+     * @param issueUntil the time (in milliseconds) after which the key is no longer used to seal tickets.
+     * @param acceptUntil the time (in milliseconds) after which tickets sealed by the key are no longer accepted.
+     */
+    public BCSessionTicketKey(byte[] name, byte[] key, long notBefore, long issueUntil, long acceptUntil)
+    {
+        if (null == name || name.length != NAME_LENGTH)
+        {
+            throw new IllegalArgumentException("'name' must be " + NAME_LENGTH + " bytes");
+        }
+        if (null == key || key.length != KEY_LENGTH)
+        {
+            throw new IllegalArgumentException("'key' must be " + KEY_LENGTH + " bytes");
+        }
+        if (notBefore > issueUntil || issueUntil > acceptUntil)
+        {
+            throw new IllegalArgumentException("'notBefore', 'issueUntil', 'acceptUntil' must be in order");
+        }
+
+        this.name = Arrays.clone(name);
+        this.key = Arrays.clone(key);
+        this.notBefore = notBefore;
+        this.issueUntil = issueUntil;
+        this.acceptUntil = acceptUntil;
+    }
+
+    public byte[] getName()
+    {
+        return Arrays.clone(name);
+    }
+
+    public byte[] getKey()
+    {
+        return Arrays.clone(key);
+    }
+
+    public long getNotBefore()
+    {
+        return notBefore;
+    }
+
+    public long getIssueUntil()
+    {
+        return issueUntil;
+    }
+
+    public long getAcceptUntil()
+    {
+        return acceptUntil;
+    }
+
+    public boolean canIssue(long time)
+    {
+        return notBefore <= time && time < issueUntil;
+    }
+
+    public boolean canAccept(long time)
+    {
+        return time < acceptUntil;
+    }
+
+    public boolean hasName(byte[] name)
+    {
+        return Arrays.constantTimeAreEqual(this.name, name);
+    }
+}
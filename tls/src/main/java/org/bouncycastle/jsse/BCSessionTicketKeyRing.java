@@ -0,0 +1,151 @@
+package org.bouncycastle.jsse;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An in-memory {@link BCSessionTicketKeySource}.
+ * <p>
+ * When constructed with a {@link SecureRandom}, the ring generates its own keys: a new key is created whenever
+ * no existing key may be used to issue tickets, each key issues tickets for the rotation period, and tickets
+ * remain acceptable for the ticket lifetime after that. Keys may also be added explicitly (e.g. keys
+ * distributed to every server in a cluster), in which case the issuing key is the most recent one (by
+ * not-before time) currently able to issue tickets. Keys are discarded once they are no longer acceptable.
+ * </p>
+ */
+public class BCSessionTicketKeyRing
+    implements BCSessionTicketKeySource
+{
+    protected final SecureRandom random;
+    protected final long rotationPeriod;
+    protected final long ticketLifetime;
+    protected final List<BCSessionTicketKey> keys = new ArrayList<BCSessionTicketKey>();
+
+    /**
+     * Create a ring that only holds keys added via {@link #addKey(BCSessionTicketKey)}.
+     */
+    public BCSessionTicketKeyRing()
+    {
+        this.random = null;
+        this.rotationPeriod = 0L;
+        this.ticketLifetime = 0L;
+    }
+
+    /**
+     * Create a ring that generates and rotates its own keys.
+     *
+     * @param random the source of randomness for new keys.
+     * @param rotationPeriod how long (in milliseconds) each generated key issues tickets for.
+     * @param ticketLifetime how long (in milliseconds) tickets remain acceptable after a key stops issuing.
+     */
+    public BCSessionTicketKeyRing(SecureRandom random, long rotationPeriod, long ticketLifetime)
+    {
+        if (null == random)
+        {
+            throw new NullPointerException("'random' cannot be null");
+        }
+        if (rotationPeriod <= 0L)
+        {
+            throw new IllegalArgumentException("'rotationPeriod' must be positive");
+        }
+        if (ticketLifetime < 0L)
+        {
+            throw new IllegalArgumentException("'ticketLifetime' cannot be negative");
+        }
+
+        this.random = random;
+        this.rotationPeriod = rotationPeriod;
+        this.ticketLifetime = ticketLifetime;
+    }
+
+    public synchronized void addKey(BCSessionTicketKey key)
+    {
+        if (null == key)
+        {
+            throw new NullPointerException("'key' cannot be null");
+        }
+
+        removeKey(key.getName());
+        keys.add(key);
+    }
+
+    public synchronized boolean removeKey(byte[] name)
+    {
+        Iterator<BCSessionTicketKey> it = keys.iterator();
+        while (it.hasNext())
+        {
+            if (it.next().hasName(name))
+            {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized List<BCSessionTicketKey> getKeys()
+    {
+        return Collections.unmodifiableList(new ArrayList<BCSessionTicketKey>(keys));
+    }
+
+    public synchronized BCSessionTicketKey getIssuingKey()
+    {
+        long now = currentTimeMillis();
+
+        removeExpiredKeys(now);
+
+        BCSessionTicketKey result = null;
+        for (BCSessionTicketKey key : keys)
+        {
+            if (key.canIssue(now) && (null == result || key.getNotBefore() > result.getNotBefore()))
+            {
+                result = key;
+            }
+        }
+
+        if (null == result && null != random)
+        {
+            result = BCSessionTicketKey.generate(random, now, now + rotationPeriod,
+                now + rotationPeriod + ticketLifetime);
+            keys.add(result);
+        }
+
+        return result;
+    }
+
+    public synchronized BCSessionTicketKey getKey(byte[] name)
+    {
+        long now = currentTimeMillis();
+
+        removeExpiredKeys(now);
+
+        for (BCSessionTicketKey key : keys)
+        {
+            if (key.hasName(name))
+            {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    protected long currentTimeMillis()
+    {
+        return System.currentTimeMillis();
+    }
+
+    protected void removeExpiredKeys(long now)
+    {
+        Iterator<BCSessionTicketKey> it = keys.iterator();
+        while (it.hasNext())
+        {
+            if (!it.next().canAccept(now))
+            {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.bouncycastle.jsse;
+
+/**
+ * Supplies the keys a BCJSSE server uses to seal and open stateless session tickets. Servers that share a
+ * key source (or sources returning the same keys) can each resume sessions established with any other.
+ * Implementations must be thread-safe.
+ *
+ * @see BCSSLParameters#setSessionTicketKeySource(BCSessionTicketKeySource)
+ * @see BCSessionTicketKeyRing
+ */
+public interface BCSessionTicketKeySource
+{
+    /**
+     * @return the key to seal new tickets with, or null if no tickets should be issued.
+     */
+    BCSessionTicketKey getIssuingKey();
+
+    /**
+     * @param name the key name from a ticket presented by a client.
+     * @return the key with the given name if tickets sealed by it are still acceptable, otherwise null.
+     */
+    BCSessionTicketKey getKey(byte[] name);
+}
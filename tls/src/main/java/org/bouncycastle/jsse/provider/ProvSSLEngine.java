@@ -34,9 +34,17 @@
 
 /*
  * TODO[jsse] Known limitations (relative to SSLEngine javadoc): 1. The wrap() and unwrap() methods
- * are synchronized, so will not execute concurrently with each other. 2. Never delegates tasks i.e.
- * getDelegatedTasks() will always return null; CPU-intensive parts of the handshake will execute
- * during wrap/unwrap calls.
+ * are synchronized, so will not execute concurrently with each other. 2. Delegated tasks are at the
+ * granularity of a handshake record: unwrap() returns NEED_TASK for each inbound record received while
+ * handshaking, and the task processes that record, including any signing, key agreement and trust
+ * manager checks it triggers. Tasks run without holding the engine lock; until a task completes, wrap()
+ * and unwrap() return NEED_TASK without touching the protocol, and closeInbound()/closeOutbound() are
+ * deferred to the task's completion. Delegation can be disabled with the
+ * "org.bouncycastle.jsse.engine.delegatedTasks" system property, in which case all of this happens
+ * during unwrap calls. 3. By default unwrap() copies each record out of the source buffer before
+ * decrypting it. Setting the "org.bouncycastle.jsse.engine.decryptInPlace" system property to true
+ * avoids the copy for buffers with an accessible array, but the consumed bytes of the source buffer are
+ * then overwritten with intermediate data, so callers must not rely on them after unwrap() returns.
  */
 class ProvSSLEngine
     extends SSLEngine
@@ -44,6 +52,12 @@
 {
     private static final Logger LOG = Logger.getLogger(ProvSSLEngine.class.getName());
 
+    private static final boolean provDelegatedTasks = PropertyUtils.getBooleanSystemProperty(
+        "org.bouncycastle.jsse.engine.delegatedTasks", true);
+
+    private static final boolean provDecryptInPlace = PropertyUtils.getBooleanSystemProperty(
+        "org.bouncycastle.jsse.engine.decryptInPlace", false);
+
     protected final ContextData contextData;
     protected final ProvSSLParameters sslParameters;
 
@@ -61,6 +75,19 @@
 
     protected SSLException deferredException = null;
 
+    // A handshake record waiting to be processed by a delegated task
+    protected Runnable delegatedTask = null;
+    protected boolean delegatedTaskPending = false;
+
+    // Closures requested while a delegated task was pending, applied when it completes
+    protected boolean closeInboundDeferred = false;
+    protected boolean closeOutboundDeferred = false;
+
+    // Scratch buffers reused across wrap/unwrap calls (which are synchronized)
+    private final byte[] recordHeader = new byte[RecordFormat.FRAGMENT_OFFSET];
+    private byte[] recordBuffer = null;
+    private byte[] appDataBuffer = null;
+
     protected ProvSSLEngine(ContextData contextData)
     {
         this(contextData, null, -1);
@@ -177,6 +204,10 @@ else if (null == protocol)
         {
             this.closedEarly = true;
         }
+        else if (delegatedTaskPending)
+        {
+            this.closeInboundDeferred = true;
+        }
         else
         {
             try
@@ -201,6 +232,10 @@ else if (null == protocol)
         {
             this.closedEarly = true;
         }
+        else if (delegatedTaskPending)
+        {
+            this.closeOutboundDeferred = true;
+        }
         else
         {
             try
@@ -243,7 +278,9 @@ public synchronized BCSSLConnection getConnection()
     @Override
     public synchronized Runnable getDelegatedTask()
     {
-        return null;
+        Runnable task = delegatedTask;
+        delegatedTask = null;
+        return task;
     }
 
     @Override
@@ -279,6 +316,10 @@ public synchronized SSLSession getHandshakeSession()
     @Override
     public synchronized SSLEngineResult.HandshakeStatus getHandshakeStatus()
     {
+        if (delegatedTaskPending)
+        {
+            return HandshakeStatus.NEED_TASK;
+        }
         if (protocol != null)
         {
             if (protocol.getAvailableOutputBytes() > 0 || deferredException != null)
@@ -348,13 +389,14 @@ public synchronized boolean getWantClientAuth()
     @Override
     public synchronized boolean isInboundDone()
     {
-        return closedEarly || (null != protocol && protocol.isClosed());
+        return closedEarly || (!delegatedTaskPending && null != protocol && protocol.isClosed());
     }
 
     @Override
     public synchronized boolean isOutboundDone()
     {
-        return closedEarly || (null != protocol && protocol.isClosed() && protocol.getAvailableOutputBytes() < 1);
+        return closedEarly
+            || (!delegatedTaskPending && null != protocol && protocol.isClosed() && protocol.getAvailableOutputBytes() < 1);
     }
 
     public synchronized void setBCHandshakeApplicationProtocolSelector(BCApplicationProtocolSelector<SSLEngine> selector)
@@ -469,21 +511,63 @@ public synchronized SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, in
         int bytesConsumed = 0;
         try
         {
-            RecordPreview preview = getRecordPreview(src);
-            if (preview == null || src.remaining() < preview.getRecordSize())
+            if (protocol.getAvailableInputBytes() > 0)
             {
-                return new SSLEngineResult(Status.BUFFER_UNDERFLOW, initialHandshakeStatus, 0, 0);
+                /*
+                 * Application data left over from a delegated task is returned before any more input is read.
+                 */
+                if (hasInsufficientSpace(dsts, offset, length, 1))
+                {
+                    return new SSLEngineResult(Status.BUFFER_OVERFLOW, initialHandshakeStatus, 0, 0);
+                }
             }
-            if (hasInsufficientSpace(dsts, offset, length, preview.getContentLimit()))
+            else
             {
-                return new SSLEngineResult(Status.BUFFER_OVERFLOW, initialHandshakeStatus, 0, 0);
-            }
+                RecordPreview preview = getRecordPreview(src);
+                if (preview == null || src.remaining() < preview.getRecordSize())
+                {
+                    return new SSLEngineResult(Status.BUFFER_UNDERFLOW, initialHandshakeStatus, 0, 0);
+                }
+                if (hasInsufficientSpace(dsts, offset, length, preview.getContentLimit()))
+                {
+                    return new SSLEngineResult(Status.BUFFER_OVERFLOW, initialHandshakeStatus, 0, 0);
+                }
 
-            bytesConsumed = preview.getRecordSize();
-            byte[] record = new byte[bytesConsumed];
-            src.get(record);
+                bytesConsumed = preview.getRecordSize();
+
+                if (provDelegatedTasks && initialHandshakeStatus == HandshakeStatus.NEED_UNWRAP)
+                {
+                    /*
+                     * The record is copied out of the source buffer, since the caller may reuse it before
+                     * the task runs.
+                     */
+                    byte[] record = getRecordBuffer(bytesConsumed);
+                    src.get(record, 0, bytesConsumed);
+
+                    this.delegatedTask = new HandshakeTask(record, bytesConsumed);
+                    this.delegatedTaskPending = true;
+
+                    return new SSLEngineResult(Status.OK, HandshakeStatus.NEED_TASK, bytesConsumed, 0);
+                }
+
+                if (provDecryptInPlace && src.hasArray())
+                {
+                    /*
+                     * The record is decrypted in place in the (consumed part of the) source buffer.
+                     */
+                    int position = src.position();
+                    ((java.nio.Buffer)src).position(position + bytesConsumed);
 
-            protocol.offerInput(record, 0, record.length);
+                    protocol.offerInput(src.array(), src.arrayOffset() + position, bytesConsumed);
+                }
+                else
+                {
+                    byte[] record = getRecordBuffer(bytesConsumed);
+                    src.get(record, 0, bytesConsumed);
+
+                    protocol.offerInput(record, 0, bytesConsumed);
+                }
+            }
         }
         catch (IOException e)
         {
@@ -508,7 +592,7 @@ public synchronized SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, in
         }
 
         int appDataAvailable = protocol.getAvailableInputBytes(), bytesProduced = 0;
-        for (int dstIndex = 0; appDataAvailable > 0; ++dstIndex)
+        for (int dstIndex = 0; appDataAvailable > 0 && dstIndex < length; ++dstIndex)
         {
             ByteBuffer dst = dsts[offset + dstIndex];
             int count = Math.min(dst.remaining(), appDataAvailable);
@@ -553,6 +637,11 @@ public synchronized SSLEngineResult wrap(ByteBuffer[] srcs, int offset, int leng
             return new SSLEngineResult(Status.CLOSED, HandshakeStatus.NOT_HANDSHAKING, 0, 0);
         }
 
+        if (delegatedTaskPending)
+        {
+            return new SSLEngineResult(Status.OK, HandshakeStatus.NEED_TASK, 0, 0);
+        }
+
         if (!initialHandshakeBegun)
         {
             beginHandshake();
@@ -614,22 +703,34 @@ else if (protocol.isConnected())
                         return new SSLEngineResult(Status.BUFFER_OVERFLOW, HandshakeStatus.NOT_HANDSHAKING, 0, 0);
                     }
 
-                    // TODO Support writing application data using ByteBuffer array directly
-
-                    byte[] buffer = new byte[srcLimit];
-
-                    for (int srcIndex = 0; srcIndex < length && bytesConsumed < srcLimit; ++srcIndex)
+                    ByteBuffer first = srcs[offset];
+                    if (first.hasArray() && first.remaining() >= srcLimit)
                     {
-                        ByteBuffer src = srcs[offset + srcIndex];
-                        int count = Math.min(src.remaining(), srcLimit - bytesConsumed);
-                        if (count > 0)
+                        /*
+                         * The whole record comes from one buffer, so it is encrypted from there directly.
+                         */
+                        protocol.writeApplicationData(first.array(), first.arrayOffset() + first.position(),
+                            srcLimit);
+
+                        ((java.nio.Buffer)first).position(first.position() + srcLimit);
+                        bytesConsumed = srcLimit;
+                    }
+                    else
+                    {
+                        byte[] buffer = getAppDataBuffer(srcLimit);
+                        for (int srcIndex = 0; srcIndex < length && bytesConsumed < srcLimit; ++srcIndex)
                         {
-                            src.get(buffer, bytesConsumed, count);
-                            bytesConsumed += count;
+                            ByteBuffer src = srcs[offset + srcIndex];
+                            int count = Math.min(src.remaining(), srcLimit - bytesConsumed);
+                            if (count > 0)
+                            {
+                                src.get(buffer, bytesConsumed, count);
+                                bytesConsumed += count;
+                            }
                         }
-                    }
 
-                    protocol.writeApplicationData(buffer, 0, bytesConsumed);
+                        protocol.writeApplicationData(buffer, 0, bytesConsumed);
+                    }
 
                     bytesProduced = protocol.getAvailableOutputBytes();
                     assert bytesProduced <= dstLimit;
@@ -722,6 +823,94 @@ ProvSSLSession getSessionImpl()
         return null == connection ? ProvSSLSession.NULL_SESSION : connection.getSession();
     }
 
+    private class HandshakeTask
+        implements Runnable
+    {
+        private final byte[] record;
+        private final int length;
+
+        HandshakeTask(byte[] record, int length)
+        {
+            this.record = record;
+            this.length = length;
+        }
+
+        public void run()
+        {
+            TlsProtocol protocol;
+            synchronized (ProvSSLEngine.this)
+            {
+                protocol = ProvSSLEngine.this.protocol;
+            }
+
+            /*
+             * NOTE: The record is processed without holding the engine lock, so that other threads can
+             * still use the engine while any signing, key agreement or trust checks run. Nothing else
+             * touches the protocol while the task is pending.
+             */
+            SSLException failure = null;
+            try
+            {
+                protocol.offerInput(record, 0, length);
+            }
+            catch (IOException e)
+            {
+                failure = new SSLException(e);
+            }
+            catch (RuntimeException e)
+            {
+                failure = new SSLException(e);
+            }
+
+            synchronized (ProvSSLEngine.this)
+            {
+                // NOTE: As for unwrap, the exception is thrown from the next wrap call
+                if (null != failure)
+                {
+                    deferredException = failure;
+                }
+
+                delegatedTaskPending = false;
+
+                applyDeferredClose();
+            }
+        }
+    }
+
+    private void applyDeferredClose()
+    {
+        if (closeInboundDeferred)
+        {
+            this.closeInboundDeferred = false;
+
+            try
+            {
+                protocol.closeInput();
+            }
+            catch (IOException e)
+            {
+                if (null == deferredException)
+                {
+                    this.deferredException = new SSLException(e);
+                }
+            }
+        }
+
+        if (closeOutboundDeferred)
+        {
+            this.closeOutboundDeferred = false;
+
+            try
+            {
+                protocol.close();
+            }
+            catch (IOException e)
+            {
+                LOG.log(Level.WARNING, "Failed to close outbound", e);
+            }
+        }
+    }
+
     private RecordPreview getRecordPreview(ByteBuffer src)
         throws IOException
     {
@@ -730,8 +919,6 @@ private RecordPreview getRecordPreview(ByteBuffer src)
             return null;
         }
 
-        byte[] recordHeader = new byte[RecordFormat.FRAGMENT_OFFSET];
-
         int position = src.position();
         src.get(recordHeader);
         ((java.nio.Buffer)src).position(position);
@@ -739,6 +926,24 @@ private RecordPreview getRecordPreview(ByteBuffer src)
         return protocol.previewInputRecord(recordHeader);
     }
 
+    private byte[] getAppDataBuffer(int length)
+    {
+        if (appDataBuffer == null || appDataBuffer.length < length)
+        {
+            appDataBuffer = new byte[Math.max(length, protocol.getApplicationDataLimit())];
+        }
+        return appDataBuffer;
+    }
+
+    private byte[] getRecordBuffer(int length)
+    {
+        if (recordBuffer == null || recordBuffer.length < length)
+        {
+            recordBuffer = new byte[length];
+        }
+        return recordBuffer;
+    }
+
     private Status getStatus()
     {
         return protocol.isClosed() ? Status.CLOSED : Status.OK;
@@ -8,9 +8,11 @@
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLSocket;
 
+import org.bouncycastle.jsse.BCAntiReplayStore;
 import org.bouncycastle.jsse.BCApplicationProtocolSelector;
 import org.bouncycastle.jsse.BCSNIMatcher;
 import org.bouncycastle.jsse.BCSNIServerName;
+import org.bouncycastle.jsse.BCSessionTicketKeySource;
 import org.bouncycastle.jsse.java.security.BCAlgorithmConstraints;
 import org.bouncycastle.tls.TlsUtils;
 
@@ -45,6 +47,9 @@ private static <T> List<T> copyList(Collection<T> list)
     private String[] applicationProtocols = TlsUtils.EMPTY_STRINGS;
     private String[] signatureSchemes = null;
     private String[] namedGroups = null;
+    private BCSessionTicketKeySource sessionTicketKeySource = null;
+    private int maxEarlyDataSize = 0;
+    private BCAntiReplayStore antiReplayStore = null;
 
     private BCApplicationProtocolSelector<SSLEngine> engineAPSelector;
     private BCApplicationProtocolSelector<SSLSocket> socketAPSelector;
@@ -73,6 +78,9 @@ ProvSSLParameters copy()
         p.applicationProtocols = applicationProtocols;
         p.signatureSchemes = signatureSchemes;
         p.namedGroups = namedGroups;
+        p.sessionTicketKeySource = sessionTicketKeySource;
+        p.maxEarlyDataSize = maxEarlyDataSize;
+        p.antiReplayStore = antiReplayStore;
         p.engineAPSelector = engineAPSelector;
         p.socketAPSelector = socketAPSelector;
         p.sessionToResume = sessionToResume;
@@ -267,6 +275,36 @@ public void setNamedGroups(String[] namedGroups)
         this.namedGroups = TlsUtils.clone(namedGroups);
     }
 
+    public BCSessionTicketKeySource getSessionTicketKeySource()
+    {
+        return sessionTicketKeySource;
+    }
+
+    public void setSessionTicketKeySource(BCSessionTicketKeySource sessionTicketKeySource)
+    {
+        this.sessionTicketKeySource = sessionTicketKeySource;
+    }
+
+    public int getMaxEarlyDataSize()
+    {
+        return maxEarlyDataSize;
+    }
+
+    public void setMaxEarlyDataSize(int maxEarlyDataSize)
+    {
+        this.maxEarlyDataSize = maxEarlyDataSize;
+    }
+
+    public BCAntiReplayStore getAntiReplayStore()
+    {
+        return antiReplayStore;
+    }
+
+    public void setAntiReplayStore(BCAntiReplayStore antiReplayStore)
+    {
+        this.antiReplayStore = antiReplayStore;
+    }
+
     public BCApplicationProtocolSelector<SSLEngine> getEngineAPSelector()
     {
         return engineAPSelector;
@@ -3,52 +3,50 @@
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.Locale;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import javax.net.ssl.SSLSession;
-import javax.net.ssl.SSLSessionContext;
 
+import org.bouncycastle.jsse.BCSSLSessionContext;
 import org.bouncycastle.tls.SessionID;
 import org.bouncycastle.tls.TlsSession;
 import org.bouncycastle.tls.TlsUtils;
 import org.bouncycastle.tls.crypto.impl.jcajce.JcaTlsCrypto;
 
 class ProvSSLSessionContext
-    implements SSLSessionContext
+    implements BCSSLSessionContext
 {
     private static final Logger LOG = Logger.getLogger(ProvSSLSessionContext.class.getName());
 
     private static final int provSessionCacheSize = PropertyUtils
         .getIntegerSystemProperty("javax.net.ssl.sessionCacheSize", 20480, 0, Integer.MAX_VALUE);
 
-    // NOTE: This is configured as a simple LRU cache using the "access order" constructor
-    @SuppressWarnings("serial")
-    protected final Map<SessionID, SessionEntry> sessionsByID = new LinkedHashMap<SessionID, SessionEntry>(16, 0.75f, true)
-    {
-        protected boolean removeEldestEntry(Map.Entry<SessionID, SessionEntry> eldest)
-        {
-            boolean shouldRemove = sessionCacheSize > 0 && size() > sessionCacheSize;
-            if (shouldRemove)
-            {
-                removeSessionByPeer(eldest.getValue());
-            }
-            return shouldRemove;
-        }
-    };
-    protected final Map<String, SessionEntry> sessionsByPeer = new HashMap<String, SessionEntry>();
+    // NOTE: Lookups never lock; the cache is kept within its size limit by evicting the least-recently accessed
+    // sessions in batches (see removeLRUSessions), so it is only approximately LRU.
+    protected final ConcurrentMap<SessionID, SessionEntry> sessionsByID = new ConcurrentHashMap<SessionID, SessionEntry>(
+        64, 0.75f, 64);
+    protected final ConcurrentMap<String, SessionEntry> sessionsByPeer = new ConcurrentHashMap<String, SessionEntry>(
+        64, 0.75f, 64);
     protected final ReferenceQueue<ProvSSLSession> sessionsQueue = new ReferenceQueue<ProvSSLSession>();
 
     protected final ContextData contextData;
 
-    protected int sessionCacheSize = provSessionCacheSize;
-    protected int sessionTimeoutSeconds = 86400; // 24hrs (in seconds)
+    protected volatile int sessionCacheSize = provSessionCacheSize;
+    protected volatile int sessionTimeoutSeconds = 86400; // 24hrs (in seconds)
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
 
     ProvSSLSessionContext(ContextData contextData)
     {
@@ -65,28 +63,28 @@ JcaTlsCrypto getCrypto()
         return contextData.getCrypto();
     }
 
-    synchronized ProvSSLSession getSessionImpl(byte[] sessionID)
+    ProvSSLSession getSessionImpl(byte[] sessionID)
     {
         processQueue();
 
         return accessSession(mapGet(sessionsByID, makeSessionID(sessionID)));
     }
 
-    synchronized ProvSSLSession getSessionImpl(String hostName, int port)
+    ProvSSLSession getSessionImpl(String hostName, int port)
     {
         processQueue();
 
         SessionEntry sessionEntry = mapGet(sessionsByPeer, makePeerKey(hostName, port));
-        ProvSSLSession session = accessSession(sessionEntry);
-        if (session != null)
+        if (null != sessionEntry && sessionsByID.get(sessionEntry.getSessionID()) != sessionEntry)
         {
-            // NOTE: For the current simple cache implementation, need to 'access' the sessionByIDs entry
-            sessionsByID.get(sessionEntry.getSessionID());
+            // Raced with a removal from sessionsByID; the peer entry is stale
+            removeSessionByPeer(sessionEntry);
+            sessionEntry = null;
         }
-        return session;
+        return accessSession(sessionEntry);
     }
 
-    synchronized void removeSession(byte[] sessionID)
+    void removeSession(byte[] sessionID)
     {
         SessionEntry sessionEntry = mapRemove(sessionsByID, makeSessionID(sessionID));
         if (null != sessionEntry)
@@ -95,7 +93,7 @@ synchronized void removeSession(byte[] sessionID)
         }
     }
 
-    synchronized ProvSSLSession reportSession(String peerHost, int peerPort, TlsSession tlsSession,
+    ProvSSLSession reportSession(String peerHost, int peerPort, TlsSession tlsSession,
         JsseSessionParameters jsseSessionParameters, boolean addToCache)
     {
         processQueue();
@@ -117,6 +115,8 @@ synchronized ProvSSLSession reportSession(String peerHost, int peerPort, TlsSess
             {
                 sessionEntry = new SessionEntry(sessionID, session, sessionsQueue);
                 sessionsByID.put(sessionID, sessionEntry);
+
+                removeLRUSessions(false);
             }
         }
 
@@ -128,7 +128,7 @@ synchronized ProvSSLSession reportSession(String peerHost, int peerPort, TlsSess
         return session;
     }
 
-    public synchronized Enumeration<byte[]> getIds()
+    public Enumeration<byte[]> getIds()
     {
         removeAllExpiredSessions();
 
@@ -150,12 +150,12 @@ public SSLSession getSession(byte[] sessionID)
         return getSessionImpl(sessionID);
     }
 
-    public synchronized int getSessionCacheSize()
+    public int getSessionCacheSize()
     {
         return sessionCacheSize;
     }
 
-    public synchronized int getSessionTimeout()
+    public int getSessionTimeout()
     {
         return sessionTimeoutSeconds;
     }
@@ -177,21 +177,7 @@ public synchronized void setSessionCacheSize(int size) throws IllegalArgumentExc
         removeAllExpiredSessions();
 
         // Immediately remove LRU sessions in excess of the new limit
-        if (sessionCacheSize > 0)
-        {
-            int currentSize = sessionsByID.size();
-            if (currentSize > sessionCacheSize)
-            {
-                Iterator<SessionEntry> iter = sessionsByID.values().iterator();
-                while (iter.hasNext() && currentSize > sessionCacheSize)
-                {
-                    SessionEntry sessionEntry = iter.next();
-                    iter.remove();
-                    removeSessionByPeer(sessionEntry);
-                    --currentSize;
-                }
-            }
-        }
+        removeLRUSessions(true);
     }
 
     public synchronized void setSessionTimeout(int seconds) throws IllegalArgumentException
@@ -211,6 +197,21 @@ public synchronized void setSessionTimeout(int seconds) throws IllegalArgumentEx
         removeAllExpiredSessions();
     }
 
+    public long getSessionCacheHitCount()
+    {
+        return hitCount.get();
+    }
+
+    public long getSessionCacheMissCount()
+    {
+        return missCount.get();
+    }
+
+    public long getSessionCacheEvictionCount()
+    {
+        return evictionCount.get();
+    }
+
     private ProvSSLSession accessSession(SessionEntry sessionEntry)
     {
         if (sessionEntry != null)
@@ -222,18 +223,21 @@ private ProvSSLSession accessSession(SessionEntry sessionEntry)
                 if (!invalidateIfCreatedBefore(sessionEntry, getCreationTimeLimit(currentTimeMillis)))
                 {
                     session.accessedAt(currentTimeMillis);
+                    hitCount.incrementAndGet();
                     return session;
                 }
             }
 
             removeSession(sessionEntry);
         }
+        missCount.incrementAndGet();
         return null;
     }
 
     private long getCreationTimeLimit(long expiryTimeMillis)
     {
-        return sessionTimeoutSeconds < 1 ? Long.MIN_VALUE : (expiryTimeMillis - 1000L * sessionTimeoutSeconds);
+        int timeoutSeconds = sessionTimeoutSeconds;
+        return timeoutSeconds < 1 ? Long.MIN_VALUE : (expiryTimeMillis - 1000L * timeoutSeconds);
     }
 
     private boolean invalidateIfCreatedBefore(SessionEntry sessionEntry, long creationTimeLimit)
@@ -279,17 +283,87 @@ private void removeAllExpiredSessions()
             SessionEntry sessionEntry = iter.next();
             if (invalidateIfCreatedBefore(sessionEntry, creationTimeLimit))
             {
-                iter.remove();
-                removeSessionByPeer(sessionEntry);
+                removeSession(sessionEntry);
             }
         }
     }
 
-    private void removeSession(SessionEntry sessionEntry)
+    /*
+     * Once the cache grows past its size limit, the least-recently accessed sessions are removed in one batch, taking
+     * the cache down to 15/16ths of the limit, so that the scan cost is spread over many insertions. Unless 'wait' is
+     * set, a thread that finds another thread already evicting just carries on.
+     */
+    private void removeLRUSessions(boolean wait)
     {
-        mapRemove(sessionsByID, sessionEntry.getSessionID(), sessionEntry);
+        int cacheSize = sessionCacheSize;
+        if (cacheSize < 1 || sessionsByID.size() <= cacheSize)
+        {
+            return;
+        }
+
+        if (wait)
+        {
+            evictionLock.lock();
+        }
+        else if (!evictionLock.tryLock())
+        {
+            return;
+        }
+
+        try
+        {
+            long creationTimeLimit = getCreationTimeLimit(System.currentTimeMillis());
+
+            long[] accessTimes = new long[sessionsByID.size()];
+            int count = 0;
+
+            Iterator<SessionEntry> iter = sessionsByID.values().iterator();
+            while (iter.hasNext())
+            {
+                SessionEntry sessionEntry = iter.next();
+                if (invalidateIfCreatedBefore(sessionEntry, creationTimeLimit))
+                {
+                    removeSession(sessionEntry);
+                }
+                else if (count < accessTimes.length)
+                {
+                    accessTimes[count++] = sessionEntry.getLastAccessedTime();
+                }
+            }
+
+            int excess = count - (cacheSize - (cacheSize >>> 4));
+            if (excess <= 0)
+            {
+                return;
+            }
+
+            Arrays.sort(accessTimes, 0, count);
+            long accessTimeLimit = accessTimes[excess - 1];
+
+            iter = sessionsByID.values().iterator();
+            while (excess > 0 && iter.hasNext())
+            {
+                SessionEntry sessionEntry = iter.next();
+                if (sessionEntry.getLastAccessedTime() <= accessTimeLimit && removeSession(sessionEntry))
+                {
+                    evictionCount.incrementAndGet();
+                    --excess;
+                }
+            }
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean removeSession(SessionEntry sessionEntry)
+    {
+        boolean removed = mapRemove(sessionsByID, sessionEntry.getSessionID(), sessionEntry);
 
         removeSessionByPeer(sessionEntry);
+
+        return removed;
     }
 
     private boolean removeSessionByPeer(SessionEntry sessionEntry)
@@ -312,7 +386,7 @@ private static SessionID makeSessionID(byte[] sessionID)
         return TlsUtils.isNullOrEmpty(sessionID) ? null : new SessionID(sessionID);
     }
 
-    private static <K, V> void mapAdd(Map<K, V> map, K key, V value)
+    private static <K, V> void mapAdd(ConcurrentMap<K, V> map, K key, V value)
     {
         if (map == null || value == null)
         {
@@ -324,7 +398,7 @@ private static <K, V> void mapAdd(Map<K, V> map, K key, V value)
         }
     }
 
-    private static <K, V> V mapGet(Map<K, V> map, K key)
+    private static <K, V> V mapGet(ConcurrentMap<K, V> map, K key)
     {
         if (map == null)
         {
@@ -333,7 +407,7 @@ private static <K, V> V mapGet(Map<K, V> map, K key)
         return key == null ? null : map.get(key);
     }
 
-    private static <K, V> V mapRemove(Map<K, V> map, K key)
+    private static <K, V> V mapRemove(ConcurrentMap<K, V> map, K key)
     {
         if (map == null)
         {
@@ -342,26 +416,13 @@ private static <K, V> V mapRemove(Map<K, V> map, K key)
         return key == null ? null : map.remove(key);
     }
 
-    private static <K, V> boolean mapRemove(Map<K, V> map, K key, V value)
+    private static <K, V> boolean mapRemove(ConcurrentMap<K, V> map, K key, V value)
     {
         if (map == null || value == null)
         {
             throw new NullPointerException();
         }
-        if (key != null)
-        {
-            // TODO[jsse] From 1.8 there is a 2-argument remove method to accomplish this 
-            V removed = map.remove(key);
-            if (removed == value)
-            {
-                return true;
-            }
-            if (removed != null)
-            {
-                map.put(key, removed);
-            }
-        }
-        return false;
+        return key != null && map.remove(key, value);
     }
 
     private static final class SessionEntry
@@ -383,6 +444,12 @@ private static <K, V> boolean mapRemove(Map<K, V> map, K key, V value)
             this.peerKey = makePeerKey(session);
         }
 
+        public long getLastAccessedTime()
+        {
+            ProvSSLSession session = get();
+            return session == null ? Long.MIN_VALUE : session.getLastAccessedTime();
+        }
+
         public String getPeerKey()
         {
             return peerKey;
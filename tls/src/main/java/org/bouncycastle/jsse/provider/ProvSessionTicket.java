@@ -0,0 +1,365 @@
+package org.bouncycastle.jsse.provider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.bouncycastle.jsse.BCSNIServerName;
+import org.bouncycastle.jsse.BCSessionTicketKey;
+import org.bouncycastle.jsse.BCSessionTicketKeySource;
+import org.bouncycastle.tls.AlertDescription;
+import org.bouncycastle.tls.Certificate;
+import org.bouncycastle.tls.CertificateEntry;
+import org.bouncycastle.tls.ProtocolVersion;
+import org.bouncycastle.tls.ServerName;
+import org.bouncycastle.tls.TlsFatalAlert;
+import org.bouncycastle.tls.TlsUtils;
+import org.bouncycastle.tls.crypto.TlsCertificate;
+import org.bouncycastle.tls.crypto.impl.jcajce.JcaTlsCrypto;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Integers;
+
+/**
+ * The session state carried in a stateless session ticket, along with the ticket protection.
+ * <p>
+ * A ticket is key_name (16 bytes) || iv (12 bytes) || AES-256-GCM(state), with the key name and IV as additional
+ * authenticated data, following the recommended construction of RFC 5077 4.
+ * </p>
+ */
+final class ProvSessionTicket
+{
+    private static final Logger LOG = Logger.getLogger(ProvSessionTicket.class.getName());
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 16;
+
+    /*
+     * RFC 8446 4.6.1. Servers MUST NOT use any value greater than 604800 seconds (7 days).
+     */
+    static final long MAX_LIFETIME_MILLIS = 604800L * 1000L;
+
+    final ProtocolVersion negotiatedVersion;
+    final int cipherSuite;
+    final int prfAlgorithm;
+    final boolean extendedMasterSecret;
+    final long creationTime;
+    final long expiryTime;
+    final long ticketAgeAdd;
+    final byte[] secret;
+    final byte[][] peerCertificateChain;
+    final String endpointIDAlgorithm;
+    final BCSNIServerName matchedSNIServerName;
+    final Hashtable<Integer, byte[]> serverExtensions;
+
+    ProvSessionTicket(ProtocolVersion negotiatedVersion, int cipherSuite, int prfAlgorithm,
+        boolean extendedMasterSecret, long creationTime, long expiryTime, long ticketAgeAdd, byte[] secret,
+        byte[][] peerCertificateChain, String endpointIDAlgorithm, BCSNIServerName matchedSNIServerName,
+        Hashtable<Integer, byte[]> serverExtensions)
+    {
+        this.negotiatedVersion = negotiatedVersion;
+        this.cipherSuite = cipherSuite;
+        this.prfAlgorithm = prfAlgorithm;
+        this.extendedMasterSecret = extendedMasterSecret;
+        this.creationTime = creationTime;
+        this.expiryTime = expiryTime;
+        this.ticketAgeAdd = ticketAgeAdd;
+        this.secret = secret;
+        this.peerCertificateChain = peerCertificateChain;
+        this.endpointIDAlgorithm = endpointIDAlgorithm;
+        this.matchedSNIServerName = matchedSNIServerName;
+        this.serverExtensions = serverExtensions;
+    }
+
+    void clear()
+    {
+        Arrays.fill(secret, (byte)0);
+    }
+
+    Certificate getPeerCertificate(JcaTlsCrypto crypto) throws IOException
+    {
+        if (null == peerCertificateChain)
+        {
+            return null;
+        }
+
+        int count = peerCertificateChain.length;
+        if (TlsUtils.isTLSv13(negotiatedVersion))
+        {
+            CertificateEntry[] entries = new CertificateEntry[count];
+            for (int i = 0; i < count; ++i)
+            {
+                entries[i] = new CertificateEntry(crypto.createCertificate(peerCertificateChain[i]), null);
+            }
+            return new Certificate(TlsUtils.EMPTY_BYTES, entries);
+        }
+
+        TlsCertificate[] certificates = new TlsCertificate[count];
+        for (int i = 0; i < count; ++i)
+        {
+            certificates[i] = crypto.createCertificate(peerCertificateChain[i]);
+        }
+        return new Certificate(certificates);
+    }
+
+    static byte[][] getCertificateChain(Certificate certificate) throws IOException
+    {
+        if (null == certificate || certificate.isEmpty())
+        {
+            return null;
+        }
+
+        int count = certificate.getLength();
+        byte[][] chain = new byte[count][];
+        for (int i = 0; i < count; ++i)
+        {
+            chain[i] = certificate.getCertificateAt(i).getEncoded();
+        }
+        return chain;
+    }
+
+    /**
+     * @return the lifetime of a ticket sealed now, in seconds, as advertised to the client.
+     */
+    long getLifetimeSeconds(long now)
+    {
+        return Math.max(0L, expiryTime - now) / 1000L;
+    }
+
+    static long getExpiryTime(BCSessionTicketKey key, long now)
+    {
+        return Math.min(key.getAcceptUntil(), now + MAX_LIFETIME_MILLIS);
+    }
+
+    static byte[] seal(JcaTlsCrypto crypto, BCSessionTicketKey key, ProvSessionTicket state) throws IOException
+    {
+        byte[] plaintext = state.encode();
+        byte[] keyBytes = key.getKey();
+        try
+        {
+            byte[] name = key.getName();
+            byte[] iv = new byte[IV_LENGTH];
+            crypto.getSecureRandom().nextBytes(iv);
+
+            Cipher cipher = crypto.getHelper().createCipher("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(keyBytes, "AES"),
+                new GCMParameterSpec(TAG_LENGTH * 8, iv));
+            cipher.updateAAD(name);
+            cipher.updateAAD(iv);
+
+            byte[] ciphertext = cipher.doFinal(plaintext);
+
+            return Arrays.concatenate(name, iv, ciphertext);
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error, e);
+        }
+        finally
+        {
+            Arrays.fill(plaintext, (byte)0);
+            Arrays.fill(keyBytes, (byte)0);
+        }
+    }
+
+    /**
+     * @return the session state, or null if the ticket's key is unknown or no longer acceptable, the ticket fails
+     *         authentication or is malformed, or the ticket has expired.
+     */
+    static ProvSessionTicket open(JcaTlsCrypto crypto, BCSessionTicketKeySource keySource, byte[] ticket, long now)
+    {
+        int headerLength = BCSessionTicketKey.NAME_LENGTH + IV_LENGTH;
+        if (null == ticket || ticket.length < headerLength + TAG_LENGTH)
+        {
+            return null;
+        }
+
+        byte[] name = Arrays.copyOfRange(ticket, 0, BCSessionTicketKey.NAME_LENGTH);
+
+        BCSessionTicketKey key = keySource.getKey(name);
+        if (null == key || !key.canAccept(now))
+        {
+            LOG.finer("Session ticket not accepted - unknown or expired key");
+            return null;
+        }
+
+        byte[] keyBytes = key.getKey();
+        byte[] plaintext = null;
+        try
+        {
+            Cipher cipher = crypto.getHelper().createCipher("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(keyBytes, "AES"),
+                new GCMParameterSpec(TAG_LENGTH * 8, ticket, BCSessionTicketKey.NAME_LENGTH, IV_LENGTH));
+            cipher.updateAAD(ticket, 0, headerLength);
+
+            plaintext = cipher.doFinal(ticket, headerLength, ticket.length - headerLength);
+
+            ProvSessionTicket state = decode(plaintext);
+            if (now >= state.expiryTime)
+            {
+                state.clear();
+                LOG.finer("Session ticket not accepted - expired");
+                return null;
+            }
+            return state;
+        }
+        catch (Exception e)
+        {
+            LOG.log(Level.FINER, "Session ticket not accepted - invalid", e);
+            return null;
+        }
+        finally
+        {
+            Arrays.fill(keyBytes, (byte)0);
+            if (null != plaintext)
+            {
+                Arrays.fill(plaintext, (byte)0);
+            }
+        }
+    }
+
+    private byte[] encode() throws IOException
+    {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+
+        TlsUtils.writeUint8(FORMAT_VERSION, buf);
+        TlsUtils.writeVersion(negotiatedVersion, buf);
+        TlsUtils.writeUint16(cipherSuite, buf);
+        TlsUtils.writeUint8(prfAlgorithm, buf);
+        TlsUtils.writeUint8(extendedMasterSecret ? 1 : 0, buf);
+        TlsUtils.writeUint64(creationTime, buf);
+        TlsUtils.writeUint64(expiryTime, buf);
+        TlsUtils.writeUint32(ticketAgeAdd, buf);
+        TlsUtils.writeOpaque8(secret, buf);
+
+        {
+            ByteArrayOutputStream chain = new ByteArrayOutputStream();
+            if (null != peerCertificateChain)
+            {
+                for (int i = 0; i < peerCertificateChain.length; ++i)
+                {
+                    TlsUtils.writeOpaque24(peerCertificateChain[i], chain);
+                }
+            }
+            TlsUtils.writeOpaque24(chain.toByteArray(), buf);
+        }
+
+        TlsUtils.writeOpaque8(null == endpointIDAlgorithm ? TlsUtils.EMPTY_BYTES
+            : endpointIDAlgorithm.getBytes("UTF-8"), buf);
+
+        if (null == matchedSNIServerName)
+        {
+            TlsUtils.writeUint8(0, buf);
+        }
+        else
+        {
+            TlsUtils.writeUint8(1, buf);
+            TlsUtils.writeUint8(matchedSNIServerName.getType(), buf);
+            TlsUtils.writeOpaque16(matchedSNIServerName.getEncoded(), buf);
+        }
+
+        {
+            ByteArrayOutputStream extensions = new ByteArrayOutputStream();
+            if (null != serverExtensions)
+            {
+                Enumeration<Integer> types = serverExtensions.keys();
+                while (types.hasMoreElements())
+                {
+                    Integer type = types.nextElement();
+                    TlsUtils.writeUint16(type.intValue(), extensions);
+                    TlsUtils.writeOpaque16(serverExtensions.get(type), extensions);
+                }
+            }
+            TlsUtils.writeOpaque16(extensions.toByteArray(), buf);
+        }
+
+        return buf.toByteArray();
+    }
+
+    private static ProvSessionTicket decode(byte[] encoding) throws IOException
+    {
+        ByteArrayInputStream buf = new ByteArrayInputStream(encoding);
+
+        if (FORMAT_VERSION != TlsUtils.readUint8(buf))
+        {
+            throw new IOException("unsupported session ticket format");
+        }
+
+        ProtocolVersion negotiatedVersion = TlsUtils.readVersion(buf);
+        int cipherSuite = TlsUtils.readUint16(buf);
+        int prfAlgorithm = TlsUtils.readUint8(buf);
+        boolean extendedMasterSecret = 0 != TlsUtils.readUint8(buf);
+        long creationTime = readUint64(buf);
+        long expiryTime = readUint64(buf);
+        long ticketAgeAdd = TlsUtils.readUint32(buf);
+        byte[] secret = TlsUtils.readOpaque8(buf, 1);
+
+        byte[][] peerCertificateChain = null;
+        {
+            ByteArrayInputStream chain = new ByteArrayInputStream(TlsUtils.readOpaque24(buf));
+            if (chain.available() > 0)
+            {
+                Vector<byte[]> certificates = new Vector<byte[]>();
+                while (chain.available() > 0)
+                {
+                    certificates.addElement(TlsUtils.readOpaque24(chain, 1));
+                }
+                peerCertificateChain = certificates.toArray(new byte[certificates.size()][]);
+            }
+        }
+
+        String endpointIDAlgorithm = null;
+        {
+            byte[] utf8 = TlsUtils.readOpaque8(buf);
+            if (utf8.length > 0)
+            {
+                endpointIDAlgorithm = new String(utf8, "UTF-8");
+            }
+        }
+
+        BCSNIServerName matchedSNIServerName = null;
+        if (0 != TlsUtils.readUint8(buf))
+        {
+            short nameType = TlsUtils.readUint8(buf);
+            byte[] nameData = TlsUtils.readOpaque16(buf);
+            matchedSNIServerName = JsseUtils.convertSNIServerName(new ServerName(nameType, nameData));
+        }
+
+        Hashtable<Integer, byte[]> serverExtensions = new Hashtable<Integer, byte[]>();
+        {
+            ByteArrayInputStream extensions = new ByteArrayInputStream(TlsUtils.readOpaque16(buf));
+            while (extensions.available() > 0)
+            {
+                Integer type = Integers.valueOf(TlsUtils.readUint16(extensions));
+                serverExtensions.put(type, TlsUtils.readOpaque16(extensions));
+            }
+        }
+
+        if (buf.available() > 0)
+        {
+            throw new IOException("trailing data in session ticket");
+        }
+
+        return new ProvSessionTicket(negotiatedVersion, cipherSuite, prfAlgorithm, extendedMasterSecret,
+            creationTime, expiryTime, ticketAgeAdd, secret, peerCertificateChain, endpointIDAlgorithm,
+            matchedSNIServerName, serverExtensions);
+    }
+
+    private static long readUint64(InputStream input) throws IOException
+    {
+        long hi = TlsUtils.readUint32(input);
+        long lo = TlsUtils.readUint32(input);
+        return (hi << 32) | lo;
+    }
+}
@@ -19,12 +19,16 @@
 import java.util.logging.Logger;
 
 import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.jsse.BCAntiReplayStore;
 import org.bouncycastle.jsse.BCSNIMatcher;
 import org.bouncycastle.jsse.BCSNIServerName;
+import org.bouncycastle.jsse.BCSessionTicketKey;
+import org.bouncycastle.jsse.BCSessionTicketKeySource;
 import org.bouncycastle.jsse.BCX509Key;
 import org.bouncycastle.jsse.provider.SignatureSchemeInfo.PerConnection;
 import org.bouncycastle.tls.AlertDescription;
 import org.bouncycastle.tls.AlertLevel;
+import org.bouncycastle.tls.BasicTlsPSKResumption;
 import org.bouncycastle.tls.Certificate;
 import org.bouncycastle.tls.CertificateRequest;
 import org.bouncycastle.tls.CertificateStatus;
@@ -32,8 +36,10 @@
 import org.bouncycastle.tls.DefaultTlsServer;
 import org.bouncycastle.tls.KeyExchangeAlgorithm;
 import org.bouncycastle.tls.NamedGroup;
+import org.bouncycastle.tls.NewSessionTicket;
 import org.bouncycastle.tls.ProtocolName;
 import org.bouncycastle.tls.ProtocolVersion;
+import org.bouncycastle.tls.PskIdentity;
 import org.bouncycastle.tls.SecurityParameters;
 import org.bouncycastle.tls.ServerName;
 import org.bouncycastle.tls.SessionParameters;
@@ -43,11 +49,13 @@
 import org.bouncycastle.tls.TlsDHUtils;
 import org.bouncycastle.tls.TlsExtensionsUtils;
 import org.bouncycastle.tls.TlsFatalAlert;
+import org.bouncycastle.tls.TlsPSKResumption;
 import org.bouncycastle.tls.TlsSession;
 import org.bouncycastle.tls.TlsUtils;
 import org.bouncycastle.tls.TrustedAuthority;
 import org.bouncycastle.tls.crypto.DHGroup;
 import org.bouncycastle.tls.crypto.TlsDHConfig;
+import org.bouncycastle.tls.crypto.TlsSecret;
 import org.bouncycastle.tls.crypto.impl.jcajce.JcaTlsCrypto;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.encoders.Hex;
@@ -184,6 +192,9 @@ private static BigInteger parseDHParameter(String s, int beginIndex, int endInde
     protected Set<String> keyManagerMissCache = null;
     protected TlsCredentials credentials = null;
     protected boolean handshakeComplete = false;
+    protected byte[] clientSessionTicket = null;
+    protected int resumptionCipherSuite = -1;
+    protected ProvSessionTicket earlyDataTicket = null;
 
     ProvTlsServer(ProvTlsManager manager, ProvSSLParameters sslParameters)
     {
@@ -659,17 +670,29 @@ public int getSelectedCipherSuite() throws IOException
             }
         }
 
-        if (DummyX509KeyManager.INSTANCE == contextData.getX509KeyManager())
+        int selectedCipherSuite;
+        if (resumptionCipherSuite >= 0)
         {
-            // We don't support anonymous cipher suites, so there has to be a (real) key manager
-            throw new TlsFatalAlert(AlertDescription.handshake_failure);
+            /*
+             * A resumption PSK was selected (see getResumptionPSK), so keep the cipher suite of the original
+             * session; the PSK is bound to its hash.
+             */
+            selectedCipherSuite = resumptionCipherSuite;
         }
+        else
+        {
+            if (DummyX509KeyManager.INSTANCE == contextData.getX509KeyManager())
+            {
+                // We don't support anonymous cipher suites, so there has to be a (real) key manager
+                throw new TlsFatalAlert(AlertDescription.handshake_failure);
+            }
 
-        keyManagerMissCache = new HashSet<String>();
+            keyManagerMissCache = new HashSet<String>();
 
-        int selectedCipherSuite = super.getSelectedCipherSuite();
+            selectedCipherSuite = super.getSelectedCipherSuite();
 
-        keyManagerMissCache = null;
+            keyManagerMissCache = null;
+        }
 
         String selectedCipherSuiteName = contextData.getContext().validateNegotiatedCipherSuite(sslParameters,
             selectedCipherSuite);
@@ -697,6 +720,15 @@ public Hashtable<Integer, byte[]> getServerExtensions() throws IOException
             TlsExtensionsUtils.addServerNameExtensionServer(serverExtensions);
         }
 
+        /*
+         * RFC 5077 3.2. The server uses a zero-length SessionTicket extension to indicate to the client that
+         * it will send a new session ticket using the NewSessionTicket handshake message.
+         */
+        if (null != clientSessionTicket && null != sslParameters.getSessionTicketKeySource())
+        {
+            TlsExtensionsUtils.addEmptyExtensionData(serverExtensions, TlsExtensionsUtils.EXT_session_ticket);
+        }
+
         @SuppressWarnings("unchecked")
         Hashtable<Integer, byte[]> result = serverExtensions;
 
@@ -721,12 +753,135 @@ public TlsSession getSessionToResume(byte[] sessionID)
                     return sessionToResume;
                 }
             }
+
+            /*
+             * RFC 5077 3.4. When presenting a ticket, the client MAY generate and include a Session ID in the
+             * TLS ClientHello. If the server accepts the ticket and the Session ID is not empty, then it MUST
+             * respond with the same Session ID present in the ClientHello.
+             */
+            if (!TlsUtils.isNullOrEmpty(clientSessionTicket) && !TlsUtils.isNullOrEmpty(sessionID))
+            {
+                ProvSSLSession ticketSSLSession = redeemSessionTicket(sessionID);
+                if (null != ticketSSLSession)
+                {
+                    TlsSession sessionToResume = ticketSSLSession.getTlsSession();
+                    if (isResumable(ticketSSLSession, sessionToResume))
+                    {
+                        this.sslSession = ticketSSLSession;
+                        return sessionToResume;
+                    }
+                }
+            }
         }
 
         JsseUtils.checkSessionCreationEnabled(manager);
         return null;
     }
 
+    @Override
+    public TlsPSKResumption getResumptionPSK(@SuppressWarnings("rawtypes") Vector identities) throws IOException
+    {
+        BCSessionTicketKeySource keySource = sslParameters.getSessionTicketKeySource();
+        if (!provServerEnableSessionResumption || null == keySource)
+        {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < identities.size(); ++i)
+        {
+            PskIdentity identity = (PskIdentity)identities.elementAt(i);
+
+            ProvSessionTicket ticket = ProvSessionTicket.open(getCrypto(), keySource, identity.getIdentity(), now);
+            if (null == ticket)
+            {
+                continue;
+            }
+
+            try
+            {
+                if (isResumable13(ticket))
+                {
+                    if (LOG.isLoggable(Level.FINE))
+                    {
+                        LOG.fine(serverID + " accepted session ticket for resumption");
+                    }
+
+                    this.resumptionCipherSuite = ticket.cipherSuite;
+
+                    // RFC 8446 4.2.10. Early data is only permitted with the first identity
+                    if (0 == i && isEarlyDataCandidate(ticket, identity.getObfuscatedTicketAge(), now))
+                    {
+                        this.earlyDataTicket = ticket;
+                    }
+
+                    return new BasicTlsPSKResumption(identity.getIdentity(), getCrypto().createSecret(ticket.secret),
+                        ticket.prfAlgorithm, ticket.getPeerCertificate(getCrypto()));
+                }
+            }
+            finally
+            {
+                ticket.clear();
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public long getMaxEarlyDataSize()
+    {
+        if (!provServerEnableSessionResumption
+            || null == sslParameters.getSessionTicketKeySource()
+            || null == sslParameters.getAntiReplayStore())
+        {
+            return 0L;
+        }
+
+        return sslParameters.getMaxEarlyDataSize();
+    }
+
+    @Override
+    public boolean acceptEarlyData() throws IOException
+    {
+        BCAntiReplayStore antiReplayStore = sslParameters.getAntiReplayStore();
+        if (null == earlyDataTicket || null == antiReplayStore)
+        {
+            return false;
+        }
+
+        SecurityParameters securityParameters = context.getSecurityParametersHandshake();
+
+        /*
+         * RFC 8446 4.2.10. [..] the server MUST verify that the following values are the same as those
+         * associated with the selected PSK: [..] The selected cipher suite [..] The selected ALPN protocol,
+         * if any.
+         */
+        ProtocolName ticketProtocolName = TlsExtensionsUtils.getALPNExtensionServer(earlyDataTicket.serverExtensions);
+        if (earlyDataTicket.cipherSuite != securityParameters.getCipherSuite()
+            || !JsseUtils.equals(ticketProtocolName, securityParameters.getApplicationProtocol()))
+        {
+            return false;
+        }
+
+        // RFC 8446 8.2. Client Hello Recording
+        if (!antiReplayStore.checkAndRecord(securityParameters.getClientRandom()))
+        {
+            if (LOG.isLoggable(Level.FINE))
+            {
+                LOG.fine(serverID + " rejected early data from a possibly replayed ClientHello");
+            }
+            return false;
+        }
+
+        if (LOG.isLoggable(Level.FINE))
+        {
+            LOG.fine(serverID + " accepted early data");
+        }
+        return true;
+    }
+
     @Override
     public byte[] getNewSessionID()
     {
@@ -739,6 +894,94 @@ public byte[] getNewSessionID()
         return context.getNonceGenerator().generateNonce(32);
     }
 
+    @Override
+    public NewSessionTicket getNewSessionTicket() throws IOException
+    {
+        BCSessionTicketKeySource keySource = sslParameters.getSessionTicketKeySource();
+        BCSessionTicketKey key = null == keySource ? null : keySource.getIssuingKey();
+        if (null == key)
+        {
+            return super.getNewSessionTicket();
+        }
+
+        SecurityParameters securityParameters = context.getSecurityParametersHandshake();
+        long now = System.currentTimeMillis();
+
+        @SuppressWarnings("unchecked")
+        Hashtable<Integer, byte[]> sessionServerExtensions = new Hashtable<Integer, byte[]>(serverExtensions);
+
+        // NOTE: Copy the master secret since extracting it destroys the secret
+        byte[] masterSecret = getCrypto().adoptSecret(securityParameters.getMasterSecret()).extract();
+
+        ProvSessionTicket ticket = new ProvSessionTicket(securityParameters.getNegotiatedVersion(),
+            securityParameters.getCipherSuite(), securityParameters.getPRFAlgorithm(),
+            securityParameters.isExtendedMasterSecret(), now, ProvSessionTicket.getExpiryTime(key, now), 0L,
+            masterSecret, ProvSessionTicket.getCertificateChain(securityParameters.getPeerCertificate()),
+            sslParameters.getEndpointIdentificationAlgorithm(), matchedSNIServerName, sessionServerExtensions);
+
+        try
+        {
+            return new NewSessionTicket(ticket.getLifetimeSeconds(now), ProvSessionTicket.seal(getCrypto(), key, ticket));
+        }
+        finally
+        {
+            ticket.clear();
+        }
+    }
+
+    @Override
+    public boolean shouldIssueTicket13() throws IOException
+    {
+        return provServerEnableSessionResumption && null != sslParameters.getSessionTicketKeySource();
+    }
+
+    @Override
+    public NewSessionTicket getNewSessionTicket13(TlsSecret resumptionPSK, long ticketAgeAdd) throws IOException
+    {
+        BCSessionTicketKeySource keySource = sslParameters.getSessionTicketKeySource();
+        if (!provServerEnableSessionResumption || null == keySource)
+        {
+            return null;
+        }
+
+        BCSessionTicketKey key = keySource.getIssuingKey();
+        if (null == key)
+        {
+            return null;
+        }
+
+        SecurityParameters securityParameters = context.getSecurityParametersHandshake();
+        long now = System.currentTimeMillis();
+
+        // NOTE: The ticket records the parameters that early data sent under it must match
+        Hashtable<Integer, byte[]> ticketExtensions = new Hashtable<Integer, byte[]>();
+        ProtocolName applicationProtocol = securityParameters.getApplicationProtocol();
+        if (null != applicationProtocol)
+        {
+            TlsExtensionsUtils.addALPNExtensionServer(ticketExtensions, applicationProtocol);
+        }
+        long maxEarlyDataSize = getMaxEarlyDataSize();
+        if (maxEarlyDataSize > 0L)
+        {
+            TlsExtensionsUtils.addEarlyDataMaxSize(ticketExtensions, maxEarlyDataSize);
+        }
+
+        ProvSessionTicket ticket = new ProvSessionTicket(securityParameters.getNegotiatedVersion(),
+            securityParameters.getCipherSuite(), securityParameters.getPRFAlgorithm(), true, now,
+            ProvSessionTicket.getExpiryTime(key, now), ticketAgeAdd, resumptionPSK.extract(),
+            ProvSessionTicket.getCertificateChain(securityParameters.getPeerCertificate()),
+            sslParameters.getEndpointIdentificationAlgorithm(), null, ticketExtensions);
+
+        try
+        {
+            return new NewSessionTicket(ticket.getLifetimeSeconds(now), ProvSessionTicket.seal(getCrypto(), key, ticket));
+        }
+        finally
+        {
+            ticket.clear();
+        }
+    }
+
     @Override
     public void notifySession(TlsSession session)
     {
@@ -935,6 +1178,12 @@ public void processClientExtensions(@SuppressWarnings("rawtypes") Hashtable clie
     {
         super.processClientExtensions(clientExtensions);
 
+        if (provServerEnableSessionResumption && !TlsUtils.isTLSv13(context))
+        {
+            this.clientSessionTicket = TlsUtils.getExtensionData(clientExtensions,
+                TlsExtensionsUtils.EXT_session_ticket);
+        }
+
         /*
          * TODO[jsse] RFC 6066 A server that implements this extension MUST NOT accept the
          * request to resume the session if the server_name extension contains a different name.
@@ -1010,6 +1259,56 @@ protected boolean isClientAuthEnabled()
         return sslParameters.getNeedClientAuth() || sslParameters.getWantClientAuth();
     }
 
+    protected boolean isEarlyDataCandidate(ProvSessionTicket ticket, long obfuscatedTicketAge, long now)
+        throws IOException
+    {
+        BCAntiReplayStore antiReplayStore = sslParameters.getAntiReplayStore();
+        long ticketMaxEarlyDataSize = TlsExtensionsUtils.getEarlyDataMaxSize(ticket.serverExtensions);
+        if (null == antiReplayStore || ticketMaxEarlyDataSize <= 0L || ticketMaxEarlyDataSize > getMaxEarlyDataSize())
+        {
+            return false;
+        }
+
+        /*
+         * RFC 8446 8.3. Freshness Checks. The client's view of the ticket age (recovered from the
+         * obfuscated_ticket_age) must be within the anti-replay window of the server's.
+         */
+        long clientTicketAge = (obfuscatedTicketAge - ticket.ticketAgeAdd) & 0xFFFFFFFFL;
+        long serverTicketAge = now - ticket.creationTime;
+
+        return Math.abs(serverTicketAge - clientTicketAge) <= antiReplayStore.getWindow();
+    }
+
+    protected boolean isResumable13(ProvSessionTicket ticket)
+    {
+        SecurityParameters securityParameters = context.getSecurityParametersHandshake();
+
+        if (!securityParameters.getNegotiatedVersion().equals(ticket.negotiatedVersion) ||
+            !Arrays.contains(getCipherSuites(), ticket.cipherSuite) ||
+            !Arrays.contains(offeredCipherSuites, ticket.cipherSuite))
+        {
+            return false;
+        }
+
+        if (sslParameters.getNeedClientAuth() && null == ticket.peerCertificateChain)
+        {
+            return false;
+        }
+
+        String connectionEndpointID = sslParameters.getEndpointIdentificationAlgorithm();
+        if (null != connectionEndpointID && !connectionEndpointID.equalsIgnoreCase(ticket.endpointIDAlgorithm))
+        {
+            if (LOG.isLoggable(Level.FINER))
+            {
+                LOG.finer(serverID + ": Session ticket not resumable - endpoint ID algorithm mismatch; connection: "
+                    + connectionEndpointID + ", ticket: " + ticket.endpointIDAlgorithm);
+            }
+            return false;
+        }
+
+        return true;
+    }
+
     protected boolean isResumable(ProvSSLSession provSSLSession, TlsSession tlsSession)
     {
         if (null == tlsSession || !tlsSession.isResumable())
@@ -1093,6 +1392,61 @@ protected boolean isResumable(ProvSSLSession provSSLSession, TlsSession tlsSessi
         return true;
     }
 
+    protected ProvSSLSession redeemSessionTicket(byte[] sessionID)
+    {
+        BCSessionTicketKeySource keySource = sslParameters.getSessionTicketKeySource();
+        if (null == keySource)
+        {
+            return null;
+        }
+
+        ProvSessionTicket ticket = ProvSessionTicket.open(getCrypto(), keySource, clientSessionTicket,
+            System.currentTimeMillis());
+        if (null == ticket)
+        {
+            return null;
+        }
+
+        try
+        {
+            if (TlsUtils.isTLSv13(ticket.negotiatedVersion))
+            {
+                return null;
+            }
+
+            SessionParameters sessionParameters = new SessionParameters.Builder()
+                .setCipherSuite(ticket.cipherSuite)
+                .setExtendedMasterSecret(ticket.extendedMasterSecret)
+                .setMasterSecret(getCrypto().createSecret(ticket.secret))
+                .setNegotiatedVersion(ticket.negotiatedVersion)
+                .setPeerCertificate(ticket.getPeerCertificate(getCrypto()))
+                .setServerExtensions(ticket.serverExtensions)
+                .build();
+
+            TlsSession tlsSession = TlsUtils.importSession(sessionID, sessionParameters);
+
+            JsseSessionParameters jsseSessionParameters = new JsseSessionParameters(ticket.endpointIDAlgorithm,
+                ticket.matchedSNIServerName);
+
+            if (LOG.isLoggable(Level.FINE))
+            {
+                LOG.fine(serverID + " accepted session ticket for resumption");
+            }
+
+            return new ProvSSLSession(manager.getContextData().getServerSessionContext(), manager.getPeerHost(),
+                manager.getPeerPort(), tlsSession, jsseSessionParameters);
+        }
+        catch (IOException e)
+        {
+            LOG.log(Level.FINER, serverID + ": Session ticket not resumable", e);
+            return null;
+        }
+        finally
+        {
+            ticket.clear();
+        }
+    }
+
     protected TlsCredentials selectCredentials(Principal[] issuers, int keyExchangeAlgorithm) throws IOException
     {
         switch (keyExchangeAlgorithm)
@@ -239,6 +239,11 @@ public Vector getExternalPSKs()
         return null;
     }
 
+    public byte[] getEarlyData() throws IOException
+    {
+        return null;
+    }
+
     public boolean isFallback()
     {
         /*
@@ -7,6 +7,7 @@
 import org.bouncycastle.tls.crypto.TlsCrypto;
 import org.bouncycastle.tls.crypto.TlsDHConfig;
 import org.bouncycastle.tls.crypto.TlsECConfig;
+import org.bouncycastle.tls.crypto.TlsSecret;
 import org.bouncycastle.util.Integers;
 
 /**
@@ -345,6 +346,21 @@ public TlsPSKExternal getExternalPSK(Vector identities)
         return null;
     }
 
+    public TlsPSKResumption getResumptionPSK(Vector identities) throws IOException
+    {
+        return null;
+    }
+
+    public long getMaxEarlyDataSize()
+    {
+        return 0L;
+    }
+
+    public boolean acceptEarlyData() throws IOException
+    {
+        return false;
+    }
+
     public void notifySession(TlsSession session)
     {
     }
@@ -777,4 +793,16 @@ public NewSessionTicket getNewSessionTicket()
          */
         return new NewSessionTicket(0L, TlsUtils.EMPTY_BYTES);
     }
+
+    public boolean shouldIssueTicket13()
+        throws IOException
+    {
+        return false;
+    }
+
+    public NewSessionTicket getNewSessionTicket13(TlsSecret resumptionPSK, long ticketAgeAdd)
+        throws IOException
+    {
+        return null;
+    }
 }
@@ -0,0 +1,41 @@
+package org.bouncycastle.tls;
+
+import org.bouncycastle.tls.crypto.TlsSecret;
+import org.bouncycastle.util.Arrays;
+
+public class BasicTlsPSKResumption
+    implements TlsPSKResumption
+{
+    protected final byte[] identity;
+    protected final TlsSecret key;
+    protected final int prfAlgorithm;
+    protected final Certificate peerCertificate;
+
+    public BasicTlsPSKResumption(byte[] identity, TlsSecret key, int prfAlgorithm, Certificate peerCertificate)
+    {
+        this.identity = Arrays.clone(identity);
+        this.key = key;
+        this.prfAlgorithm = prfAlgorithm;
+        this.peerCertificate = peerCertificate;
+    }
+
+    public byte[] getIdentity()
+    {
+        return identity;
+    }
+
+    public TlsSecret getKey()
+    {
+        return key;
+    }
+
+    public int getPRFAlgorithm()
+    {
+        return prfAlgorithm;
+    }
+
+    public Certificate getPeerCertificate()
+    {
+        return peerCertificate;
+    }
+}
@@ -5,7 +5,11 @@
 import java.nio.ByteBuffer;
 
 /**
- * A queue for bytes. This file could be more optimized.
+ * A queue for bytes, stored in a ring buffer so that removing data never moves the remaining bytes.
+ * <p>
+ * A pooled queue (see {@link #createPooled()}) takes its buffer from a shared {@link ByteQueuePool} and gives
+ * it back as soon as the queue is drained, so its memory use follows the data actually in flight.
+ * </p>
  */
 public class ByteQueue
 {
@@ -26,13 +30,24 @@ public static int nextTwoPow(int i)
         return i + 1;
     }
 
+    /**
+     * Create a queue whose buffer is taken from a shared pool while it holds data, and given back (zeroed) once
+     * it is drained.
+     *
+     * @return a new, empty, pooled queue.
+     */
+    public static ByteQueue createPooled()
+    {
+        return new ByteQueue(ByteQueuePool.DEFAULT);
+    }
+
     /**
      * The buffer where we store our data.
      */
     private byte[] databuf;
 
     /**
-     * How many bytes at the beginning of the buffer are skipped.
+     * The index in the buffer where our data begins (it may wrap around to the start of the buffer).
      */
     private int skipped = 0;
 
@@ -41,8 +56,15 @@ public static int nextTwoPow(int i)
      */
     private int available = 0;
 
+    /**
+     * (Pooled only) The length of the prefix of the buffer that has ever been written.
+     */
+    private int used = 0;
+
     private boolean readOnlyBuf = false;
 
+    private final ByteQueuePool pool;
+
     public ByteQueue()
     {
         this(0);
@@ -50,7 +72,8 @@ public ByteQueue()
 
     public ByteQueue(int capacity)
     {
-        databuf = capacity == 0 ? TlsUtils.EMPTY_BYTES : new byte[capacity];
+        this.databuf = capacity == 0 ? TlsUtils.EMPTY_BYTES : new byte[capacity];
+        this.pool = null;
     }
 
     public ByteQueue(byte[] buf, int off, int len)
@@ -59,6 +82,13 @@ public ByteQueue(byte[] buf, int off, int len)
         this.skipped = off;
         this.available = len;
         this.readOnlyBuf = true;
+        this.pool = null;
+    }
+
+    ByteQueue(ByteQueuePool pool)
+    {
+        this.databuf = TlsUtils.EMPTY_BYTES;
+        this.pool = pool;
     }
 
     /**
@@ -74,34 +104,30 @@ public void addData(byte[] buf, int off, int len)
         {
             throw new IllegalStateException("Cannot add data to read-only buffer");
         }
+        if (len < 1)
+        {
+            return;
+        }
 
         if (available == 0)
         {
-            if (len > databuf.length)
-            {
-                int desiredSize = nextTwoPow(len | 256);
-                databuf = new byte[desiredSize];
-            }
             skipped = 0;
         }
-        else if ((skipped + available + len) > databuf.length)
+
+        int required = available + len;
+        if (required > databuf.length)
         {
-            int desiredSize = nextTwoPow(available + len);
-            if (desiredSize > databuf.length)
-            {
-                byte[] tmp = new byte[desiredSize];
-                System.arraycopy(databuf, skipped, tmp, 0, available);
-                databuf = tmp;
-            }
-            else
-            {
-                System.arraycopy(databuf, skipped, databuf, 0, available);
-            }
-            skipped = 0;
+            resize(nextTwoPow((required - 1) | 255));
         }
 
-        System.arraycopy(buf, off, databuf, skipped + available, len);
+        int tail = index(available);
+        int first = Math.min(len, databuf.length - tail);
+
+        System.arraycopy(buf, off, databuf, tail, first);
+        System.arraycopy(buf, off + first, databuf, 0, len - first);
+
         available += len;
+        used = Math.max(used, tail + first);
     }
 
     /**
@@ -125,7 +151,12 @@ public void copyTo(OutputStream output, int length) throws IOException
             throw new IllegalStateException("Cannot copy " + length + " bytes, only got " + available);
         }
 
-        output.write(databuf, skipped, length);
+        int first = Math.min(length, databuf.length - skipped);
+        output.write(databuf, skipped, first);
+        if (first < length)
+        {
+            output.write(databuf, 0, length - first);
+        }
     }
 
     /**
@@ -147,7 +178,11 @@ public void read(byte[] buf, int offset, int len, int skip)
         {
             throw new IllegalStateException("Not enough data to read");
         }
-        System.arraycopy(databuf, skipped + skip, buf, offset, len);
+
+        int start = index(skip);
+        int first = Math.min(len, databuf.length - start);
+        System.arraycopy(databuf, start, buf, offset, first);
+        System.arraycopy(databuf, 0, buf, offset + first, len - first);
     }
 
     /**
@@ -169,7 +204,11 @@ public void read(ByteBuffer buf, int len, int skip)
         {
             throw new IllegalStateException("Not enough data to read");
         }
-        buf.put(databuf, skipped + skip, len);
+
+        int start = index(skip);
+        int first = Math.min(len, databuf.length - start);
+        buf.put(databuf, start, first);
+        buf.put(databuf, 0, len - first);
     }
 
     /**
@@ -186,12 +225,23 @@ HandshakeMessageInput readHandshakeMessage(int length)
             throw new IllegalStateException("Cannot read " + length + " bytes, only got " + available);
         }
 
-        int position = skipped;
+        HandshakeMessageInput result;
 
-        available -= length;
-        skipped += length;
+        // NOTE: A pooled buffer may be handed to another queue once drained, so copy the message out of it
+        if (null == pool && (skipped + length) <= databuf.length)
+        {
+            result = new HandshakeMessageInput(databuf, skipped, length);
+        }
+        else
+        {
+            byte[] message = new byte[length];
+            read(message, 0, length, 0);
+            result = new HandshakeMessageInput(message, 0, length);
+        }
 
-        return new HandshakeMessageInput(databuf, position, length);
+        removeData(length);
+
+        return result;
     }
 
     public int readInt32()
@@ -200,7 +250,7 @@ public int readInt32()
         {
             throw new IllegalStateException("Not enough data to read");
         }
-        return TlsUtils.readInt32(databuf, skipped);
+        return (byteAt(0) << 24) | (byteAt(1) << 16) | (byteAt(2) << 8) | byteAt(3);
     }
 
     public short readUint8(int skip)
@@ -210,7 +260,7 @@ public short readUint8(int skip)
             throw new IllegalStateException("Not enough data to read");
         }
 
-        return TlsUtils.readUint8(databuf, skipped + skip);
+        return (short)byteAt(skip);
     }
 
     public int readUint16(int skip)
@@ -219,7 +269,7 @@ public int readUint16(int skip)
         {
             throw new IllegalStateException("Not enough data to read");
         }
-        return TlsUtils.readUint16(databuf, skipped + skip);
+        return (byteAt(skip) << 8) | byteAt(skip + 1);
     }
 
     /**
@@ -237,8 +287,18 @@ public void removeData(int i)
         /*
          * Skip the data.
          */
+        skipped = index(i);
         available -= i;
-        skipped += i;
+
+        if (available == 0 && !readOnlyBuf)
+        {
+            skipped = 0;
+
+            if (null != pool)
+            {
+                release();
+            }
+        }
     }
 
     /**
@@ -279,6 +339,10 @@ public void shrink()
     {
         if (available == 0)
         {
+            if (null != pool)
+            {
+                release();
+            }
             databuf = TlsUtils.EMPTY_BYTES;
             skipped = 0;
         }
@@ -287,11 +351,44 @@ public void shrink()
             int desiredSize = nextTwoPow(available);
             if (desiredSize < databuf.length)
             {
-                byte[] tmp = new byte[desiredSize];
-                System.arraycopy(databuf, skipped, tmp, 0, available);
-                databuf = tmp;
-                skipped = 0;
+                resize(desiredSize);
             }
         }
     }
+
+    private int byteAt(int i)
+    {
+        return databuf[index(i)] & 0xFF;
+    }
+
+    private int index(int i)
+    {
+        int pos = skipped + i;
+        return pos < databuf.length ? pos : pos - databuf.length;
+    }
+
+    private void release()
+    {
+        if (databuf.length > 0)
+        {
+            pool.release(databuf, used);
+            databuf = TlsUtils.EMPTY_BYTES;
+            used = 0;
+        }
+    }
+
+    private void resize(int size)
+    {
+        byte[] tmp = null == pool ? new byte[size] : pool.acquire(size);
+        read(tmp, 0, available, 0);
+
+        if (null != pool)
+        {
+            release();
+        }
+
+        databuf = tmp;
+        skipped = 0;
+        used = available;
+    }
 }
@@ -15,6 +15,11 @@ public ByteQueueInputStream()
         buffer = new ByteQueue();
     }
 
+    ByteQueueInputStream(ByteQueue buffer)
+    {
+        this.buffer = buffer;
+    }
+
     public void addBytes(byte[] buf)
     {
         buffer.addData(buf, 0, buf.length);
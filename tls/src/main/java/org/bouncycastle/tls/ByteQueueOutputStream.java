@@ -16,6 +16,11 @@ public ByteQueueOutputStream()
         buffer = new ByteQueue();
     }
 
+    ByteQueueOutputStream(ByteQueue buffer)
+    {
+        this.buffer = buffer;
+    }
+
     public ByteQueue getBuffer()
     {
         return buffer;
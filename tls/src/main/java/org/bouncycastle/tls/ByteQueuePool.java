@@ -0,0 +1,105 @@
+package org.bouncycastle.tls;
+
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Integers;
+
+/**
+ * A shared pool of byte arrays in power-of-two size classes, used by pooled {@link ByteQueue} instances and
+ * the record layer's buffers so that idle connections hold no buffers and busy connections reuse them instead
+ * of reallocating.
+ * <p>
+ * Arrays are zeroed (up to the extent that was used) before being retained, so no connection data is left
+ * in the pool. Each size class retains a bounded number of arrays; anything beyond that is left to the
+ * garbage collector, as are sizes above the largest class.
+ * </p>
+ */
+class ByteQueuePool
+{
+    private static final int MIN_SHIFT = 8;
+    private static final int MAX_SHIFT = 16;
+    private static final int MAX_RETAINED_BYTES_PER_CLASS = 1 << 20;
+
+    static final ByteQueuePool DEFAULT = new ByteQueuePool(MAX_RETAINED_BYTES_PER_CLASS);
+
+    private final byte[][][] free;
+    private final int[] counts;
+
+    ByteQueuePool(int maxRetainedBytesPerClass)
+    {
+        int classCount = MAX_SHIFT - MIN_SHIFT + 1;
+
+        this.free = new byte[classCount][][];
+        this.counts = new int[classCount];
+
+        for (int i = 0; i < classCount; ++i)
+        {
+            int size = 1 << (MIN_SHIFT + i);
+            this.free[i] = new byte[Math.max(1, maxRetainedBytesPerClass / size)][];
+        }
+    }
+
+    /**
+     * @param minSize the minimum length needed.
+     * @return an array of at least the requested length, rounded up to a size class where possible.
+     */
+    byte[] acquire(int minSize)
+    {
+        int sizeClass = getSizeClass(minSize);
+        if (sizeClass < 0)
+        {
+            return new byte[minSize];
+        }
+
+        byte[][] stack = free[sizeClass];
+        synchronized (stack)
+        {
+            int count = counts[sizeClass];
+            if (count > 0)
+            {
+                byte[] buf = stack[--count];
+                stack[count] = null;
+                counts[sizeClass] = count;
+                return buf;
+            }
+        }
+
+        return new byte[1 << (MIN_SHIFT + sizeClass)];
+    }
+
+    /**
+     * @param buf  an array to return to the pool; it must not be used by the caller afterwards.
+     * @param used the length of the prefix of the array that may hold data (which will be zeroed).
+     */
+    void release(byte[] buf, int used)
+    {
+        int sizeClass = getSizeClass(buf.length);
+        if (sizeClass < 0 || buf.length != (1 << (MIN_SHIFT + sizeClass)))
+        {
+            return;
+        }
+
+        Arrays.fill(buf, 0, used, (byte)0);
+
+        byte[][] stack = free[sizeClass];
+        synchronized (stack)
+        {
+            int count = counts[sizeClass];
+            if (count < stack.length)
+            {
+                stack[count] = buf;
+                counts[sizeClass] = count + 1;
+            }
+        }
+    }
+
+    private static int getSizeClass(int size)
+    {
+        if (size > (1 << MAX_SHIFT))
+        {
+            return -1;
+        }
+
+        int shift = 32 - Integers.numberOfLeadingZeros(Math.max(size, 1 << MIN_SHIFT) - 1);
+        return shift - MIN_SHIFT;
+    }
+}
@@ -103,7 +103,7 @@ private static void sendDatagram(DatagramSender sender, byte[] buf, int off, int
     private final TlsPeer peer;
     private final DatagramTransport transport;
 
-    private final ByteQueue recordQueue = new ByteQueue();
+    private final ByteQueue recordQueue = ByteQueue.createPooled();
     private final Object writeLock = new Object();
 
     private volatile boolean closed = false;
@@ -13,22 +13,207 @@
  * Implements cookie generation/verification for a DTLS server as described in RFC 4347,
  * 4.2.1. Denial of Service Countermeasures.
  * <p/>
- * RFC 4347 4.2.1 additionally recommends changing the secret frequently. This class does not handle that
- * internally, so the instance should be replaced instead.
+ * RFC 4347 4.2.1 additionally recommends changing the secret frequently. When constructed with a rotation
+ * period, the secret is replaced automatically once per period; cookies issued under the previous secret
+ * continue to be accepted for a grace period, so that clients mid-exchange are not turned away. The secret can
+ * also be replaced explicitly using {@link #rotateSecret()}.
+ * <p/>
+ * Each secret keeps one HMAC instance per thread, which is reused for every cookie that thread calculates, and
+ * {@link #verifyRequests(byte[][], byte[][], int[], int[], DatagramSender[])} processes a burst of received
+ * datagrams against one snapshot of the secrets. An instance may be shared between threads.
  */
 public class DTLSVerifier
 {
+    private static final int COOKIE_LENGTH = 32;
+
+    private static class CookieSecret
+    {
+        private final byte id;
+        private final ThreadLocal<TlsMAC> macs;
+
+        CookieSecret(final TlsCrypto crypto, byte id)
+        {
+            final byte[] macKey = new byte[32];
+            crypto.getSecureRandom().nextBytes(macKey);
+
+            this.id = id;
+
+            // NOTE: One MAC per thread (all keyed from the same secret), so concurrent verification doesn't contend
+            this.macs = new ThreadLocal<TlsMAC>()
+            {
+                protected TlsMAC initialValue()
+                {
+                    TlsMAC mac = crypto.createHMAC(MACAlgorithm.hmac_sha256);
+                    mac.setKey(macKey, 0, macKey.length);
+                    return mac;
+                }
+            };
+        }
+
+        byte[] calculateCookie(byte[] clientID, ByteArrayOutputStream macInput) throws IOException
+        {
+            TlsMAC mac = macs.get();
+
+            byte[] cookie = new byte[COOKIE_LENGTH];
+            cookie[0] = id;
+
+            mac.update(cookie, 0, 1);
+            mac.update(clientID, 0, clientID.length);
+            macInput.writeTo(new TlsMACOutputStream(mac));
+            byte[] tag = mac.calculateMAC();
+
+            // NOTE: Truncated so that the cookie still fits the 32-byte limit of DTLS 1.0 (RFC 4347)
+            System.arraycopy(tag, 0, cookie, 1, COOKIE_LENGTH - 1);
+            return cookie;
+        }
+    }
+
+    private static class CookieSecrets
+    {
+        private final CookieSecret current, previous;
+        private final long previousExpiry;
+
+        CookieSecrets(CookieSecret current, CookieSecret previous, long previousExpiry)
+        {
+            this.current = current;
+            this.previous = previous;
+            this.previousExpiry = previousExpiry;
+        }
+
+        CookieSecret select(byte[] cookie, long now)
+        {
+            if (COOKIE_LENGTH != cookie.length)
+            {
+                return null;
+            }
+            if (current.id == cookie[0])
+            {
+                return current;
+            }
+            if (null != previous && previous.id == cookie[0] && now < previousExpiry)
+            {
+                return previous;
+            }
+            return null;
+        }
+    }
+
     private final TlsCrypto crypto;
-    private final byte[] macKey;
+    private final long rotationPeriod;
+    private final long gracePeriod;
 
+    private CookieSecrets secrets;
+    private long currentStart = Long.MIN_VALUE;
+
+    /**
+     * Create a verifier with a single secret, which is only changed by calls to {@link #rotateSecret()}.
+     */
     public DTLSVerifier(TlsCrypto crypto)
     {
+        this(crypto, 0L, 0L);
+    }
+
+    /**
+     * @param crypto         the {@link TlsCrypto} to generate secrets and calculate MACs with.
+     * @param rotationPeriod the period (in milliseconds) after which the secret is replaced, or 0 to only replace
+     *                       it by calls to {@link #rotateSecret()}.
+     * @param gracePeriod    the period (in milliseconds) for which cookies under the previous secret are still
+     *                       accepted after a rotation. Must not exceed a non-zero rotation period.
+     */
+    public DTLSVerifier(TlsCrypto crypto, long rotationPeriod, long gracePeriod)
+    {
+        if (null == crypto)
+        {
+            throw new NullPointerException("'crypto' cannot be null");
+        }
+        if (rotationPeriod < 0L)
+        {
+            throw new IllegalArgumentException("'rotationPeriod' cannot be negative");
+        }
+        if (gracePeriod < 0L || (rotationPeriod > 0L && gracePeriod > rotationPeriod))
+        {
+            throw new IllegalArgumentException("'gracePeriod' out of range");
+        }
+
         this.crypto = crypto;
-        this.macKey = new byte[32];
-        crypto.getSecureRandom().nextBytes(macKey);
+        this.rotationPeriod = rotationPeriod;
+        this.gracePeriod = gracePeriod;
+        this.secrets = new CookieSecrets(new CookieSecret(crypto, (byte)0), null, 0L);
+    }
+
+    /**
+     * Replace the current secret with a new one. Cookies under the replaced secret are still accepted for the
+     * grace period.
+     */
+    public synchronized void rotateSecret()
+    {
+        long now = currentTimeMillis();
+
+        implRotate(now);
+        this.currentStart = now;
     }
 
     public DTLSRequest verifyRequest(byte[] clientID, byte[] data, int dataOff, int dataLen, DatagramSender sender)
+    {
+        long now = currentTimeMillis();
+
+        return implVerifyRequest(getSecrets(now), now, clientID, data, dataOff, dataLen, sender);
+    }
+
+    /**
+     * Verify a burst of received datagrams, equivalent to calling
+     * {@link #verifyRequest(byte[], byte[], int, int, DatagramSender)} for each one in turn. All arrays are
+     * indexed in parallel.
+     *
+     * @return an array with, for each datagram, the verified {@link DTLSRequest}, or null if a HelloVerifyRequest
+     *         was sent instead or the datagram was ignored.
+     */
+    public DTLSRequest[] verifyRequests(byte[][] clientIDs, byte[][] data, int[] dataOffs, int[] dataLens,
+        DatagramSender[] senders)
+    {
+        int count = clientIDs.length;
+        if (data.length != count || dataOffs.length != count || dataLens.length != count || senders.length != count)
+        {
+            throw new IllegalArgumentException("Batch arrays must all have the same length");
+        }
+
+        long now = currentTimeMillis();
+        CookieSecrets secrets = getSecrets(now);
+
+        DTLSRequest[] requests = new DTLSRequest[count];
+        for (int i = 0; i < count; ++i)
+        {
+            requests[i] = implVerifyRequest(secrets, now, clientIDs[i], data[i], dataOffs[i], dataLens[i],
+                senders[i]);
+        }
+        return requests;
+    }
+
+    protected long currentTimeMillis()
+    {
+        return System.currentTimeMillis();
+    }
+
+    private synchronized CookieSecrets getSecrets(long now)
+    {
+        if (rotationPeriod > 0L)
+        {
+            if (Long.MIN_VALUE == currentStart)
+            {
+                this.currentStart = now;
+            }
+            else if ((now - currentStart) >= rotationPeriod)
+            {
+                implRotate(now);
+                this.currentStart = now;
+            }
+        }
+
+        return secrets;
+    }
+
+    private DTLSRequest implVerifyRequest(CookieSecrets secrets, long now, byte[] clientID, byte[] data,
+        int dataOff, int dataLen, DatagramSender sender)
     {
         try
         {
@@ -63,20 +248,25 @@ public DTLSRequest verifyRequest(byte[] clientID, byte[] data, int dataOff, int
 
             byte[] cookie = clientHello.getCookie();
 
-            TlsMAC mac = crypto.createHMAC(MACAlgorithm.hmac_sha256);
-            mac.setKey(macKey, 0, macKey.length);
-            mac.update(clientID, 0, clientID.length);
-            macInput.writeTo(new TlsMACOutputStream(mac));
-            byte[] expectedCookie = mac.calculateMAC();
-
-            if (Arrays.constantTimeAreEqual(expectedCookie, cookie))
+            CookieSecret secret = secrets.select(cookie, now);
+            byte[] expectedCookie = null;
+            if (null != secret)
             {
-                byte[] message = TlsUtils.copyOfRangeExact(data, msgOff, msgOff + msgLen);
+                expectedCookie = secret.calculateCookie(clientID, macInput);
+                if (Arrays.constantTimeAreEqual(expectedCookie, cookie))
+                {
+                    byte[] message = TlsUtils.copyOfRangeExact(data, msgOff, msgOff + msgLen);
 
-                return new DTLSRequest(recordSeq, message, clientHello);
+                    return new DTLSRequest(recordSeq, message, clientHello);
+                }
             }
 
-            DTLSReliableHandshake.sendHelloVerifyRequest(sender, recordSeq, expectedCookie);
+            // NOTE: A wrong cookie under the current secret already gave us the cookie to send back
+            byte[] newCookie = (secret == secrets.current)
+                ? expectedCookie
+                : secrets.current.calculateCookie(clientID, macInput);
+
+            DTLSReliableHandshake.sendHelloVerifyRequest(sender, recordSeq, newCookie);
         }
         catch (IOException e)
         {
@@ -85,4 +275,12 @@ public DTLSRequest verifyRequest(byte[] clientID, byte[] data, int dataOff, int
 
         return null;
     }
+
+    private void implRotate(long now)
+    {
+        CookieSecret current = secrets.current;
+        CookieSecret next = new CookieSecret(crypto, (byte)(current.id + 1));
+
+        this.secrets = new CookieSecrets(next, current, now + gracePeriod);
+    }
 }
@@ -11,6 +11,7 @@
 import org.bouncycastle.tls.crypto.TlsHash;
 import org.bouncycastle.tls.crypto.TlsHashOutputStream;
 import org.bouncycastle.tls.crypto.TlsSecret;
+import org.bouncycastle.util.Arrays;
 
 public class OfferedPsks
 {
@@ -102,6 +103,19 @@ public int getIndexOfIdentity(PskIdentity pskIdentity)
         return -1;
     }
 
+    int getIndexOfIdentity(byte[] identity)
+    {
+        for (int i = 0, count = identities.size(); i < count; ++i)
+        {
+            PskIdentity pskIdentity = (PskIdentity)identities.elementAt(i);
+            if (Arrays.constantTimeAreEqual(identity, pskIdentity.getIdentity()))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     public void encode(OutputStream output) throws IOException
     {
         // identities
@@ -145,7 +159,7 @@ public void encode(OutputStream output) throws IOException
     }
 
     static void encodeBinders(OutputStream output, TlsCrypto crypto, TlsHandshakeHash handshakeHash,
-        BindersConfig bindersConfig) throws IOException
+        BindersConfig bindersConfig, boolean afterHelloRetryRequest) throws IOException
     {
         TlsPSK[] psks = bindersConfig.psks;
         TlsSecret[] earlySecrets = bindersConfig.earlySecrets;
@@ -164,10 +178,19 @@ static void encodeBinders(OutputStream output, TlsCrypto crypto, TlsHandshakeHas
             boolean isExternalPSK = true;
             int pskCryptoHashAlgorithm = TlsCryptoUtils.getHashForPRF(psk.getPRFAlgorithm());
 
-            // TODO[tls13-psk] Cache the transcript hashes per algorithm to avoid duplicates for multiple PSKs
-            TlsHash hash = crypto.createHash(pskCryptoHashAlgorithm);
-            handshakeHash.copyBufferTo(new TlsHashOutputStream(hash));
-            byte[] transcriptHash = hash.calculateHash();
+            byte[] transcriptHash;
+            if (afterHelloRetryRequest)
+            {
+                // NOTE: The handshake hash is no longer buffering, but the remaining PSKs share its PRF hash
+                transcriptHash = handshakeHash.getFinalHash(pskCryptoHashAlgorithm);
+            }
+            else
+            {
+                // TODO[tls13-psk] Cache the transcript hashes per algorithm to avoid duplicates for multiple PSKs
+                TlsHash hash = crypto.createHash(pskCryptoHashAlgorithm);
+                handshakeHash.copyBufferTo(new TlsHashOutputStream(hash));
+                transcriptHash = hash.calculateHash();
+            }
 
             byte[] binder = TlsUtils.calculatePSKBinder(crypto, isExternalPSK, pskCryptoHashAlgorithm, earlySecret,
                 transcriptHash);
@@ -9,6 +9,7 @@
 import org.bouncycastle.tls.crypto.TlsCipher;
 import org.bouncycastle.tls.crypto.TlsDecodeResult;
 import org.bouncycastle.tls.crypto.TlsEncodeResult;
+import org.bouncycastle.tls.crypto.TlsInPlaceCipher;
 import org.bouncycastle.tls.crypto.TlsNullNullCipher;
 
 /**
@@ -27,13 +28,16 @@
     private TlsCipher pendingCipher = null;
     private TlsCipher readCipher = TlsNullNullCipher.INSTANCE;
     private TlsCipher readCipherDeferred = null;
+    private TlsCipher readCipherHeld = null;
     private TlsCipher writeCipher = TlsNullNullCipher.INSTANCE;
+    private TlsCipher writeCipherHeld = null;
 
     private ProtocolVersion writeVersion = null;
 
     private int plaintextLimit = DEFAULT_PLAINTEXT_LIMIT;
     private int ciphertextLimit = DEFAULT_PLAINTEXT_LIMIT;
     private boolean ignoreChangeCipherSpec = false;
+    private long skipEarlyDataLimit = 0L;
 
     RecordStream(TlsProtocol handler, InputStream input, OutputStream output)
     {
@@ -68,6 +72,14 @@ void setPendingCipher(TlsCipher tlsCipher)
         this.pendingCipher = tlsCipher;
     }
 
+    /**
+     * RFC 8446 4.2.10. Rejected early data is skipped, up to the given number of (record fragment) bytes.
+     */
+    void setSkipEarlyDataLimit(long skipEarlyDataLimit)
+    {
+        this.skipEarlyDataLimit = skipEarlyDataLimit;
+    }
+
     void notifyChangeCipherSpecReceived()
         throws IOException
     {
@@ -86,7 +98,7 @@ void enablePendingCipherRead(boolean deferred)
         {
             throw new TlsFatalAlert(AlertDescription.internal_error);
         }
-        if (readCipherDeferred != null)
+        if (readCipherDeferred != null || readCipherHeld != null)
         {
             throw new TlsFatalAlert(AlertDescription.internal_error);
         }
@@ -109,14 +121,79 @@ void enablePendingCipherWrite()
         {
             throw new TlsFatalAlert(AlertDescription.internal_error);
         }
+        if (writeCipherHeld != null)
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error);
+        }
         this.writeCipher = this.pendingCipher;
         writeSeqNo.reset();
     }
 
+    /*
+     * While early data is in use, the handshake cipher for the early data direction is held back until
+     * the EndOfEarlyData message (see RFC 8446 4.5).
+     */
+    void holdPendingCipherRead()
+        throws IOException
+    {
+        if (pendingCipher == null || readCipherDeferred != null || readCipherHeld != null)
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error);
+        }
+        this.readCipherHeld = pendingCipher;
+    }
+
+    void holdPendingCipherWrite()
+        throws IOException
+    {
+        if (pendingCipher == null || writeCipherHeld != null)
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error);
+        }
+        this.writeCipherHeld = pendingCipher;
+    }
+
+    void enableHeldCipherRead()
+        throws IOException
+    {
+        if (readCipherHeld == null)
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error);
+        }
+        this.readCipher = readCipherHeld;
+        this.readCipherHeld = null;
+        this.ciphertextLimit = readCipher.getCiphertextDecodeLimit(plaintextLimit);
+        readSeqNo.reset();
+    }
+
+    void enableHeldCipherWrite()
+        throws IOException
+    {
+        if (writeCipherHeld == null)
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error);
+        }
+        this.writeCipher = writeCipherHeld;
+        this.writeCipherHeld = null;
+        writeSeqNo.reset();
+    }
+
+    /*
+     * RFC 8446 4.1.4. After a HelloRetryRequest, the second ClientHello is sent unprotected even if early
+     * data was already sent.
+     */
+    void resetWriteCipher()
+    {
+        this.pendingCipher = null;
+        this.writeCipher = TlsNullNullCipher.INSTANCE;
+        writeSeqNo.reset();
+    }
+
     void finaliseHandshake()
         throws IOException
     {
-        if (readCipher != pendingCipher || writeCipher != pendingCipher)
+        if (readCipher != pendingCipher || writeCipher != pendingCipher || readCipherHeld != null
+            || writeCipherHeld != null)
         {
             throw new TlsFatalAlert(AlertDescription.handshake_failure);
         }
@@ -148,7 +225,7 @@ RecordPreview previewRecordHeader(byte[] recordHeader) throws IOException
 
         int length = TlsUtils.readUint16(recordHeader, RecordFormat.LENGTH_OFFSET);
 
-        checkLength(length, ciphertextLimit, AlertDescription.record_overflow);
+        checkLength(length, getCiphertextLimit(), AlertDescription.record_overflow);
 
         int recordSize = RecordFormat.FRAGMENT_OFFSET + length;
         int applicationDataLimit = 0;
@@ -195,7 +272,7 @@ boolean readFullRecord(byte[] input, int inputOff, int inputLen)
 
         ProtocolVersion recordVersion = TlsUtils.readVersion(input, inputOff + RecordFormat.VERSION_OFFSET);
 
-        checkLength(length, ciphertextLimit, AlertDescription.record_overflow);
+        checkLength(length, getCiphertextLimit(), AlertDescription.record_overflow);
 
         if (ignoreChangeCipherSpec && ContentType.change_cipher_spec == recordType)
         {
@@ -205,6 +282,10 @@ boolean readFullRecord(byte[] input, int inputOff, int inputLen)
 
         TlsDecodeResult decoded = decodeAndVerify(recordType, recordVersion, input,
             inputOff + RecordFormat.FRAGMENT_OFFSET, length);
+        if (null == decoded)
+        {
+            return true;
+        }
 
         handler.processRecord(decoded.contentType, decoded.buf, decoded.off, decoded.len);
         return true;
@@ -224,11 +305,10 @@ boolean readRecord()
 
         int length = TlsUtils.readUint16(inputRecord.buf, RecordFormat.LENGTH_OFFSET);
 
-        checkLength(length, ciphertextLimit, AlertDescription.record_overflow);
+        checkLength(length, getCiphertextLimit(), AlertDescription.record_overflow);
 
         inputRecord.readFragment(input, length);
 
-        TlsDecodeResult decoded;
         try
         {
             if (ignoreChangeCipherSpec && ContentType.change_cipher_spec == recordType)
@@ -237,22 +317,38 @@ boolean readRecord()
                 return true;
             }
 
-            decoded = decodeAndVerify(recordType, recordVersion, inputRecord.buf, RecordFormat.FRAGMENT_OFFSET, length);
+            TlsDecodeResult decoded = decodeAndVerify(recordType, recordVersion, inputRecord.buf,
+                RecordFormat.FRAGMENT_OFFSET, length);
+            if (null != decoded)
+            {
+                handler.processRecord(decoded.contentType, decoded.buf, decoded.off, decoded.len);
+            }
+            return true;
         }
         finally
         {
+            // NOTE: The record may have been decrypted in place, so it is only reset once processed
             inputRecord.reset();
         }
-
-        handler.processRecord(decoded.contentType, decoded.buf, decoded.off, decoded.len);
-        return true;
     }
 
     TlsDecodeResult decodeAndVerify(short recordType, ProtocolVersion recordVersion, byte[] ciphertext, int off, int len)
         throws IOException
     {
-        long seqNo = readSeqNo.nextValue(AlertDescription.unexpected_message);
-        TlsDecodeResult decoded = readCipher.decodeCiphertext(seqNo, recordType, recordVersion, ciphertext, off, len);
+        TlsDecodeResult decoded;
+        if (skipEarlyDataLimit > 0L)
+        {
+            decoded = decodeOrSkipEarlyData(recordType, recordVersion, ciphertext, off, len);
+            if (null == decoded)
+            {
+                return null;
+            }
+        }
+        else
+        {
+            long seqNo = readSeqNo.nextValue(AlertDescription.unexpected_message);
+            decoded = readCipher.decodeCiphertext(seqNo, recordType, recordVersion, ciphertext, off, len);
+        }
 
         checkLength(decoded.len, plaintextLimit, AlertDescription.record_overflow);
 
@@ -268,6 +364,65 @@ TlsDecodeResult decodeAndVerify(short recordType, ProtocolVersion recordVersion,
         return decoded;
     }
 
+    private TlsDecodeResult decodeOrSkipEarlyData(short recordType, ProtocolVersion recordVersion, byte[] ciphertext,
+        int off, int len) throws IOException
+    {
+        /*
+         * RFC 8446 4.2.10. [..] the server [..] skip[s] past early data [..] by attempting to deprotect received
+         * records using the handshake traffic key, discarding records which fail deprotection (up to the
+         * configured max_early_data_size). [..] (after a HelloRetryRequest) skip all records with an external
+         * content type of "application_data" (indicating that they are encrypted), up to the configured
+         * max_early_data_size.
+         */
+        if (!readCipher.usesOpaqueRecordTypeDecode())
+        {
+            if (ContentType.application_data == recordType)
+            {
+                skipEarlyData(len, AlertDescription.unexpected_message);
+                return null;
+            }
+
+            this.skipEarlyDataLimit = 0L;
+
+            long seqNo = readSeqNo.nextValue(AlertDescription.unexpected_message);
+            return readCipher.decodeCiphertext(seqNo, recordType, recordVersion, ciphertext, off, len);
+        }
+
+        // NOTE: The sequence number is only consumed once a record is successfully deprotected
+        long seqNo = readSeqNo.currentValue();
+
+        TlsDecodeResult decoded;
+        try
+        {
+            decoded = readCipher.decodeCiphertext(seqNo, recordType, recordVersion, ciphertext, off, len);
+        }
+        catch (TlsFatalAlert e)
+        {
+            if (AlertDescription.bad_record_mac != e.getAlertDescription())
+            {
+                throw e;
+            }
+
+            skipEarlyData(len, AlertDescription.bad_record_mac);
+            return null;
+        }
+
+        this.skipEarlyDataLimit = 0L;
+
+        readSeqNo.nextValue(AlertDescription.unexpected_message);
+        return decoded;
+    }
+
+    private void skipEarlyData(int len, short alertDescription) throws IOException
+    {
+        if (len > skipEarlyDataLimit)
+        {
+            throw new TlsFatalAlert(alertDescription, "Rejected early data exceeds limit");
+        }
+
+        this.skipEarlyDataLimit -= len;
+    }
+
     void writeRecord(short contentType, byte[] plaintext, int plaintextOffset, int plaintextLength)
         throws IOException
     {
@@ -294,6 +449,13 @@ void writeRecord(short contentType, byte[] plaintext, int plaintextOffset, int p
         long seqNo = writeSeqNo.nextValue(AlertDescription.internal_error);
         ProtocolVersion recordVersion = writeVersion;
 
+        if (writeCipher instanceof TlsInPlaceCipher)
+        {
+            writeRecordInPlace((TlsInPlaceCipher)writeCipher, seqNo, contentType, recordVersion, plaintext,
+                plaintextOffset, plaintextLength);
+            return;
+        }
+
         TlsEncodeResult encoded = writeCipher.encodePlaintext(seqNo, contentType, recordVersion,
             RecordFormat.FRAGMENT_OFFSET, plaintext, plaintextOffset, plaintextLength);
 
@@ -316,9 +478,48 @@ void writeRecord(short contentType, byte[] plaintext, int plaintextOffset, int p
         output.flush();
     }
 
+    private void writeRecordInPlace(TlsInPlaceCipher cipher, long seqNo, short contentType,
+        ProtocolVersion recordVersion, byte[] plaintext, int plaintextOffset, int plaintextLength)
+        throws IOException
+    {
+        int recordLimit = RecordFormat.FRAGMENT_OFFSET + cipher.getCiphertextEncodeLimit(plaintextLength);
+
+        /*
+         * The buffer is taken from the shared pool for the duration of the write only, so a record written
+         * concurrently (e.g. an alert) simply gets a buffer of its own, and idle connections hold none.
+         */
+        byte[] buf = ByteQueuePool.DEFAULT.acquire(recordLimit);
+
+        try
+        {
+            int ciphertextLength = cipher.encodePlaintext(seqNo, contentType, recordVersion, plaintext,
+                plaintextOffset, plaintextLength, buf, RecordFormat.FRAGMENT_OFFSET);
+            TlsUtils.checkUint16(ciphertextLength);
+
+            TlsUtils.writeUint8(cipher.getEncodeRecordType(contentType), buf, RecordFormat.TYPE_OFFSET);
+            TlsUtils.writeVersion(recordVersion, buf, RecordFormat.VERSION_OFFSET);
+            TlsUtils.writeUint16(ciphertextLength, buf, RecordFormat.LENGTH_OFFSET);
+
+            try
+            {
+                output.write(buf, 0, RecordFormat.FRAGMENT_OFFSET + ciphertextLength);
+            }
+            catch (InterruptedIOException e)
+            {
+                throw new TlsFatalAlert(AlertDescription.internal_error, e);
+            }
+        }
+        finally
+        {
+            ByteQueuePool.DEFAULT.release(buf, recordLimit);
+        }
+
+        output.flush();
+    }
+
     void close() throws IOException
     {
-        inputRecord.reset();
+        inputRecord.release();
 
         IOException io = null;
         try
@@ -396,7 +597,7 @@ else if (readCipher.usesOpaqueRecordTypeDecode())
             {
             case ContentType.application_data:
             {
-                if (!handler.isApplicationDataReady())
+                if (!handler.isApplicationDataReady() && skipEarlyDataLimit <= 0L)
                 {
                     throw new TlsFatalAlert(AlertDescription.unexpected_message,
                         "Not ready for " + ContentType.getText(ContentType.application_data));
@@ -417,6 +618,15 @@ else if (readCipher.usesOpaqueRecordTypeDecode())
         return recordType;
     }
 
+    private int getCiphertextLimit()
+    {
+        /*
+         * RFC 8446 5.2. Rejected early data may use any length up to 2^14 + 256, regardless of the limit
+         * that would otherwise apply to the current cipher.
+         */
+        return skipEarlyDataLimit > 0L ? Math.max(ciphertextLimit, (1 << 14) + 256) : ciphertextLimit;
+    }
+
     private static void checkLength(int length, int limit, short alertDescription)
         throws IOException
     {
@@ -492,6 +702,25 @@ boolean readHeader(InputStream input) throws IOException
 
         void reset()
         {
+            /*
+             * NOTE: The fragment buffer goes back to the shared pool, which zeroes the record just read (it may
+             * have been decrypted in place). Only a partially read record holds a buffer between calls.
+             */
+            byte[] fragmentBuf = buf;
+            int fragmentLen = pos;
+
+            buf = header;
+            pos = 0;
+
+            if (fragmentBuf != header)
+            {
+                ByteQueuePool.DEFAULT.release(fragmentBuf, fragmentLen);
+            }
+        }
+
+        void release()
+        {
+            // NOTE: Not returned to the pool, since a concurrent read may still be filling it
             buf = header;
             pos = 0;
         }
@@ -500,8 +729,12 @@ private void resize(int length)
         {
             if (buf.length < length)
             {
-                byte[] tmp = new byte[length];
+                byte[] tmp = ByteQueuePool.DEFAULT.acquire(length);
                 System.arraycopy(buf, 0, tmp, 0, pos);
+                if (buf != header)
+                {
+                    ByteQueuePool.DEFAULT.release(buf, pos);
+                }
                 buf = tmp;
             }
         }
@@ -43,6 +43,7 @@
     boolean truncatedHMac = false;
     ProtocolName applicationProtocol = null;
     boolean applicationProtocolSet = false;
+    boolean earlyDataAccepted = false;
     short[] clientCertTypes = null;
     Vector clientServerNames = null;
     Vector clientSigAlgs = null;
@@ -339,6 +340,15 @@ public boolean isApplicationProtocolSet()
         return applicationProtocolSet;
     }
 
+    /**
+     * Whether TLS 1.3 early data (0-RTT) was accepted by the server for this handshake. Note that
+     * early data is not protected against replay by the protocol itself (see RFC 8446 8).
+     */
+    public boolean isEarlyDataAccepted()
+    {
+        return earlyDataAccepted;
+    }
+
     public byte[] getLocalVerifyData()
     {
         return localVerifyData;
@@ -32,6 +32,21 @@
      */
     Vector getExternalPSKs();
 
+    /**
+     * WARNING: EXPERIMENTAL FEATURE, UNSTABLE API
+     * 
+     * Return application data to send as TLS 1.3 early data (0-RTT), protected under the first of the
+     * {@link #getExternalPSKs() external PSKs}. Note that this will only be called when such a PSK is
+     * actually offered. Early data may be replayed by an attacker and is not forward secret (see RFC
+     * 8446 8.); it should only be used for idempotent requests. Whether the server accepted it can be
+     * checked via {@link SecurityParameters#isEarlyDataAccepted()} once the handshake completes; if it
+     * was rejected, the application is responsible for sending it again.
+     * 
+     * @return the early data to send, or null if none should be sent.
+     * @throws IOException
+     */
+    byte[] getEarlyData() throws IOException;
+
     boolean isFallback();
 
     // Hashtable is (Integer -> byte[])
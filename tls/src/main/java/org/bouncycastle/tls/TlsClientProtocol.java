@@ -23,6 +23,8 @@
     protected Hashtable clientAgreements = null;
     OfferedPsks.BindersConfig clientBinders = null;
     protected ClientHello clientHello = null;
+    protected boolean earlyDataOffered = false;
+    protected int earlyDataCipherSuite = -1;
     protected TlsKeyExchange keyExchange = null;
     protected TlsAuthentication authentication = null;
 
@@ -243,10 +245,19 @@ protected void handle13HandshakeMessage(short type, HandshakeMessageInput buf)
                 recordStream.setIgnoreChangeCipherSpec(false);
 
                 /*
-                 * TODO[tls13] After receiving the server's Finished message, if the server has accepted early
+                 * RFC 8446 4.5. After receiving the server's Finished message, if the server has accepted early
                  * data, an EndOfEarlyData message will be sent to indicate the key change. This message will
                  * be encrypted with the 0-RTT traffic keys.
                  */
+                if (tlsClientContext.getSecurityParametersHandshake().isEarlyDataAccepted())
+                {
+                    send13EndOfEarlyDataMessage();
+                    this.connection_state = CS_CLIENT_END_OF_EARLY_DATA;
+
+                    this.earlyDataOffered = false;
+
+                    recordStream.enableHeldCipherWrite();
+                }
 
                 if (null != certificateRequest)
                 {
@@ -1023,6 +1034,15 @@ protected void process13ServerHello(ServerHello serverHello, boolean afterHelloR
                 this.selectedPSK13 = true;
             }
 
+            /*
+             * RFC 8446 4.2.10. [..] the client MUST verify that the server selected the first identity and the
+             * cipher suite [..] associated with it, if the server accepts the early data.
+             */
+            if (0 != selected_identity || securityParameters.getCipherSuite() != earlyDataCipherSuite)
+            {
+                this.earlyDataCipherSuite = -1;
+            }
+
             tlsClient.notifySelectedPSK(selectedPSK);
         }
 
@@ -1073,23 +1093,28 @@ protected void process13ServerHelloCoda(ServerHello serverHello, boolean afterHe
 
         TlsUtils.establish13PhaseHandshake(tlsClientContext, serverHelloTranscriptHash, recordStream);
 
-        // See RFC 8446 D.4.
-        if (!afterHelloRetryRequest)
+        if (earlyDataOffered)
         {
-            recordStream.setIgnoreChangeCipherSpec(true);
+            // NOTE: The change_cipher_spec was already sent, and the early data cipher stays in use for writing
+            recordStream.holdPendingCipherWrite();
+        }
+        else
+        {
+            // See RFC 8446 D.4.
+            if (!afterHelloRetryRequest)
+            {
+                recordStream.setIgnoreChangeCipherSpec(true);
 
-            /*
-             * TODO[tls13] If offering early_data, the record is placed immediately after the first
-             * ClientHello.
-             */
-            /*
-             * TODO[tls13] Ideally wait until just after Server Finished received, but then we'd need to defer
-             * the enabling of the pending write cipher
-             */
-            sendChangeCipherSpecMessage();
+                /*
+                 * TODO[tls13] Ideally wait until just after Server Finished received, but then we'd need to
+                 * defer the enabling of the pending write cipher
+                 */
+                sendChangeCipherSpecMessage();
+            }
+
+            recordStream.enablePendingCipherWrite();
         }
 
-        recordStream.enablePendingCipherWrite();
         recordStream.enablePendingCipherRead(false);
     }
 
@@ -1139,6 +1164,15 @@ protected void processServerHello(ServerHello serverHello)
                 ? ProtocolVersion.TLSv12
                 : server_version;
 
+            /*
+             * RFC 8446 D.3. A client that attempts to send 0-RTT data MUST fail a connection if it receives a
+             * ServerHello with TLS 1.2 or older.
+             */
+            if (earlyDataOffered && !TlsUtils.isTLSv13(server_version))
+            {
+                throw new TlsFatalAlert(AlertDescription.protocol_version);
+            }
+
             this.recordStream.setWriteVersion(legacy_record_version);
             securityParameters.negotiatedVersion = server_version;
         }
@@ -1518,6 +1552,28 @@ protected void receive13EncryptedExtensions(ByteArrayInputStream buf)
         securityParameters.applicationProtocol = TlsExtensionsUtils.getALPNExtensionServer(serverExtensions);
         securityParameters.applicationProtocolSet = true;
 
+        if (earlyDataOffered)
+        {
+            if (TlsExtensionsUtils.hasEarlyDataIndication(serverExtensions))
+            {
+                if (earlyDataCipherSuite < 0)
+                {
+                    throw new TlsFatalAlert(AlertDescription.illegal_parameter);
+                }
+
+                securityParameters.earlyDataAccepted = true;
+            }
+            else
+            {
+                // NOTE: Rejected early data was protected under the first PSK, which might not be the selected one
+                clearEarlyExporterMasterSecret();
+
+                this.earlyDataOffered = false;
+
+                recordStream.enableHeldCipherWrite();
+            }
+        }
+
         Hashtable sessionClientExtensions = clientExtensions, sessionServerExtensions = serverExtensions;
         if (securityParameters.isResumedSession())
         {
@@ -1713,14 +1769,25 @@ protected void send13ClientHelloRetry() throws IOException
          * extension [RFC7685].
          */
 
-        // See RFC 8446 D.4.
+        if (earlyDataOffered)
         {
-            recordStream.setIgnoreChangeCipherSpec(true);
-
             /*
-             * TODO[tls13] If offering early_data, the record is placed immediately after the first
-             * ClientHello.
+             * RFC 8446 4.1.2. [..] Removing the "early_data" extension (Section 4.2.10) if one was present.
+             * Early data is not permitted after a HelloRetryRequest.
+             * 
+             * NOTE: The change_cipher_spec was already sent (just after the first ClientHello).
              */
+            this.earlyDataOffered = false;
+            this.earlyDataCipherSuite = -1;
+
+            clearEarlyExporterMasterSecret();
+            recordStream.resetWriteCipher();
+        }
+        else
+        {
+            // See RFC 8446 D.4.
+            recordStream.setIgnoreChangeCipherSpec(true);
+
             sendChangeCipherSpecMessage();
         }
 
@@ -1877,6 +1944,25 @@ protected void sendClientHello()
         this.clientBinders = TlsUtils.addPreSharedKeyToClientHello(tlsClientContext, tlsClient, clientExtensions,
             offeredCipherSuites);
 
+        byte[] earlyData = null;
+        if (null != clientBinders && !securityParameters.isRenegotiating())
+        {
+            earlyData = tlsClient.getEarlyData();
+            if (!TlsUtils.isNullOrEmpty(earlyData))
+            {
+                this.earlyDataCipherSuite = TlsUtils.getEarlyDataCipherSuite(offeredCipherSuites,
+                    clientBinders.psks[0].getPRFAlgorithm());
+
+                if (earlyDataCipherSuite < 0)
+                {
+                    throw new TlsFatalAlert(AlertDescription.internal_error);
+                }
+
+                TlsExtensionsUtils.addEarlyDataIndication(clientExtensions);
+                this.earlyDataOffered = true;
+            }
+        }
+
         // TODO[tls13-psk] Perhaps don't add key_share if external PSK(s) offered and 'psk_dhe_ke' not offered  
         this.clientAgreements = TlsUtils.addKeyShareToClientHello(tlsClientContext, tlsClient, clientExtensions);
 
@@ -1951,6 +2037,50 @@ protected void sendClientHello()
             null, offeredCipherSuites, clientExtensions, bindersSize);
 
         sendClientHelloMessage();
+
+        if (earlyDataOffered)
+        {
+            send13EarlyData(earlyData);
+        }
+    }
+
+    protected void send13EarlyData(byte[] earlyData) throws IOException
+    {
+        TlsUtils.establish13PhaseEarlyClient(tlsClientContext, earlyDataCipherSuite, clientBinders.earlySecrets[0],
+            handshakeHash, recordStream);
+
+        recordStream.setWriteVersion(ProtocolVersion.TLSv12);
+
+        /*
+         * RFC 8446 D.4. [..] If offering early data, the record is placed immediately after the first
+         * ClientHello.
+         */
+        recordStream.setIgnoreChangeCipherSpec(true);
+        sendChangeCipherSpecMessage();
+
+        recordStream.enablePendingCipherWrite();
+
+        int plaintextLimit = recordStream.getPlaintextLimit();
+        for (int pos = 0; pos < earlyData.length; pos += plaintextLimit)
+        {
+            int len = Math.min(plaintextLimit, earlyData.length - pos);
+            safeWriteRecord(ContentType.application_data, earlyData, pos, len);
+        }
+    }
+
+    private void clearEarlyExporterMasterSecret()
+    {
+        SecurityParameters securityParameters = tlsClientContext.getSecurityParametersHandshake();
+        if (null != securityParameters.earlyExporterMasterSecret)
+        {
+            securityParameters.earlyExporterMasterSecret.destroy();
+            securityParameters.earlyExporterMasterSecret = null;
+        }
+    }
+
+    protected void send13EndOfEarlyDataMessage() throws IOException
+    {
+        HandshakeMessageOutput.send(this, HandshakeType.end_of_early_data, TlsUtils.EMPTY_BYTES);
     }
 
     protected void sendClientHelloMessage() throws IOException
@@ -1962,7 +2092,10 @@ protected void sendClientHelloMessage() throws IOException
 
         if (null != clientBinders)
         {
-            OfferedPsks.encodeBinders(message, tlsClientContext.getCrypto(), handshakeHash, clientBinders);
+            boolean afterHelloRetryRequest = CS_SERVER_HELLO_RETRY_REQUEST == connection_state;
+
+            OfferedPsks.encodeBinders(message, tlsClientContext.getCrypto(), handshakeHash, clientBinders,
+                afterHelloRetryRequest);
         }
 
         message.sendClientHello(this, handshakeHash, clientHello.getBindersSize());
@@ -0,0 +1,333 @@
+package org.bouncycastle.tls;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link ByteBuffer}-based driver for a {@link TlsProtocol} in non-blocking mode, suitable for use directly
+ * under an NIO selector.
+ * <p>
+ * Network input is passed to {@link #unwrap(ByteBuffer)}, which consumes only complete records and processes
+ * each one in place when the buffer has an accessible array (any partial record is left in the buffer for the
+ * caller to compact). Records are decrypted in place, so the consumed bytes of such a buffer are overwritten
+ * and must not be relied on afterwards. Application data written with {@link #write(ByteBuffer[], int, int)}
+ * is coalesced into full records where possible; it is encrypted no later than the next call to
+ * {@link #flush()} or {@link #wrap(ByteBuffer[], int, int)}. The record-sized staging array used for this is
+ * taken from a shared pool only while data is held back, so idle engines hold none. Both directions support
+ * scatter/gather buffer arrays.
+ * </p>
+ * <p>
+ * An engine (like the protocol it drives) is intended for use by one thread at a time.
+ * </p>
+ */
+public class TlsNioEngine
+{
+    protected final TlsProtocol protocol;
+
+    private final byte[] recordHeader = new byte[RecordFormat.FRAGMENT_OFFSET];
+
+    private byte[] staged = null;
+    private int stagedCount = 0;
+
+    /**
+     * @param protocol a {@link TlsClientProtocol} or {@link TlsServerProtocol} created in non-blocking mode. The
+     *                 caller is still responsible for calling connect/accept on it.
+     */
+    public TlsNioEngine(TlsProtocol protocol)
+    {
+        if (null == protocol)
+        {
+            throw new NullPointerException("'protocol' cannot be null");
+        }
+        if (protocol.blocking)
+        {
+            throw new IllegalArgumentException("'protocol' must be in non-blocking mode");
+        }
+
+        this.protocol = protocol;
+    }
+
+    public TlsProtocol getProtocol()
+    {
+        return protocol;
+    }
+
+    public boolean isClosed()
+    {
+        return protocol.isClosed();
+    }
+
+    public boolean isHandshaking()
+    {
+        return protocol.isHandshaking();
+    }
+
+    /**
+     * Process as many complete records as are available in the given buffer. The buffer's position is advanced
+     * past the records consumed; any trailing partial record is not consumed.
+     * <p>
+     * If the buffer has an accessible array, each record is decrypted in place: the consumed bytes of
+     * <code>src</code> are overwritten with intermediate data (a copy of the input should be taken first if it
+     * is needed). Bytes beyond the records consumed are left unchanged.
+     * </p>
+     *
+     * @param src network input.
+     * @return the number of bytes consumed.
+     * @throws IOException if a record cannot be processed.
+     */
+    public int unwrap(ByteBuffer src) throws IOException
+    {
+        int consumed = 0;
+
+        while (!protocol.isClosed() && src.remaining() >= RecordFormat.FRAGMENT_OFFSET)
+        {
+            int position = src.position();
+            for (int i = 0; i < RecordFormat.FRAGMENT_OFFSET; ++i)
+            {
+                recordHeader[i] = src.get(position + i);
+            }
+
+            // NOTE: Checks the header, so a bad length fails here rather than waiting for more input
+            int recordSize = protocol.previewInputRecord(recordHeader).getRecordSize();
+            if (src.remaining() < recordSize)
+            {
+                break;
+            }
+
+            if (src.hasArray())
+            {
+                protocol.offerInput(src.array(), src.arrayOffset() + position, recordSize);
+            }
+            else
+            {
+                byte[] record = ByteQueuePool.DEFAULT.acquire(recordSize);
+                try
+                {
+                    src.get(record, 0, recordSize);
+                    src.position(position);
+
+                    protocol.offerInput(record, 0, recordSize);
+                }
+                finally
+                {
+                    ByteQueuePool.DEFAULT.release(record, recordSize);
+                }
+            }
+
+            src.position(position + recordSize);
+            consumed += recordSize;
+        }
+
+        return consumed;
+    }
+
+    /**
+     * @return the number of bytes of received application data available via
+     *         {@link #read(ByteBuffer[], int, int)}.
+     */
+    public int getAvailableInputBytes()
+    {
+        return protocol.getAvailableInputBytes();
+    }
+
+    public int read(ByteBuffer dst)
+    {
+        return protocol.readInput(dst, dst.remaining());
+    }
+
+    /**
+     * Scatter received application data into the given buffers, filling each in turn.
+     *
+     * @return the number of bytes read.
+     */
+    public long read(ByteBuffer[] dsts, int offset, int length)
+    {
+        checkBuffers(dsts, offset, length);
+
+        long total = 0;
+        for (int i = 0; i < length && protocol.getAvailableInputBytes() > 0; ++i)
+        {
+            total += read(dsts[offset + i]);
+        }
+        return total;
+    }
+
+    public int write(ByteBuffer src) throws IOException
+    {
+        return (int)write(new ByteBuffer[]{ src }, 0, 1);
+    }
+
+    /**
+     * Gather application data from the given buffers. All remaining bytes are consumed. Data that doesn't fill
+     * a record is held back to be coalesced with later writes, until the next {@link #flush()} or
+     * {@link #wrap(ByteBuffer[], int, int)}.
+     *
+     * @return the number of bytes written.
+     * @throws IllegalStateException if called before the initial handshake has completed.
+     * @throws IOException if the connection is closed, or for encryption errors.
+     */
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException
+    {
+        checkBuffers(srcs, offset, length);
+
+        if (!protocol.isApplicationDataReady())
+        {
+            throw new IllegalStateException("Cannot write application data until initial handshake completed.");
+        }
+
+        long total = 0;
+        for (int i = 0; i < length; ++i)
+        {
+            ByteBuffer src = srcs[offset + i];
+
+            while (src.hasRemaining())
+            {
+                int limit = protocol.getApplicationDataLimit();
+                int remaining = src.remaining();
+
+                // Whole records are encrypted straight from the caller's array
+                if (0 == stagedCount && src.hasArray() && remaining >= limit)
+                {
+                    int count = remaining - (remaining % limit);
+                    protocol.writeApplicationData(src.array(), src.arrayOffset() + src.position(), count);
+                    src.position(src.position() + count);
+                    total += count;
+                    continue;
+                }
+
+                if (null == staged || staged.length < limit)
+                {
+                    byte[] tmp = ByteQueuePool.DEFAULT.acquire(limit);
+                    if (null != staged)
+                    {
+                        System.arraycopy(staged, 0, tmp, 0, stagedCount);
+                        ByteQueuePool.DEFAULT.release(staged, stagedCount);
+                    }
+                    this.staged = tmp;
+                }
+
+                int count = Math.min(remaining, limit - stagedCount);
+                src.get(staged, stagedCount, count);
+                stagedCount += count;
+                total += count;
+
+                if (stagedCount >= limit)
+                {
+                    flush();
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Encrypt any application data held back by {@link #write(ByteBuffer[], int, int)}.
+     */
+    public void flush() throws IOException
+    {
+        if (stagedCount > 0)
+        {
+            int count = stagedCount;
+            this.stagedCount = 0;
+            try
+            {
+                protocol.writeApplicationData(staged, 0, count);
+            }
+            finally
+            {
+                // NOTE: Idle engines hold no staging array (the pool zeroes the flushed plaintext)
+                ByteQueuePool.DEFAULT.release(staged, count);
+                this.staged = null;
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes of network output currently available via
+     *         {@link #wrap(ByteBuffer[], int, int)}, not counting any application data not yet flushed.
+     */
+    public int getAvailableOutputBytes()
+    {
+        return protocol.getAvailableOutputBytes();
+    }
+
+    public int wrap(ByteBuffer dst) throws IOException
+    {
+        return (int)wrap(new ByteBuffer[]{ dst }, 0, 1);
+    }
+
+    /**
+     * Flush any held-back application data, then scatter the pending network output into the given buffers,
+     * filling each in turn.
+     *
+     * @return the number of bytes produced.
+     * @throws IOException for encryption errors when flushing.
+     */
+    public long wrap(ByteBuffer[] dsts, int offset, int length) throws IOException
+    {
+        checkBuffers(dsts, offset, length);
+
+        if (!protocol.isClosed())
+        {
+            flush();
+        }
+
+        long total = 0;
+        for (int i = 0; i < length && protocol.getAvailableOutputBytes() > 0; ++i)
+        {
+            ByteBuffer dst = dsts[offset + i];
+            total += protocol.readOutput(dst, dst.remaining());
+        }
+        return total;
+    }
+
+    /**
+     * Flush any held-back application data and close the connection. The close_notify alert is then available
+     * via {@link #wrap(ByteBuffer[], int, int)}.
+     */
+    public void close() throws IOException
+    {
+        try
+        {
+            if (!protocol.isClosed())
+            {
+                flush();
+            }
+        }
+        finally
+        {
+            releaseStaged();
+        }
+        protocol.close();
+    }
+
+    /**
+     * Should be called when the network input reaches EOF.
+     */
+    public void closeInput() throws IOException
+    {
+        protocol.closeInput();
+    }
+
+    private void releaseStaged()
+    {
+        if (null != staged)
+        {
+            ByteQueuePool.DEFAULT.release(staged, stagedCount);
+            this.staged = null;
+            this.stagedCount = 0;
+        }
+    }
+
+    private static void checkBuffers(ByteBuffer[] buffers, int offset, int length)
+    {
+        if (null == buffers)
+        {
+            throw new NullPointerException("'buffers' cannot be null");
+        }
+        if (offset < 0 || length < 0 || offset > buffers.length - length)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+}
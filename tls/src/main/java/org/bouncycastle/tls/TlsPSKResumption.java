@@ -0,0 +1,15 @@
+package org.bouncycastle.tls;
+
+/**
+ * A resumption PSK (RFC 8446 2.2), i.e. one established by a NewSessionTicket in an earlier TLS 1.3 handshake.
+ * The identity is the ticket itself.
+ */
+public interface TlsPSKResumption
+    extends TlsPSK
+{
+    /**
+     * @return the peer's certificate from the handshake that issued the ticket, or null if the peer was not
+     *         authenticated by certificate.
+     */
+    Certificate getPeerCertificate();
+}
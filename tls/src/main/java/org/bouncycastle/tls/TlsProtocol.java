@@ -128,9 +128,9 @@ protected boolean isTLSv13ConnectionState()
     /*
      * Queues for data from some protocols.
      */
-    private ByteQueue applicationDataQueue = new ByteQueue(0);
+    private ByteQueue applicationDataQueue = ByteQueue.createPooled();
     private ByteQueue alertQueue = new ByteQueue(2);
-    private ByteQueue handshakeQueue = new ByteQueue(0);
+    private ByteQueue handshakeQueue = ByteQueue.createPooled();
 //    private ByteQueue heartbeatQueue = new ByteQueue();
 
     final RecordStream recordStream;
@@ -174,8 +174,8 @@ protected boolean isTLSv13ConnectionState()
     protected TlsProtocol()
     {
         this.blocking = false;
-        this.inputBuffers = new ByteQueueInputStream();
-        this.outputBuffer = new ByteQueueOutputStream();
+        this.inputBuffers = new ByteQueueInputStream(ByteQueue.createPooled());
+        this.outputBuffer = new ByteQueueOutputStream(ByteQueue.createPooled());
         this.recordStream = new RecordStream(this, inputBuffers, outputBuffer);
     }
 
@@ -567,7 +567,7 @@ protected void processRecord(short protocol, byte[] buf, int off, int len)
         {
             if (!appDataReady)
             {
-                throw new TlsFatalAlert(AlertDescription.unexpected_message);
+                checkEarlyDataReceived(len);
             }
             applicationDataQueue.addData(buf, off, len);
             processApplicationDataQueue();
@@ -716,6 +716,16 @@ private void processHandshakeQueue(ByteQueue queue)
         }
     }
 
+    /**
+     * Called when application data is received before the handshake has completed, which is only valid for
+     * accepted TLS 1.3 early data.
+     */
+    protected void checkEarlyDataReceived(int length)
+        throws IOException
+    {
+        throw new TlsFatalAlert(AlertDescription.unexpected_message);
+    }
+
     private void processApplicationDataQueue()
     {
         /*
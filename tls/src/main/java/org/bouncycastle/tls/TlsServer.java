@@ -6,6 +6,7 @@
 
 import org.bouncycastle.tls.crypto.TlsDHConfig;
 import org.bouncycastle.tls.crypto.TlsECConfig;
+import org.bouncycastle.tls.crypto.TlsSecret;
 
 /**
  * Interface describing a TLS server endpoint.
@@ -39,6 +40,45 @@
      */
     TlsPSKExternal getExternalPSK(Vector identities);
 
+    /**
+     * WARNING: EXPERIMENTAL FEATURE, UNSTABLE API
+     * 
+     * Return the {@link TlsPSKResumption resumption PSK} to select from the ClientHello, i.e. one recovered from
+     * a ticket previously issued via {@link #getNewSessionTicket13(TlsSecret, long)}. Note that this will only
+     * be called when TLS 1.3 or higher is amongst the offered protocol versions, and one or more PSKs are
+     * actually offered. It is called before {@link #getExternalPSK(Vector)}, which is only consulted if this
+     * returns null.
+     * 
+     * @param identities a {@link Vector} of {@link PskIdentity} instances.
+     * @return the {@link TlsPSKResumption} corresponding to the selected identity, or null to not select any.
+     */
+    TlsPSKResumption getResumptionPSK(Vector identities) throws IOException;
+
+    /**
+     * WARNING: EXPERIMENTAL FEATURE, UNSTABLE API
+     * 
+     * RFC 8446 4.2.10. The maximum amount of TLS 1.3 early data (0-RTT) that will be accepted, which is
+     * also advertised in the "early_data" extension of tickets issued via
+     * {@link #getNewSessionTicket13(TlsSecret, long)}. A value of 0 disables early data.
+     * 
+     * @return the maximum early data size in bytes.
+     */
+    long getMaxEarlyDataSize();
+
+    /**
+     * WARNING: EXPERIMENTAL FEATURE, UNSTABLE API
+     * 
+     * Called when the client offered early data under the first PSK identity, that PSK was selected, and
+     * {@link #getMaxEarlyDataSize()} is non-zero. Note that the protocol will already have checked the
+     * cipher suite for an external PSK; otherwise the implementation is responsible for the RFC 8446 4.2.10
+     * checks against the parameters associated with the PSK (e.g. the selected ALPN protocol), and for
+     * whatever anti-replay protection it requires (see RFC 8446 8.).
+     * 
+     * @return true to accept the early data, false to reject (and skip) it.
+     * @throws IOException
+     */
+    boolean acceptEarlyData() throws IOException;
+
     void notifySession(TlsSession session);
 
     void notifyClientVersion(ProtocolVersion clientVersion) throws IOException;
@@ -135,4 +175,37 @@ void notifyClientCertificate(Certificate clientCertificate)
      */
     NewSessionTicket getNewSessionTicket()
         throws IOException;
+
+    /**
+     * WARNING: EXPERIMENTAL FEATURE, UNSTABLE API
+     * 
+     * RFC 8446 4.6.1. New Session Ticket Message.
+     * <p>
+     * Called once the client Finished message of a TLS 1.3 handshake has been verified. The resumption PSK is
+     * only derived (and {@link #getNewSessionTicket13(TlsSecret, long)} called) if this returns true.
+     * </p>
+     * 
+     * @return true if a ticket may be issued for this connection.
+     * @throws IOException
+     */
+    boolean shouldIssueTicket13()
+        throws IOException;
+
+    /**
+     * WARNING: EXPERIMENTAL FEATURE, UNSTABLE API
+     * 
+     * RFC 8446 4.6.1. New Session Ticket Message.
+     * <p>
+     * Called after {@link #shouldIssueTicket13()} has returned true. The returned ticket
+     * must allow the server to recover the resumption PSK (see {@link #getResumptionPSK(Vector)}); how it
+     * does so (e.g. by encrypting the PSK into the ticket) is up to the implementation.
+     * </p>
+     * 
+     * @param resumptionPSK the PSK associated with the ticket. It is destroyed once this method returns.
+     * @param ticketAgeAdd the (randomly generated) ticket_age_add value that will be sent with the ticket.
+     * @return the ticket and its lifetime (in seconds, at most 604800), or null to not send a ticket.
+     * @throws IOException
+     */
+    NewSessionTicket getNewSessionTicket13(TlsSecret resumptionPSK, long ticketAgeAdd)
+        throws IOException;
 }
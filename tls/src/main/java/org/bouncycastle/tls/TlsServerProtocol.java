@@ -10,6 +10,7 @@
 
 import org.bouncycastle.tls.crypto.TlsAgreement;
 import org.bouncycastle.tls.crypto.TlsCrypto;
+import org.bouncycastle.tls.crypto.TlsCryptoUtils;
 import org.bouncycastle.tls.crypto.TlsDHConfig;
 import org.bouncycastle.tls.crypto.TlsECConfig;
 import org.bouncycastle.tls.crypto.TlsKemConfig;
@@ -23,6 +24,7 @@
     TlsServerContextImpl tlsServerContext = null;
 
     protected int[] offeredCipherSuites = null;
+    protected long earlyDataRemaining = -1L;
     protected TlsKeyExchange keyExchange = null;
     protected CertificateRequest certificateRequest = null;
 
@@ -219,6 +221,15 @@ protected ServerHello generate13ServerHello(ClientHello clientHello, HandshakeMe
             }
             this.retryCookie = null;
 
+            /*
+             * RFC 8446 4.1.2. [..] Removing the "early_data" extension (Section 4.2.10) if one was present.
+             * Early data is not permitted after a HelloRetryRequest.
+             */
+            if (TlsExtensionsUtils.hasEarlyDataIndication(clientHelloExtensions))
+            {
+                throw new TlsFatalAlert(AlertDescription.illegal_parameter);
+            }
+
             clientShare = TlsUtils.selectKeyShare(clientShares, retryGroup);
             if (null == clientShare)
             {
@@ -292,6 +303,15 @@ protected ServerHello generate13ServerHello(ClientHello clientHello, HandshakeMe
                 }
 
                 TlsUtils.negotiatedCipherSuite(securityParameters, cipherSuite);
+
+                /*
+                 * RFC 8446 4.2.11. [..] the server MUST ensure that it selects a compatible PSK (if any) and
+                 * cipher suite.
+                 */
+                if (null != selectedPSK && selectedPSK.psk.getPRFAlgorithm() != securityParameters.getPRFAlgorithm())
+                {
+                    throw new TlsFatalAlert(AlertDescription.internal_error);
+                }
             }
 
             int[] clientSupportedGroups = securityParameters.getClientSupportedGroups();
@@ -311,6 +331,17 @@ protected ServerHello generate13ServerHello(ClientHello clientHello, HandshakeMe
 
                 this.retryCookie = tlsServerContext.getNonceGenerator().generateNonce(16);
 
+                /*
+                 * RFC 8446 4.2.10. [..] Request that the client send another ClientHello by responding with a
+                 * HelloRetryRequest. A client MUST NOT include the "early_data" extension in its followup
+                 * ClientHello. The server then ignores early data by skipping all records with an external
+                 * content type of "application_data" [..].
+                 */
+                if (TlsExtensionsUtils.hasEarlyDataIndication(clientHelloExtensions))
+                {
+                    recordStream.setSkipEarlyDataLimit(getSkipEarlyDataLimit());
+                }
+
                 return generate13HelloRetryRequest(clientHello);
             }
 
@@ -391,6 +422,35 @@ protected ServerHello generate13ServerHello(ClientHello clientHello, HandshakeMe
             this.selectedPSK13 = true;
 
             TlsExtensionsUtils.addPreSharedKeyServerHello(serverHelloExtensions, selectedPSK.index);
+
+            /*
+             * NOTE: There is no client authentication in a PSK handshake; a resumption PSK carries forward
+             * the peer identity established by the handshake that issued the ticket.
+             */
+            if (selectedPSK.psk instanceof TlsPSKResumption)
+            {
+                securityParameters.peerCertificate = ((TlsPSKResumption)selectedPSK.psk).getPeerCertificate();
+            }
+        }
+
+        if (!afterHelloRetryRequest && TlsExtensionsUtils.hasEarlyDataIndication(clientHelloExtensions))
+        {
+            if (acceptEarlyData(selectedPSK))
+            {
+                TlsExtensionsUtils.addEarlyDataIndication(serverEncryptedExtensions);
+
+                securityParameters.earlyDataAccepted = true;
+                this.earlyDataRemaining = tlsServer.getMaxEarlyDataSize();
+            }
+            else
+            {
+                /*
+                 * RFC 8446 4.2.10. [..] Ignore the extension and return a regular 1-RTT response. The server
+                 * then skips past early data by attempting to deprotect received records using the handshake
+                 * traffic key [..].
+                 */
+                recordStream.setSkipEarlyDataLimit(getSkipEarlyDataLimit());
+            }
         }
 
         TlsSecret sharedSecret;
@@ -437,6 +497,54 @@ else if (NamedGroup.refersToASpecificKem(namedGroup))
             securityParameters.getCipherSuite(), serverHelloExtensions);
     }
 
+    protected boolean acceptEarlyData(OfferedPsks.SelectedConfig selectedPSK) throws IOException
+    {
+        /*
+         * RFC 8446 4.2.10. [..] the server MUST verify that the following values are the same as those
+         * associated with the selected PSK: [..] The selected cipher suite [..] The selected ALPN protocol,
+         * if any. [..] early data [..] is only permitted with the first identity.
+         */
+        if (null == selectedPSK || 0 != selectedPSK.index || tlsServer.getMaxEarlyDataSize() <= 0L)
+        {
+            return false;
+        }
+
+        if (selectedPSK.psk instanceof TlsPSKExternal)
+        {
+            int earlyDataCipherSuite = TlsUtils.getEarlyDataCipherSuite(offeredCipherSuites,
+                selectedPSK.psk.getPRFAlgorithm());
+
+            SecurityParameters securityParameters = tlsServerContext.getSecurityParametersHandshake();
+            if (earlyDataCipherSuite != securityParameters.getCipherSuite())
+            {
+                return false;
+            }
+        }
+
+        return tlsServer.acceptEarlyData();
+    }
+
+    protected long getSkipEarlyDataLimit()
+    {
+        // NOTE: Rejected early data is skipped even if this server would never accept early data
+        return Math.max(tlsServer.getMaxEarlyDataSize(), 1L << 16);
+    }
+
+    protected void checkEarlyDataReceived(int length)
+        throws IOException
+    {
+        /*
+         * RFC 8446 4.2.10. If the server [..] receives more than max_early_data_size bytes of 0-RTT data, it
+         * SHOULD abort the connection with an "unexpected_message" alert.
+         */
+        if (length > earlyDataRemaining)
+        {
+            throw new TlsFatalAlert(AlertDescription.unexpected_message);
+        }
+
+        this.earlyDataRemaining -= length;
+    }
+
     protected ServerHello generateServerHello(ClientHello clientHello, HandshakeMessageInput clientHelloMessage)
         throws IOException
     {
@@ -753,6 +861,15 @@ else if (resumedSession)
                 :   tlsServer.getServerExtensions();
 
             this.serverExtensions = TlsExtensionsUtils.ensureExtensionsInitialised(sessionServerExtensions);
+
+            /*
+             * RFC 5077 3.2. The server uses a zero-length SessionTicket extension to indicate to the client
+             * that it will send a new session ticket [..]. We never issue a new ticket when resuming.
+             */
+            if (resumedSession)
+            {
+                serverExtensions.remove(TlsProtocol.EXT_SessionTicket);
+            }
         }
 
         tlsServer.getServerExtensionsForConnection(serverExtensions);
@@ -876,10 +993,9 @@ protected void handle13HandshakeMessage(short type, HandshakeMessageInput buf)
         }
 
         /*
-         * TODO[tls13] Abbreviated handshakes (PSK resumption)
-         * 
-         * NOTE: No CertificateRequest, Certificate, CertificateVerify messages, but client
-         * might now send EndOfEarlyData after receiving server Finished message.
+         * NOTE: For PSK handshakes there are no CertificateRequest, Certificate, CertificateVerify
+         * messages, and a client that sent accepted early data will send EndOfEarlyData after
+         * receiving server Finished message.
          */
 
         switch (type)
@@ -890,6 +1006,7 @@ protected void handle13HandshakeMessage(short type, HandshakeMessageInput buf)
             {
             case CS_SERVER_FINISHED:
             {
+                checkEarlyDataEnded();
                 receive13ClientCertificate(buf);
                 this.connection_state = CS_CLIENT_CERTIFICATE;
                 break;
@@ -941,11 +1058,31 @@ protected void handle13HandshakeMessage(short type, HandshakeMessageInput buf)
             }
             break;
         }
+        case HandshakeType.end_of_early_data:
+        {
+            switch (this.connection_state)
+            {
+            case CS_SERVER_FINISHED:
+            {
+                receive13EndOfEarlyData(buf);
+                this.connection_state = CS_CLIENT_END_OF_EARLY_DATA;
+                break;
+            }
+            default:
+                throw new TlsFatalAlert(AlertDescription.unexpected_message);
+            }
+            break;
+        }
         case HandshakeType.finished:
         {
             switch (this.connection_state)
             {
             case CS_SERVER_FINISHED:
+            {
+                checkEarlyDataEnded();
+                // NB: Fall through to next case label
+            }
+            case CS_CLIENT_END_OF_EARLY_DATA:
             {
                 skip13ClientCertificate();
                 // NB: Fall through to next case label
@@ -966,6 +1103,11 @@ protected void handle13HandshakeMessage(short type, HandshakeMessageInput buf)
                 // NOTE: Completes the switch to application-data phase (server entered after CS_SERVER_FINISHED).
                 recordStream.enablePendingCipherRead(false);
 
+                // NOTE: The resumption_master_secret transcript includes the client Finished
+                buf.updateHash(handshakeHash);
+
+                send13NewSessionTicketMessage();
+
                 completeHandshake();
                 break;
             }
@@ -986,7 +1128,6 @@ protected void handle13HandshakeMessage(short type, HandshakeMessageInput buf)
         case HandshakeType.client_key_exchange:
         case HandshakeType.compressed_certificate:
         case HandshakeType.encrypted_extensions:
-        case HandshakeType.end_of_early_data:
         case HandshakeType.hello_request:
         case HandshakeType.hello_verify_request:
         case HandshakeType.message_hash:
@@ -1080,6 +1221,15 @@ protected void handleHandshakeMessage(short type, HandshakeMessageInput buf)
                     }
                     else
                     {
+                        if (securityParameters.isEarlyDataAccepted())
+                        {
+                            // NOTE: The ClientHello is the last message in the early traffic secret transcript
+                            TlsUtils.establish13PhaseEarly(tlsServerContext, TlsUtils.getCurrentPRFHash(handshakeHash),
+                                recordStream);
+
+                            recordStream.enablePendingCipherRead(false);
+                        }
+
                         sendServerHelloMessage(serverHello);
                         this.connection_state = CS_SERVER_HELLO;
 
@@ -1487,6 +1637,33 @@ protected void receive13ClientFinished(ByteArrayInputStream buf) throws IOExcept
         process13FinishedMessage(buf);
     }
 
+    protected void receive13EndOfEarlyData(ByteArrayInputStream buf) throws IOException
+    {
+        if (earlyDataRemaining < 0L)
+        {
+            throw new TlsFatalAlert(AlertDescription.unexpected_message);
+        }
+
+        assertEmpty(buf);
+
+        this.earlyDataRemaining = -1L;
+
+        // NOTE: Switches from the early traffic secret to the client handshake traffic secret
+        recordStream.enableHeldCipherRead();
+    }
+
+    protected void checkEarlyDataEnded() throws IOException
+    {
+        /*
+         * RFC 8446 4.5. If the server sent an "early_data" extension in EncryptedExtensions, the client MUST
+         * send an EndOfEarlyData message after receiving the server Finished.
+         */
+        if (earlyDataRemaining >= 0L)
+        {
+            throw new TlsFatalAlert(AlertDescription.unexpected_message);
+        }
+    }
+
     protected void receiveCertificateMessage(ByteArrayInputStream buf)
         throws IOException
     {
@@ -1574,7 +1751,16 @@ protected void send13ServerHelloCoda(ServerHello serverHello, boolean afterHello
         TlsUtils.establish13PhaseHandshake(tlsServerContext, serverHelloTranscriptHash, recordStream);
 
         recordStream.enablePendingCipherWrite();
-        recordStream.enablePendingCipherRead(true);
+
+        if (securityParameters.isEarlyDataAccepted())
+        {
+            // NOTE: Early data continues to be read until the client's EndOfEarlyData message
+            recordStream.holdPendingCipherRead();
+        }
+        else
+        {
+            recordStream.enablePendingCipherRead(true);
+        }
 
         send13EncryptedExtensionsMessage(serverExtensions);
         this.connection_state = CS_SERVER_ENCRYPTED_EXTENSIONS;
@@ -1672,6 +1858,78 @@ protected void sendHelloRequestMessage()
         HandshakeMessageOutput.send(this, HandshakeType.hello_request, TlsUtils.EMPTY_BYTES);
     }
 
+    protected void send13NewSessionTicketMessage()
+        throws IOException
+    {
+        // NOTE: Nothing is derived (or drawn from the RNG) unless the server is going to issue a ticket
+        if (!tlsServer.shouldIssueTicket13())
+        {
+            return;
+        }
+
+        SecurityParameters securityParameters = tlsServerContext.getSecurityParametersHandshake();
+        TlsCrypto crypto = tlsServerContext.getCrypto();
+
+        // NOTE: Only one ticket is issued per connection, so the nonce need not vary
+        byte[] ticketNonce = new byte[1];
+        long ticketAgeAdd = crypto.getSecureRandom().nextInt() & 0xFFFFFFFFL;
+
+        NewSessionTicket newSessionTicket;
+        {
+            byte[] transcriptHash = TlsUtils.getCurrentPRFHash(handshakeHash);
+
+            TlsSecret resumptionMasterSecret = TlsUtils.deriveSecret(securityParameters,
+                securityParameters.getMasterSecret(), "res master", transcriptHash);
+
+            TlsSecret resumptionPSK = TlsCryptoUtils.hkdfExpandLabel(resumptionMasterSecret,
+                securityParameters.getPRFCryptoHashAlgorithm(), "resumption", ticketNonce,
+                securityParameters.getPRFHashLength());
+
+            resumptionMasterSecret.destroy();
+
+            try
+            {
+                newSessionTicket = tlsServer.getNewSessionTicket13(resumptionPSK, ticketAgeAdd);
+            }
+            finally
+            {
+                resumptionPSK.destroy();
+            }
+        }
+
+        if (null == newSessionTicket)
+        {
+            return;
+        }
+
+        long ticketLifetime = newSessionTicket.getTicketLifetimeHint();
+        byte[] ticket = newSessionTicket.getTicket();
+
+        /*
+         * RFC 8446 4.6.1. Servers MUST NOT use any value greater than 604800 seconds (7 days).
+         */
+        if (ticketLifetime < 0L || ticketLifetime > 604800L || TlsUtils.isNullOrEmpty(ticket))
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error);
+        }
+
+        HandshakeMessageOutput message = new HandshakeMessageOutput(HandshakeType.new_session_ticket);
+        TlsUtils.writeUint32(ticketLifetime, message);
+        TlsUtils.writeUint32(ticketAgeAdd, message);
+        TlsUtils.writeOpaque8(ticketNonce, message);
+        TlsUtils.writeOpaque16(ticket, message);
+
+        // RFC 8446 4.6.1. The "early_data" extension advertises the max_early_data_size for the ticket
+        Hashtable ticketExtensions = new Hashtable();
+        long maxEarlyDataSize = tlsServer.getMaxEarlyDataSize();
+        if (maxEarlyDataSize > 0L)
+        {
+            TlsExtensionsUtils.addEarlyDataMaxSize(ticketExtensions, maxEarlyDataSize);
+        }
+        TlsUtils.writeOpaque16(writeExtensionsData(ticketExtensions), message);
+        message.send(this);
+    }
+
     protected void sendNewSessionTicketMessage(NewSessionTicket newSessionTicket)
         throws IOException
     {
@@ -1871,8 +1871,11 @@ private static void establish13TrafficSecrets(TlsContext context, byte[] transcr
             securityParameters.trafficSecretServer = deriveSecret(securityParameters, phaseSecret, serverLabel,
                 transcriptHash);
         }
-
-        // TODO[tls13] Early data (client->server only)
+        else
+        {
+            // NOTE: Early data is client->server only
+            securityParameters.trafficSecretServer = null;
+        }
 
         recordStream.setPendingCipher(initCipher(context));
     }
@@ -1898,7 +1901,6 @@ static void establish13PhaseEarly(TlsContext context, byte[] clientHelloTranscri
 
         // TODO[tls13] binder_key
 
-        // TODO[tls13] Early data (client->server only)
         if (null != recordStream)
         {
             establish13TrafficSecrets(context, clientHelloTranscriptHash, phaseSecret, "c e traffic", null,
@@ -1909,6 +1911,49 @@ static void establish13PhaseEarly(TlsContext context, byte[] clientHelloTranscri
             clientHelloTranscriptHash);
     }
 
+    /*
+     * NOTE: The client sends early data before the server has negotiated the version and cipher suite, so
+     * they are only provisionally set (for the first offered PSK) while the early traffic secret is derived.
+     */
+    static void establish13PhaseEarlyClient(TlsContext context, int cipherSuite, TlsSecret pskEarlySecret,
+        TlsHandshakeHash handshakeHash, RecordStream recordStream) throws IOException
+    {
+        SecurityParameters securityParameters = context.getSecurityParametersHandshake();
+
+        securityParameters.negotiatedVersion = ProtocolVersion.TLSv13;
+        try
+        {
+            negotiatedCipherSuite(securityParameters, cipherSuite);
+            securityParameters.earlySecret = pskEarlySecret;
+
+            // NOTE: At this point the transcript consists only of the ClientHello
+            TlsHash hash = context.getCrypto().createHash(securityParameters.getPRFCryptoHashAlgorithm());
+            handshakeHash.copyBufferTo(new TlsHashOutputStream(hash));
+            byte[] clientHelloTranscriptHash = hash.calculateHash();
+
+            establish13PhaseEarly(context, clientHelloTranscriptHash, recordStream);
+        }
+        finally
+        {
+            // NOTE: The PSK early secret is still owned by the offered binders
+            securityParameters.earlySecret = null;
+
+            if (null != securityParameters.trafficSecretClient)
+            {
+                securityParameters.trafficSecretClient.destroy();
+                securityParameters.trafficSecretClient = null;
+            }
+
+            securityParameters.negotiatedVersion = null;
+            securityParameters.cipherSuite = CipherSuite.TLS_NULL_WITH_NULL_NULL;
+            securityParameters.keyExchangeAlgorithm = -1;
+            securityParameters.prfAlgorithm = -1;
+            securityParameters.prfCryptoHashAlgorithm = -1;
+            securityParameters.prfHashLength = -1;
+            securityParameters.verifyDataLength = -1;
+        }
+    }
+
     static void establish13PhaseHandshake(TlsContext context, byte[] serverHelloTranscriptHash,
         RecordStream recordStream) throws IOException
     {
@@ -2300,6 +2345,24 @@ static int getPRFAlgorithm13(int cipherSuite)
         }
     }
 
+    /*
+     * RFC 8446 4.2.10. [..] the server [..] MUST verify that [..] the selected cipher suite [..] [is] the same
+     * as those associated with the selected PSK. An external PSK only specifies a PRF algorithm, so the
+     * client protects early data using the first offered TLS 1.3 cipher suite with that PRF algorithm.
+     */
+    static int getEarlyDataCipherSuite(int[] cipherSuites, int prfAlgorithm)
+    {
+        for (int i = 0; i < cipherSuites.length; ++i)
+        {
+            int cipherSuite = cipherSuites[i];
+            if (getPRFAlgorithm13(cipherSuite) == prfAlgorithm)
+            {
+                return cipherSuite;
+            }
+        }
+        return -1;
+    }
+
     static int[] getPRFAlgorithms13(int[] cipherSuites)
     {
         int[] result = new int[Math.min(3, cipherSuites.length)];
@@ -6049,48 +6112,61 @@ static OfferedPsks.SelectedConfig selectPreSharedKey(TlsServerContext serverCont
             if (Arrays.contains(pskKeyExchangeModes, PskKeyExchangeMode.psk_dhe_ke))
             {
                 // TODO[tls13] Prefer to get the exact index from the server?
-                TlsPSKExternal psk = server.getExternalPSK(offeredPsks.getIdentities());
+                TlsPSK psk = server.getResumptionPSK(offeredPsks.getIdentities());
+                boolean isExternalPSK = false;
+                int index = -1;
+
                 if (null != psk)
                 {
-                    int index = offeredPsks.getIndexOfIdentity(new PskIdentity(psk.getIdentity(), 0L));
-                    if (index >= 0)
+                    // NOTE: The obfuscated_ticket_age is only of interest to the server
+                    index = offeredPsks.getIndexOfIdentity(psk.getIdentity());
+                }
+                else
+                {
+                    psk = server.getExternalPSK(offeredPsks.getIdentities());
+                    isExternalPSK = true;
+
+                    if (null != psk)
                     {
-                        byte[] binder = (byte[])offeredPsks.getBinders().elementAt(index);
+                        index = offeredPsks.getIndexOfIdentity(new PskIdentity(psk.getIdentity(), 0L));
+                    }
+                }
 
-                        TlsCrypto crypto = serverContext.getCrypto();
-                        TlsSecret earlySecret = getPSKEarlySecret(crypto, psk);
+                if (index >= 0)
+                {
+                    byte[] binder = (byte[])offeredPsks.getBinders().elementAt(index);
 
-                        // TODO[tls13-psk] Handle resumption PSKs
-                        boolean isExternalPSK = true;
-                        int pskCryptoHashAlgorithm = TlsCryptoUtils.getHashForPRF(psk.getPRFAlgorithm());
+                    TlsCrypto crypto = serverContext.getCrypto();
+                    TlsSecret earlySecret = getPSKEarlySecret(crypto, psk);
 
-                        byte[] transcriptHash;
-                        {
-                            handshakeHashUpdated = true;
-                            int bindersSize = offeredPsks.getBindersSize();
-                            clientHelloMessage.updateHashPrefix(handshakeHash, bindersSize);
-
-                            if (afterHelloRetryRequest)
-                            {
-                                transcriptHash = handshakeHash.getFinalHash(pskCryptoHashAlgorithm);
-                            }
-                            else
-                            {
-                                TlsHash hash = crypto.createHash(pskCryptoHashAlgorithm);
-                                handshakeHash.copyBufferTo(new TlsHashOutputStream(hash));
-                                transcriptHash = hash.calculateHash();
-                            }
-
-                            clientHelloMessage.updateHashSuffix(handshakeHash, bindersSize);
-                        }
+                    int pskCryptoHashAlgorithm = TlsCryptoUtils.getHashForPRF(psk.getPRFAlgorithm());
 
-                        byte[] calculatedBinder = calculatePSKBinder(crypto, isExternalPSK, pskCryptoHashAlgorithm,
-                            earlySecret, transcriptHash);
+                    byte[] transcriptHash;
+                    {
+                        handshakeHashUpdated = true;
+                        int bindersSize = offeredPsks.getBindersSize();
+                        clientHelloMessage.updateHashPrefix(handshakeHash, bindersSize);
 
-                        if (Arrays.constantTimeAreEqual(calculatedBinder, binder))
+                        if (afterHelloRetryRequest)
                         {
-                            return new OfferedPsks.SelectedConfig(index, psk, pskKeyExchangeModes, earlySecret);
+                            transcriptHash = handshakeHash.getFinalHash(pskCryptoHashAlgorithm);
                         }
+                        else
+                        {
+                            TlsHash hash = crypto.createHash(pskCryptoHashAlgorithm);
+                            handshakeHash.copyBufferTo(new TlsHashOutputStream(hash));
+                            transcriptHash = hash.calculateHash();
+                        }
+
+                        clientHelloMessage.updateHashSuffix(handshakeHash, bindersSize);
+                    }
+
+                    byte[] calculatedBinder = calculatePSKBinder(crypto, isExternalPSK, pskCryptoHashAlgorithm,
+                        earlySecret, transcriptHash);
+
+                    if (Arrays.constantTimeAreEqual(calculatedBinder, binder))
+                    {
+                        return new OfferedPsks.SelectedConfig(index, psk, pskKeyExchangeModes, earlySecret);
                     }
                 }
             }
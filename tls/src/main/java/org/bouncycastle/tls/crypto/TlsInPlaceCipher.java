@@ -0,0 +1,43 @@
+package org.bouncycastle.tls.crypto;
+
+import java.io.IOException;
+
+import org.bouncycastle.tls.ProtocolVersion;
+
+/**
+ * A {@link TlsCipher} that can encode a record directly into a buffer supplied by the caller, so that
+ * the record layer can reuse its own buffers rather than have a new one allocated for every record.
+ * Decoding is always done in place, see {@link TlsCipher#decodeCiphertext}.
+ */
+public interface TlsInPlaceCipher
+    extends TlsCipher
+{
+    /**
+     * Return the record type that will be used for records encoded by this cipher for the given content
+     * type.
+     *
+     * @param contentType content type of the message to be encoded.
+     * @return the record type to be written in the record header.
+     */
+    short getEncodeRecordType(short contentType);
+
+    /**
+     * Encode the passed in plaintext using the current bulk cipher, writing the ciphertext to the
+     * passed in output array. The output array must have room for at least
+     * {@link #getCiphertextEncodeLimit(int)} bytes at outputOffset. The plaintext and output regions
+     * may overlap.
+     *
+     * @param seqNo sequence number of the message represented by plaintext.
+     * @param contentType content type of the message represented by plaintext.
+     * @param recordVersion {@link ProtocolVersion} used for the record.
+     * @param plaintext array holding input plaintext to the cipher.
+     * @param offset offset into input array the plaintext starts at.
+     * @param len length of the plaintext in the array.
+     * @param output array to write the ciphertext to.
+     * @param outputOffset offset into output array the ciphertext is written at.
+     * @return the number of bytes of ciphertext written.
+     * @throws IOException
+     */
+    int encodePlaintext(long seqNo, short contentType, ProtocolVersion recordVersion, byte[] plaintext, int offset,
+        int len, byte[] output, int outputOffset) throws IOException;
+}
@@ -20,6 +20,9 @@ public class BcChaCha20Poly1305 implements TlsAEADCipherImpl
     protected final ChaCha7539Engine cipher = new ChaCha7539Engine();
     protected final Poly1305 mac = new Poly1305();
 
+    // Scratch space for the one-time key and the lengths/tag blocks, reused across records
+    private final byte[] buf = new byte[64];
+
     protected final boolean isEncrypting;
 
     public BcChaCha20Poly1305(boolean isEncrypting)
@@ -50,7 +53,7 @@ public int doFinal(byte[] additionalData, byte[] input, int inputOffset, int inp
 
             updateMAC(output, outputOffset, ciphertextLength);
 
-            byte[] lengths = new byte[16];
+            byte[] lengths = buf;
             Pack.longToLittleEndian(additionalDataLength & 0xFFFFFFFFL, lengths, 0);
             Pack.longToLittleEndian(ciphertextLength & 0xFFFFFFFFL, lengths, 8);
             mac.update(lengths, 0, 16);
@@ -65,7 +68,7 @@ public int doFinal(byte[] additionalData, byte[] input, int inputOffset, int inp
 
             updateMAC(input, inputOffset, ciphertextLength);
 
-            byte[] expectedMac = new byte[16];
+            byte[] expectedMac = buf;
             Pack.longToLittleEndian(additionalDataLength & 0xFFFFFFFFL, expectedMac, 0);
             Pack.longToLittleEndian(ciphertextLength & 0xFFFFFFFFL, expectedMac, 8);
             mac.update(expectedMac, 0, 16);
@@ -112,7 +115,8 @@ public void setKey(byte[] key, int keyOff, int keyLen) throws IOException
 
     protected void initMAC()
     {
-        byte[] firstBlock = new byte[64];
+        byte[] firstBlock = buf;
+        Arrays.fill(firstBlock, (byte)0);
         cipher.processBytes(firstBlock, 0, 64, firstBlock, 0);
         mac.init(new KeyParameter(firstBlock, 0, 32));
         Arrays.fill(firstBlock, (byte)0);
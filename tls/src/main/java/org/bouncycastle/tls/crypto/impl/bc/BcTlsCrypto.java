@@ -31,6 +31,8 @@
 import org.bouncycastle.crypto.modes.GCMBlockCipher;
 import org.bouncycastle.crypto.params.SRP6GroupParameters;
 import org.bouncycastle.crypto.prng.DigestRandomGenerator;
+import org.bouncycastle.math.ec.rfc7748.X25519Context;
+import org.bouncycastle.math.ec.rfc7748.X448Context;
 import org.bouncycastle.tls.AlertDescription;
 import org.bouncycastle.tls.CertificateType;
 import org.bouncycastle.tls.EncryptionAlgorithm;
@@ -80,6 +82,12 @@
 public class BcTlsCrypto
     extends AbstractTlsCrypto
 {
+    /*
+     * Per-thread X25519/X448 contexts, so ECDHE agreements reuse their working state across handshakes.
+     */
+    private static final ThreadLocal<X25519Context> x25519Contexts = new ThreadLocal<X25519Context>();
+    private static final ThreadLocal<X448Context> x448Contexts = new ThreadLocal<X448Context>();
+
     private final SecureRandom entropySource;
 
     // TODO[tls] Better default SecureRandom?
@@ -98,6 +106,28 @@ BcTlsSecret adoptLocalSecret(byte[] data)
         return new BcTlsSecret(this, data);
     }
 
+    X25519Context getX25519Context()
+    {
+        X25519Context context = x25519Contexts.get();
+        if (context == null)
+        {
+            context = new X25519Context();
+            x25519Contexts.set(context);
+        }
+        return context;
+    }
+
+    X448Context getX448Context()
+    {
+        X448Context context = x448Contexts.get();
+        if (context == null)
+        {
+            context = new X448Context();
+            x448Contexts.set(context);
+        }
+        return context;
+    }
+
     public SecureRandom getSecureRandom()
     {
         return entropySource;
@@ -28,7 +28,7 @@ public byte[] generateEphemeral() throws IOException
         crypto.getSecureRandom().nextBytes(privateKey);
 
         byte[] publicKey = new byte[X25519.POINT_SIZE];
-        X25519.scalarMultBase(privateKey, 0, publicKey, 0);
+        crypto.getX25519Context().scalarMultBase(privateKey, 0, publicKey, 0);
         return publicKey;
     }
 
@@ -47,7 +47,7 @@ public TlsSecret calculateSecret() throws IOException
         try
         {
             byte[] secret = new byte[X25519.POINT_SIZE];
-            if (!X25519.calculateAgreement(privateKey, 0, peerPublicKey, 0, secret, 0))
+            if (!crypto.getX25519Context().calculateAgreement(privateKey, 0, peerPublicKey, 0, secret, 0))
             {
                 throw new TlsFatalAlert(AlertDescription.handshake_failure);
             }
@@ -28,7 +28,7 @@ public byte[] generateEphemeral() throws IOException
         crypto.getSecureRandom().nextBytes(privateKey);
 
         byte[] publicKey = new byte[X448.POINT_SIZE];
-        X448.scalarMultBase(privateKey, 0, publicKey, 0);
+        crypto.getX448Context().scalarMultBase(privateKey, 0, publicKey, 0);
         return publicKey;
     }
 
@@ -47,7 +47,7 @@ public TlsSecret calculateSecret() throws IOException
         try
         {
             byte[] secret = new byte[X448.POINT_SIZE];
-            if (!X448.calculateAgreement(privateKey, 0, peerPublicKey, 0, secret, 0))
+            if (!crypto.getX448Context().calculateAgreement(privateKey, 0, peerPublicKey, 0, secret, 0))
             {
                 throw new TlsFatalAlert(AlertDescription.handshake_failure);
             }
@@ -84,6 +84,9 @@ static BCSSLParameters getParameters(ProvSSLParameters prov)
         ssl.setMaximumPacketSize(prov.getMaximumPacketSize());
         ssl.setSignatureSchemes(prov.getSignatureSchemes());
         ssl.setNamedGroups(prov.getNamedGroups());
+        ssl.setSessionTicketKeySource(prov.getSessionTicketKeySource());
+        ssl.setMaxEarlyDataSize(prov.getMaxEarlyDataSize());
+        ssl.setAntiReplayStore(prov.getAntiReplayStore());
 
         return ssl;
     }
@@ -342,6 +345,12 @@ static void setParameters(ProvSSLParameters prov, BCSSLParameters ssl)
         prov.setSignatureSchemes(ssl.getSignatureSchemes());
 
         prov.setNamedGroups(ssl.getNamedGroups());
+
+        prov.setSessionTicketKeySource(ssl.getSessionTicketKeySource());
+
+        prov.setMaxEarlyDataSize(ssl.getMaxEarlyDataSize());
+
+        prov.setAntiReplayStore(ssl.getAntiReplayStore());
     }
 
     static void setSSLParameters(ProvSSLParameters prov, SSLParameters ssl)
@@ -20,6 +20,7 @@ public static Test suite()
     {
         TestSuite suite = new TestSuite("JSSE tests");
 
+        suite.addTestSuite(AntiReplayStoreTest.class);
         suite.addTestSuite(BasicClientAuthTlsTest.class);
         suite.addTestSuite(BasicTlsTest.class);
         suite.addTestSuite(ConfigTest.class);
@@ -28,6 +29,9 @@ public static Test suite()
         suite.addTestSuite(InstanceTest.class);
         suite.addTestSuite(KeyManagerFactoryTest.class);
         suite.addTestSuite(PSSCredentialsTest.class);
+        suite.addTestSuite(SessionContextTest.class);
+        suite.addTestSuite(SessionTicketTest.class);
+        suite.addTestSuite(SSLEngineDelegatedTaskTest.class);
         suite.addTestSuite(SSLServerSocketTest.class);
         suite.addTestSuite(SSLSocketTest.class);
 
@@ -0,0 +1,134 @@
+package org.bouncycastle.jsse.provider.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.jsse.BCBloomAntiReplayStore;
+
+import junit.framework.TestCase;
+
+public class AntiReplayStoreTest
+    extends TestCase
+{
+    private static final long WINDOW = 10L * 1000L;
+
+    private static class TestStore
+        extends BCBloomAntiReplayStore
+    {
+        long now = 0L;
+
+        TestStore(int expectedEntries)
+        {
+            super(WINDOW, expectedEntries);
+        }
+
+        protected long currentTimeMillis()
+        {
+            return now;
+        }
+    }
+
+    private final SecureRandom random = new SecureRandom();
+
+    public void testReplayRejected()
+    {
+        TestStore store = new TestStore(100);
+
+        byte[] r1 = createRandom(), r2 = createRandom();
+
+        assertTrue(store.checkAndRecord(r1));
+        assertFalse(store.checkAndRecord(r1));
+        assertTrue(store.checkAndRecord(r2));
+        assertFalse(store.checkAndRecord(r2));
+    }
+
+    public void testRememberedForOneWindow()
+    {
+        TestStore store = new TestStore(100);
+
+        byte[] r1 = createRandom();
+        assertTrue(store.checkAndRecord(r1));
+
+        // Moved to the previous filter, but still remembered
+        store.now = WINDOW + WINDOW / 2;
+        assertFalse(store.checkAndRecord(r1));
+    }
+
+    public void testForgottenAfterTwoWindows()
+    {
+        TestStore store = new TestStore(100);
+
+        byte[] r1 = createRandom();
+        assertTrue(store.checkAndRecord(r1));
+
+        store.now = WINDOW;
+        assertTrue(store.checkAndRecord(createRandom()));
+
+        store.now = 2 * WINDOW;
+        assertTrue(store.checkAndRecord(r1));
+    }
+
+    public void testClockGoingBackwards()
+    {
+        TestStore store = new TestStore(100);
+        store.now = 5 * WINDOW;
+
+        byte[] r1 = createRandom();
+        assertTrue(store.checkAndRecord(r1));
+
+        store.now = 0L;
+        assertFalse(store.checkAndRecord(r1));
+    }
+
+    public void testFalsePositiveRate()
+    {
+        int entries = 1000;
+        TestStore store = new TestStore(entries);
+
+        for (int i = 0; i < entries; ++i)
+        {
+            store.checkAndRecord(createRandom());
+        }
+
+        // NOTE: Each trial is recorded too, so keep them few relative to the filter size
+        int falsePositives = 0, trials = 100;
+        for (int i = 0; i < trials; ++i)
+        {
+            if (!store.checkAndRecord(createRandom()))
+            {
+                ++falsePositives;
+            }
+        }
+
+        assertTrue("too many false positives: " + falsePositives, falsePositives <= 2);
+    }
+
+    public void testInvalidArguments()
+    {
+        try
+        {
+            new BCBloomAntiReplayStore(0L, 100);
+            fail("zero window accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            new BCBloomAntiReplayStore(WINDOW, 0);
+            fail("zero expected entries accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private byte[] createRandom()
+    {
+        byte[] clientRandom = new byte[32];
+        random.nextBytes(clientRandom);
+        return clientRandom;
+    }
+}
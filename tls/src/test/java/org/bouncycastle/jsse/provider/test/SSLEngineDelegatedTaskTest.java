@@ -0,0 +1,424 @@
+package org.bouncycastle.jsse.provider.test;
+
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLEngineResult.Status;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import junit.framework.TestCase;
+
+public class SSLEngineDelegatedTaskTest
+    extends TestCase
+{
+    private static final char[] KEY_PASS = "keyPassword".toCharArray();
+
+    private ExecutorService executor;
+    private ExecutorService eventLoop;
+
+    // When set, tasks for this engine are probed from the event loop while blocked in the trust manager
+    private SSLEngine probedEngine = null;
+    private BlockingTrustManager blockingTrustManager = null;
+    private int probeCount = 0;
+
+    protected void setUp()
+    {
+        ProviderUtils.setupLowPriority(false);
+
+        executor = Executors.newSingleThreadExecutor();
+        eventLoop = Executors.newSingleThreadExecutor();
+    }
+
+    protected void tearDown()
+    {
+        if (null != blockingTrustManager)
+        {
+            blockingTrustManager.release.countDown();
+        }
+
+        executor.shutdownNow();
+        eventLoop.shutdownNow();
+    }
+
+    public void testHandshake12() throws Exception
+    {
+        implTestHandshake("TLSv1.2");
+    }
+
+    public void testHandshake13() throws Exception
+    {
+        implTestHandshake("TLSv1.3");
+    }
+
+    public void testUntrustedServer() throws Exception
+    {
+        KeyPair serverKp = TestUtils.generateECKeyPair();
+        X509Certificate serverCert = TestUtils.generateRootCert(serverKp);
+        KeyPair otherKp = TestUtils.generateECKeyPair();
+        X509Certificate otherCert = TestUtils.generateRootCert(otherKp);
+
+        SSLEngine clientEngine = createClientEngine("TLSv1.3", otherCert);
+        SSLEngine serverEngine = createServerEngine("TLSv1.3", serverKp, serverCert);
+
+        try
+        {
+            runHandshake(clientEngine, serverEngine, new int[2]);
+            fail("handshake should fail");
+        }
+        catch (SSLException e)
+        {
+            // expected
+        }
+    }
+
+    public void testEngineUsableWhileTaskRuns() throws Exception
+    {
+        KeyPair serverKp = TestUtils.generateECKeyPair();
+        X509Certificate serverCert = TestUtils.generateRootCert(serverKp);
+
+        this.blockingTrustManager = new BlockingTrustManager(getTrustManager(serverCert));
+
+        SSLEngine clientEngine = createClientEngine("TLSv1.2", new TrustManager[]{ blockingTrustManager });
+        SSLEngine serverEngine = createServerEngine("TLSv1.2", serverKp, serverCert);
+
+        this.probedEngine = clientEngine;
+
+        runHandshake(clientEngine, serverEngine, new int[2]);
+
+        assertEquals(1, probeCount);
+        assertEquals("TLSv1.2", clientEngine.getSession().getProtocol());
+        assertEquals(HandshakeStatus.NOT_HANDSHAKING, clientEngine.getHandshakeStatus());
+    }
+
+    public void testCloseWhileTaskRuns() throws Exception
+    {
+        KeyPair serverKp = TestUtils.generateECKeyPair();
+        X509Certificate serverCert = TestUtils.generateRootCert(serverKp);
+
+        this.blockingTrustManager = new BlockingTrustManager(getTrustManager(serverCert));
+
+        final SSLEngine clientEngine = createClientEngine("TLSv1.2", new TrustManager[]{ blockingTrustManager });
+        SSLEngine serverEngine = createServerEngine("TLSv1.2", serverKp, serverCert);
+
+        int netBufSize = clientEngine.getSession().getPacketBufferSize();
+        ByteBuffer clientToServer = ByteBuffer.allocate(netBufSize);
+        ByteBuffer serverToClient = ByteBuffer.allocate(netBufSize);
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        ByteBuffer appIn = ByteBuffer.allocate(serverEngine.getSession().getApplicationBufferSize());
+
+        clientEngine.beginHandshake();
+        serverEngine.beginHandshake();
+
+        // ClientHello, then the server's first flight
+        clientEngine.wrap(empty, clientToServer);
+        ((java.nio.Buffer)clientToServer).flip();
+        while (serverEngine.unwrap(clientToServer, appIn).getHandshakeStatus() == HandshakeStatus.NEED_TASK)
+        {
+            serverEngine.getDelegatedTask().run();
+        }
+        while (serverEngine.getHandshakeStatus() == HandshakeStatus.NEED_WRAP)
+        {
+            serverEngine.wrap(empty, serverToClient);
+        }
+        ((java.nio.Buffer)serverToClient).flip();
+
+        // Run client tasks until one blocks in the trust manager, then close from the event loop
+        Future<?> blocked = null;
+        while (null == blocked)
+        {
+            SSLEngineResult result = clientEngine.unwrap(serverToClient, appIn);
+            assertEquals(HandshakeStatus.NEED_TASK, result.getHandshakeStatus());
+
+            Future<?> future = executor.submit(clientEngine.getDelegatedTask());
+            while (!future.isDone() && null == blocked)
+            {
+                if (blockingTrustManager.entered.await(10, TimeUnit.MILLISECONDS))
+                {
+                    blocked = future;
+                }
+            }
+        }
+
+        callFromEventLoop(new Callable<Object>()
+        {
+            public Object call() throws Exception
+            {
+                clientEngine.closeOutbound();
+
+                // The closure takes effect once the task completes
+                assertFalse(clientEngine.isOutboundDone());
+                assertEquals(HandshakeStatus.NEED_TASK, clientEngine.getHandshakeStatus());
+                return null;
+            }
+        });
+
+        blockingTrustManager.release.countDown();
+        blocked.get();
+
+        // The close_notify alert is now queued for output
+        assertEquals(HandshakeStatus.NEED_WRAP, clientEngine.getHandshakeStatus());
+
+        ByteBuffer out = ByteBuffer.allocate(netBufSize);
+        while (!clientEngine.isOutboundDone())
+        {
+            SSLEngineResult result = clientEngine.wrap(empty, out);
+            assertTrue(result.bytesProduced() > 0);
+        }
+    }
+
+    private void implTestHandshake(String protocol) throws Exception
+    {
+        KeyPair serverKp = TestUtils.generateECKeyPair();
+        X509Certificate serverCert = TestUtils.generateRootCert(serverKp);
+
+        SSLEngine clientEngine = createClientEngine(protocol, serverCert);
+        SSLEngine serverEngine = createServerEngine(protocol, serverKp, serverCert);
+
+        int[] taskCounts = new int[2];
+        runHandshake(clientEngine, serverEngine, taskCounts);
+
+        assertTrue("client ran no delegated tasks", taskCounts[0] > 0);
+        assertTrue("server ran no delegated tasks", taskCounts[1] > 0);
+
+        assertEquals(protocol, clientEngine.getSession().getProtocol());
+        assertEquals(protocol, serverEngine.getSession().getProtocol());
+        assertEquals(HandshakeStatus.NOT_HANDSHAKING, clientEngine.getHandshakeStatus());
+        assertEquals(HandshakeStatus.NOT_HANDSHAKING, serverEngine.getHandshakeStatus());
+    }
+
+    private void runHandshake(SSLEngine clientEngine, SSLEngine serverEngine, int[] taskCounts) throws Exception
+    {
+        int netBufSize = Math.max(clientEngine.getSession().getPacketBufferSize(),
+            serverEngine.getSession().getPacketBufferSize());
+        int appBufSize = Math.max(clientEngine.getSession().getApplicationBufferSize(),
+            serverEngine.getSession().getApplicationBufferSize());
+
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        ByteBuffer clientToServer = ByteBuffer.allocate(netBufSize);
+        ByteBuffer serverToClient = ByteBuffer.allocate(netBufSize);
+        ByteBuffer clientIn = ByteBuffer.allocate(appBufSize);
+        ByteBuffer serverIn = ByteBuffer.allocate(appBufSize);
+
+        clientEngine.beginHandshake();
+        serverEngine.beginHandshake();
+
+        for (int i = 0; i < 100; ++i)
+        {
+            if (isHandshakeDone(clientEngine) && isHandshakeDone(serverEngine))
+            {
+                return;
+            }
+
+            checkResult(clientEngine, clientEngine.wrap(empty, clientToServer), taskCounts, 0);
+            checkResult(serverEngine, serverEngine.wrap(empty, serverToClient), taskCounts, 1);
+
+            ((java.nio.Buffer)clientToServer).flip();
+            ((java.nio.Buffer)serverToClient).flip();
+
+            checkResult(clientEngine, clientEngine.unwrap(serverToClient, clientIn), taskCounts, 0);
+            checkResult(serverEngine, serverEngine.unwrap(clientToServer, serverIn), taskCounts, 1);
+
+            clientToServer.compact();
+            serverToClient.compact();
+        }
+
+        fail("handshake did not complete");
+    }
+
+    private void checkResult(SSLEngine engine, SSLEngineResult result, int[] taskCounts, int index)
+        throws Exception
+    {
+        if (result.getHandshakeStatus() != HandshakeStatus.NEED_TASK)
+        {
+            return;
+        }
+
+        assertEquals(Status.OK, result.getStatus());
+        assertEquals(HandshakeStatus.NEED_TASK, engine.getHandshakeStatus());
+
+        // Nothing more is produced or consumed until the task has run
+        SSLEngineResult blocked = engine.wrap(ByteBuffer.allocate(0), ByteBuffer.allocate(1 << 16));
+        assertEquals(HandshakeStatus.NEED_TASK, blocked.getHandshakeStatus());
+        assertEquals(0, blocked.bytesProduced());
+
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null)
+        {
+            Future<?> future = executor.submit(task);
+            if (engine == probedEngine)
+            {
+                while (!future.isDone())
+                {
+                    if (blockingTrustManager.entered.await(10, TimeUnit.MILLISECONDS)
+                        && blockingTrustManager.release.getCount() > 0)
+                    {
+                        // The task is stuck in the trust manager; the engine must still respond
+                        probeEngine(engine);
+                        ++probeCount;
+
+                        blockingTrustManager.release.countDown();
+                    }
+                }
+            }
+            future.get();
+            ++taskCounts[index];
+        }
+
+        assertTrue(HandshakeStatus.NEED_TASK != engine.getHandshakeStatus());
+    }
+
+    private void probeEngine(final SSLEngine engine) throws Exception
+    {
+        callFromEventLoop(new Callable<Object>()
+        {
+            public Object call() throws Exception
+            {
+                assertEquals(HandshakeStatus.NEED_TASK, engine.getHandshakeStatus());
+                assertNull(engine.getDelegatedTask());
+                assertFalse(engine.isInboundDone());
+                assertFalse(engine.isOutboundDone());
+                assertNotNull(engine.getSSLParameters());
+                assertNotNull(engine.getHandshakeSession());
+
+                ByteBuffer net = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+                ByteBuffer app = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+
+                SSLEngineResult wrapped = engine.wrap(ByteBuffer.allocate(0), net);
+                assertEquals(HandshakeStatus.NEED_TASK, wrapped.getHandshakeStatus());
+                assertEquals(0, wrapped.bytesProduced());
+
+                SSLEngineResult unwrapped = engine.unwrap(ByteBuffer.allocate(0), app);
+                assertEquals(HandshakeStatus.NEED_TASK, unwrapped.getHandshakeStatus());
+                assertEquals(0, unwrapped.bytesConsumed());
+                return null;
+            }
+        });
+    }
+
+    private void callFromEventLoop(Callable<Object> call) throws Exception
+    {
+        Future<Object> future = eventLoop.submit(call);
+        try
+        {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        catch (TimeoutException e)
+        {
+            fail("engine blocked while a delegated task was running");
+        }
+    }
+
+    private static boolean isHandshakeDone(SSLEngine engine)
+    {
+        return engine.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING;
+    }
+
+    private static SSLEngine createClientEngine(String protocol, X509Certificate trustAnchor) throws Exception
+    {
+        return createClientEngine(protocol, new TrustManager[]{ getTrustManager(trustAnchor) });
+    }
+
+    private static SSLEngine createClientEngine(String protocol, TrustManager[] trustManagers) throws Exception
+    {
+        SSLContext context = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        context.init(null, trustManagers, null);
+
+        SSLEngine engine = context.createSSLEngine();
+        engine.setEnabledProtocols(new String[]{ protocol });
+        engine.setUseClientMode(true);
+        return engine;
+    }
+
+    private static X509TrustManager getTrustManager(X509Certificate trustAnchor) throws Exception
+    {
+        KeyStore trustStore = createKeyStore();
+        trustStore.setCertificateEntry("server", trustAnchor);
+
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance("PKIX", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        tmf.init(trustStore);
+
+        return (X509TrustManager)tmf.getTrustManagers()[0];
+    }
+
+    private static SSLEngine createServerEngine(String protocol, KeyPair kp, X509Certificate cert) throws Exception
+    {
+        KeyStore keyStore = createKeyStore();
+        keyStore.setKeyEntry("server", kp.getPrivate(), KEY_PASS, new X509Certificate[]{ cert });
+
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance("PKIX", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        kmf.init(keyStore, KEY_PASS);
+
+        SSLContext context = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        context.init(kmf.getKeyManagers(), null, null);
+
+        SSLEngine engine = context.createSSLEngine();
+        engine.setEnabledProtocols(new String[]{ protocol });
+        engine.setUseClientMode(false);
+        return engine;
+    }
+
+    private static KeyStore createKeyStore() throws Exception
+    {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12", "BC");
+        keyStore.load(null, null);
+        return keyStore;
+    }
+
+    private static class BlockingTrustManager
+        implements X509TrustManager
+    {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        private final X509TrustManager trustManager;
+
+        BlockingTrustManager(X509TrustManager trustManager)
+        {
+            this.trustManager = trustManager;
+        }
+
+        public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException
+        {
+            trustManager.checkClientTrusted(chain, authType);
+        }
+
+        public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException
+        {
+            entered.countDown();
+            try
+            {
+                release.await();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new CertificateException("interrupted");
+            }
+
+            trustManager.checkServerTrusted(chain, authType);
+        }
+
+        public X509Certificate[] getAcceptedIssuers()
+        {
+            return trustManager.getAcceptedIssuers();
+        }
+    }
+}
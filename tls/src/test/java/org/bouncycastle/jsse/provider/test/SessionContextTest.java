@@ -0,0 +1,356 @@
+package org.bouncycastle.jsse.provider.test;
+
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Enumeration;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.bouncycastle.jsse.BCSSLSessionContext;
+
+import junit.framework.TestCase;
+
+public class SessionContextTest
+    extends TestCase
+{
+    private static final char[] KEY_PASS = "keyPassword".toCharArray();
+    private static final String PEER_HOST = "server.example.com";
+
+    private SSLContext clientContext;
+    private SSLContext serverContext;
+
+    protected void setUp()
+        throws Exception
+    {
+        ProviderUtils.setupLowPriority(false);
+
+        KeyPair serverKp = TestUtils.generateECKeyPair();
+        X509Certificate serverCert = TestUtils.generateRootCert(serverKp);
+
+        KeyStore keyStore = createKeyStore();
+        keyStore.setKeyEntry("server", serverKp.getPrivate(), KEY_PASS, new X509Certificate[]{ serverCert });
+
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance("PKIX", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        kmf.init(keyStore, KEY_PASS);
+
+        this.serverContext = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        serverContext.init(kmf.getKeyManagers(), null, null);
+
+        KeyStore trustStore = createKeyStore();
+        trustStore.setCertificateEntry("server", serverCert);
+
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance("PKIX", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        tmf.init(trustStore);
+
+        this.clientContext = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        clientContext.init(null, tmf.getTrustManagers(), null);
+    }
+
+    public void testStatistics()
+        throws Exception
+    {
+        SSLContext sslContext = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        sslContext.init(null, null, null);
+
+        SSLSessionContext clientContext = sslContext.getClientSessionContext();
+        assertTrue(clientContext instanceof BCSSLSessionContext);
+
+        BCSSLSessionContext bcClientContext = (BCSSLSessionContext)clientContext;
+        assertEquals(0, bcClientContext.getSessionCacheHitCount());
+        assertEquals(0, bcClientContext.getSessionCacheMissCount());
+        assertEquals(0, bcClientContext.getSessionCacheEvictionCount());
+
+        assertNull(clientContext.getSession(new byte[]{ 1, 2, 3, 4 }));
+        assertEquals(0, bcClientContext.getSessionCacheHitCount());
+        assertEquals(1, bcClientContext.getSessionCacheMissCount());
+
+        assertFalse(clientContext.getIds().hasMoreElements());
+    }
+
+    public void testSettings()
+        throws Exception
+    {
+        SSLContext sslContext = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        sslContext.init(null, null, null);
+
+        SSLSessionContext serverContext = sslContext.getServerSessionContext();
+
+        serverContext.setSessionCacheSize(16);
+        assertEquals(16, serverContext.getSessionCacheSize());
+
+        serverContext.setSessionTimeout(60);
+        assertEquals(60, serverContext.getSessionTimeout());
+
+        try
+        {
+            serverContext.setSessionCacheSize(-1);
+            fail("negative cache size should be rejected");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testEvictionAtCacheSize()
+        throws Exception
+    {
+        SSLSessionContext sessionContext = serverContext.getServerSessionContext();
+
+        byte[][] ids = connect(0, 10);
+
+        // Session 0 becomes the most recently used, leaving 1 and 2 the least
+        Thread.sleep(2L);
+        assertNotNull(sessionContext.getSession(ids[0]));
+
+        sessionContext.setSessionCacheSize(8);
+
+        assertEquals(2, ((BCSSLSessionContext)sessionContext).getSessionCacheEvictionCount());
+        assertEquals(8, countIds(sessionContext));
+
+        assertNotNull(sessionContext.getSession(ids[0]));
+        assertNull(sessionContext.getSession(ids[1]));
+        assertNull(sessionContext.getSession(ids[2]));
+        for (int i = 3; i < ids.length; ++i)
+        {
+            assertNotNull(sessionContext.getSession(ids[i]));
+        }
+    }
+
+    public void testEvictionOnReport()
+        throws Exception
+    {
+        SSLSessionContext sessionContext = serverContext.getServerSessionContext();
+        sessionContext.setSessionCacheSize(4);
+
+        connect(0, 12);
+
+        // Each time the limit is exceeded the cache is trimmed to 15/16ths of it
+        assertTrue(countIds(sessionContext) <= 4);
+        assertTrue(((BCSSLSessionContext)sessionContext).getSessionCacheEvictionCount() >= 8);
+    }
+
+    public void testExpiryAtSessionTimeout()
+        throws Exception
+    {
+        SSLSessionContext sessionContext = serverContext.getServerSessionContext();
+
+        byte[][] ids = connect(0, 3);
+        SSLSession[] sessions = new SSLSession[ids.length];
+        for (int i = 0; i < ids.length; ++i)
+        {
+            sessions[i] = sessionContext.getSession(ids[i]);
+        }
+
+        Thread.sleep(1100L);
+
+        byte[] fresh = connect(3, 1)[0];
+
+        sessionContext.setSessionTimeout(1);
+
+        assertEquals(1, countIds(sessionContext));
+        for (int i = 0; i < ids.length; ++i)
+        {
+            assertFalse(sessions[i].isValid());
+            assertNull(sessionContext.getSession(ids[i]));
+        }
+        assertNotNull(sessionContext.getSession(fresh));
+    }
+
+    public void testPeerLookupAfterEviction()
+        throws Exception
+    {
+        byte[][] ids = connect(0, 4);
+
+        // The client resumes by peer, so the session for the least recently used peer is gone
+        clientContext.getClientSessionContext().setSessionCacheSize(3);
+
+        assertTrue(Arrays.equals(ids[1], connect(PEER_HOST, 1)));
+        assertTrue(Arrays.equals(ids[3], connect(PEER_HOST, 3)));
+
+        // Peer keys are case-insensitive
+        assertTrue(Arrays.equals(ids[2], connect(PEER_HOST.toUpperCase(), 2)));
+
+        // A new session for the evicted peer is found again
+        byte[] replacement = connect(PEER_HOST, 0);
+        assertFalse(Arrays.equals(ids[0], replacement));
+        assertTrue(Arrays.equals(replacement, connect(PEER_HOST, 0)));
+    }
+
+    public void testConcurrentAccess()
+        throws Exception
+    {
+        final int threadCount = 4, perThread = 8;
+        final SSLSessionContext sessionContext = serverContext.getServerSessionContext();
+        final byte[][] ids = new byte[threadCount * perThread][];
+        final Throwable[] failures = new Throwable[threadCount];
+
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; ++t)
+        {
+            final int index = t;
+            threads[t] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        int base = index * perThread;
+                        for (int i = 0; i < perThread; ++i)
+                        {
+                            byte[] id = connect(PEER_HOST, base + i);
+                            assertNotNull(sessionContext.getSession(id));
+                            ids[base + i] = id;
+
+                            // Also look up sessions reported by other threads, hit or miss
+                            byte[] other = ids[(base + i + perThread) % ids.length];
+                            if (other != null)
+                            {
+                                sessionContext.getSession(other);
+                            }
+                        }
+                    }
+                    catch (Throwable e)
+                    {
+                        failures[index] = e;
+                    }
+                }
+            };
+        }
+
+        for (int t = 0; t < threadCount; ++t)
+        {
+            threads[t].start();
+        }
+        for (int t = 0; t < threadCount; ++t)
+        {
+            threads[t].join();
+            assertNull(failures[t]);
+        }
+
+        assertEquals(ids.length, countIds(sessionContext));
+        for (int i = 0; i < ids.length; ++i)
+        {
+            assertNotNull(sessionContext.getSession(ids[i]));
+            assertNotNull(clientContext.getClientSessionContext().getSession(ids[i]));
+        }
+        assertEquals(0, ((BCSSLSessionContext)sessionContext).getSessionCacheEvictionCount());
+    }
+
+    /*
+     * Connects to consecutive peer ports, a little apart so that each session has a distinct access time.
+     */
+    private byte[][] connect(int firstPort, int count)
+        throws Exception
+    {
+        byte[][] ids = new byte[count][];
+        for (int i = 0; i < count; ++i)
+        {
+            if (i > 0)
+            {
+                Thread.sleep(2L);
+            }
+            ids[i] = connect(PEER_HOST, firstPort + i);
+        }
+        return ids;
+    }
+
+    /*
+     * Runs a TLS 1.2 handshake between two engines and returns the ID of the (possibly resumed) session.
+     */
+    private byte[] connect(String peerHost, int peerPort)
+        throws Exception
+    {
+        SSLEngine clientEngine = clientContext.createSSLEngine(peerHost, peerPort);
+        clientEngine.setEnabledProtocols(new String[]{ "TLSv1.2" });
+        clientEngine.setUseClientMode(true);
+
+        SSLEngine serverEngine = serverContext.createSSLEngine();
+        serverEngine.setEnabledProtocols(new String[]{ "TLSv1.2" });
+        serverEngine.setUseClientMode(false);
+
+        int netBufSize = Math.max(clientEngine.getSession().getPacketBufferSize(),
+            serverEngine.getSession().getPacketBufferSize());
+        int appBufSize = Math.max(clientEngine.getSession().getApplicationBufferSize(),
+            serverEngine.getSession().getApplicationBufferSize());
+
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        ByteBuffer clientToServer = ByteBuffer.allocate(netBufSize);
+        ByteBuffer serverToClient = ByteBuffer.allocate(netBufSize);
+        ByteBuffer clientIn = ByteBuffer.allocate(appBufSize);
+        ByteBuffer serverIn = ByteBuffer.allocate(appBufSize);
+
+        clientEngine.beginHandshake();
+        serverEngine.beginHandshake();
+
+        for (int i = 0; i < 100; ++i)
+        {
+            if (isHandshakeDone(clientEngine) && isHandshakeDone(serverEngine))
+            {
+                byte[] id = clientEngine.getSession().getId();
+                assertTrue(Arrays.equals(id, serverEngine.getSession().getId()));
+                return id;
+            }
+
+            clientEngine.wrap(empty, clientToServer);
+            runDelegatedTasks(clientEngine);
+            serverEngine.wrap(empty, serverToClient);
+            runDelegatedTasks(serverEngine);
+
+            ((java.nio.Buffer)clientToServer).flip();
+            ((java.nio.Buffer)serverToClient).flip();
+
+            clientEngine.unwrap(serverToClient, clientIn);
+            runDelegatedTasks(clientEngine);
+            serverEngine.unwrap(clientToServer, serverIn);
+            runDelegatedTasks(serverEngine);
+
+            clientToServer.compact();
+            serverToClient.compact();
+        }
+
+        fail("handshake did not complete");
+        return null;
+    }
+
+    private static int countIds(SSLSessionContext sessionContext)
+    {
+        int count = 0;
+        for (Enumeration<byte[]> ids = sessionContext.getIds(); ids.hasMoreElements(); ids.nextElement())
+        {
+            ++count;
+        }
+        return count;
+    }
+
+    private static void runDelegatedTasks(SSLEngine engine)
+    {
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null)
+        {
+            task.run();
+        }
+    }
+
+    private static boolean isHandshakeDone(SSLEngine engine)
+    {
+        return engine.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING;
+    }
+
+    private static KeyStore createKeyStore()
+        throws Exception
+    {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12", "BC");
+        keyStore.load(null, null);
+        return keyStore;
+    }
+}
@@ -0,0 +1,396 @@
+package org.bouncycastle.jsse.provider.test;
+
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedKeyManager;
+
+import org.bouncycastle.jsse.BCSSLEngine;
+import org.bouncycastle.jsse.BCSSLParameters;
+import org.bouncycastle.jsse.BCSessionTicketKey;
+import org.bouncycastle.jsse.BCSessionTicketKeyRing;
+import org.bouncycastle.jsse.BCSessionTicketKeySource;
+
+import junit.framework.TestCase;
+
+public class SessionTicketTest
+    extends TestCase
+{
+    private static final char[] KEY_PASS = "keyPassword".toCharArray();
+    private static final long HOUR = 60L * 60L * 1000L;
+
+    private static class CountingKeyManager
+        extends X509ExtendedKeyManager
+    {
+        private final X509ExtendedKeyManager delegate;
+        private int serverAliasCount = 0;
+
+        CountingKeyManager(X509ExtendedKeyManager delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket)
+        {
+            return delegate.chooseClientAlias(keyType, issuers, socket);
+        }
+
+        public String chooseEngineClientAlias(String[] keyType, Principal[] issuers, SSLEngine engine)
+        {
+            return delegate.chooseEngineClientAlias(keyType, issuers, engine);
+        }
+
+        public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket)
+        {
+            ++serverAliasCount;
+            return delegate.chooseServerAlias(keyType, issuers, socket);
+        }
+
+        public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine)
+        {
+            ++serverAliasCount;
+            return delegate.chooseEngineServerAlias(keyType, issuers, engine);
+        }
+
+        public X509Certificate[] getCertificateChain(String alias)
+        {
+            return delegate.getCertificateChain(alias);
+        }
+
+        public String[] getClientAliases(String keyType, Principal[] issuers)
+        {
+            return delegate.getClientAliases(keyType, issuers);
+        }
+
+        public PrivateKey getPrivateKey(String alias)
+        {
+            return delegate.getPrivateKey(alias);
+        }
+
+        public String[] getServerAliases(String keyType, Principal[] issuers)
+        {
+            return delegate.getServerAliases(keyType, issuers);
+        }
+    }
+
+    private static class TestKeyRing
+        extends BCSessionTicketKeyRing
+    {
+        long now = 0L;
+
+        TestKeyRing()
+        {
+        }
+
+        TestKeyRing(SecureRandom random, long rotationPeriod, long ticketLifetime)
+        {
+            super(random, rotationPeriod, ticketLifetime);
+        }
+
+        protected long currentTimeMillis()
+        {
+            return now;
+        }
+    }
+
+    private KeyPair serverKp;
+    private X509Certificate serverCert;
+    private KeyPair clientKp;
+    private X509Certificate clientCert;
+
+    protected void setUp() throws Exception
+    {
+        ProviderUtils.setupLowPriority(false);
+
+        serverKp = TestUtils.generateECKeyPair();
+        serverCert = TestUtils.generateRootCert(serverKp);
+        clientKp = TestUtils.generateECKeyPair();
+        clientCert = TestUtils.generateRootCert(clientKp);
+    }
+
+    public void testKeyRingRotation()
+    {
+        TestKeyRing ring = new TestKeyRing(new SecureRandom(), HOUR, 2 * HOUR);
+
+        ring.now = 1000L;
+        BCSessionTicketKey first = ring.getIssuingKey();
+        assertNotNull(first);
+        assertSame(first, ring.getIssuingKey());
+        assertEquals(1000L + HOUR, first.getIssueUntil());
+        assertEquals(1000L + 3 * HOUR, first.getAcceptUntil());
+
+        // After the rotation period a new key issues tickets, but the old one is still accepted
+        ring.now += HOUR;
+        BCSessionTicketKey second = ring.getIssuingKey();
+        assertNotSame(first, second);
+        assertSame(first, ring.getKey(first.getName()));
+        assertSame(second, ring.getKey(second.getName()));
+        assertEquals(2, ring.getKeys().size());
+
+        // Once the ticket lifetime has passed, the old key is discarded
+        ring.now += 2 * HOUR;
+        assertNull(ring.getKey(first.getName()));
+        assertEquals(1, ring.getKeys().size());
+        assertNotSame(second, ring.getIssuingKey());
+    }
+
+    public void testKeyRingSharedKeys()
+    {
+        SecureRandom random = new SecureRandom();
+        BCSessionTicketKey current = BCSessionTicketKey.generate(random, 0L, 2 * HOUR, 4 * HOUR);
+        BCSessionTicketKey next = BCSessionTicketKey.generate(random, HOUR, 3 * HOUR, 5 * HOUR);
+
+        TestKeyRing ring = new TestKeyRing();
+        ring.addKey(next);
+        ring.addKey(current);
+
+        ring.now = 0L;
+        assertSame(current, ring.getIssuingKey());
+
+        // Overlapping validity; the newer key takes over issuing as soon as it may
+        ring.now = HOUR;
+        assertSame(next, ring.getIssuingKey());
+        assertSame(current, ring.getKey(current.getName()));
+
+        ring.now = 5 * HOUR;
+        assertNull(ring.getIssuingKey());
+        assertNull(ring.getKey(next.getName()));
+
+        assertTrue(ring.getKeys().isEmpty());
+        assertFalse(ring.removeKey(current.getName()));
+
+        try
+        {
+            new BCSessionTicketKey(new byte[16], new byte[16], 0L, 1L, 2L);
+            fail("no exception");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testResumption12() throws Exception
+    {
+        implTestResumption("TLSv1.2", false);
+    }
+
+    public void testResumption12ClientAuth() throws Exception
+    {
+        implTestResumption("TLSv1.2", true);
+    }
+
+    public void testResumption13() throws Exception
+    {
+        implTestResumption("TLSv1.3", false);
+    }
+
+    public void testResumption13ClientAuth() throws Exception
+    {
+        implTestResumption("TLSv1.3", true);
+    }
+
+    public void testUnknownKey12() throws Exception
+    {
+        implTestUnknownKey("TLSv1.2");
+    }
+
+    public void testUnknownKey13() throws Exception
+    {
+        implTestUnknownKey("TLSv1.3");
+    }
+
+    private void implTestResumption(String protocol, boolean clientAuth) throws Exception
+    {
+        BCSessionTicketKeySource keySource = new BCSessionTicketKeyRing(new SecureRandom(), HOUR, HOUR);
+
+        SSLContext clientContext = createClientContext(clientAuth);
+
+        // Each connection goes to a different server instance, sharing only the ticket keys
+        CountingKeyManager km1 = createServerKeyManager();
+        SSLEngine server1 = createServerEngine(protocol, km1, keySource, clientAuth);
+        runConnection(createClientEngine(clientContext, protocol), server1);
+        assertTrue(km1.serverAliasCount > 0);
+
+        CountingKeyManager km2 = createServerKeyManager();
+        SSLEngine server2 = createServerEngine(protocol, km2, keySource, clientAuth);
+        runConnection(createClientEngine(clientContext, protocol), server2);
+        assertEquals("session was not resumed", 0, km2.serverAliasCount);
+
+        assertEquals(protocol, server2.getSession().getProtocol());
+        assertEquals(server1.getSession().getCipherSuite(), server2.getSession().getCipherSuite());
+
+        if (clientAuth)
+        {
+            assertEquals(clientCert, server2.getSession().getPeerCertificates()[0]);
+        }
+    }
+
+    private void implTestUnknownKey(String protocol) throws Exception
+    {
+        SSLContext clientContext = createClientContext(false);
+
+        CountingKeyManager km1 = createServerKeyManager();
+        SSLEngine server1 = createServerEngine(protocol, km1,
+            new BCSessionTicketKeyRing(new SecureRandom(), HOUR, HOUR), false);
+        runConnection(createClientEngine(clientContext, protocol), server1);
+
+        // A server with different keys can't open the ticket, so a full handshake is done
+        CountingKeyManager km2 = createServerKeyManager();
+        SSLEngine server2 = createServerEngine(protocol, km2,
+            new BCSessionTicketKeyRing(new SecureRandom(), HOUR, HOUR), false);
+        runConnection(createClientEngine(clientContext, protocol), server2);
+        assertTrue(km2.serverAliasCount > 0);
+    }
+
+    private static void runConnection(SSLEngine clientEngine, SSLEngine serverEngine) throws Exception
+    {
+        int netBufSize = Math.max(clientEngine.getSession().getPacketBufferSize(),
+            serverEngine.getSession().getPacketBufferSize());
+        int appBufSize = Math.max(clientEngine.getSession().getApplicationBufferSize(),
+            serverEngine.getSession().getApplicationBufferSize());
+
+        ByteBuffer clientOut = ByteBuffer.wrap("client data".getBytes("UTF-8"));
+        ByteBuffer serverOut = ByteBuffer.wrap("server data".getBytes("UTF-8"));
+        ByteBuffer clientToServer = ByteBuffer.allocate(netBufSize);
+        ByteBuffer serverToClient = ByteBuffer.allocate(netBufSize);
+        ByteBuffer clientIn = ByteBuffer.allocate(appBufSize);
+        ByteBuffer serverIn = ByteBuffer.allocate(appBufSize);
+
+        clientEngine.beginHandshake();
+        serverEngine.beginHandshake();
+
+        // NOTE: Exchanging application data ensures any (post-handshake) NewSessionTicket reaches the client
+        for (int i = 0; i < 100; ++i)
+        {
+            if (!clientOut.hasRemaining() && !serverOut.hasRemaining()
+                && clientIn.position() > 0 && serverIn.position() > 0
+                && isHandshakeDone(clientEngine) && isHandshakeDone(serverEngine))
+            {
+                assertEquals("server data", new String(clientIn.array(), 0, clientIn.position(), "UTF-8"));
+                assertEquals("client data", new String(serverIn.array(), 0, serverIn.position(), "UTF-8"));
+                return;
+            }
+
+            clientEngine.wrap(clientOut, clientToServer);
+            runDelegatedTasks(clientEngine);
+            serverEngine.wrap(serverOut, serverToClient);
+            runDelegatedTasks(serverEngine);
+
+            ((java.nio.Buffer)clientToServer).flip();
+            ((java.nio.Buffer)serverToClient).flip();
+
+            clientEngine.unwrap(serverToClient, clientIn);
+            runDelegatedTasks(clientEngine);
+            serverEngine.unwrap(clientToServer, serverIn);
+            runDelegatedTasks(serverEngine);
+
+            clientToServer.compact();
+            serverToClient.compact();
+        }
+
+        fail("connection did not complete");
+    }
+
+    private static void runDelegatedTasks(SSLEngine engine)
+    {
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null)
+        {
+            task.run();
+        }
+    }
+
+    private static boolean isHandshakeDone(SSLEngine engine)
+    {
+        return engine.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING;
+    }
+
+    private SSLContext createClientContext(boolean clientAuth) throws Exception
+    {
+        KeyStore trustStore = createKeyStore();
+        trustStore.setCertificateEntry("server", serverCert);
+
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance("PKIX");
+        tmf.init(trustStore);
+
+        KeyManager[] keyManagers = null;
+        if (clientAuth)
+        {
+            KeyStore keyStore = createKeyStore();
+            keyStore.setKeyEntry("client", clientKp.getPrivate(), KEY_PASS, new X509Certificate[]{ clientCert });
+
+            KeyManagerFactory kmf = KeyManagerFactory.getInstance("PKIX");
+            kmf.init(keyStore, KEY_PASS);
+            keyManagers = kmf.getKeyManagers();
+        }
+
+        // NOTE: The SunJSSE client supports both TLS 1.2 session tickets and TLS 1.3 PSK resumption
+        SSLContext context = SSLContext.getInstance("TLS", "SunJSSE");
+        context.init(keyManagers, tmf.getTrustManagers(), null);
+        return context;
+    }
+
+    private static SSLEngine createClientEngine(SSLContext context, String protocol)
+    {
+        SSLEngine engine = context.createSSLEngine("localhost", 443);
+        engine.setEnabledProtocols(new String[]{ protocol });
+        engine.setUseClientMode(true);
+        return engine;
+    }
+
+    private CountingKeyManager createServerKeyManager() throws Exception
+    {
+        KeyStore keyStore = createKeyStore();
+        keyStore.setKeyEntry("server", serverKp.getPrivate(), KEY_PASS, new X509Certificate[]{ serverCert });
+
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance("PKIX", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        kmf.init(keyStore, KEY_PASS);
+
+        return new CountingKeyManager((X509ExtendedKeyManager)kmf.getKeyManagers()[0]);
+    }
+
+    private SSLEngine createServerEngine(String protocol, CountingKeyManager km, BCSessionTicketKeySource keySource,
+        boolean clientAuth) throws Exception
+    {
+        KeyStore trustStore = createKeyStore();
+        trustStore.setCertificateEntry("client", clientCert);
+
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance("PKIX", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        tmf.init(trustStore);
+
+        SSLContext context = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        context.init(new KeyManager[]{ km }, tmf.getTrustManagers(), null);
+
+        SSLEngine engine = context.createSSLEngine();
+        engine.setEnabledProtocols(new String[]{ protocol });
+        engine.setUseClientMode(false);
+        engine.setNeedClientAuth(clientAuth);
+
+        BCSSLEngine bcEngine = (BCSSLEngine)engine;
+        BCSSLParameters parameters = bcEngine.getParameters();
+        parameters.setSessionTicketKeySource(keySource);
+        bcEngine.setParameters(parameters);
+
+        return engine;
+    }
+
+    private static KeyStore createKeyStore() throws Exception
+    {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12", "BC");
+        keyStore.load(null, null);
+        return keyStore;
+    }
+}
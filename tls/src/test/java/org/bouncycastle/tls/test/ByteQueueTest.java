@@ -0,0 +1,154 @@
+package org.bouncycastle.tls.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+
+import junit.framework.TestCase;
+import org.bouncycastle.tls.ByteQueue;
+import org.bouncycastle.util.Arrays;
+
+public class ByteQueueTest
+    extends TestCase
+{
+    public void testWrapAround() throws IOException
+    {
+        checkWrapAround(new ByteQueue());
+        checkWrapAround(ByteQueue.createPooled());
+    }
+
+    private void checkWrapAround(ByteQueue queue) throws IOException
+    {
+
+        // Drain most of the data so that the next add wraps around the end of the buffer
+        queue.addData(sequence(0, 254), 0, 254);
+        queue.removeData(253);
+        queue.addData(sequence(254, 100), 0, 100);
+
+        assertEquals(101, queue.available());
+        assertEquals(253, queue.readUint8(0));
+        assertEquals(0xFF00, queue.readUint16(2));
+        assertEquals(0xFDFEFF00, queue.readInt32());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        queue.copyTo(output, 101);
+        assertTrue(Arrays.areEqual(sequence(253, 101), output.toByteArray()));
+
+        ByteBuffer buf = ByteBuffer.allocate(101);
+        queue.removeData(buf, 101, 0);
+        assertTrue(Arrays.areEqual(sequence(253, 101), buf.array()));
+        assertEquals(0, queue.available());
+    }
+
+    public void testRandomOperations()
+    {
+        checkRandomOperations(new ByteQueue());
+        checkRandomOperations(ByteQueue.createPooled());
+    }
+
+    public void testPooledQueueReuseAfterDrain()
+    {
+        ByteQueue queue = ByteQueue.createPooled();
+        queue.addData(sequence(1, 200), 0, 200);
+        queue.removeData(150);
+        assertEquals(50, queue.available());
+        assertTrue(Arrays.areEqual(sequence(151, 50), queue.removeData(50, 0)));
+        assertEquals(0, queue.available());
+
+        // The drained queue gave its buffer back; another queue may now be using it
+        ByteQueue other = ByteQueue.createPooled();
+        byte[] garbage = new byte[256];
+        Arrays.fill(garbage, (byte)0xFF);
+        other.addData(garbage, 0, garbage.length);
+
+        // The first queue can still be used, and sees only its own data
+        queue.addData(sequence(7, 10), 0, 10);
+        assertEquals(10, queue.available());
+        assertTrue(Arrays.areEqual(sequence(7, 10), queue.removeData(10, 0)));
+
+        assertTrue(Arrays.areEqual(garbage, other.removeData(garbage.length, 0)));
+    }
+
+    public void testPooledQueueGrowth()
+    {
+        ByteQueue queue = ByteQueue.createPooled();
+
+        // Grow through several buffer sizes, with the data wrapped around the end of the buffer each time
+        byte[] model = new byte[0];
+        int next = 0;
+        for (int len = 100; len <= 40000; len *= 3)
+        {
+            queue.addData(sequence(next, len), 0, len);
+            model = Arrays.concatenate(model, sequence(next, len));
+            next += len;
+
+            int remove = model.length / 2;
+            queue.removeData(remove);
+            model = Arrays.copyOfRange(model, remove, model.length);
+            assertEquals(model.length, queue.available());
+        }
+
+        assertTrue(Arrays.areEqual(model, queue.removeData(model.length, 0)));
+        assertEquals(0, queue.available());
+    }
+
+    public void testPooledQueueLargeData()
+    {
+        // Larger than any pooled buffer size
+        byte[] data = sequence(3, 100000);
+
+        ByteQueue queue = ByteQueue.createPooled();
+        queue.addData(data, 0, data.length);
+        assertEquals(data.length, queue.available());
+        assertTrue(Arrays.areEqual(data, queue.removeData(data.length, 0)));
+        assertEquals(0, queue.available());
+    }
+
+    private void checkRandomOperations(ByteQueue queue)
+    {
+        SecureRandom random = new SecureRandom();
+
+        // A reference model of the queue contents
+        byte[] model = new byte[0];
+        int next = 0;
+
+        for (int i = 0; i < 2000; ++i)
+        {
+            if (random.nextBoolean())
+            {
+                int len = random.nextInt(700);
+                queue.addData(sequence(next, len), 0, len);
+                model = Arrays.concatenate(model, sequence(next, len));
+                next += len;
+            }
+            else
+            {
+                int len = random.nextInt(model.length + 1);
+                int skip = random.nextInt(model.length - len + 1);
+                byte[] removed = queue.removeData(len, skip);
+                assertTrue(Arrays.areEqual(Arrays.copyOfRange(model, skip, skip + len), removed));
+                model = Arrays.copyOfRange(model, skip + len, model.length);
+            }
+
+            assertEquals(model.length, queue.available());
+
+            if (random.nextInt(50) == 0)
+            {
+                queue.shrink();
+            }
+        }
+
+        assertTrue(Arrays.areEqual(model, queue.removeData(model.length, 0)));
+    }
+
+    private static byte[] sequence(int start, int length)
+    {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; ++i)
+        {
+            data[i] = (byte)(start + i);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,274 @@
+package org.bouncycastle.tls.test;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+
+import org.bouncycastle.tls.CipherSuite;
+import org.bouncycastle.tls.DTLSRequest;
+import org.bouncycastle.tls.DTLSVerifier;
+import org.bouncycastle.tls.DatagramSender;
+import org.bouncycastle.tls.crypto.TlsCrypto;
+import org.bouncycastle.tls.crypto.impl.bc.BcTlsCrypto;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Strings;
+
+import junit.framework.TestCase;
+
+public class DTLSVerifierTest
+    extends TestCase
+{
+    private static final byte[] CLIENT_A = Strings.toUTF8ByteArray("192.0.2.1:5684");
+    private static final byte[] CLIENT_B = Strings.toUTF8ByteArray("192.0.2.2:5684");
+
+    private static class TestVerifier
+        extends DTLSVerifier
+    {
+        long now = 0L;
+
+        TestVerifier(TlsCrypto crypto, long rotationPeriod, long gracePeriod)
+        {
+            super(crypto, rotationPeriod, gracePeriod);
+        }
+
+        protected long currentTimeMillis()
+        {
+            return now;
+        }
+    }
+
+    private static class CapturingSender
+        implements DatagramSender
+    {
+        byte[] sent = null;
+
+        public int getSendLimit()
+        {
+            return 1500;
+        }
+
+        public void send(byte[] buf, int off, int len)
+        {
+            this.sent = Arrays.copyOfRange(buf, off, off + len);
+        }
+
+        byte[] getCookie()
+        {
+            assertNotNull("no HelloVerifyRequest sent", sent);
+
+            // Record header (13), handshake header (12), server_version (2), then the cookie<0..2^8-1>
+            int cookieLength = sent[27] & 0xFF;
+            return Arrays.copyOfRange(sent, 28, 28 + cookieLength);
+        }
+    }
+
+    private final TlsCrypto crypto = new BcTlsCrypto(new SecureRandom());
+    private final byte[] random = new byte[32];
+
+    protected void setUp()
+    {
+        crypto.getSecureRandom().nextBytes(random);
+    }
+
+    public void testCookieExchange() throws IOException
+    {
+        DTLSVerifier verifier = new DTLSVerifier(crypto);
+
+        byte[] cookie = getCookie(verifier, CLIENT_A);
+        assertEquals(32, cookie.length);
+
+        assertNotNull(verify(verifier, CLIENT_A, cookie));
+    }
+
+    public void testWrongClient() throws IOException
+    {
+        DTLSVerifier verifier = new DTLSVerifier(crypto);
+
+        byte[] cookie = getCookie(verifier, CLIENT_A);
+
+        byte[] clientHello = createClientHello(cookie);
+
+        CapturingSender sender = new CapturingSender();
+        assertNull(verifier.verifyRequest(CLIENT_B, clientHello, 0, clientHello.length, sender));
+        assertFalse(Arrays.areEqual(cookie, sender.getCookie()));
+    }
+
+    public void testForgedCookie() throws IOException
+    {
+        DTLSVerifier verifier = new DTLSVerifier(crypto);
+
+        byte[] cookie = getCookie(verifier, CLIENT_A);
+
+        // Right secret id (the first byte), wrong MAC
+        byte[] forged = Arrays.clone(cookie);
+        forged[forged.length - 1] ^= 0x01;
+
+        byte[] clientHello = createClientHello(forged);
+
+        CapturingSender sender = new CapturingSender();
+        assertNull(verifier.verifyRequest(CLIENT_A, clientHello, 0, clientHello.length, sender));
+        assertTrue(Arrays.areEqual(cookie, sender.getCookie()));
+    }
+
+    public void testConcurrentVerification() throws Exception
+    {
+        final DTLSVerifier verifier = new DTLSVerifier(crypto);
+        final Throwable[] failures = new Throwable[4];
+
+        Thread[] threads = new Thread[failures.length];
+        for (int i = 0; i < threads.length; ++i)
+        {
+            final int index = i;
+            threads[i] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for (int j = 0; j < 100; ++j)
+                        {
+                            byte[] clientID = Strings.toUTF8ByteArray("192.0.2." + index + ":" + j);
+                            assertNotNull(verify(verifier, clientID, getCookie(verifier, clientID)));
+                        }
+                    }
+                    catch (Throwable t)
+                    {
+                        failures[index] = t;
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for (int i = 0; i < threads.length; ++i)
+        {
+            threads[i].join();
+            assertNull(failures[i]);
+        }
+    }
+
+    public void testRotationGracePeriod() throws IOException
+    {
+        TestVerifier verifier = new TestVerifier(crypto, 1000L, 200L);
+
+        byte[] cookie = getCookie(verifier, CLIENT_A);
+
+        // Rotated, but the previous secret is within its grace period
+        verifier.now = 1100L;
+        assertNotNull(verify(verifier, CLIENT_A, cookie));
+
+        byte[] newCookie = getCookie(verifier, CLIENT_A);
+        assertFalse(Arrays.areEqual(cookie, newCookie));
+
+        verifier.now = 1300L;
+        assertNull(verify(verifier, CLIENT_A, cookie));
+        assertNotNull(verify(verifier, CLIENT_A, newCookie));
+    }
+
+    public void testExplicitRotation() throws IOException
+    {
+        DTLSVerifier verifier = new DTLSVerifier(crypto);
+
+        byte[] cookie = getCookie(verifier, CLIENT_A);
+
+        verifier.rotateSecret();
+
+        assertNull(verify(verifier, CLIENT_A, cookie));
+        assertNotNull(verify(verifier, CLIENT_A, getCookie(verifier, CLIENT_A)));
+    }
+
+    public void testBatch() throws IOException
+    {
+        DTLSVerifier verifier = new DTLSVerifier(crypto);
+
+        byte[] cookieA = getCookie(verifier, CLIENT_A);
+
+        byte[][] clientIDs = new byte[][]{ CLIENT_A, CLIENT_B, CLIENT_A, CLIENT_B };
+        byte[][] data = new byte[][]{ createClientHello(cookieA), createClientHello(cookieA),
+            createClientHello(new byte[0]), new byte[]{ 0x17, 0x03, 0x03 } };
+        int[] dataOffs = new int[4];
+        int[] dataLens = new int[4];
+        CapturingSender[] senders = new CapturingSender[4];
+        for (int i = 0; i < 4; ++i)
+        {
+            dataLens[i] = data[i].length;
+            senders[i] = new CapturingSender();
+        }
+
+        DTLSRequest[] requests = verifier.verifyRequests(clientIDs, data, dataOffs, dataLens, senders);
+
+        assertEquals(4, requests.length);
+        assertNotNull(requests[0]);
+        assertNull(senders[0].sent);
+        assertNull(requests[1]);
+        assertNotNull(senders[1].sent);
+        assertNull(requests[2]);
+        assertTrue(Arrays.areEqual(cookieA, senders[2].getCookie()));
+        assertNull(requests[3]);
+        assertNull(senders[3].sent);
+    }
+
+    private byte[] getCookie(DTLSVerifier verifier, byte[] clientID) throws IOException
+    {
+        byte[] clientHello = createClientHello(new byte[0]);
+
+        CapturingSender sender = new CapturingSender();
+        assertNull(verifier.verifyRequest(clientID, clientHello, 0, clientHello.length, sender));
+        return sender.getCookie();
+    }
+
+    private DTLSRequest verify(DTLSVerifier verifier, byte[] clientID, byte[] cookie) throws IOException
+    {
+        byte[] clientHello = createClientHello(cookie);
+
+        return verifier.verifyRequest(clientID, clientHello, 0, clientHello.length, new CapturingSender());
+    }
+
+    private byte[] createClientHello(byte[] cookie)
+    {
+        int bodyLength = 2 + 32 + 1 + 1 + cookie.length + 2 + 2 + 1 + 1;
+        int msgLength = 12 + bodyLength;
+
+        byte[] datagram = new byte[13 + msgLength];
+        int pos = 0;
+
+        // DTLSPlaintext header: handshake, DTLS 1.2, epoch 0, sequence_number 0
+        datagram[pos++] = 22;
+        datagram[pos++] = (byte)0xFE;
+        datagram[pos++] = (byte)0xFD;
+        pos += 2 + 6;
+        datagram[pos++] = (byte)(msgLength >>> 8);
+        datagram[pos++] = (byte)msgLength;
+
+        // Handshake header: client_hello, length, message_seq 0, fragment_offset 0, fragment_length
+        datagram[pos++] = 1;
+        pos = writeUint24(bodyLength, datagram, pos);
+        pos += 2 + 3;
+        pos = writeUint24(bodyLength, datagram, pos);
+
+        datagram[pos++] = (byte)0xFE;
+        datagram[pos++] = (byte)0xFD;
+        System.arraycopy(random, 0, datagram, pos, 32);
+        pos += 32;
+        datagram[pos++] = 0;
+        datagram[pos++] = (byte)cookie.length;
+        System.arraycopy(cookie, 0, datagram, pos, cookie.length);
+        pos += cookie.length;
+        datagram[pos++] = 0;
+        datagram[pos++] = 2;
+        datagram[pos++] = (byte)(CipherSuite.TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256 >>> 8);
+        datagram[pos++] = (byte)CipherSuite.TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256;
+        datagram[pos++] = 1;
+        datagram[pos++] = 0;
+
+        assertEquals(datagram.length, pos);
+        return datagram;
+    }
+
+    private static int writeUint24(int i, byte[] buf, int off)
+    {
+        buf[off++] = (byte)(i >>> 16);
+        buf[off++] = (byte)(i >>> 8);
+        buf[off++] = (byte)i;
+        return off;
+    }
+}
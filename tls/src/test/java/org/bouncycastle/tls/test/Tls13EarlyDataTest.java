@@ -0,0 +1,257 @@
+package org.bouncycastle.tls.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+
+import org.bouncycastle.tls.AlertDescription;
+import org.bouncycastle.tls.AlertLevel;
+import org.bouncycastle.tls.NamedGroup;
+import org.bouncycastle.tls.TlsClientContext;
+import org.bouncycastle.tls.TlsClientProtocol;
+import org.bouncycastle.tls.TlsServerProtocol;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.io.Streams;
+
+import junit.framework.TestCase;
+
+public class Tls13EarlyDataTest
+    extends TestCase
+{
+    public void testEarlyDataAccepted() throws Exception
+    {
+        byte[] earlyData = createData(600);
+
+        EarlyDataServer server = new EarlyDataServer(1024L, true, false);
+        EarlyDataClient client = new EarlyDataClient(earlyData);
+
+        TlsClientProtocol clientProtocol = runHandshake(client, server);
+
+        assertTrue(client.getContext().getSecurityParametersConnection().isEarlyDataAccepted());
+
+        // The server echoes the early data once the handshake completes
+        byte[] echo = new byte[earlyData.length];
+        Streams.readFully(clientProtocol.getInputStream(), echo);
+        assertTrue(Arrays.areEqual(earlyData, echo));
+
+        checkEcho(clientProtocol);
+        server.thread.join();
+
+        assertEquals(-1, server.raisedAlert);
+        assertTrue(server.earlyDataAccepted);
+    }
+
+    public void testEarlyDataRejected() throws Exception
+    {
+        EarlyDataServer server = new EarlyDataServer(1024L, false, false);
+        EarlyDataClient client = new EarlyDataClient(createData(600));
+
+        TlsClientProtocol clientProtocol = runHandshake(client, server);
+
+        assertFalse(client.getContext().getSecurityParametersConnection().isEarlyDataAccepted());
+
+        // Nothing of the (skipped) early data reaches the server application
+        checkEcho(clientProtocol);
+        server.thread.join();
+
+        assertEquals(-1, server.raisedAlert);
+        assertFalse(server.earlyDataAccepted);
+    }
+
+    public void testEarlyDataDisabled() throws Exception
+    {
+        EarlyDataServer server = new EarlyDataServer(0L, true, false);
+        EarlyDataClient client = new EarlyDataClient(createData(600));
+
+        TlsClientProtocol clientProtocol = runHandshake(client, server);
+
+        assertFalse(client.getContext().getSecurityParametersConnection().isEarlyDataAccepted());
+
+        checkEcho(clientProtocol);
+        server.thread.join();
+
+        assertEquals(-1, server.raisedAlert);
+    }
+
+    public void testEarlyDataAfterHelloRetryRequest() throws Exception
+    {
+        EarlyDataServer server = new EarlyDataServer(1024L, true, true);
+        EarlyDataClient client = new EarlyDataClient(createData(600));
+
+        TlsClientProtocol clientProtocol = runHandshake(client, server);
+
+        assertFalse(client.getContext().getSecurityParametersConnection().isEarlyDataAccepted());
+
+        checkEcho(clientProtocol);
+        server.thread.join();
+
+        assertEquals(-1, server.raisedAlert);
+    }
+
+    public void testEarlyDataTooLarge() throws Exception
+    {
+        EarlyDataServer server = new EarlyDataServer(100L, true, false);
+        EarlyDataClient client = new EarlyDataClient(createData(600));
+
+        try
+        {
+            TlsClientProtocol clientProtocol = runHandshake(client, server);
+            clientProtocol.getInputStream().read();
+        }
+        catch (IOException e)
+        {
+            // Expected (depending on timing, possibly during the handshake)
+        }
+
+        server.thread.join();
+
+        assertEquals(AlertDescription.unexpected_message, server.raisedAlert);
+    }
+
+    private TlsClientProtocol runHandshake(EarlyDataClient client, EarlyDataServer server) throws Exception
+    {
+        PipedInputStream clientRead = TlsTestUtils.createPipedInputStream();
+        PipedInputStream serverRead = TlsTestUtils.createPipedInputStream();
+        PipedOutputStream clientWrite = new PipedOutputStream(serverRead);
+        PipedOutputStream serverWrite = new PipedOutputStream(clientRead);
+
+        TlsClientProtocol clientProtocol = new TlsClientProtocol(clientRead, clientWrite);
+        TlsServerProtocol serverProtocol = new TlsServerProtocol(serverRead, serverWrite);
+
+        server.thread = new ServerThread(serverProtocol, server);
+        server.thread.start();
+
+        clientProtocol.connect(client);
+        return clientProtocol;
+    }
+
+    private void checkEcho(TlsClientProtocol clientProtocol) throws Exception
+    {
+        byte[] data = createData(1000);
+
+        OutputStream output = clientProtocol.getOutputStream();
+        output.write(data);
+
+        byte[] echo = new byte[data.length];
+        int count = Streams.readFully(clientProtocol.getInputStream(), echo);
+
+        assertEquals(count, data.length);
+        assertTrue(Arrays.areEqual(data, echo));
+
+        output.close();
+    }
+
+    private static byte[] createData(int length)
+    {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; ++i)
+        {
+            data[i] = (byte)i;
+        }
+        return data;
+    }
+
+    static class EarlyDataClient
+        extends MockPSKTls13Client
+    {
+        private final byte[] earlyData;
+
+        EarlyDataClient(byte[] earlyData)
+        {
+            this.earlyData = earlyData;
+        }
+
+        public byte[] getEarlyData()
+        {
+            return earlyData;
+        }
+
+        TlsClientContext getContext()
+        {
+            return context;
+        }
+    }
+
+    static class EarlyDataServer
+        extends MockPSKTls13Server
+    {
+        private final long maxEarlyDataSize;
+        private final boolean acceptEarlyData;
+        private final boolean forceRetry;
+
+        volatile ServerThread thread;
+        volatile boolean earlyDataAccepted = false;
+        volatile int raisedAlert = -1;
+
+        EarlyDataServer(long maxEarlyDataSize, boolean acceptEarlyData, boolean forceRetry)
+        {
+            this.maxEarlyDataSize = maxEarlyDataSize;
+            this.acceptEarlyData = acceptEarlyData;
+            this.forceRetry = forceRetry;
+        }
+
+        public int[] getSupportedGroups() throws IOException
+        {
+            if (forceRetry)
+            {
+                // NOTE: Not the client's early key share group, so a HelloRetryRequest is needed
+                return new int[]{ NamedGroup.secp384r1 };
+            }
+            return super.getSupportedGroups();
+        }
+
+        public long getMaxEarlyDataSize()
+        {
+            return maxEarlyDataSize;
+        }
+
+        public boolean acceptEarlyData()
+        {
+            return acceptEarlyData;
+        }
+
+        public void notifyAlertRaised(short alertLevel, short alertDescription, String message, Throwable cause)
+        {
+            super.notifyAlertRaised(alertLevel, alertDescription, message, cause);
+
+            if (AlertLevel.fatal == alertLevel)
+            {
+                this.raisedAlert = alertDescription;
+            }
+        }
+
+        public void notifyHandshakeComplete() throws IOException
+        {
+            super.notifyHandshakeComplete();
+
+            this.earlyDataAccepted = context.getSecurityParametersConnection().isEarlyDataAccepted();
+        }
+    }
+
+    static class ServerThread
+        extends Thread
+    {
+        private final TlsServerProtocol serverProtocol;
+        private final EarlyDataServer server;
+
+        ServerThread(TlsServerProtocol serverProtocol, EarlyDataServer server)
+        {
+            this.serverProtocol = serverProtocol;
+            this.server = server;
+        }
+
+        public void run()
+        {
+            try
+            {
+                serverProtocol.accept(server);
+                Streams.pipeAll(serverProtocol.getInputStream(), serverProtocol.getOutputStream());
+                serverProtocol.close();
+            }
+            catch (Exception e)
+            {
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.bouncycastle.tls.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.tls.TlsClientProtocol;
+import org.bouncycastle.tls.TlsNioEngine;
+import org.bouncycastle.tls.TlsServerProtocol;
+import org.bouncycastle.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class TlsNioEngineTest
+    extends TestCase
+{
+    public void testHeapBuffers() throws IOException
+    {
+        implTestClientServer(false);
+    }
+
+    public void testDirectBuffers() throws IOException
+    {
+        implTestClientServer(true);
+    }
+
+    public void testCoalescedWrites() throws IOException
+    {
+        TlsNioEngine clientEngine = new TlsNioEngine(new TlsClientProtocol());
+        TlsNioEngine serverEngine = new TlsNioEngine(new TlsServerProtocol());
+        ByteBuffer clientToServer = ByteBuffer.allocate(1 << 17), serverToClient = ByteBuffer.allocate(1 << 17);
+
+        runHandshake(clientEngine, serverEngine, clientToServer, serverToClient);
+
+        // Ten small writes that together fit in a single record
+        int piece = clientEngine.getProtocol().getApplicationDataLimit() / 10;
+        byte[] data = createData(piece * 10);
+        for (int i = 0; i < 10; ++i)
+        {
+            clientEngine.write(ByteBuffer.wrap(data, i * piece, piece));
+        }
+
+        // Nothing is encrypted until the output is wrapped
+        assertEquals(0, clientEngine.getAvailableOutputBytes());
+
+        clientEngine.wrap(clientToServer);
+        ((java.nio.Buffer)clientToServer).flip();
+        assertEquals(1, countRecords(clientToServer));
+
+        assertEquals(clientToServer.remaining(), serverEngine.unwrap(clientToServer));
+        clientToServer.compact();
+
+        ByteBuffer[] dsts = new ByteBuffer[]{ ByteBuffer.allocate(piece * 3), ByteBuffer.allocate(piece * 7) };
+        assertEquals(data.length, serverEngine.read(dsts, 0, dsts.length));
+        assertTrue(Arrays.areEqual(data, concat(dsts)));
+    }
+
+    public void testPartialRecord() throws IOException
+    {
+        TlsNioEngine clientEngine = new TlsNioEngine(new TlsClientProtocol());
+        TlsNioEngine serverEngine = new TlsNioEngine(new TlsServerProtocol());
+        ByteBuffer clientToServer = ByteBuffer.allocate(1 << 17), serverToClient = ByteBuffer.allocate(1 << 17);
+
+        runHandshake(clientEngine, serverEngine, clientToServer, serverToClient);
+
+        byte[] data = createData(300);
+        clientEngine.write(ByteBuffer.wrap(data));
+        clientEngine.wrap(clientToServer);
+        ((java.nio.Buffer)clientToServer).flip();
+
+        int recordSize = clientToServer.remaining();
+        ByteBuffer partial = ByteBuffer.allocate(recordSize);
+        partial.put(clientToServer.array(), 0, recordSize - 1);
+        ((java.nio.Buffer)partial).flip();
+
+        assertEquals(0, serverEngine.unwrap(partial));
+        assertEquals(recordSize - 1, partial.remaining());
+
+        partial.compact();
+        partial.put(clientToServer.get(recordSize - 1));
+        ((java.nio.Buffer)partial).flip();
+
+        assertEquals(recordSize, serverEngine.unwrap(partial));
+        assertEquals(300, serverEngine.getAvailableInputBytes());
+    }
+
+    public void testWriteBeforeHandshake() throws IOException
+    {
+        TlsClientProtocol clientProtocol = new TlsClientProtocol();
+        TlsNioEngine clientEngine = new TlsNioEngine(clientProtocol);
+        clientProtocol.connect(new MockTlsClient(null));
+
+        try
+        {
+            clientEngine.write(ByteBuffer.allocate(10));
+            fail("Output was accepted before the handshake");
+        }
+        catch (IllegalStateException e)
+        {
+        }
+    }
+
+    private static void implTestClientServer(boolean direct) throws IOException
+    {
+        TlsNioEngine clientEngine = new TlsNioEngine(new TlsClientProtocol());
+        TlsNioEngine serverEngine = new TlsNioEngine(new TlsServerProtocol());
+        ByteBuffer clientToServer = allocate(1 << 17, direct), serverToClient = allocate(1 << 17, direct);
+
+        runHandshake(clientEngine, serverEngine, clientToServer, serverToClient);
+
+        // Larger than a record, gathered from several buffers
+        byte[] data = createData(40000);
+        ByteBuffer[] srcs = new ByteBuffer[]{ wrap(data, 0, 10, direct), wrap(data, 10, 20000, direct),
+            wrap(data, 20010, 19990, direct) };
+
+        assertEquals(40000L, clientEngine.write(srcs, 0, srcs.length));
+        for (int i = 0; i < srcs.length; ++i)
+        {
+            assertFalse(srcs[i].hasRemaining());
+        }
+
+        clientEngine.wrap(clientToServer);
+        ((java.nio.Buffer)clientToServer).flip();
+        serverEngine.unwrap(clientToServer);
+        clientToServer.compact();
+
+        ByteBuffer received = allocate(data.length, direct);
+        assertEquals(40000L, serverEngine.read(new ByteBuffer[]{ received }, 0, 1));
+        assertTrue(Arrays.areEqual(data, concat(new ByteBuffer[]{ received })));
+
+        // Close from the client
+        clientEngine.close();
+        clientEngine.wrap(clientToServer);
+        ((java.nio.Buffer)clientToServer).flip();
+        serverEngine.unwrap(clientToServer);
+
+        assertTrue(serverEngine.isClosed());
+        assertTrue(clientEngine.isClosed());
+    }
+
+    private static void runHandshake(TlsNioEngine clientEngine, TlsNioEngine serverEngine,
+        ByteBuffer clientToServer, ByteBuffer serverToClient) throws IOException
+    {
+        ((TlsClientProtocol)clientEngine.getProtocol()).connect(new MockTlsClient(null));
+        ((TlsServerProtocol)serverEngine.getProtocol()).accept(new MockTlsServer());
+
+        for (int i = 0; i < 20 && (clientEngine.isHandshaking() || serverEngine.isHandshaking()); ++i)
+        {
+            pump(clientEngine, serverEngine, clientToServer);
+            pump(serverEngine, clientEngine, serverToClient);
+        }
+
+        assertFalse(clientEngine.isHandshaking());
+        assertFalse(serverEngine.isHandshaking());
+
+        // Deliver anything still in flight (e.g. TLS 1.3 session tickets)
+        pump(serverEngine, clientEngine, serverToClient);
+        pump(clientEngine, serverEngine, clientToServer);
+
+        assertEquals(0, clientEngine.getAvailableOutputBytes());
+        assertEquals(0, serverEngine.getAvailableOutputBytes());
+    }
+
+    private static void pump(TlsNioEngine from, TlsNioEngine to, ByteBuffer network) throws IOException
+    {
+        from.wrap(network);
+        ((java.nio.Buffer)network).flip();
+        to.unwrap(network);
+        network.compact();
+    }
+
+    private static int countRecords(ByteBuffer buf)
+    {
+        int count = 0, pos = buf.position();
+        while (pos < buf.limit())
+        {
+            int length = ((buf.get(pos + 3) & 0xFF) << 8) | (buf.get(pos + 4) & 0xFF);
+            pos += 5 + length;
+            ++count;
+        }
+        return count;
+    }
+
+    private static ByteBuffer allocate(int capacity, boolean direct)
+    {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private static ByteBuffer wrap(byte[] data, int off, int len, boolean direct)
+    {
+        ByteBuffer buf = allocate(len, direct);
+        buf.put(data, off, len);
+        ((java.nio.Buffer)buf).flip();
+        return buf;
+    }
+
+    private static byte[] concat(ByteBuffer[] bufs)
+    {
+        byte[] result = new byte[0];
+        for (int i = 0; i < bufs.length; ++i)
+        {
+            ((java.nio.Buffer)bufs[i]).flip();
+            byte[] tmp = new byte[bufs[i].remaining()];
+            bufs[i].get(tmp);
+            result = Arrays.concatenate(result, tmp);
+        }
+        return result;
+    }
+
+    private static byte[] createData(int length)
+    {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; ++i)
+        {
+            data[i] = (byte)i;
+        }
+        return data;
+    }
+}